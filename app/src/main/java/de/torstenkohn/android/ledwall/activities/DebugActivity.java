@@ -0,0 +1,142 @@
+package de.torstenkohn.android.ledwall.activities;
+
+import java.io.File;
+import java.io.IOException;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.util.Log;
+import android.view.View;
+import android.view.View.OnClickListener;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+import de.torstenkohn.android.ledwall.R;
+import de.torstenkohn.android.ledwall.connection.ConnectionMetrics;
+import de.torstenkohn.android.ledwall.core.LEDWallActivity;
+
+/**
+ * The activity shows the measurements of the connection to the server:<br/>
+ * latencies, bytes and messages per function and the number of connects.<br/>
+ * The values are refreshed every second, they can be reset<br/>
+ * or saved to a file to compare them later.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class DebugActivity extends LEDWallActivity implements OnClickListener {
+
+	/**
+	 * The interval in ms in which the values are refreshed
+	 */
+	private static final int REFRESH_INTERVAL = 1000;
+
+	/**
+	 * The name of the file for the report
+	 */
+	private static final String REPORT_FILENAME = "ledwall_metrics.txt";
+
+
+	private final Handler refreshHandler = new Handler();
+	private TextView report;
+	private ConnectionMetrics metrics;
+
+
+	/**
+	 * Refreshes the report and schedules the next refresh
+	 */
+	private final Runnable refresh = new Runnable() {
+
+		@Override
+		public void run() {
+			updateReport();
+			refreshHandler.postDelayed(this, REFRESH_INTERVAL);
+		}// run
+	};
+
+
+	/**
+	 * The method initializes the connection to the server
+	 */
+	@Override
+	protected void onCreate(Bundle savedInstanceState) {
+		setContentView(R.layout.activity_debug);
+		super.onCreate(savedInstanceState);
+		initConnection();
+		setActionbarTitle(R.string.menu_debug);
+	}// onCreate
+
+
+	/**
+	 * Initializes the surface and starts the refresh
+	 */
+	@Override
+	protected void onStart() {
+		super.onStart();
+		metrics = getConnectionManager().getMetrics();
+		report = (TextView) findViewById(R.id.debug_textView_report);
+		((Button) findViewById(R.id.debug_button_refresh)).setOnClickListener(this);
+		((Button) findViewById(R.id.debug_button_reset)).setOnClickListener(this);
+		((Button) findViewById(R.id.debug_button_save)).setOnClickListener(this);
+		refreshHandler.post(refresh);
+	}// onStart
+
+
+	/**
+	 * Stops the refresh, no values are shown while the activity is not visible
+	 */
+	@Override
+	protected void onStop() {
+		refreshHandler.removeCallbacks(refresh);
+		super.onStop();
+	}// onStop
+
+
+	@Override
+	public void onClick(View v) {
+		switch (v.getId()) {
+		case (R.id.debug_button_refresh):
+			updateReport();
+			break;
+
+		case (R.id.debug_button_reset):
+			metrics.reset();
+			updateReport();
+			break;
+
+		case (R.id.debug_button_save):
+			saveReport();
+			break;
+		}// switch
+	}// onClick
+
+
+	private void updateReport() {
+		report.setText(metrics.report());
+	}// updateReport
+
+
+	/**
+	 * Saves the report in the directory of the app on the external storage,<br/>
+	 * if it is not available, in the internal directory of the app.
+	 */
+	private void saveReport() {
+		File directory = getExternalFilesDir(null);
+		if (directory == null) {
+			directory = getFilesDir();
+		}// if
+		File file = new File(directory, REPORT_FILENAME);
+		String message;
+		try {
+			metrics.dumpToFile(file);
+			message = getResources().getString(R.string.debug_toast_save)
+					+ " " + file.getAbsolutePath();
+		} catch (IOException e) {
+			if (D)
+				Log.e(getTAG(), "saveReport()", e);
+			message = getResources().getString(R.string.debug_error_save);
+		}// try
+		Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+	}// saveReport
+
+}// class DebugActivity
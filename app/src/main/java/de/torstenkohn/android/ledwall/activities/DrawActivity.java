@@ -1,36 +1,74 @@
 package de.torstenkohn.android.ledwall.activities;
 
-import java.util.Date;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
 
-import android.graphics.Color;
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
 import android.os.Bundle;
-import android.view.Gravity;
+import android.os.SystemClock;
+import android.util.Log;
 import android.view.View;
 import android.view.View.OnClickListener;
-import android.widget.ImageView;
-import android.widget.LinearLayout;
+import android.widget.Button;
+import android.widget.Toast;
 import de.torstenkohn.android.ledwall.R;
+import de.torstenkohn.android.ledwall.animation.AnimationPlayer;
+import de.torstenkohn.android.ledwall.animation.ClipPlayer;
+import de.torstenkohn.android.ledwall.animation.ScrollAnimation;
+import de.torstenkohn.android.ledwall.connection.DrawBatcher;
 import de.torstenkohn.android.ledwall.core.LEDWallActivity;
+import de.torstenkohn.android.ledwall.image.BitmapPixelSource;
+import de.torstenkohn.android.ledwall.image.FrameSequence;
+import de.torstenkohn.android.ledwall.image.GifDecoder;
+import de.torstenkohn.android.ledwall.image.ImageConverter;
+import de.torstenkohn.android.ledwall.image.ImageSequence;
+import de.torstenkohn.android.ledwall.view.LEDMatrixView;
 
 /**
- * The activity serves a 10x16 field of ImageViews so you can draw on the LED Wall.<br/>
+ * The activity serves a 10x16 field of LEDs so you can draw on the LED Wall.<br/>
  * You can control each LED individually with this activity.<br/>
- * The activity also provides a method to customize that layout.
+ * The field is one LEDMatrixView, which draws all LEDs and turns a touch into the LED.<br/>
+ * A finger which moves over the field paints all LEDs of the stroke,<br/>
+ * the DrawBatcher sends the changes at most every 50 ms and at the end of the stroke.<br/>
+ * The buttons below the info text let the drawing run over the wall (see AnimationPlayer)<br/>
+ * and load a picture of the gallery or the camera into the field (see ImageConverter).<br/>
+ * An animated GIF or a numbered PNG file of a folder of frames is played as a clip<br/>
+ * on the wall (see ClipPlayer), the button of the animation stops it.
  * 
  * @author Torsten Kohn
  * @since 25.08.2013
  * 
  */
-public class DrawActivity extends LEDWallActivity implements OnClickListener {
+public class DrawActivity extends LEDWallActivity implements LEDMatrixView.OnLEDTouchListener {
 
 	private static final int LEDWALL_WIDTH = 10;
 	private static final int LEDWALL_HEIGHT = 16;
-	private static final int DELAY = 250;
 	private static final int NUMBER_OF_LED = 160;
 	private static final int PIXEL_NONE = 0;
 	private static final int PIXEL_RED = 1;
 	private static final int PIXEL_GREEN = 2;
 	private static final int PIXEL_BLUE = 3;
+
+	/**
+	 * The time in ms in which the drawing moves by one LED
+	 */
+	private static final int ANIMATION_STEP_TIME = 150;
+
+	private static final int REQUEST_IMAGE = 1;
+
+	/**
+	 * The picture is decoded with at least this number of pixels per LED,<br/>
+	 * so a large photo is already reduced while it is decoded
+	 */
+	private static final int MIN_PIXELS_PER_LED = 32;
+
+	private static final ImageConverter.Dithering DITHERING = ImageConverter.Dithering.FLOYD_STEINBERG;
 	
 	
 	/**
@@ -38,12 +76,51 @@ public class DrawActivity extends LEDWallActivity implements OnClickListener {
 	 * Each position can assume the value 0 (none), 1 (red), 2 (green) or 3 (blue)
 	 */
 	private int[] matrix;
-	
-	
+
+	private Button animationButton;
+
+	/**
+	 * The view of the LEDs, the index of a LED is the position in the matrix
+	 */
+	private LEDMatrixView ledView;
+
+	/**
+	 * Sends the painted LEDs to the server, at most one message per interval
+	 */
+	private DrawBatcher drawBatcher;
+
+	/**
+	 * The LED value of the running stroke, the first LED of the stroke decides it
+	 */
+	private int brush;
+
+	/**
+	 * true if the running stroke has changed a LED
+	 */
+	private boolean isStrokeChanged;
+
+	private final Runnable flushTask = new Runnable() {
+
+		@Override
+		public void run() {
+			drawBatcher.flush(matrix);
+		}// run
+	};
+
+	/**
+	 * Converts the loaded pictures, its threads are stopped in onDestroy()
+	 */
+	private final ImageConverter imageConverter = new ImageConverter();
+
+	/**
+	 * The player of the running animation, null if no animation is running
+	 */
+	private AnimationPlayer player;
+
 	/**
-	 * The variable contains the time at which the last change was sent to the server
+	 * The player of the running clip, null if no clip is running
 	 */
-	private long lastSend;
+	private ClipPlayer clipPlayer;
 
 	
 	/**
@@ -62,17 +139,38 @@ public class DrawActivity extends LEDWallActivity implements OnClickListener {
 
 	
 	/**
-	 * The method extends the LinearLayout for a 10x16 array of ImageView elements.<br/>
+	 * The method initializes the LEDMatrixView with a 10x16 field of LEDs.<br/>
 	 * This field represents the Wall LED<br/>
-	 * and an OnClickListener to each field is set.<br/>
-	 * Through the OnClickListener each field can be changed by clicking.
+	 * and the activity is set as its OnLEDTouchListener.<br/>
+	 * Through the OnLEDTouchListener each field can be changed by clicking or by a stroke.
 	 */
 	private void initGUI() {
 
 		matrix = new int[NUMBER_OF_LED];
-		LinearLayout layout = (LinearLayout) findViewById(R.id.draw_layout);
-		LinearLayout tempLayout;
-		ImageView image;
+		animationButton = (Button) findViewById(R.id.draw_button_animation);
+		animationButton.setOnClickListener(new OnClickListener() {
+
+			@Override
+			public void onClick(View v) {
+				if (clipPlayer != null) {
+					stopClip();
+				} else if (player == null) {
+					startAnimation();
+				} else {
+					stopAnimation();
+				}// if
+			}// onClick
+		});
+
+		((Button) findViewById(R.id.draw_button_image)).setOnClickListener(new OnClickListener() {
+
+			@Override
+			public void onClick(View v) {
+				Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+				intent.setType("image/*");
+				startActivityForResult(intent, REQUEST_IMAGE);
+			}// onClick
+		});
 
 		/*
 		 * initialized the array with PIXEL_NONE
@@ -81,88 +179,384 @@ public class DrawActivity extends LEDWallActivity implements OnClickListener {
 			matrix[i] = PIXEL_NONE;
 		}// for
 
-		
-		for (int i = 0; i < LEDWALL_HEIGHT; i++) {
-			
-			// generated for each row a new LinearLayout
-			tempLayout = new LinearLayout(this);
-			tempLayout.setHorizontalGravity(Gravity.CENTER);
-			
-			for (int j = i * LEDWALL_WIDTH; j < (i * LEDWALL_WIDTH) + LEDWALL_WIDTH; j++) {
-				
-				// generated for each row LEDWALL_WIDTH (10) ImageView elements
-				image = new ImageView(this);
-				image.setImageResource(getResId(matrix[j]));
-				image.setId(j);
-				image.setBackgroundColor(Color.BLACK);
-				image.setOnClickListener(this);
-				tempLayout.addView(image);
-			}// for
-
-			layout.addView(tempLayout);
-
-		}// for
+		long start = System.nanoTime();
+		ledView = (LEDMatrixView) findViewById(R.id.draw_led_view);
+		ledView.setDimensions(LEDWALL_WIDTH, LEDWALL_HEIGHT);
+		ledView.setValues(matrix);
+		ledView.setOnLEDTouchListener(this);
+		drawBatcher = new DrawBatcher(getConnectionManager().getQueue(), DrawBatcher.DEFAULT_INTERVAL);
+		drawBatcher.reset(matrix);
+		if (D)
+			Log.d(getTAG(), "initGUI() field created in " + (System.nanoTime() - start) / 1000 + " us");
 	}// initGUI
 
 	
 	/**
-	 * The method converts the integer value of the integer array (0, 1, 2, 3)<br/>
-	 * into the resource id, and returns it.
-	 * @param pixelValue of type Integer, 0=none 1=red 2=green 3=ble 
-	 * @return of type Integer, the resource id for the image
-	 */
-	private int getResId(int pixelValue) {
-		
-		int result = 0;
-		switch (pixelValue) {
-		case PIXEL_NONE:
-			result = R.drawable.pixel_none;
-			break;
-		case PIXEL_RED:
-			result = R.drawable.pixel_red;
-			break;
-		case PIXEL_GREEN:
-			result = R.drawable.pixel_green;
-			break;
-		case PIXEL_BLUE:
-			result = R.drawable.pixel_blue;
-			break;
-		}// switch
-		return result;
-	}// getResId
+	 * The LEDMatrixView calls the method for every LED of a stroke.<br/>
+	 * The first LED of the stroke is changed like this:<br/>
+	 *     0 (none) -> 1 (red) -> 2 (green) -> 3 (blue) -> 0 (none)<br/>
+	 * and all other LEDs of the stroke get the same value.
+	 */
+	@Override
+	public void onLEDTouched(LEDMatrixView view, int index, boolean isStrokeStart) {
+		if (isStrokeStart) {
+			int value = matrix[index] + 1;
+			if (value > PIXEL_BLUE) {
+				value = PIXEL_NONE;
+			}// if
+			brush = value;
+			isStrokeChanged = false;
+			if (player == null) {
+				drawBatcher.startStroke();
+			}// if
+		}// if
+		if (matrix[index] == brush) {
+			return;
+		}// if
+
+		matrix[index] = brush;
+		ledView.setValue(index, brush);
+		isStrokeChanged = true;
+
+		/*
+		 * The changes are sent to the server at most every DrawBatcher.DEFAULT_INTERVAL ms.
+		 * If the server supports it, only the changed LEDs are transmitted (see DrawDeltaEncoder).
+		 * A running animation is started again at the end of the stroke.
+		 */
+		if (player == null && drawBatcher.changed()) {
+			ledView.postDelayed(flushTask, drawBatcher.getDelay());
+		}// if
+	}// onLEDTouched
+
 
-	
 	/**
-	 * Each ImageView has registered an OnClickListener that calls the onClick method.<br/>
-	 * If an item is clicked, the onClick method is invoked.<br/>
-	 * The method changes the ImageView like this:<br/>
-	 *     0 (none) -> 1 (red) -> 2 (green) -> 3 (blue) -> 0 (none)
+	 * The last changes of the stroke are sent at once, so the wall always shows the drawing
 	 */
 	@Override
-	public void onClick(View v) {
-		int value = matrix[v.getId()]; // v.getId() reflects the positions in the array 
-		value++;
+	public void onStrokeEnd(LEDMatrixView view) {
+		ledView.removeCallbacks(flushTask);
+		if (player != null) {
+			if (isStrokeChanged) {
+				player.stop();
+				player = null;
+				startAnimation();
+			}// if
+		} else {
+			drawBatcher.endStroke(matrix);
+		}// if
+	}// onStrokeEnd
 
-		if (value > PIXEL_BLUE) {
-			value = 0;
+
+	/**
+	 * The animation and the clip are stopped when the activity is not visible anymore
+	 */
+	@Override
+	protected void onPause() {
+		if (player != null) {
+			stopAnimation();
 		}// if
+		if (clipPlayer != null) {
+			stopClip();
+		}// if
+		ledView.removeCallbacks(flushTask);
+		drawBatcher.flush(matrix);
+		if (D)
+			Log.d(getTAG(), "onPause() " + ledView.getDrawTime().getCount() + " draws, mean "
+					+ ledView.getDrawTime().getMean() + " us, max " + ledView.getDrawTime().getMax() + " us\n"
+					+ drawBatcher.report());
+		super.onPause();
+	}// onPause
 
-		matrix[v.getId()] = value;
-		((ImageView) v).setImageResource(getResId(matrix[v.getId()]));
 
-		
-		/*
-		 * The modified array is sent to the server only
-		 * when enough time between the last message is.
-		 */
-		long currTime = new Date().getTime();
-		long timeDifference = currTime - lastSend;
+	@Override
+	protected void onDestroy() {
+		imageConverter.shutdown();
+		super.onDestroy();
+	}// onDestroy
 
-		if (timeDifference > DELAY) {
-			lastSend = currTime;
-			getConnectionManager().addMessage(
-					getLedWallMessage().getFunctionDraw(matrix));
+
+	/**
+	 * The picture chosen by the user is loaded in a background thread,<br/>
+	 * an animated GIF or a frame of a numbered PNG folder is played as a clip
+	 */
+	@Override
+	protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+		super.onActivityResult(requestCode, resultCode, data);
+		if (requestCode != REQUEST_IMAGE || resultCode != RESULT_OK || data == null
+				|| data.getData() == null) {
+			return;
+		}// if
+		final Uri uri = data.getData();
+		if (clipPlayer != null) {
+			stopClip();
+		}// if
+		if (isGif(uri)) {
+			startClip(new ClipPlayer.ClipSource() {
+
+				@Override
+				public FrameSequence open() throws IOException {
+					return new GifDecoder(new BufferedInputStream(openImage(uri)));
+				}// open
+			});
+			return;
+		}// if
+		final File[] frames = findFrames(uri);
+		if (frames.length > 1) {
+			startClip(new ClipPlayer.ClipSource() {
+
+				@Override
+				public FrameSequence open() {
+					return new ImageSequence(frames, ImageSequence.DEFAULT_DELAY,
+							LEDWALL_WIDTH * MIN_PIXELS_PER_LED, LEDWALL_HEIGHT * MIN_PIXELS_PER_LED);
+				}// open
+			});
+			return;
+		}// if
+
+		new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				loadImage(uri);
+			}// run
+		}, "LoadImage").start();
+	}// onActivityResult
+
+
+	/**
+	 * Decodes the picture, converts it into the LED values and shows it.<br/>
+	 * Is called in a background thread.
+	 * @param uri of type Uri, the picture
+	 */
+	private void loadImage(Uri uri) {
+		final int[] converted = new int[NUMBER_OF_LED];
+		try {
+			long start = SystemClock.elapsedRealtime();
+			Bitmap bitmap = decodeImage(uri);
+			long decoded = SystemClock.elapsedRealtime();
+			try {
+				imageConverter.convert(new BitmapPixelSource(bitmap), DITHERING, converted);
+				if (D)
+					Log.d(getTAG(), "loadImage() " + bitmap.getWidth() + "x" + bitmap.getHeight()
+							+ " decoded in " + (decoded - start) + " ms, converted in "
+							+ (SystemClock.elapsedRealtime() - decoded) + " ms");
+			} finally {
+				bitmap.recycle();
+			}// try
+		} catch (IOException e) {
+			if (D)
+				Log.e(getTAG(), "loadImage()", e);
+			showImageError();
+			return;
+		} catch (IllegalStateException e) {
+			// a worker of the ImageConverter has failed
+			if (D)
+				Log.e(getTAG(), "loadImage()", e);
+			showImageError();
+			return;
+		} catch (InterruptedException e) {
+			return;
+		}// try
+
+		runOnUiThread(new Runnable() {
+
+			@Override
+			public void run() {
+				setMatrix(converted);
+			}// run
+		});
+	}// loadImage
+
+
+	/**
+	 * Decodes the picture, a large picture is reduced by a power of two while it is decoded
+	 * @param uri of type Uri, the picture
+	 * @return of type Bitmap, the decoded picture
+	 * @throws IOException if the picture cannot be read or decoded
+	 */
+	private Bitmap decodeImage(Uri uri) throws IOException {
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		InputStream in = openImage(uri);
+		try {
+			BitmapFactory.decodeStream(in, null, options);
+		} finally {
+			in.close();
+		}// try
+		if (options.outWidth <= 0 || options.outHeight <= 0) {
+			throw new IOException("no picture: " + uri);
 		}// if
-	}// onClick
+
+		int sampleSize = 1;
+		while (options.outWidth / (sampleSize * 2) >= LEDWALL_WIDTH * MIN_PIXELS_PER_LED
+				&& options.outHeight / (sampleSize * 2) >= LEDWALL_HEIGHT * MIN_PIXELS_PER_LED) {
+			sampleSize *= 2;
+		}// while
+		options = new BitmapFactory.Options();
+		options.inSampleSize = sampleSize;
+		options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+		in = openImage(uri);
+		try {
+			Bitmap bitmap = BitmapFactory.decodeStream(in, null, options);
+			if (bitmap == null) {
+				throw new IOException("the picture cannot be decoded: " + uri);
+			}// if
+			return bitmap;
+		} finally {
+			in.close();
+		}// try
+	}// decodeImage
+
+
+	private boolean isGif(Uri uri) {
+		String path = uri.getPath();
+		return "image/gif".equals(getContentResolver().getType(uri))
+				|| (path != null && path.toLowerCase(Locale.US).endsWith(".gif"));
+	}// isGif
+
+
+	/**
+	 * Returns the frames if the picture is a numbered PNG file, e.g. frame1.png
+	 * @param uri of type Uri, the picture
+	 * @return of type File[], the numbered PNG files of its folder, an empty array otherwise
+	 */
+	private File[] findFrames(Uri uri) {
+		if (!"file".equals(uri.getScheme()) || uri.getPath() == null) {
+			return new File[0];
+		}// if
+		File file = new File(uri.getPath());
+		if (!ImageSequence.isFrame(file) || file.getParentFile() == null) {
+			return new File[0];
+		}// if
+		return ImageSequence.findFrames(file.getParentFile());
+	}// findFrames
+
+
+	private InputStream openImage(Uri uri) throws IOException {
+		InputStream in = getContentResolver().openInputStream(uri);
+		if (in == null) {
+			throw new IOException("the picture cannot be opened: " + uri);
+		}// if
+		return in;
+	}// openImage
+
+
+	private void showImageError() {
+		runOnUiThread(new Runnable() {
+
+			@Override
+			public void run() {
+				Toast.makeText(DrawActivity.this, R.string.draw_error_image, Toast.LENGTH_LONG).show();
+			}// run
+		});
+	}// showImageError
+
+
+	/**
+	 * Shows the LED values in the field and sends them to the server.<br/>
+	 * A running animation is started again with the new values.
+	 * @param values of type int[], the 160 LED values
+	 */
+	private void setMatrix(int[] values) {
+		System.arraycopy(values, 0, matrix, 0, matrix.length);
+		ledView.setValues(matrix);
+		if (player != null) {
+			player.stop();
+			player = null;
+			startAnimation();
+		} else {
+			getConnectionManager().addDrawMessage(matrix);
+			drawBatcher.reset(matrix);
+		}// if
+	}// setMatrix
+
+
+	/**
+	 * Starts an animation which moves the drawing to the left over the wall.<br/>
+	 * The frames are added to the same list as the single changes.
+	 */
+	private void startAnimation() {
+		player = new AnimationPlayer(
+				new ScrollAnimation(matrix, ScrollAnimation.Direction.LEFT, ANIMATION_STEP_TIME),
+				getConnectionManager().getQueue(), AnimationPlayer.DEFAULT_FPS);
+		player.setLooping(true);
+		player.start();
+		animationButton.setText(R.string.draw_button_animation_stop);
+	}// startAnimation
+
+
+	/**
+	 * Starts a clip which is played in a loop. The frames are decoded and encoded<br/>
+	 * in advance by the threads of the ClipPlayer, not by the UI thread.
+	 * @param source of type ClipSource, opens the frames of the clip
+	 */
+	private void startClip(ClipPlayer.ClipSource source) {
+		if (player != null) {
+			stopAnimation();
+		}// if
+		clipPlayer = new ClipPlayer(source, getConnectionManager().getQueue());
+		clipPlayer.setLooping(true);
+		clipPlayer.setClipListener(new ClipPlayer.ClipListener() {
+
+			@Override
+			public void onFinished(ClipPlayer player) {
+				// a clip in a loop does not end
+			}// onFinished
+
+			@Override
+			public void onError(final ClipPlayer player, IOException e) {
+				if (D)
+					Log.e(getTAG(), "onError()", e);
+				showImageError();
+				runOnUiThread(new Runnable() {
+
+					@Override
+					public void run() {
+						if (clipPlayer == player) {
+							stopClip();
+						}// if
+					}// run
+				});
+			}// onError
+		});
+		clipPlayer.start();
+		animationButton.setText(R.string.draw_button_animation_stop);
+	}// startClip
+
+
+	/**
+	 * Stops the clip, shows the dropped frames and the underruns of the decoder<br/>
+	 * and sends the drawing again.
+	 */
+	private void stopClip() {
+		clipPlayer.stop();
+		if (D)
+			Log.d(getTAG(), clipPlayer.report());
+		Toast.makeText(this, getResources().getString(R.string.draw_toast_clip) + " "
+				+ clipPlayer.getDroppedFrames() + " / " + clipPlayer.getUnderruns(),
+				Toast.LENGTH_SHORT).show();
+		clipPlayer = null;
+		animationButton.setText(R.string.draw_button_animation_start);
+		getConnectionManager().addDrawMessage(matrix);
+		drawBatcher.reset(matrix);
+	}// stopClip
+
+
+	/**
+	 * Stops the animation, shows the achieved frame rate and the dropped frames<br/>
+	 * and sends the drawing without movement.
+	 */
+	private void stopAnimation() {
+		player.stop();
+		if (D)
+			Log.d(getTAG(), player.report());
+		Toast.makeText(this, getResources().getString(R.string.draw_toast_animation) + " "
+				+ String.format(Locale.GERMAN, "%.1f", player.getAchievedFps()) + " / "
+				+ player.getDroppedFrames(), Toast.LENGTH_SHORT).show();
+		player = null;
+		animationButton.setText(R.string.draw_button_animation_start);
+		getConnectionManager().addDrawMessage(matrix);
+		drawBatcher.reset(matrix);
+	}// stopAnimation
 
 }// class DrawActivity
@@ -10,6 +10,7 @@ import android.widget.Button;
 import de.torstenkohn.android.ledwall.R;
 import de.torstenkohn.android.ledwall.connection.ConnectionManager;
 import de.torstenkohn.android.ledwall.core.LEDWallActivity;
+import de.torstenkohn.android.ledwall.core.LEDWallMessage;
 
 /**
  * The activity is the entry Acticity. So it is the activity that appears<br/>
@@ -59,6 +60,9 @@ public class MainActivity extends LEDWallActivity {
 				MODE_PRIVATE);
 		connMan.setIpaddress(prefs.getString(DATA_IP_ADDRESS, "192.168.10.110"));
 		connMan.setPort(prefs.getInt(DATA_PORT, 5432));
+		connMan.setBinaryDrawRequested(prefs.getBoolean(DATA_BINARY_DRAW, false));
+		connMan.setTransport(prefs.getBoolean(DATA_NIO_TRANSPORT, false)
+				? ConnectionManager.Transport.NIO : ConnectionManager.Transport.STREAM);
 
 		Button connect = (Button) findViewById(R.id.main_button_connect);
 		connect.setOnClickListener(new OnClickListener() {
@@ -81,16 +85,6 @@ public class MainActivity extends LEDWallActivity {
 	}// onStart
 
 	
-	/**
-	 * Terminates the thread for communication once the activity is stopped or loses focus.
-	 */
-	@Override
-	protected void onStop() {
-		super.onStop();
-		getService().stopService();
-	}// onStop
-
-	
 	/**
 	 * The method accesses the class Secure<br/>
 	 * of the Android system and reads the Android ID.
@@ -119,7 +113,7 @@ public class MainActivity extends LEDWallActivity {
 			startProgressDialog();
 
 			String message = getLedWallMessage().getFunctionConnect("menu");
-			getConnectionManager().addMessage(message);
+			getConnectionManager().addMessage(LEDWallMessage.FUNC_CONNECT, message);
 
 			getService().startService();
 
@@ -4,10 +4,12 @@ import android.os.Bundle;
 import android.view.View;
 import android.view.View.OnClickListener;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
 import de.torstenkohn.android.ledwall.R;
+import de.torstenkohn.android.ledwall.connection.ConnectionManager;
 import de.torstenkohn.android.ledwall.core.LEDWallActivity;
 import de.torstenkohn.android.ledwall.util.IpInputWatcher;
 
@@ -38,6 +40,8 @@ public class SettingsActivity extends LEDWallActivity {
 	
 	private EditText ipaddress;
 	private EditText port;
+	private CheckBox binaryDraw;
+	private CheckBox nioTransport;
 
 	
 	/**
@@ -80,6 +84,12 @@ public class SettingsActivity extends LEDWallActivity {
 		port = (EditText) findViewById(R.id.settings_editText_port);
 		port.setText(getConnectionManager().getPort() + "");
 
+		binaryDraw = (CheckBox) findViewById(R.id.settings_checkBox_binaryDraw);
+		binaryDraw.setChecked(getConnectionManager().isBinaryDrawRequested());
+
+		nioTransport = (CheckBox) findViewById(R.id.settings_checkBox_nioTransport);
+		nioTransport.setChecked(getConnectionManager().getTransport() == ConnectionManager.Transport.NIO);
+
 		TextView infosave = (TextView)findViewById(R.id.settings_textView_infosave);
 
 		Button save = (Button) findViewById(R.id.settings_button_save);
@@ -102,6 +112,8 @@ public class SettingsActivity extends LEDWallActivity {
 					// save the new ip address and port
 					setIpaddress(ipaddress);
 					setPort(port);
+					setBinaryDraw(binaryDraw.isChecked());
+					setNioTransport(nioTransport.isChecked());
 					startLEDWallActivity(MainActivity.class);
 					
 					// notification to the user
@@ -121,6 +133,8 @@ public class SettingsActivity extends LEDWallActivity {
 			 */
 			ipaddress.setEnabled(false);
 			port.setEnabled(false);
+			binaryDraw.setEnabled(false);
+			nioTransport.setEnabled(false);
 			save.setEnabled(false);
 			infosave.setVisibility(View.VISIBLE);
 		} else {
@@ -132,6 +146,8 @@ public class SettingsActivity extends LEDWallActivity {
 			 */
 			ipaddress.setEnabled(true);
 			port.setEnabled(true);
+			binaryDraw.setEnabled(true);
+			nioTransport.setEnabled(true);
 			save.setEnabled(true);
 			infosave.setVisibility(View.GONE);
 		}// if
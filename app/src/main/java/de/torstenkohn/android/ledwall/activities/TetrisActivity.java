@@ -1,8 +1,9 @@
 package de.torstenkohn.android.ledwall.activities;
 
-import java.util.Date;
-
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
 import android.view.View;
 import android.view.View.OnClickListener;
 import android.widget.Button;
@@ -10,17 +11,29 @@ import android.widget.ImageButton;
 import android.widget.ImageView;
 import android.widget.TextView;
 import de.torstenkohn.android.ledwall.R;
+import de.torstenkohn.android.ledwall.connection.TetrisInputBatcher;
 import de.torstenkohn.android.ledwall.core.LEDWallActivity;
 import de.torstenkohn.android.ledwall.core.LEDWallMessage;
 import de.torstenkohn.android.ledwall.util.TetrisGameState;
+import de.torstenkohn.android.ledwall.util.TetrisHud;
+import de.torstenkohn.android.ledwall.util.TetrisModel;
+import de.torstenkohn.android.ledwall.util.TetrisPredictor;
+import de.torstenkohn.android.ledwall.view.LEDMatrixView;
+
+public class TetrisActivity extends LEDWallActivity implements OnClickListener,
+		TetrisHud.Display {
 
-public class TetrisActivity extends LEDWallActivity implements OnClickListener {
+	/**
+	 * The images of the stones in the order of the TetrisGameState.STONE_ constants
+	 */
+	private static final int[] STONE_IMAGES = { R.drawable.tetris_i, R.drawable.tetris_j,
+			R.drawable.tetris_l, R.drawable.tetris_o, R.drawable.tetris_s,
+			R.drawable.tetris_t, R.drawable.tetris_z };
 
 	/**
-	 * DELAY is used so that the user does not have too many entries<br/>
-	 * and the stone does not make so many changes in motion.
+	 * The interval in ms in which the predicted board is drawn while the game is running
 	 */
-	private final int DELAY = 200; // in ms
+	private static final int TICK_INTERVAL = 50;
 
 	private TextView score;
 	private TextView level;
@@ -32,13 +45,64 @@ public class TetrisActivity extends LEDWallActivity implements OnClickListener {
 	private ImageButton right;
 	private ImageButton counterclock;
 	private ImageButton clockwise;
+	private LEDMatrixView board;
 
-	private TetrisGameState gameState;
+	/**
+	 * The game state shown in the GUI, it is reused for every message of the server
+	 */
+	private final TetrisGameState gameState = new TetrisGameState();
 
 	/**
-	 * 
+	 * Shows only the values of the game state which have changed
+	 */
+	private final TetrisHud hud = new TetrisHud(this);
+
+	/*
+	 * The images of the stones are loaded once, each ImageView has its own drawables
+	 */
+	private final Drawable[] nextStoneImages = new Drawable[STONE_IMAGES.length];
+	private final Drawable[] currStoneImages = new Drawable[STONE_IMAGES.length];
+
+	/**
+	 * Collects the moves of the player, a fast burst of moves is sent in one message
+	 */
+	private TetrisInputBatcher inputBatcher;
+
+	/**
+	 * Sends the moves which were collected since the last message
+	 */
+	private final Runnable flushTask = new Runnable() {
+
+		@Override
+		public void run() {
+			inputBatcher.flush();
+		}// run
+	};
+
+	/**
+	 * Shows the moves at once on the board of the phone, the game states<br/>
+	 * of the server correct the prediction
+	 */
+	private final TetrisPredictor predictor = new TetrisPredictor();
+	private final int[] frame = new int[TetrisModel.WIDTH * TetrisModel.HEIGHT];
+	private boolean isTicking;
+
+	/**
+	 * Lets the predicted stone fall and draws the board while the game is running
 	 */
-	private long lastMove;
+	private final Runnable tickTask = new Runnable() {
+
+		@Override
+		public void run() {
+			if (!isTicking) {
+				return;
+			}// if
+			if (predictor.tick(SystemClock.uptimeMillis())) {
+				showBoard();
+			}// if
+			board.postDelayed(this, TICK_INTERVAL);
+		}// run
+	};
 
 	/**
 	 * The method initializes the connection to the server<br/>
@@ -59,7 +123,7 @@ public class TetrisActivity extends LEDWallActivity implements OnClickListener {
 	private void initTetris() {
 		if (getConnectionManager().isConnected()) {
 
-			getConnectionManager().addMessage(
+			getConnectionManager().addMessage(LEDWallMessage.FUNC_TETRIS,
 					getLedWallMessage().getFunctionTetris(
 							LEDWallMessage.ACTION_INIT));
 		}// if
@@ -72,10 +136,16 @@ public class TetrisActivity extends LEDWallActivity implements OnClickListener {
 
 	@Override
 	protected void onStop() {
-		getConnectionManager().addMessage(
+		board.removeCallbacks(flushTask);
+		inputBatcher.clear();
+		getConnectionManager().addMessage(LEDWallMessage.FUNC_TETRIS,
 				getLedWallMessage().getFunctionTetris(
 						LEDWallMessage.ACTION_QUIT));
 		changeButtonEnabled(false);
+		stopTicking();
+		if (D)
+			Log.d(getTAG(), "onStop() " + predictor.report() + inputBatcher.report()
+					+ hud.report());
 		super.onStop();
 	}// onStop
 
@@ -91,6 +161,10 @@ public class TetrisActivity extends LEDWallActivity implements OnClickListener {
 
 		nextStone = (ImageView) findViewById(R.id.tetris_imageView_nextStone);
 		currStone = (ImageView) findViewById(R.id.tetris_imageView_currentStone);
+		for (int i = 0; i < STONE_IMAGES.length; i++) {
+			nextStoneImages[i] = getResources().getDrawable(STONE_IMAGES[i]);
+			currStoneImages[i] = getResources().getDrawable(STONE_IMAGES[i]);
+		}// for
 
 		stop = (Button) findViewById(R.id.tetris_button_stop);
 		stop.setOnClickListener(this);
@@ -109,6 +183,11 @@ public class TetrisActivity extends LEDWallActivity implements OnClickListener {
 
 		clockwise = (ImageButton) findViewById(R.id.tetris_button_clockwise);
 		clockwise.setOnClickListener(this);
+
+		board = (LEDMatrixView) findViewById(R.id.tetris_board);
+		board.setDimensions(TetrisModel.WIDTH, TetrisModel.HEIGHT);
+		inputBatcher = new TetrisInputBatcher(getConnectionManager().getQueue(),
+				getLedWallMessage(), TetrisInputBatcher.DEFAULT_INTERVAL);
 		changeButtonEnabled(false);
 	}// initGUI
 
@@ -123,105 +202,136 @@ public class TetrisActivity extends LEDWallActivity implements OnClickListener {
 
 		switch (v.getId()) {
 		case (R.id.tetris_button_stop):
-			getConnectionManager().addMessage(
+			// the moves are not sent after the game has ended
+			board.removeCallbacks(flushTask);
+			inputBatcher.clear();
+			getConnectionManager().addMessage(LEDWallMessage.FUNC_TETRIS,
 					getLedWallMessage().getFunctionTetris(
 							LEDWallMessage.ACTION_QUIT));
 			changeButtonEnabled(false);
 			start.setEnabled(true);
+			stopTicking();
+			// the buttons were changed without the HUD
+			hud.invalidate();
 			break;
 
 		case (R.id.tetris_button_start):
 			if (gameState.getCurrStone() != 0 && gameState.getNextStone() != 0) {
 				initTetris();
 			}// if
-			getConnectionManager().addMessage(
+			getConnectionManager().addMessage(LEDWallMessage.FUNC_TETRIS,
 					getLedWallMessage().getFunctionTetris(
 							LEDWallMessage.ACTION_START));
 			changeButtonEnabled(true);
+			hud.invalidate();
+			inputBatcher.setMovesSupported(getConnectionManager().isTetrisMoves());
+			predictor.reset(SystemClock.uptimeMillis());
+			showBoard();
 			break;
 
-		}// switch
+		case (R.id.tetris_button_left):
+			move(LEDWallMessage.ACTION_LEFT, TetrisPredictor.MOVE_LEFT);
+			break;
 
-		long currTime = new Date().getTime();
-		long timeDifference = currTime - lastMove;
-
-		/*
-		 * Not all control commands are transmitted to the server, so the server
-		 * is not overloaded and that it is not too many change of movement at a
-		 * time. 5 commands per second are possible
-		 */
-		if (timeDifference > DELAY) {
-			lastMove = currTime;
-			switch (v.getId()) {
-			case (R.id.tetris_button_left):
-				getConnectionManager().addMessage(
-						getLedWallMessage().getFunctionTetris(
-								LEDWallMessage.ACTION_LEFT));
-				break;
-
-			case (R.id.tetris_button_right):
-				getConnectionManager().addMessage(
-						getLedWallMessage().getFunctionTetris(
-								LEDWallMessage.ACTION_RIGHT));
-				break;
-
-			case (R.id.tetris_button_counterclockwise):
-				getConnectionManager().addMessage(
-						getLedWallMessage().getFunctionTetris(
-								LEDWallMessage.ACTION_COUNTERCLOCKWISE));
-				break;
-
-			case (R.id.tetris_button_clockwise):
-				getConnectionManager().addMessage(
-						getLedWallMessage().getFunctionTetris(
-								LEDWallMessage.ACTION_CLOCKWISE));
-				break;
-			}// switch
+		case (R.id.tetris_button_right):
+			move(LEDWallMessage.ACTION_RIGHT, TetrisPredictor.MOVE_RIGHT);
+			break;
 
-		}// if
+		case (R.id.tetris_button_counterclockwise):
+			move(LEDWallMessage.ACTION_COUNTERCLOCKWISE,
+					TetrisPredictor.MOVE_COUNTERCLOCKWISE);
+			break;
+
+		case (R.id.tetris_button_clockwise):
+			move(LEDWallMessage.ACTION_CLOCKWISE, TetrisPredictor.MOVE_CLOCKWISE);
+			break;
+		}// switch
 	}// onClick
 
 	/**
-	 * The method updates the game state of the message from the server
+	 * The method updates the game state with the values from the server.<br/>
+	 * The message is already read by the LEDWallService, which also<br/>
+	 * moves the next stone to the current stone.
 	 * 
-	 * @param message
-	 *            of type String, the JSON message with the current gamestate of
-	 *            the server
+	 * @param newState
+	 *            of type TetrisGameState, the current game state of the
+	 *            server, updated by the LEDWallService
 	 */
-	public void updateGameState(String message) {
-		TetrisGameState newState = getLedWallMessage().getTetrisGameState(
-				message);
-		if (gameState == null || gameState.getNextStone() == 0) { // firstCall
-			this.gameState = newState;
+	@Override
+	protected void onGameState(TetrisGameState newState) {
+		gameState.copyFrom(newState);
+		hud.update(gameState);
+		if (gameState.isRunning()) {
+			predictor.reconcile(gameState, SystemClock.uptimeMillis());
+			showBoard();
+			startTicking();
 		} else {
-			int nextCurrentStone = this.gameState.getNextStone();
-			this.gameState = newState;
-			newState.setCurrStone(nextCurrentStone);
+			stopTicking();
 		}// if
-		updateGUI();
-	}// updateGameState
+	}// onGameState
 
 	/**
-	 * updated the games button,<br/>
-	 * the level number, the score and the images for the stones
+	 * Shows the move at once on the board and passes it to the batcher,<br/>
+	 * the server applies it a little later
+	 * 
+	 * @param action
+	 *            of type String, one of the LEDWallMessage.ACTION_ constants
+	 * @param move
+	 *            of type Integer, the same move as TetrisPredictor.MOVE_ constant
 	 */
-	private void updateGUI() {
-		if (gameState.isRunning()) {
-			changeButtonEnabled(true);
-			start.setEnabled(false);
-			// start.setText(R.string.tetris_button_pause);
+	private void move(String action, int move) {
+		long sendDelay = inputBatcher.getDelay();
+		if (inputBatcher.add(action)) {
+			board.postDelayed(flushTask, sendDelay);
+		}// if
+		// the server receives the move only after the batcher has sent it
+		if (predictor.input(move, SystemClock.uptimeMillis(), sendDelay)) {
+			showBoard();
+		}// if
+	}// move
 
-		} else {
-			changeButtonEnabled(false);
-			start.setEnabled(true);
-			// start.setText(R.string.tetris_button_start);
+	private void showBoard() {
+		predictor.render(frame);
+		board.setValues(frame);
+	}// showBoard
+
+	private void startTicking() {
+		if (!isTicking) {
+			isTicking = true;
+			board.postDelayed(tickTask, TICK_INTERVAL);
 		}// if
+	}// startTicking
+
+	private void stopTicking() {
+		isTicking = false;
+		board.removeCallbacks(tickTask);
+	}// stopTicking
+
+	@Override
+	public void showRunning(boolean isRunning) {
+		changeButtonEnabled(isRunning);
+		start.setEnabled(!isRunning);
+	}// showRunning
 
-		score.setText(gameState.getScore() + "");
-		level.setText(gameState.getLevel() + "");
-		changeStoneImage(nextStone, gameState.getNextStone());
-		changeStoneImage(currStone, gameState.getCurrStone());
-	}// updateGUI
+	@Override
+	public void showScore(char[] digits, int length) {
+		score.setText(digits, 0, length);
+	}// showScore
+
+	@Override
+	public void showLevel(char[] digits, int length) {
+		level.setText(digits, 0, length);
+	}// showLevel
+
+	@Override
+	public void showNextStone(int stone) {
+		changeStoneImage(nextStone, nextStoneImages, stone);
+	}// showNextStone
+
+	@Override
+	public void showCurrStone(int stone) {
+		changeStoneImage(currStone, currStoneImages, stone);
+	}// showCurrStone
 
 	/**
 	 * indicates that the game buttons are enabled or disabled
@@ -239,38 +349,22 @@ public class TetrisActivity extends LEDWallActivity implements OnClickListener {
 	}// changeButtonEnabled
 
 	/**
-	 * The method changes the image of the ImageView to the specified stone.
+	 * The method changes the image of the ImageView to the specified stone.<br/>
+	 * An unknown stone does not change the image.
 	 * 
 	 * @param image
 	 *            of type ImageView, the image that needs to be changed.
+	 * @param images
+	 *            of type Drawable[], the loaded images of the stones for this ImageView
 	 * @param stone
 	 *            of type Integer, the stone which serves as a new template for
 	 *            the image.
 	 */
-	private void changeStoneImage(ImageView image, int stone) {
-		switch (stone) {
-		case TetrisGameState.STONE_I:
-			image.setImageResource(R.drawable.tetris_i);
-			break;
-		case TetrisGameState.STONE_J:
-			image.setImageResource(R.drawable.tetris_j);
-			break;
-		case TetrisGameState.STONE_L:
-			image.setImageResource(R.drawable.tetris_l);
-			break;
-		case TetrisGameState.STONE_O:
-			image.setImageResource(R.drawable.tetris_o);
-			break;
-		case TetrisGameState.STONE_S:
-			image.setImageResource(R.drawable.tetris_s);
-			break;
-		case TetrisGameState.STONE_T:
-			image.setImageResource(R.drawable.tetris_t);
-			break;
-		case TetrisGameState.STONE_Z:
-			image.setImageResource(R.drawable.tetris_z);
-			break;
-		}// switch
+	private void changeStoneImage(ImageView image, Drawable[] images, int stone) {
+		int index = stone / 10 - 1;
+		if (index >= 0 && index < images.length && stone % 10 == 0) {
+			image.setImageDrawable(images[index]);
+		}// if
 	}// changeStoneImage
 
 }// class TetrisActivity
@@ -1,6 +1,8 @@
 package de.torstenkohn.android.ledwall.activities;
 
 import android.os.Bundle;
+import android.text.InputFilter;
+import android.util.Log;
 import android.view.View;
 import android.view.View.OnClickListener;
 import android.widget.AdapterView;
@@ -11,13 +13,20 @@ import android.widget.CheckBox;
 import android.widget.EditText;
 import android.widget.Spinner;
 import de.torstenkohn.android.ledwall.R;
+import de.torstenkohn.android.ledwall.animation.AnimationPlayer;
+import de.torstenkohn.android.ledwall.animation.MarqueeAnimation;
+import de.torstenkohn.android.ledwall.animation.TextRasterizer;
 import de.torstenkohn.android.ledwall.core.LEDWallActivity;
+import de.torstenkohn.android.ledwall.core.LEDWallMessage;
 
 /**
  * The activity serves text messages to send<br/>
  * to the server to display this on the LED wall.<br/>
- * The texts can be only five characters long and<br/>
- * consist only of the 26 letters of the alphabet.
+ * The server shows texts of up to five characters,<br/>
+ * which consist only of the 26 letters of the alphabet.<br/>
+ * With the animation "Lauftext" the text is drawn by the app itself<br/>
+ * (see TextRasterizer) and sent as DRAW frames, so the text can have<br/>
+ * up to MARQUEE_MAX_LENGTH characters and umlauts are possible as well.
  * 
  * @author Torsten Kohn
  * @since 20.04.2013
@@ -25,6 +34,26 @@ import de.torstenkohn.android.ledwall.core.LEDWallActivity;
  */
 public class TextActivity extends LEDWallActivity {
 
+	/**
+	 * The position of the marquee in the spinner of the animations
+	 */
+	private static final int ANIMATION_MARQUEE = 1;
+
+	/**
+	 * The time in ms in which the marquee moves by one column
+	 */
+	private static final int MARQUEE_STEP_TIME = 120;
+
+	/**
+	 * The maximum length of a text which is shown by the server
+	 */
+	private static final int TEXT_MAX_LENGTH = 5;
+
+	/**
+	 * The maximum length of a text which is drawn as marquee
+	 */
+	private static final int MARQUEE_MAX_LENGTH = 100;
+
 	private EditText textTop;
 	private EditText textBottom;
 
@@ -41,6 +70,16 @@ public class TextActivity extends LEDWallActivity {
 	 */
 	private String animationString = "none";
 
+	/**
+	 * true -> the text is drawn by the app as a marquee
+	 */
+	private boolean isMarquee;
+
+	/**
+	 * The player of the marquee, null if no marquee is running
+	 */
+	private AnimationPlayer player;
+
 	/**
 	 * The method initializes the connection to the server and <br/>
 	 * Calls the initGUI method to initialize the GUI.
@@ -108,11 +147,27 @@ public class TextActivity extends LEDWallActivity {
 		adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
 
 		/**
-		 * The spinner for the animation is not fully implemented,<br/>
-		 * because it is not used.
+		 * The server has no animations for the text yet,<br/>
+		 * the marquee is drawn by the app (see startMarquee()).
 		 */
 		Spinner animation = (Spinner) findViewById(R.id.text_spinner_animation);
 		animation.setAdapter(adapter);
+		animation.setOnItemSelectedListener(new OnItemSelectedListener() {
+
+			@Override
+			public void onItemSelected(AdapterView<?> parent, View view,
+					int pos, long id) {
+				isMarquee = pos == ANIMATION_MARQUEE;
+				int maxLength = isMarquee ? MARQUEE_MAX_LENGTH : TEXT_MAX_LENGTH;
+				setMaxLength(textTop, maxLength);
+				setMaxLength(textBottom, maxLength);
+				textTop.setHint(isMarquee ? R.string.text_hint_marquee : R.string.text_hint_top);
+			}// onItemSelected
+
+			@Override
+			public void onNothingSelected(AdapterView<?> arg0) {
+			}// onNothingSelected
+		});
 
 		((Button) findViewById(R.id.text_button_send))
 				.setOnClickListener(new OnClickListener() {
@@ -130,11 +185,15 @@ public class TextActivity extends LEDWallActivity {
 						String top = textTop.getText().toString().trim();
 						String bottom = textBottom.getText().toString().trim();
 
-						if (isTextOk(top, bottom)) {
+						if (isTextOk(top, bottom) && isMarquee) {
+							startMarquee(top, bottom, isInverted);
+						} else if (isTextOk(top, bottom)) {
+							stopMarquee();
 							String message = getLedWallMessage()
 									.getFunctionText(top, bottom, colorString,
 											isInverted, animationString);
-							getConnectionManager().addMessage(message);
+							getConnectionManager().addMessage(
+									LEDWallMessage.FUNC_TEXT, message);
 							if (!getConnectionManager().isConnected()) {
 								getService().startService();
 							}// if
@@ -159,5 +218,73 @@ public class TextActivity extends LEDWallActivity {
 					}// isTextOk
 				});
 	}// initGui
-	
+
+
+	/**
+	 * The marquee is stopped when the activity is not visible anymore
+	 */
+	@Override
+	protected void onPause() {
+		stopMarquee();
+		super.onPause();
+	}// onPause
+
+
+	/**
+	 * Starts a marquee with the text, a running marquee is replaced
+	 * @param top of type String, the upper line
+	 * @param bottom of type String, the lower line
+	 * @param isInverted of type boolean, true -> the colour is inverted
+	 */
+	private void startMarquee(String top, String bottom, boolean isInverted) {
+		stopMarquee();
+		MarqueeAnimation marquee = new MarqueeAnimation(top, bottom, getColorValue(),
+				isInverted, MARQUEE_STEP_TIME);
+		player = new AnimationPlayer(marquee, getConnectionManager().getQueue(),
+				AnimationPlayer.DEFAULT_FPS);
+		player.setLooping(true);
+		player.start();
+		if (!getConnectionManager().isConnected()) {
+			getService().startService();
+		}// if
+	}// startMarquee
+
+
+	private void stopMarquee() {
+		if (player != null) {
+			player.stop();
+			if (D)
+				Log.d(getTAG(), player.report());
+			player = null;
+		}// if
+	}// stopMarquee
+
+
+	/**
+	 * @return of type Integer, the LED value of the chosen colour or TextRasterizer.MULTICOLORED
+	 */
+	private int getColorValue() {
+		if ("green".equals(colorString)) {
+			return 2;
+		} else if ("blue".equals(colorString)) {
+			return 3;
+		} else if ("multicolored".equals(colorString)) {
+			return TextRasterizer.MULTICOLORED;
+		}// if
+		return 1;
+	}// getColorValue
+
+
+	/**
+	 * Changes the maximum length of the input field, a longer text is shortened
+	 * @param text of type EditText, the input field
+	 * @param maxLength of type Integer, the maximum number of characters
+	 */
+	private void setMaxLength(EditText text, int maxLength) {
+		text.setFilters(new InputFilter[] { new InputFilter.LengthFilter(maxLength) });
+		if (text.length() > maxLength) {
+			text.setText(text.getText().subSequence(0, maxLength));
+		}// if
+	}// setMaxLength
+
 }// class TextActivity
@@ -0,0 +1,27 @@
+package de.torstenkohn.android.ledwall.animation;
+
+/**
+ * An animation describes the content of the LED wall at every point in time.<br/>
+ * The AnimationPlayer asks for a frame at the time of every frame it sends,<br/>
+ * so an animation does not know the frame rate and looks the same<br/>
+ * if frames are dropped.<br/>
+ * The interface does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public interface Animation {
+
+	/**
+	 * @return of type long, the duration of the animation in ms
+	 */
+	long getDuration();
+
+	/**
+	 * Writes the frame at the given time into the array
+	 * @param time of type long, the time in ms since the start, between 0 and getDuration()
+	 * @param frame of type int[], the 160 LED values 0 (none), 1 (red), 2 (green) or 3 (blue)
+	 */
+	void render(long time, int[] frame);
+
+}// interface Animation
@@ -0,0 +1,303 @@
+package de.torstenkohn.android.ledwall.animation;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import de.torstenkohn.android.ledwall.connection.LatencyHistogram;
+import de.torstenkohn.android.ledwall.connection.OutboundQueue;
+import de.torstenkohn.android.ledwall.connection.OutgoingMessage;
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+import de.torstenkohn.android.ledwall.core.LEDWallMessage;
+
+/**
+ * The player sends the frames of an animation with a fixed frame rate to the LED wall.<br/>
+ * The frames are added as DRAW messages to the OutboundQueue, the same list<br/>
+ * the DrawActivity uses, so the format and the connection are chosen as usual.<br/>
+ * <br/>
+ * Every frame has a fixed time slot, the slots are counted from the start<br/>
+ * with System.nanoTime(), so the player does not drift if a frame is late.<br/>
+ * The animation is rendered at the time of the slot and not at the current time,<br/>
+ * so the movement stays even although the thread wakes up a bit late.<br/>
+ * <br/>
+ * Frames are never piled up:<br/>
+ * - If the thread is so late that whole slots have passed, these frames are dropped<br/>
+ *   and the frame of the current slot is sent.<br/>
+ * - If the previous frame is still waiting in the list because the connection is slower,<br/>
+ *   the DropPolicy decides: MERGE replaces the waiting frame by the new one,<br/>
+ *   SKIP does not render the frame and leaves the waiting frame in the list.<br/>
+ * - A frame which is equal to the last frame is not sent.<br/>
+ * <br/>
+ * The achieved frame rate, the jitter (how late the frames are sent within their slot)<br/>
+ * and the number of dropped frames are shown by report().<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class AnimationPlayer implements Runnable {
+
+	/**
+	 * The handling of a new frame while the previous frame is not yet sent
+	 */
+	public enum DropPolicy {
+		/**
+		 * The new frame replaces the waiting frame, the wall shows the newest frame
+		 */
+		MERGE,
+		/**
+		 * The new frame is not rendered, the waiting frame is sent
+		 */
+		SKIP
+	}// enum DropPolicy
+
+
+	/**
+	 * The listener is informed when an animation which does not loop has ended.<br/>
+	 * It is called in the thread of the player.
+	 */
+	public interface AnimationListener {
+		void onFinished(AnimationPlayer player);
+	}// interface AnimationListener
+
+
+	public static final int DEFAULT_FPS = 20;
+	public static final int MAX_FPS = 100;
+
+	/**
+	 * The time in ms stop() waits for the thread of the player
+	 */
+	private static final int STOP_TIMEOUT = 500;
+
+
+	private final Animation animation;
+	private final OutboundQueue queue;
+	private final int fps;
+	private final long period;
+	private volatile DropPolicy dropPolicy = DropPolicy.MERGE;
+	private volatile AnimationListener listener;
+
+	private volatile boolean isLooping;
+	private volatile boolean isRunning;
+	private Thread thread;
+
+	private final int[] frame = new int[DrawFrameCodec.NUMBER_OF_LED];
+	private final int[] lastFrame = new int[DrawFrameCodec.NUMBER_OF_LED];
+	private boolean hasLastFrame;
+
+	/*
+	 * counters for the report
+	 */
+	private final AtomicLong renderedFrames = new AtomicLong();
+	private final AtomicLong sentFrames = new AtomicLong();
+	private final AtomicLong unchangedFrames = new AtomicLong();
+	private final AtomicLong lateFrames = new AtomicLong();
+	private final AtomicLong skippedFrames = new AtomicLong();
+	private final AtomicLong mergedFrames = new AtomicLong();
+	private final LatencyHistogram jitter = new LatencyHistogram("jitter");
+	private volatile long startTime;
+	private volatile long endTime;
+
+
+	/**
+	 * Constructor of the AnimationPlayer
+	 * @param animation of type Animation, the animation which is played
+	 * @param queue of type OutboundQueue, the list of the messages for the server
+	 * @param fps of type Integer, the frames per second, between 1 and MAX_FPS
+	 */
+	public AnimationPlayer(Animation animation, OutboundQueue queue, int fps) {
+		if (fps < 1 || fps > MAX_FPS) {
+			throw new IllegalArgumentException("fps must be between 1 and " + MAX_FPS);
+		}// if
+		this.animation = animation;
+		this.queue = queue;
+		this.fps = fps;
+		this.period = TimeUnit.SECONDS.toNanos(1) / fps;
+	}// constructor
+
+
+	public void setDropPolicy(DropPolicy dropPolicy) {
+		this.dropPolicy = dropPolicy;
+	}// setDropPolicy
+
+
+	/**
+	 * @param isLooping of type boolean, true -> the animation starts again after its end
+	 */
+	public void setLooping(boolean isLooping) {
+		this.isLooping = isLooping;
+	}// setLooping
+
+
+	public void setAnimationListener(AnimationListener listener) {
+		this.listener = listener;
+	}// setAnimationListener
+
+
+	public boolean isRunning() {
+		return isRunning;
+	}// isRunning
+
+
+	/**
+	 * Starts the thread of the player, a running player is not started again
+	 */
+	public synchronized void start() {
+		if (thread != null) {
+			return;
+		}// if
+		isRunning = true;
+		thread = new Thread(this, "AnimationPlayer");
+		thread.start();
+	}// start
+
+
+	/**
+	 * Stops the player and waits for its thread, so no frame is added to the list<br/>
+	 * after the method has returned. The frame which is already in the list is still sent.
+	 */
+	public void stop() {
+		Thread current;
+		synchronized (this) {
+			isRunning = false;
+			current = thread;
+			thread = null;
+		}// synchronized
+		if (current != null && current != Thread.currentThread()) {
+			LockSupport.unpark(current);
+			try {
+				current.join(STOP_TIMEOUT);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}// try
+		}// if
+	}// stop
+
+
+	/**
+	 * The loop of the thread started by start(), it runs until stop() is called<br/>
+	 * or an animation which does not loop has ended.
+	 */
+	@Override
+	public void run() {
+		long start = System.nanoTime();
+		startTime = start;
+		endTime = 0;
+		long slot = start;
+		boolean isFinished = false;
+
+		while (isRunning && !isFinished) {
+			long now = System.nanoTime();
+			if (now < slot) {
+				LockSupport.parkNanos(slot - now);
+				continue;
+			}// if
+
+			// the thread was so late that whole slots have passed
+			long missed = (now - slot) / period;
+			if (missed > 0) {
+				lateFrames.addAndGet(missed);
+				slot += missed * period;
+			}// if
+			jitter.recordNanos(now - slot);
+
+			long time = TimeUnit.NANOSECONDS.toMillis(slot - start);
+			long duration = animation.getDuration();
+			if (isLooping && duration > 0) {
+				time %= duration;
+			} else if (time >= duration) {
+				// the last frame is shown once more, then the player ends
+				isFinished = true;
+				time = duration - 1;
+			}// if
+			playFrame(time);
+			slot += period;
+		}// while
+
+		endTime = System.nanoTime();
+		isRunning = false;
+		AnimationListener current = listener;
+		if (isFinished && current != null) {
+			current.onFinished(this);
+		}// if
+	}// run
+
+
+	/**
+	 * Renders the frame at the time and adds it to the list
+	 * @param time of type long, the time in ms since the start of the animation
+	 */
+	private void playFrame(long time) {
+		boolean isWaiting = queue.contains(LEDWallMessage.FUNC_DRAW);
+		if (isWaiting && dropPolicy == DropPolicy.SKIP) {
+			skippedFrames.incrementAndGet();
+			return;
+		}// if
+
+		animation.render(Math.max(0, time), frame);
+		renderedFrames.incrementAndGet();
+		if (hasLastFrame && Arrays.equals(frame, lastFrame)) {
+			unchangedFrames.incrementAndGet();
+			return;
+		}// if
+
+		// only the replacement by this offer counts, the queue is shared with other producers
+		if (queue.offer(OutgoingMessage.draw(frame))) {
+			mergedFrames.incrementAndGet();
+		}// if
+		sentFrames.incrementAndGet();
+		System.arraycopy(frame, 0, lastFrame, 0, frame.length);
+		hasLastFrame = true;
+	}// playFrame
+
+
+	/**
+	 * @return of type double, the frames per second which were rendered on time
+	 */
+	public double getAchievedFps() {
+		long start = startTime;
+		if (start == 0) {
+			return 0;
+		}// if
+		long end = endTime != 0 ? endTime : System.nanoTime();
+		double seconds = (end - start) / 1e9;
+		return seconds > 0 ? renderedFrames.get() / seconds : 0;
+	}// getAchievedFps
+
+
+	/**
+	 * @return of type long, the frames which were not sent because the player or the connection was too slow
+	 */
+	public long getDroppedFrames() {
+		return lateFrames.get() + skippedFrames.get() + mergedFrames.get();
+	}// getDroppedFrames
+
+
+	public LatencyHistogram getJitter() {
+		return jitter;
+	}// getJitter
+
+
+	/**
+	 * Creates the report of the player
+	 * @return of type String, one value per line
+	 */
+	public String report() {
+		StringBuilder report = new StringBuilder(256);
+		report.append("animation: ").append(fps).append(" fps target, ")
+				.append(String.format(Locale.US, "%.1f", getAchievedFps()))
+				.append(" fps achieved, policy ").append(dropPolicy).append('\n');
+		report.append("frames: rendered=").append(renderedFrames.get())
+				.append(" sent=").append(sentFrames.get())
+				.append(" unchanged=").append(unchangedFrames.get()).append('\n');
+		report.append("dropped: ").append(getDroppedFrames())
+				.append(" (late=").append(lateFrames.get())
+				.append(" skipped=").append(skippedFrames.get())
+				.append(" merged=").append(mergedFrames.get()).append(")\n");
+		jitter.appendTo(report);
+		return report.toString();
+	}// report
+
+}// class AnimationPlayer
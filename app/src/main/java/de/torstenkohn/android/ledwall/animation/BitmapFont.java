@@ -0,0 +1,246 @@
+package de.torstenkohn.android.ledwall.animation;
+
+/**
+ * A font with 5x7 glyphs for the LED wall.<br/>
+ * Every glyph is stored as bit columns: one byte per column, bit 0 is the upper row.<br/>
+ * So a text is rasterized column by column, which fits a marquee that moves<br/>
+ * the text one column per step (see MarqueeAnimation).<br/>
+ * <br/>
+ * The font covers ASCII and the German umlauts and the ß. The empty columns<br/>
+ * at the sides of a glyph are removed once when the class is loaded,<br/>
+ * so the text is proportional. The packed glyphs are stored in a table<br/>
+ * indexed by the character (Latin-1), so no map and no objects are needed per character.<br/>
+ * The table is complete before the class can be used and is never changed,<br/>
+ * so the marquee threads and the UI thread can read it without a lock.<br/>
+ * Characters which are not in the font are shown as '?'.<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public final class BitmapFont {
+
+	/**
+	 * The height of a glyph in LEDs
+	 */
+	public static final int GLYPH_HEIGHT = 7;
+
+	/**
+	 * The height of a text line in LEDs, the glyph and an empty row
+	 */
+	public static final int LINE_HEIGHT = 8;
+
+	/**
+	 * The width of a space in columns
+	 */
+	private static final int SPACE_WIDTH = 3;
+
+	private static final int COLUMNS = 5;
+	private static final int FIRST_ASCII = 0x20;
+	private static final int LAST_ASCII = 0x7E;
+	private static final int LATIN1 = 256;
+
+	/**
+	 * The glyphs of the characters 0x20 (space) to 0x7E (~), five columns each
+	 */
+	private static final int[] ASCII = {
+			0x00, 0x00, 0x00, 0x00, 0x00, //  
+			0x00, 0x00, 0x5F, 0x00, 0x00, // !
+			0x00, 0x07, 0x00, 0x07, 0x00, // "
+			0x14, 0x7F, 0x14, 0x7F, 0x14, // #
+			0x24, 0x2A, 0x7F, 0x2A, 0x12, // $
+			0x23, 0x13, 0x08, 0x64, 0x62, // %
+			0x36, 0x49, 0x56, 0x20, 0x50, // &
+			0x00, 0x05, 0x03, 0x00, 0x00, // '
+			0x00, 0x1C, 0x22, 0x41, 0x00, // (
+			0x00, 0x41, 0x22, 0x1C, 0x00, // )
+			0x08, 0x2A, 0x1C, 0x2A, 0x08, // *
+			0x08, 0x08, 0x3E, 0x08, 0x08, // +
+			0x00, 0x50, 0x30, 0x00, 0x00, // ,
+			0x08, 0x08, 0x08, 0x08, 0x08, // -
+			0x00, 0x60, 0x60, 0x00, 0x00, // .
+			0x20, 0x10, 0x08, 0x04, 0x02, // /
+			0x3E, 0x51, 0x49, 0x45, 0x3E, // 0
+			0x00, 0x42, 0x7F, 0x40, 0x00, // 1
+			0x42, 0x61, 0x51, 0x49, 0x46, // 2
+			0x21, 0x41, 0x45, 0x4B, 0x31, // 3
+			0x18, 0x14, 0x12, 0x7F, 0x10, // 4
+			0x27, 0x45, 0x45, 0x45, 0x39, // 5
+			0x3C, 0x4A, 0x49, 0x49, 0x30, // 6
+			0x01, 0x71, 0x09, 0x05, 0x03, // 7
+			0x36, 0x49, 0x49, 0x49, 0x36, // 8
+			0x06, 0x49, 0x49, 0x29, 0x1E, // 9
+			0x00, 0x36, 0x36, 0x00, 0x00, // :
+			0x00, 0x56, 0x36, 0x00, 0x00, // ;
+			0x08, 0x14, 0x22, 0x41, 0x00, // <
+			0x14, 0x14, 0x14, 0x14, 0x14, // =
+			0x00, 0x41, 0x22, 0x14, 0x08, // >
+			0x02, 0x01, 0x51, 0x09, 0x06, // ?
+			0x32, 0x49, 0x79, 0x41, 0x3E, // @
+			0x7E, 0x11, 0x11, 0x11, 0x7E, // A
+			0x7F, 0x49, 0x49, 0x49, 0x36, // B
+			0x3E, 0x41, 0x41, 0x41, 0x22, // C
+			0x7F, 0x41, 0x41, 0x22, 0x1C, // D
+			0x7F, 0x49, 0x49, 0x49, 0x41, // E
+			0x7F, 0x09, 0x09, 0x09, 0x01, // F
+			0x3E, 0x41, 0x49, 0x49, 0x7A, // G
+			0x7F, 0x08, 0x08, 0x08, 0x7F, // H
+			0x00, 0x41, 0x7F, 0x41, 0x00, // I
+			0x20, 0x40, 0x41, 0x3F, 0x01, // J
+			0x7F, 0x08, 0x14, 0x22, 0x41, // K
+			0x7F, 0x40, 0x40, 0x40, 0x40, // L
+			0x7F, 0x02, 0x0C, 0x02, 0x7F, // M
+			0x7F, 0x04, 0x08, 0x10, 0x7F, // N
+			0x3E, 0x41, 0x41, 0x41, 0x3E, // O
+			0x7F, 0x09, 0x09, 0x09, 0x06, // P
+			0x3E, 0x41, 0x51, 0x21, 0x5E, // Q
+			0x7F, 0x09, 0x19, 0x29, 0x46, // R
+			0x46, 0x49, 0x49, 0x49, 0x31, // S
+			0x01, 0x01, 0x7F, 0x01, 0x01, // T
+			0x3F, 0x40, 0x40, 0x40, 0x3F, // U
+			0x1F, 0x20, 0x40, 0x20, 0x1F, // V
+			0x3F, 0x40, 0x38, 0x40, 0x3F, // W
+			0x63, 0x14, 0x08, 0x14, 0x63, // X
+			0x07, 0x08, 0x70, 0x08, 0x07, // Y
+			0x61, 0x51, 0x49, 0x45, 0x43, // Z
+			0x00, 0x7F, 0x41, 0x41, 0x00, // [
+			0x02, 0x04, 0x08, 0x10, 0x20, // \
+			0x00, 0x41, 0x41, 0x7F, 0x00, // ]
+			0x04, 0x02, 0x01, 0x02, 0x04, // ^
+			0x40, 0x40, 0x40, 0x40, 0x40, // _
+			0x00, 0x01, 0x02, 0x04, 0x00, // `
+			0x20, 0x54, 0x54, 0x54, 0x78, // a
+			0x7F, 0x48, 0x44, 0x44, 0x38, // b
+			0x38, 0x44, 0x44, 0x44, 0x20, // c
+			0x38, 0x44, 0x44, 0x48, 0x7F, // d
+			0x38, 0x54, 0x54, 0x54, 0x18, // e
+			0x08, 0x7E, 0x09, 0x01, 0x02, // f
+			0x0C, 0x52, 0x52, 0x52, 0x3E, // g
+			0x7F, 0x08, 0x04, 0x04, 0x78, // h
+			0x00, 0x44, 0x7D, 0x40, 0x00, // i
+			0x20, 0x40, 0x44, 0x3D, 0x00, // j
+			0x7F, 0x10, 0x28, 0x44, 0x00, // k
+			0x00, 0x41, 0x7F, 0x40, 0x00, // l
+			0x7C, 0x04, 0x18, 0x04, 0x78, // m
+			0x7C, 0x08, 0x04, 0x04, 0x78, // n
+			0x38, 0x44, 0x44, 0x44, 0x38, // o
+			0x7C, 0x14, 0x14, 0x14, 0x08, // p
+			0x08, 0x14, 0x14, 0x18, 0x7C, // q
+			0x7C, 0x08, 0x04, 0x04, 0x08, // r
+			0x48, 0x54, 0x54, 0x54, 0x20, // s
+			0x04, 0x3F, 0x44, 0x40, 0x20, // t
+			0x3C, 0x40, 0x40, 0x20, 0x7C, // u
+			0x1C, 0x20, 0x40, 0x20, 0x1C, // v
+			0x3C, 0x40, 0x30, 0x40, 0x3C, // w
+			0x44, 0x28, 0x10, 0x28, 0x44, // x
+			0x0C, 0x50, 0x50, 0x50, 0x3C, // y
+			0x44, 0x64, 0x54, 0x4C, 0x44, // z
+			0x00, 0x08, 0x36, 0x41, 0x00, // {
+			0x00, 0x00, 0x7F, 0x00, 0x00, // |
+			0x00, 0x41, 0x36, 0x08, 0x00, // }
+			0x02, 0x01, 0x02, 0x04, 0x02, // ~
+	};
+
+	/**
+	 * The German characters outside ASCII with their columns
+	 */
+	private static final char[] EXTRA_CHARS = { '\u00C4', '\u00D6', '\u00DC', '\u00E4', '\u00F6', '\u00FC', '\u00DF' };
+	private static final int[] EXTRA = {
+			0x78, 0x15, 0x14, 0x15, 0x78, // \u00C4
+			0x38, 0x45, 0x44, 0x45, 0x38, // \u00D6
+			0x3C, 0x41, 0x40, 0x41, 0x3C, // \u00DC
+			0x20, 0x55, 0x54, 0x55, 0x78, // \u00E4
+			0x38, 0x45, 0x44, 0x45, 0x38, // \u00F6
+			0x3C, 0x41, 0x40, 0x21, 0x7C, // \u00FC
+			0x7E, 0x01, 0x49, 0x36, 0x00, // \u00DF
+	};
+
+	/**
+	 * The packed glyphs of all Latin-1 characters, filled by the class initializer
+	 */
+	private static final byte[][] glyphs = new byte[LATIN1][];
+
+	static {
+		for (char c = 0; c < LATIN1; c++) {
+			glyphs[c] = pack(c);
+		}// for
+		for (char c = 0; c < LATIN1; c++) {
+			if (glyphs[c] == null) {
+				glyphs[c] = glyphs['?'];
+			}// if
+		}// for
+	}// static
+
+
+	private BitmapFont() {
+	}// constructor
+
+
+	/**
+	 * Returns the columns of the glyph, the array must not be changed
+	 * @param c of type char, the character
+	 * @return of type byte[], one byte per column, bit 0 is the upper row
+	 */
+	public static byte[] getGlyph(char c) {
+		if (c >= LATIN1) {
+			c = '?';
+		}// if
+		return glyphs[c];
+	}// getGlyph
+
+
+	/**
+	 * @param text of type CharSequence, the text
+	 * @return of type Integer, the number of columns of the text with one empty column after every glyph
+	 */
+	public static int getWidth(CharSequence text) {
+		int width = 0;
+		for (int i = 0; i < text.length(); i++) {
+			width += getGlyph(text.charAt(i)).length + 1;
+		}// for
+		return width;
+	}// getWidth
+
+
+	/**
+	 * Removes the empty columns at the sides of the glyph
+	 * @return of type byte[], the columns or null if the character is not in the font
+	 */
+	private static byte[] pack(char c) {
+		int[] table;
+		int offset;
+		if (c == ' ') {
+			return new byte[SPACE_WIDTH];
+		} else if (c >= FIRST_ASCII && c <= LAST_ASCII) {
+			table = ASCII;
+			offset = (c - FIRST_ASCII) * COLUMNS;
+		} else {
+			int index = -1;
+			for (int i = 0; i < EXTRA_CHARS.length; i++) {
+				if (EXTRA_CHARS[i] == c) {
+					index = i;
+				}// if
+			}// for
+			if (index < 0) {
+				return null;
+			}// if
+			table = EXTRA;
+			offset = index * COLUMNS;
+		}// if
+
+		int first = 0;
+		int last = COLUMNS - 1;
+		while (first < last && table[offset + first] == 0) {
+			first++;
+		}// while
+		while (last > first && table[offset + last] == 0) {
+			last--;
+		}// while
+		byte[] glyph = new byte[last - first + 1];
+		for (int i = 0; i < glyph.length; i++) {
+			glyph[i] = (byte) table[offset + first + i];
+		}// for
+		return glyph;
+	}// pack
+
+}// class BitmapFont
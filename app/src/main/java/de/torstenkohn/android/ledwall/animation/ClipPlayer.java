@@ -0,0 +1,346 @@
+package de.torstenkohn.android.ledwall.animation;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import de.torstenkohn.android.ledwall.connection.LatencyHistogram;
+import de.torstenkohn.android.ledwall.connection.OutboundQueue;
+import de.torstenkohn.android.ledwall.connection.OutgoingMessage;
+import de.torstenkohn.android.ledwall.connection.PreEncoder;
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+import de.torstenkohn.android.ledwall.image.FrameSequence;
+import de.torstenkohn.android.ledwall.image.ImageConverter;
+import de.torstenkohn.android.ledwall.image.ImageConverter.Dithering;
+
+/**
+ * The player sends a clip, e.g. an animated GIF, to the LED wall.<br/>
+ * <br/>
+ * Two threads work one after another:<br/>
+ * - The decoder thread decodes a frame, converts it into LED values<br/>
+ *   and encodes the DRAW message in all formats with the PreEncoder.<br/>
+ *   It stays only LOOKAHEAD frames ahead, then it waits, so a long clip<br/>
+ *   needs no more memory than a short one.<br/>
+ * - The send thread adds the messages to the OutboundQueue at the time<br/>
+ *   of their frame, the time is the sum of the delays of the clip,<br/>
+ *   counted from the start with System.nanoTime(), so the clip does not drift.<br/>
+ *   It never decodes or encodes, the connection only copies the bytes.<br/>
+ * <br/>
+ * If the send thread is so late that the time of the next frame has passed too,<br/>
+ * the frame is dropped. If the decoder is too slow and no frame is ready<br/>
+ * at its time, an underrun is counted and the clip continues when the frame is ready.<br/>
+ * Both are shown by report().<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class ClipPlayer {
+
+	/**
+	 * The source opens the frames of the clip, a looping clip is opened again at its end
+	 */
+	public interface ClipSource {
+		FrameSequence open() throws IOException;
+	}// interface ClipSource
+
+
+	/**
+	 * The listener is informed when the clip has ended or could not be read.<br/>
+	 * It is called in a thread of the player.
+	 */
+	public interface ClipListener {
+		void onFinished(ClipPlayer player);
+
+		void onError(ClipPlayer player, IOException e);
+	}// interface ClipListener
+
+
+	/**
+	 * The number of frames which are decoded and encoded in advance
+	 */
+	public static final int LOOKAHEAD = 4;
+
+	/**
+	 * The time in ms stop() waits for the threads of the player
+	 */
+	private static final int STOP_TIMEOUT = 500;
+
+
+	/**
+	 * A frame in the list between the threads
+	 */
+	private static class Frame {
+
+		private final OutgoingMessage message;
+		private final long delay;
+
+		private Frame(OutgoingMessage message, long delay) {
+			this.message = message;
+			this.delay = delay;
+		}// constructor
+
+	}// class Frame
+
+
+	/**
+	 * The end of the clip in the list between the threads
+	 */
+	private static final Frame END = new Frame(null, 0);
+
+
+	private final ClipSource source;
+	private final OutboundQueue queue;
+	private volatile Dithering dithering = Dithering.ORDERED;
+	private volatile ClipListener listener;
+	private volatile boolean isLooping;
+
+	private final BlockingQueue<Frame> frames = new ArrayBlockingQueue<Frame>(LOOKAHEAD);
+	private volatile boolean isRunning;
+	private Thread decoderThread;
+	private Thread sendThread;
+
+	/*
+	 * counters for the report
+	 */
+	private final AtomicLong decodedFrames = new AtomicLong();
+	private final AtomicLong sentFrames = new AtomicLong();
+	private final AtomicLong lateFrames = new AtomicLong();
+	private final AtomicLong underruns = new AtomicLong();
+	private final LatencyHistogram decodeTime = new LatencyHistogram("decode");
+	private final LatencyHistogram jitter = new LatencyHistogram("jitter");
+
+
+	/**
+	 * Constructor of the ClipPlayer
+	 * @param source of type ClipSource, opens the frames of the clip
+	 * @param queue of type OutboundQueue, the list of the messages for the server
+	 */
+	public ClipPlayer(ClipSource source, OutboundQueue queue) {
+		this.source = source;
+		this.queue = queue;
+	}// constructor
+
+
+	public void setDithering(Dithering dithering) {
+		this.dithering = dithering;
+	}// setDithering
+
+
+	/**
+	 * @param isLooping of type boolean, true -> the clip starts again after its end
+	 */
+	public void setLooping(boolean isLooping) {
+		this.isLooping = isLooping;
+	}// setLooping
+
+
+	public void setClipListener(ClipListener listener) {
+		this.listener = listener;
+	}// setClipListener
+
+
+	public boolean isRunning() {
+		return isRunning;
+	}// isRunning
+
+
+	/**
+	 * Starts the threads of the player, a running player is not started again
+	 */
+	public synchronized void start() {
+		if (decoderThread != null) {
+			return;
+		}// if
+		isRunning = true;
+		frames.clear();
+		decoderThread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				decode();
+			}// run
+		}, "ClipPlayer_decoder");
+		sendThread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				send();
+			}// run
+		}, "ClipPlayer_send");
+		decoderThread.start();
+		sendThread.start();
+	}// start
+
+
+	/**
+	 * Stops the player and waits for its threads, so no frame is added to the list<br/>
+	 * after the method has returned. The frame which is already in the list is still sent.
+	 */
+	public void stop() {
+		Thread decoder;
+		Thread sender;
+		synchronized (this) {
+			isRunning = false;
+			decoder = decoderThread;
+			sender = sendThread;
+			decoderThread = null;
+			sendThread = null;
+		}// synchronized
+		join(sender);
+		join(decoder);
+	}// stop
+
+
+	private void join(Thread thread) {
+		if (thread != null && thread != Thread.currentThread()) {
+			thread.interrupt();
+			try {
+				thread.join(STOP_TIMEOUT);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}// try
+		}// if
+	}// join
+
+
+	/**
+	 * The loop of the decoder thread: decodes, converts and encodes the frames<br/>
+	 * until the clip has ended or stop() is called
+	 */
+	private void decode() {
+		ImageConverter converter = new ImageConverter(1);
+		PreEncoder preEncoder = new PreEncoder();
+		int[] matrix = new int[DrawFrameCodec.NUMBER_OF_LED];
+		long previousSequence = 0;
+		try {
+			boolean hasFrames;
+			do {
+				hasFrames = false;
+				FrameSequence sequence = source.open();
+				try {
+					long start = System.nanoTime();
+					while (isRunning && sequence.next()) {
+						converter.convert(sequence.getFrame(), dithering, matrix);
+						OutgoingMessage message = OutgoingMessage.broadcastDraw(matrix, previousSequence);
+						preEncoder.encode(message);
+						decodeTime.recordNanos(System.nanoTime() - start);
+						decodedFrames.incrementAndGet();
+						previousSequence = message.getSequence();
+						hasFrames = true;
+						frames.put(new Frame(message, TimeUnit.MILLISECONDS.toNanos(sequence.getDelay())));
+						start = System.nanoTime();
+					}// while
+				} finally {
+					sequence.close();
+				}// try
+			} while (isRunning && isLooping && hasFrames);
+			frames.put(END);
+		} catch (InterruptedException e) {
+			// stop() was called
+		} catch (IOException e) {
+			isRunning = false;
+			ClipListener current = listener;
+			if (current != null) {
+				current.onError(this, e);
+			}// if
+			frames.offer(END);
+		}// try
+	}// decode
+
+
+	/**
+	 * The loop of the send thread: adds the frames to the list at their time
+	 */
+	private void send() {
+		long due = 0;
+		boolean isFinished = false;
+		try {
+			while (isRunning) {
+				long now = System.nanoTime();
+				while (due != 0 && now < due && isRunning) {
+					LockSupport.parkNanos(due - now);
+					now = System.nanoTime();
+				}// while
+				if (!isRunning) {
+					break;
+				}// if
+
+				Frame frame = frames.poll();
+				if (frame == null) {
+					// the first frame is not an underrun, the decoder has just started
+					if (due != 0) {
+						underruns.incrementAndGet();
+					}// if
+					frame = frames.take();
+					// the clip continues from this frame, it is not dropped
+					now = System.nanoTime();
+					due = now;
+				}// if
+				if (frame == END) {
+					isFinished = true;
+					break;
+				}// if
+				if (due == 0) {
+					due = now;
+				}// if
+
+				if (now - due >= frame.delay && frame.delay > 0) {
+					// the send thread was so late that the time of this frame has passed completely
+					lateFrames.incrementAndGet();
+				} else {
+					jitter.recordNanos(now - due);
+					queue.offer(frame.message);
+					sentFrames.incrementAndGet();
+				}// if
+				due += frame.delay;
+			}// while
+		} catch (InterruptedException e) {
+			// stop() was called
+		}// try
+
+		isRunning = false;
+		ClipListener current = listener;
+		if (isFinished && current != null) {
+			current.onFinished(this);
+		}// if
+	}// send
+
+
+	/**
+	 * @return of type long, the frames which were not sent because the player was too late
+	 */
+	public long getDroppedFrames() {
+		return lateFrames.get();
+	}// getDroppedFrames
+
+
+	/**
+	 * @return of type long, how often the send thread had to wait for the decoder
+	 */
+	public long getUnderruns() {
+		return underruns.get();
+	}// getUnderruns
+
+
+	/**
+	 * Creates the report of the player
+	 * @return of type String, one value per line
+	 */
+	public String report() {
+		StringBuilder report = new StringBuilder(256);
+		report.append("clip: decoded=").append(decodedFrames.get())
+				.append(" sent=").append(sentFrames.get())
+				.append(" dropped=").append(lateFrames.get())
+				.append(" underruns=").append(underruns.get())
+				.append(" lookahead=").append(frames.size()).append('/').append(LOOKAHEAD)
+				.append('\n');
+		decodeTime.appendTo(report);
+		jitter.appendTo(report);
+		return report.toString();
+	}// report
+
+}// class ClipPlayer
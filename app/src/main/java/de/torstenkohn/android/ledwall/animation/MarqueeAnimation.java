@@ -0,0 +1,89 @@
+package de.torstenkohn.android.ledwall.animation;
+
+/**
+ * A text which runs from the right to the left over the LED wall.<br/>
+ * The text is rasterized once into a column stream (see TextRasterizer).<br/>
+ * If the next step is rendered into the same frame, the frame is only moved<br/>
+ * by one column and the new column is written, the whole frame is only written<br/>
+ * for the first step or after a jump (e.g. when the AnimationPlayer has dropped frames).<br/>
+ * So the frame must not be changed by others between two calls, like the frame of the AnimationPlayer.<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class MarqueeAnimation implements Animation {
+
+	private static final int WIDTH = ScrollAnimation.LEDWALL_WIDTH;
+
+	private final int[] columns;
+	private final boolean isInverted;
+	private final long stepTime;
+	private final int steps;
+
+	/*
+	 * the frame and the step of the last call
+	 */
+	private int[] lastFrame;
+	private int lastStep = -1;
+
+
+	/**
+	 * Constructor of the MarqueeAnimation
+	 * @param top of type String, the upper line
+	 * @param bottom of type String, the lower line, if it is empty the upper line runs in the middle
+	 * @param color of type Integer, 1 (red), 2 (green), 3 (blue) or TextRasterizer.MULTICOLORED
+	 * @param isInverted of type boolean, true -> the LEDs of the text are off and the others are on
+	 * @param stepTime of type long, the time in ms for a movement by one column
+	 */
+	public MarqueeAnimation(String top, String bottom, int color, boolean isInverted, long stepTime) {
+		if (stepTime <= 0) {
+			throw new IllegalArgumentException("the step time must be greater than 0");
+		}// if
+		// the text comes in on the right side and leaves the wall completely on the left side
+		this.columns = TextRasterizer.rasterize(top, bottom, color, WIDTH);
+		this.isInverted = isInverted;
+		this.stepTime = stepTime;
+		this.steps = columns.length - WIDTH;
+	}// constructor
+
+
+	/**
+	 * @return of type Integer, the number of steps until the text has passed the wall
+	 */
+	public int getSteps() {
+		return steps;
+	}// getSteps
+
+
+	@Override
+	public long getDuration() {
+		return steps * stepTime;
+	}// getDuration
+
+
+	@Override
+	public void render(long time, int[] frame) {
+		renderStep((int) ((time / stepTime) % steps), frame);
+	}// render
+
+
+	/**
+	 * Writes the step into the frame
+	 * @param step of type Integer, the column of the stream on the left side of the wall
+	 * @param frame of type int[], the 160 LED values
+	 */
+	public synchronized void renderStep(int step, int[] frame) {
+		if (frame == lastFrame && step == lastStep) {
+			return;
+		}// if
+		if (frame == lastFrame && step == lastStep + 1) {
+			TextRasterizer.scroll(frame, columns[step + WIDTH - 1], isInverted);
+		} else {
+			TextRasterizer.render(columns, step, isInverted, frame);
+		}// if
+		lastFrame = frame;
+		lastStep = step;
+	}// renderStep
+
+}// class MarqueeAnimation
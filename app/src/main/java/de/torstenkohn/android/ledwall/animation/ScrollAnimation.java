@@ -0,0 +1,89 @@
+package de.torstenkohn.android.ledwall.animation;
+
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+
+/**
+ * The animation moves a picture over the LED wall step by step.<br/>
+ * The LEDs which leave the wall on one side come in again on the other side,<br/>
+ * so after one pass over the width or height the picture is at its start again.<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class ScrollAnimation implements Animation {
+
+	/**
+	 * The directions of the movement
+	 */
+	public enum Direction {
+		LEFT, RIGHT, UP, DOWN
+	}// enum Direction
+
+
+	public static final int LEDWALL_WIDTH = DrawFrameCodec.LEDWALL_WIDTH;
+	public static final int LEDWALL_HEIGHT = DrawFrameCodec.LEDWALL_HEIGHT;
+
+	private final int[] pixels;
+	private final Direction direction;
+	private final long stepTime;
+	private final int steps;
+
+
+	/**
+	 * Constructor of the ScrollAnimation
+	 * @param pixels of type int[], the LED values of the picture, a copy is stored
+	 * @param direction of type Direction, the direction of the movement
+	 * @param stepTime of type long, the time in ms for a movement by one LED
+	 */
+	public ScrollAnimation(int[] pixels, Direction direction, long stepTime) {
+		if (pixels.length != DrawFrameCodec.NUMBER_OF_LED) {
+			throw new IllegalArgumentException("a frame has " + DrawFrameCodec.NUMBER_OF_LED + " LEDs");
+		}// if
+		if (stepTime <= 0) {
+			throw new IllegalArgumentException("the step time must be greater than 0");
+		}// if
+		this.pixels = pixels.clone();
+		this.direction = direction;
+		this.stepTime = stepTime;
+		this.steps = direction == Direction.LEFT || direction == Direction.RIGHT
+				? LEDWALL_WIDTH : LEDWALL_HEIGHT;
+	}// constructor
+
+
+	@Override
+	public long getDuration() {
+		return steps * stepTime;
+	}// getDuration
+
+
+	@Override
+	public void render(long time, int[] frame) {
+		int step = (int) ((time / stepTime) % steps);
+		int dx = 0;
+		int dy = 0;
+		switch (direction) {
+		case LEFT:
+			dx = -step;
+			break;
+		case RIGHT:
+			dx = step;
+			break;
+		case UP:
+			dy = -step;
+			break;
+		case DOWN:
+			dy = step;
+			break;
+		}// switch
+
+		for (int y = 0; y < LEDWALL_HEIGHT; y++) {
+			int sourceRow = ((y - dy + LEDWALL_HEIGHT) % LEDWALL_HEIGHT) * LEDWALL_WIDTH;
+			int row = y * LEDWALL_WIDTH;
+			for (int x = 0; x < LEDWALL_WIDTH; x++) {
+				frame[row + x] = pixels[sourceRow + (x - dx + LEDWALL_WIDTH) % LEDWALL_WIDTH];
+			}// for
+		}// for
+	}// render
+
+}// class ScrollAnimation
@@ -0,0 +1,140 @@
+package de.torstenkohn.android.ledwall.animation;
+
+/**
+ * The class turns text into columns of the LED wall with the BitmapFont.<br/>
+ * A text is rasterized once into a column stream: one int per column,<br/>
+ * the bits 0 to 15 are the 16 rows (bit 0 is the upper row),<br/>
+ * the bits 16-17 the colour of the upper half and the bits 18-19 the colour of the lower half.<br/>
+ * With two lines the upper line is in the rows 0 to 7 and the lower line in the rows 8 to 15,<br/>
+ * a single line is in the middle of the wall.<br/>
+ * <br/>
+ * A frame is written from ten columns of the stream by render(),<br/>
+ * a marquee only moves the frame by one column and writes the new column by scroll().<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public final class TextRasterizer {
+
+	/**
+	 * The colour value for a text whose glyphs change between red, green and blue
+	 */
+	public static final int MULTICOLORED = 0;
+
+	private static final int WIDTH = ScrollAnimation.LEDWALL_WIDTH;
+	private static final int HEIGHT = ScrollAnimation.LEDWALL_HEIGHT;
+	private static final int HALF = HEIGHT / 2;
+
+	/**
+	 * The first row of a single line, so the glyph is in the middle of the wall
+	 */
+	private static final int CENTER_ROW = (HEIGHT - BitmapFont.GLYPH_HEIGHT) / 2;
+
+	private static final int TOP_COLOR_SHIFT = 16;
+	private static final int BOTTOM_COLOR_SHIFT = 18;
+	private static final int COLOR_MASK = 3;
+	private static final int COLORS = 3;
+
+
+	private TextRasterizer() {
+	}// constructor
+
+
+	/**
+	 * Rasterizes one or two lines into a column stream
+	 * @param top of type CharSequence, the upper line
+	 * @param bottom of type CharSequence, the lower line, if it is empty the upper line is in the middle
+	 * @param color of type Integer, 1 (red), 2 (green), 3 (blue) or MULTICOLORED
+	 * @param padding of type Integer, the number of empty columns before and after the text
+	 * @return of type int[], the column stream
+	 */
+	public static int[] rasterize(CharSequence top, CharSequence bottom, int color, int padding) {
+		int width = Math.max(BitmapFont.getWidth(top), BitmapFont.getWidth(bottom));
+		int[] columns = new int[padding + width + padding];
+
+		// the empty columns get the colour as well, so an inverted text has a background
+		int base = color == MULTICOLORED ? 1 : color;
+		int empty = (base << TOP_COLOR_SHIFT) | (base << BOTTOM_COLOR_SHIFT);
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = empty;
+		}// for
+
+		if (bottom.length() == 0) {
+			writeLine(top, color, CENTER_ROW, columns, padding);
+		} else {
+			writeLine(top, color, 0, columns, padding);
+			writeLine(bottom, color, HALF, columns, padding);
+		}// if
+		return columns;
+	}// rasterize
+
+
+	/**
+	 * Writes the glyphs of a line into the column stream
+	 */
+	private static void writeLine(CharSequence text, int color, int row, int[] columns, int offset) {
+		boolean isTop = row < HALF;
+		boolean isBottom = row + BitmapFont.GLYPH_HEIGHT > HALF;
+		int position = offset;
+		for (int i = 0; i < text.length(); i++) {
+			byte[] glyph = BitmapFont.getGlyph(text.charAt(i));
+			int glyphColor = color == MULTICOLORED ? i % COLORS + 1 : color;
+			for (int j = 0; j < glyph.length; j++) {
+				int column = columns[position] | ((glyph[j] & 0xFF) << row);
+				if (isTop) {
+					column = (column & ~(COLOR_MASK << TOP_COLOR_SHIFT)) | (glyphColor << TOP_COLOR_SHIFT);
+				}// if
+				if (isBottom) {
+					column = (column & ~(COLOR_MASK << BOTTOM_COLOR_SHIFT)) | (glyphColor << BOTTOM_COLOR_SHIFT);
+				}// if
+				columns[position++] = column;
+			}// for
+			// the empty column between two glyphs
+			position++;
+		}// for
+	}// writeLine
+
+
+	/**
+	 * Writes ten columns of the stream into the frame
+	 * @param columns of type int[], the column stream
+	 * @param first of type Integer, the column of the stream on the left side of the wall
+	 * @param isInverted of type boolean, true -> the LEDs of the text are off and the others are on
+	 * @param frame of type int[], the 160 LED values
+	 */
+	public static void render(int[] columns, int first, boolean isInverted, int[] frame) {
+		for (int x = 0; x < WIDTH; x++) {
+			int index = first + x;
+			writeColumn(index >= 0 && index < columns.length ? columns[index] : 0, x, isInverted, frame);
+		}// for
+	}// render
+
+
+	/**
+	 * Moves the frame by one column to the left and writes the new column on the right side
+	 * @param frame of type int[], the 160 LED values
+	 * @param column of type Integer, the new column from the column stream
+	 * @param isInverted of type boolean, true -> the LEDs of the text are off and the others are on
+	 */
+	public static void scroll(int[] frame, int column, boolean isInverted) {
+		// a loop is faster than System.arraycopy() for rows of ten LEDs
+		for (int row = 0; row < frame.length; row += WIDTH) {
+			for (int x = row; x < row + WIDTH - 1; x++) {
+				frame[x] = frame[x + 1];
+			}// for
+		}// for
+		writeColumn(column, WIDTH - 1, isInverted, frame);
+	}// scroll
+
+
+	private static void writeColumn(int column, int x, boolean isInverted, int[] frame) {
+		int topColor = (column >>> TOP_COLOR_SHIFT) & COLOR_MASK;
+		int bottomColor = (column >>> BOTTOM_COLOR_SHIFT) & COLOR_MASK;
+		int bits = isInverted ? ~column : column;
+		for (int y = 0; y < HEIGHT; y++) {
+			frame[y * WIDTH + x] = ((bits >>> y) & 1) == 0 ? 0 : (y < HALF ? topColor : bottomColor);
+		}// for
+	}// writeColumn
+
+}// class TextRasterizer
@@ -0,0 +1,117 @@
+package de.torstenkohn.android.ledwall.animation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+
+/**
+ * A timeline plays animations and still frames one after another.<br/>
+ * The end time of every part is stored, so the part for a point in time<br/>
+ * is found by a binary search and a long timeline costs no more per frame.<br/>
+ * After the last part the last frame stays, the AnimationPlayer can loop the timeline.<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class Timeline implements Animation {
+
+	private final List<Animation> parts = new ArrayList<Animation>();
+
+	/**
+	 * The time in ms at which each part ends
+	 */
+	private long[] ends = new long[8];
+
+	private long duration;
+
+
+	/**
+	 * Adds an animation at the end of the timeline
+	 * @param animation of type Animation, the animation, its duration must be greater than 0
+	 * @return of type Timeline, this timeline
+	 */
+	public synchronized Timeline add(Animation animation) {
+		if (animation.getDuration() <= 0) {
+			throw new IllegalArgumentException("the duration must be greater than 0");
+		}// if
+		if (parts.size() == ends.length) {
+			ends = Arrays.copyOf(ends, ends.length * 2);
+		}// if
+		duration += animation.getDuration();
+		ends[parts.size()] = duration;
+		parts.add(animation);
+		return this;
+	}// add
+
+
+	/**
+	 * Adds a frame which is shown for the given time at the end of the timeline
+	 * @param pixels of type int[], the LED values 0 (none), 1 (red), 2 (green) or 3 (blue), a copy is stored
+	 * @param duration of type long, the time in ms the frame is shown
+	 * @return of type Timeline, this timeline
+	 */
+	public Timeline addFrame(int[] pixels, long duration) {
+		return add(new Still(pixels, duration));
+	}// addFrame
+
+
+	@Override
+	public synchronized long getDuration() {
+		return duration;
+	}// getDuration
+
+
+	@Override
+	public synchronized void render(long time, int[] frame) {
+		if (parts.isEmpty()) {
+			Arrays.fill(frame, 0);
+			return;
+		}// if
+		if (time < 0) {
+			time = 0;
+		} else if (time >= duration) {
+			time = duration - 1;
+		}// if
+
+		// the first part which ends after the time
+		int index = Arrays.binarySearch(ends, 0, parts.size(), time);
+		index = index < 0 ? -index - 1 : index + 1;
+		long start = index == 0 ? 0 : ends[index - 1];
+		parts.get(index).render(time - start, frame);
+	}// render
+
+
+	/**
+	 * A frame which does not change
+	 */
+	private static class Still implements Animation {
+
+		private final int[] pixels;
+		private final long duration;
+
+
+		private Still(int[] pixels, long duration) {
+			if (pixels.length != DrawFrameCodec.NUMBER_OF_LED) {
+				throw new IllegalArgumentException("a frame has " + DrawFrameCodec.NUMBER_OF_LED + " LEDs");
+			}// if
+			this.pixels = pixels.clone();
+			this.duration = duration;
+		}// constructor
+
+
+		@Override
+		public long getDuration() {
+			return duration;
+		}// getDuration
+
+
+		@Override
+		public void render(long time, int[] frame) {
+			System.arraycopy(pixels, 0, frame, 0, pixels.length);
+		}// render
+	}// inner class Still
+
+}// class Timeline
@@ -4,9 +4,10 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.net.Socket;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
 
 import android.util.Log;
+import de.torstenkohn.android.ledwall.core.DrawDeltaEncoder;
 
 /**
  * The class stores the Socket, BufferedReader and BufferedWriter<br/>
@@ -20,6 +21,15 @@ import android.util.Log;
  */
 public class ConnectionManager {
 
+	/**
+	 * The ways to exchange the messages with the server:<br/>
+	 * STREAM uses a blocking socket with a reader and a writer thread,<br/>
+	 * NIO uses a non-blocking SocketChannel which is driven by one selector thread.
+	 */
+	public enum Transport {
+		STREAM, NIO
+	}// enum Transport
+
 	
 	/**
 	 * instance of ConnectionManager (Singleton)
@@ -46,16 +56,98 @@ public class ConnectionManager {
 	
 	
 	/**
-	 * There is a thread-safe LinkedBlockingDeque used<br/>
-	 * to prevent two threads access the list at an inopportune moment.
+	 * The thread-safe list of the messages for the server.<br/>
+	 * A new DRAW or TEXT message replaces the not yet sent message of the same function.
+	 */
+	private static final OutboundQueue messages = new OutboundQueue();
+	
+	
+	/**
+	 * The measurements of the connection, e.g. for the DebugActivity
+	 */
+	private static final ConnectionMetrics metrics = new ConnectionMetrics(messages);
+	
+	
+	/**
+	 * The components which receive the messages of the server, see LEDWallService
 	 */
-	private static LinkedBlockingDeque<String> messages = new LinkedBlockingDeque<String>();
+	private static final MessageSubscriptions subscriptions = new MessageSubscriptions();
 
 	private boolean isConnected;
 	
+	
+	/**
+	 * The time in ms the app tries to connect again after the connection was lost,<br/>
+	 * before the user is informed
+	 */
+	private long outageBudget = ReconnectPolicy.DEFAULT_OUTAGE_BUDGET;
+	
+	
+	/**
+	 * The transport which is used for the next connection
+	 */
+	private Transport transport = Transport.STREAM;
+	
+	
+	/**
+	 * The user wants to send the DRAW function in the binary format
+	 */
+	private boolean isBinaryDrawRequested;
+	
+	
+	/**
+	 * The server has confirmed the binary format for the DRAW function
+	 */
+	private boolean isBinaryDraw;
+	
+	
+	/**
+	 * Only the changed LEDs are sent, if the server supports it
+	 */
+	private boolean isDeltaDrawRequested = true;
+	
+	
+	/**
+	 * The server has confirmed the delta DRAW function
+	 */
+	private boolean isDeltaDraw;
+	
+	
+	/**
+	 * Several Tetris moves are sent in one message, if the server supports it
+	 */
+	private boolean isTetrisMovesRequested = true;
+	
+	
+	/**
+	 * The server has confirmed several Tetris moves in one message
+	 */
+	private boolean isTetrisMoves;
+	
+	
+	/**
+	 * The encoder knows the last frame sent to the server,<br/>
+	 * it belongs to the connection like the socket.
+	 */
+	private final DrawDeltaEncoder drawDeltaEncoder = new DrawDeltaEncoder();
+	
 	private Socket socket;
 	private BufferedReader in;
 	private BufferedWriter out;
+	
+	
+	/**
+	 * The framing of the messages from the server,<br/>
+	 * the server sends plain JSON objects by default.
+	 */
+	private FrameDecoder.Framing framing = FrameDecoder.Framing.JSON;
+	
+	
+	/**
+	 * The decoder belongs to the stream of the socket,<br/>
+	 * so incomplete messages are not lost when the service thread changes.
+	 */
+	private FrameDecoder frameDecoder;
 
 	
 	/**
@@ -139,6 +231,26 @@ public class ConnectionManager {
 	}// setOut
 	
 	
+	public FrameDecoder.Framing getFraming() {
+		return framing;
+	}// getFraming
+
+	
+	public void setFraming(FrameDecoder.Framing framing) {
+		this.framing = framing;
+	}// setFraming
+
+	
+	public FrameDecoder getFrameDecoder() {
+		return frameDecoder;
+	}// getFrameDecoder
+
+	
+	public void setFrameDecoder(FrameDecoder frameDecoder) {
+		this.frameDecoder = frameDecoder;
+	}// setFrameDecoder
+	
+	
 	public void setConnected(boolean isConnected){
 		this.isConnected = isConnected;
 	}// setConnected
@@ -148,17 +260,156 @@ public class ConnectionManager {
 		return isConnected;
 	}// isConnected
 	
+	
+	public long getOutageBudget() {
+		return outageBudget;
+	}// getOutageBudget
+	
+	
+	public void setOutageBudget(long outageBudget) {
+		this.outageBudget = outageBudget;
+	}// setOutageBudget
+	
+	
+	public Transport getTransport() {
+		return transport;
+	}// getTransport
+	
+	
+	public void setTransport(Transport transport) {
+		this.transport = transport;
+	}// setTransport
+	
+	
+	public boolean isBinaryDrawRequested() {
+		return isBinaryDrawRequested;
+	}// isBinaryDrawRequested
+	
+	
+	public void setBinaryDrawRequested(boolean isBinaryDrawRequested) {
+		this.isBinaryDrawRequested = isBinaryDrawRequested;
+	}// setBinaryDrawRequested
+	
+	
+	public boolean isBinaryDraw() {
+		return isBinaryDraw;
+	}// isBinaryDraw
+	
+	
+	public void setBinaryDraw(boolean isBinaryDraw) {
+		this.isBinaryDraw = isBinaryDraw;
+	}// setBinaryDraw
+	
+	
+	public boolean isDeltaDrawRequested() {
+		return isDeltaDrawRequested;
+	}// isDeltaDrawRequested
+	
+	
+	public void setDeltaDrawRequested(boolean isDeltaDrawRequested) {
+		this.isDeltaDrawRequested = isDeltaDrawRequested;
+	}// setDeltaDrawRequested
+	
+	
+	public boolean isDeltaDraw() {
+		return isDeltaDraw;
+	}// isDeltaDraw
+	
+	
+	public void setDeltaDraw(boolean isDeltaDraw) {
+		this.isDeltaDraw = isDeltaDraw;
+	}// setDeltaDraw
+	
+	
+	public boolean isTetrisMovesRequested() {
+		return isTetrisMovesRequested;
+	}// isTetrisMovesRequested
+	
+	
+	public void setTetrisMovesRequested(boolean isTetrisMovesRequested) {
+		this.isTetrisMovesRequested = isTetrisMovesRequested;
+	}// setTetrisMovesRequested
+	
+	
+	public boolean isTetrisMoves() {
+		return isTetrisMoves;
+	}// isTetrisMoves
+	
+	
+	public void setTetrisMoves(boolean isTetrisMoves) {
+		this.isTetrisMoves = isTetrisMoves;
+	}// setTetrisMoves
+	
+	
+	public DrawDeltaEncoder getDrawDeltaEncoder() {
+		return drawDeltaEncoder;
+	}// getDrawDeltaEncoder
+	
+	public ConnectionMetrics getMetrics() {
+		return metrics;
+	}// getMetrics
+	
+	
+	/**
+	 * @return of type MessageSubscriptions, the registry of the components<br/>
+	 *         which receive the messages of the server
+	 */
+	public MessageSubscriptions getSubscriptions() {
+		return subscriptions;
+	}// getSubscriptions
+	
+	
+	/**
+	 * @return of type OutboundQueue, the list of the messages, e.g. for a NioConnection
+	 */
+	public OutboundQueue getQueue() {
+		return messages;
+	}// getQueue
+	
 	// END getter & setter
 	
 	/**
-	 * The method adds a message to the list
+	 * The method adds a message to the list.<br/>
+	 * The message is always sent, it is never replaced by a newer message.
 	 * @param message of type String, the message for the server
 	 */
 	public void addMessage(String message) {
-		messages.offer(message);
+		messages.offer(OutgoingMessage.json(null, message));
 	}// addMessage
 
 	
+	/**
+	 * The method adds a message of the given function to the list.<br/>
+	 * A DRAW or TEXT message replaces the not yet sent message of the same function,<br/>
+	 * all other functions are always sent in order.
+	 * @param function of type String, the function of the message (LEDWallMessage.FUNC_...)
+	 * @param message of type String, the message for the server
+	 */
+	public void addMessage(String function, String message) {
+		messages.offer(OutgoingMessage.json(function, message));
+	}// addMessage
+
+	
+	/**
+	 * The method adds a DRAW message to the list.<br/>
+	 * A copy of the LED array is stored, the format (JSON or binary)<br/>
+	 * is chosen when the message is sent.
+	 * @param data of type int[], the LED values 0 (none), 1 (red), 2 (green) or 3 (blue)
+	 */
+	public void addDrawMessage(int[] data) {
+		messages.offer(OutgoingMessage.draw(data));
+	}// addDrawMessage
+
+	
+	/**
+	 * The method puts a message which could not be sent back to the front of the list.
+	 * @param message of type OutgoingMessage, the message taken from the list
+	 */
+	public void requeueMessage(OutgoingMessage message) {
+		messages.requeue(message);
+	}// requeueMessage
+
+	
 	/**
 	 * The method checks the list if there are entries
 	 * @return of type boolean, true -> list is not empty | false -> list is empty
@@ -170,20 +421,29 @@ public class ConnectionManager {
 	
 	/**
 	 * The method returns the first item from the list<br/>
-	 * if the list is empty, an empty string ("") is returned.
-	 * @return of type String, the message for the server. "" for an empty list or the JSON String
+	 * if the list is empty, null is returned.
+	 * @return of type OutgoingMessage, the message for the server or null for an empty list
 	 */
-	public String getMessage() {
+	public OutgoingMessage getMessage() {
+		return messages.poll();
+	}// getMessage
 
-		if (messages.isEmpty()) {
-			return "";
-		} else {
-			return messages.poll();
-		}// if
 
-	}// getMessage
+	/**
+	 * The method returns the first item from the list and waits<br/>
+	 * up to the given timeout if the list is empty.<br/>
+	 * The waiting thread is woken up as soon as a message is added.
+	 * @param timeout of type long, the maximum time to wait
+	 * @param unit of type TimeUnit, the unit of the timeout
+	 * @return of type OutgoingMessage, the message for the server or null if the timeout elapsed
+	 * @throws InterruptedException if the waiting thread is interrupted
+	 */
+	public OutgoingMessage pollMessage(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		return messages.poll(timeout, unit);
+	}// pollMessage
+
 
-	
 	/**
 	 * Deletes all messages from the list
 	 */
@@ -192,6 +452,30 @@ public class ConnectionManager {
 	}// clearMessages
 
 	
+	/**
+	 * @return of type Integer, the number of messages which are not yet sent
+	 */
+	public int getQueueDepth() {
+		return messages.getDepth();
+	}// getQueueDepth
+
+	
+	/**
+	 * @return of type Integer, the highest number of waiting messages so far
+	 */
+	public int getMaxQueueDepth() {
+		return messages.getMaxDepth();
+	}// getMaxQueueDepth
+
+	
+	/**
+	 * @return of type long, the number of messages replaced by a newer message of the same function
+	 */
+	public long getCoalescedCount() {
+		return messages.getCoalescedCount();
+	}// getCoalescedCount
+
+	
 	/**
 	 * This method closes the socket connection to the server.<br/>
 	 * It creates a thread, possibly because the method is blocked by the BufferedReader.
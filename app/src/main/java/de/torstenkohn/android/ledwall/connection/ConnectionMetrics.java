@@ -0,0 +1,299 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import de.torstenkohn.android.ledwall.core.LEDWallMessage;
+
+/**
+ * The class collects the measurements of the connection to the server:<br/>
+ * how long the messages wait in the list, how long writing takes,<br/>
+ * the bytes and messages per function in both directions,<br/>
+ * the received messages which were dropped without a subscriber,<br/>
+ * how long a message of the server needs until it is handed to the handler<br/>
+ * and how late the handler delivers it to the activity.<br/>
+ * <br/>
+ * All values are stored in atomic counters and LatencyHistograms,<br/>
+ * so recording creates no objects and needs no lock.<br/>
+ * The report is only created when it is requested, e.g. by the DebugActivity.<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class ConnectionMetrics {
+
+	/**
+	 * The functions which are counted, all others are counted as "other"
+	 */
+	private static final String[] FUNCTIONS = { LEDWallMessage.FUNC_CONNECT,
+			LEDWallMessage.FUNC_BREAK, LEDWallMessage.FUNC_DISCONNECT, LEDWallMessage.FUNC_TEXT,
+			LEDWallMessage.FUNC_DRAW, LEDWallMessage.FUNC_TETRIS, "other" };
+
+	private static final int OTHER = FUNCTIONS.length - 1;
+
+
+	private final OutboundQueue queue;
+
+	private final LatencyHistogram queueWait = new LatencyHistogram("queue wait");
+	private final LatencyHistogram writeTime = new LatencyHistogram("write + flush");
+	private final LatencyHistogram dispatchTime = new LatencyHistogram("read -> handler");
+	private final LatencyHistogram handlerLag = new LatencyHistogram("handler lag");
+	private final LatencyHistogram outage = new LatencyHistogram("reconnect outage");
+
+	private final AtomicLongArray messagesOut = new AtomicLongArray(FUNCTIONS.length);
+	private final AtomicLongArray bytesOut = new AtomicLongArray(FUNCTIONS.length);
+	private final AtomicLongArray messagesIn = new AtomicLongArray(FUNCTIONS.length);
+	private final AtomicLongArray bytesIn = new AtomicLongArray(FUNCTIONS.length);
+	private final AtomicLongArray messagesDropped = new AtomicLongArray(FUNCTIONS.length);
+
+	private final AtomicLong connects = new AtomicLong();
+	private final AtomicLong connectFailures = new AtomicLong();
+	private final AtomicLong reconnects = new AtomicLong();
+	private final AtomicLong reconnectFailures = new AtomicLong();
+
+	/**
+	 * The time of the last reset, the throughput is calculated from it
+	 */
+	private volatile long startTime = System.currentTimeMillis();
+
+
+	/**
+	 * Constructor of the ConnectionMetrics
+	 * @param queue of type OutboundQueue, the list of the messages, its counters are part of the report
+	 */
+	public ConnectionMetrics(OutboundQueue queue) {
+		this.queue = queue;
+	}// constructor
+
+
+	/**
+	 * The method returns the index of the function in the counters
+	 * @param function of type String, the function (LEDWallMessage.FUNC_...) or null
+	 * @return of type Integer, the index, unknown functions are counted as "other"
+	 */
+	private static int functionIndex(String function) {
+		if (function != null) {
+			for (int i = 0; i < OTHER; i++) {
+				if (FUNCTIONS[i].equals(function)) {
+					return i;
+				}// if
+			}// for
+		}// if
+		return OTHER;
+	}// functionIndex
+
+
+	/**
+	 * Records a message which was sent to the server
+	 * @param message of type OutgoingMessage, the message which was sent
+	 * @param startTime of type long, System.nanoTime() before the message was written
+	 * @param endTime of type long, System.nanoTime() after the writer was flushed
+	 * @param length of type Integer, the number of characters or bytes which were written
+	 */
+	public void recordWrite(OutgoingMessage message, long startTime, long endTime, int length) {
+		queueWait.recordNanos(startTime - message.getEnqueueTime());
+		writeTime.recordNanos(endTime - startTime);
+		int index = functionIndex(message.getFunction());
+		messagesOut.incrementAndGet(index);
+		bytesOut.addAndGet(index, length);
+	}// recordWrite
+
+
+	/**
+	 * Records a message which was received from the server
+	 * @param function of type String, the function of the message
+	 * @param length of type Integer, the number of characters of the message
+	 */
+	public void recordRead(String function, int length) {
+		int index = functionIndex(function);
+		messagesIn.incrementAndGet(index);
+		bytesIn.addAndGet(index, length);
+	}// recordRead
+
+
+	/**
+	 * Records a message of the server which was read but had no subscriber
+	 * @param function of type String, the function of the message
+	 */
+	public void recordDrop(String function) {
+		messagesDropped.incrementAndGet(functionIndex(function));
+	}// recordDrop
+
+
+	/**
+	 * Records the time from receiving a message until it is handed to the handler
+	 * @param nanos of type long, the duration in ns
+	 */
+	public void recordDispatch(long nanos) {
+		dispatchTime.recordNanos(nanos);
+	}// recordDispatch
+
+
+	/**
+	 * Records how late the handler has delivered a message.<br/>
+	 * The Handler only knows the time in ms, so the resolution is 1 ms.
+	 * @param millis of type long, the delay in ms
+	 */
+	public void recordHandlerLag(long millis) {
+		handlerLag.record(millis * 1000);
+	}// recordHandlerLag
+
+
+	/**
+	 * Counts an attempt to connect to the server
+	 * @param isSuccess of type boolean, true -> the socket was connected
+	 */
+	public void countConnect(boolean isSuccess) {
+		if (isSuccess) {
+			connects.incrementAndGet();
+		} else {
+			connectFailures.incrementAndGet();
+		}// if
+	}// countConnect
+
+
+	/**
+	 * Counts a connection which was lost and connected again in the background
+	 * @param outageMillis of type long, the time in ms from the loss until the server has confirmed the CONNECT function
+	 */
+	public void countReconnect(long outageMillis) {
+		reconnects.incrementAndGet();
+		outage.record(outageMillis * 1000);
+	}// countReconnect
+
+
+	/**
+	 * Counts a connection which was given up after the outage budget
+	 */
+	public void countReconnectFailure() {
+		reconnectFailures.incrementAndGet();
+	}// countReconnectFailure
+
+
+	/**
+	 * @return of type LatencyHistogram, the time the messages have waited in the list
+	 */
+	public LatencyHistogram getQueueWait() {
+		return queueWait;
+	}// getQueueWait
+
+
+	/**
+	 * @return of type LatencyHistogram, the time to write the messages
+	 */
+	public LatencyHistogram getWriteTime() {
+		return writeTime;
+	}// getWriteTime
+
+
+	public long getReconnects() {
+		return reconnects.get();
+	}// getReconnects
+
+
+	public long getConnects() {
+		return connects.get();
+	}// getConnects
+
+
+	public long getConnectFailures() {
+		return connectFailures.get();
+	}// getConnectFailures
+
+
+	/**
+	 * Removes all values, the counters of the list are not changed
+	 */
+	public void reset() {
+		queueWait.reset();
+		writeTime.reset();
+		dispatchTime.reset();
+		handlerLag.reset();
+		outage.reset();
+		for (int i = 0; i < FUNCTIONS.length; i++) {
+			messagesOut.set(i, 0);
+			bytesOut.set(i, 0);
+			messagesIn.set(i, 0);
+			bytesIn.set(i, 0);
+			messagesDropped.set(i, 0);
+		}// for
+		connects.set(0);
+		connectFailures.set(0);
+		reconnects.set(0);
+		reconnectFailures.set(0);
+		startTime = System.currentTimeMillis();
+	}// reset
+
+
+	/**
+	 * Creates the report with all values
+	 * @return of type String, one value per line
+	 */
+	public String report() {
+		StringBuilder report = new StringBuilder(1024);
+		long seconds = Math.max(1, (System.currentTimeMillis() - startTime) / 1000);
+		report.append("measured: ").append(seconds).append(" s\n");
+		report.append("connects: ").append(connects.get())
+				.append(", failed: ").append(connectFailures.get())
+				.append(", reconnects: ").append(reconnects.get())
+				.append(", given up: ").append(reconnectFailures.get()).append('\n');
+		report.append("queue: depth=").append(queue.getDepth())
+				.append(" max=").append(queue.getMaxDepth())
+				.append(" added=").append(queue.getOfferedCount())
+				.append(" replaced=").append(queue.getCoalescedCount()).append('\n');
+		report.append('\n');
+
+		queueWait.appendTo(report);
+		writeTime.appendTo(report);
+		dispatchTime.appendTo(report);
+		handlerLag.appendTo(report);
+		outage.appendTo(report);
+		report.append('\n');
+
+		appendTraffic(report, "out", messagesOut, bytesOut, seconds);
+		appendTraffic(report, "in", messagesIn, bytesIn, seconds);
+		for (int i = 0; i < FUNCTIONS.length; i++) {
+			if (messagesDropped.get(i) > 0) {
+				report.append("dropped ").append(FUNCTIONS[i]).append(": ")
+						.append(messagesDropped.get(i)).append(" msg without subscriber\n");
+			}// if
+		}// for
+		return report.toString();
+	}// report
+
+
+	private static void appendTraffic(StringBuilder report, String direction,
+			AtomicLongArray messages, AtomicLongArray bytes, long seconds) {
+		for (int i = 0; i < FUNCTIONS.length; i++) {
+			long count = messages.get(i);
+			if (count > 0) {
+				report.append(direction).append(' ').append(FUNCTIONS[i])
+						.append(": ").append(count).append(" msg, ")
+						.append(bytes.get(i)).append(" bytes, ")
+						.append(count / seconds).append(" msg/s, ")
+						.append(bytes.get(i) / seconds).append(" bytes/s\n");
+			}// if
+		}// for
+	}// appendTraffic
+
+
+	/**
+	 * Writes the report to the file, an existing file is replaced
+	 * @param file of type File, the file for the report
+	 * @throws IOException if the file cannot be written
+	 */
+	public void dumpToFile(File file) throws IOException {
+		Writer writer = new FileWriter(file);
+		try {
+			writer.write(report());
+		} finally {
+			writer.close();
+		}// try
+	}// dumpToFile
+
+}// class ConnectionMetrics
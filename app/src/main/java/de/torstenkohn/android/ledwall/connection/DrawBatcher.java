@@ -0,0 +1,184 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The batcher collects the LEDs which are painted while a finger moves over the field<br/>
+ * and adds at most one DRAW message per interval to the list.<br/>
+ * <br/>
+ * The first change after a pause is sent at once, all changes within the following<br/>
+ * interval are sent together with the next message, so a fast stroke does not fill<br/>
+ * the list with a frame per touched LED. The caller schedules flush() at the time<br/>
+ * which getDelay() returns, e.g. with View.postDelayed(), and calls it at the end<br/>
+ * of a stroke, so the last state of the drawing always reaches the wall.<br/>
+ * <br/>
+ * report() shows the LEDs per second which were added to the list while strokes are drawn.<br/>
+ * The OutboundQueue can still replace a DRAW message before it is written, so these are<br/>
+ * the queued LEDs, the written messages are counted by the ConnectionMetrics.<br/>
+ * The class must be used by one thread only (the UI thread).<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class DrawBatcher {
+
+	/**
+	 * The interval in ms between two messages, the frame rate of the AnimationPlayer
+	 */
+	public static final int DEFAULT_INTERVAL = 50;
+
+
+	private final OutboundQueue queue;
+	private final long interval;
+
+	/**
+	 * The drawing which was sent with the last message
+	 */
+	private int[] lastSent;
+	private boolean isPending;
+	private long lastFlush;
+
+	/*
+	 * counters for the report
+	 */
+	private long changes;
+	private long flushes;
+	private long queuedPixels;
+	private int maxPixelsPerFlush;
+	private long strokeStart;
+	private long strokeNanos;
+	private long strokePixels;
+
+
+	/**
+	 * Constructor of the DrawBatcher
+	 * @param queue of type OutboundQueue, the list of the messages for the server
+	 * @param interval of type Integer, the interval in ms between two messages
+	 */
+	public DrawBatcher(OutboundQueue queue, int interval) {
+		this.queue = queue;
+		this.interval = TimeUnit.MILLISECONDS.toNanos(interval);
+	}// constructor
+
+
+	/**
+	 * Notes that a LED of the drawing has changed
+	 * @return of type boolean, true if flush() has to be scheduled, false if it is already scheduled
+	 */
+	public boolean changed() {
+		changes++;
+		if (isPending) {
+			return false;
+		}// if
+		isPending = true;
+		return true;
+	}// changed
+
+
+	/**
+	 * @return of type long, the time in ms until flush() should be called, 0 -> at once
+	 */
+	public long getDelay() {
+		long delay = lastFlush + interval - System.nanoTime();
+		return delay > 0 ? TimeUnit.NANOSECONDS.toMillis(delay) + 1 : 0;
+	}// getDelay
+
+
+	/**
+	 * Adds the drawing to the list if it has changed since the last message
+	 * @param matrix of type int[], the LED values of the drawing
+	 */
+	public void flush(int[] matrix) {
+		if (!isPending) {
+			return;
+		}// if
+		isPending = false;
+		lastFlush = System.nanoTime();
+
+		int pixels = 0;
+		if (lastSent == null) {
+			lastSent = new int[matrix.length];
+			pixels = matrix.length;
+		} else {
+			for (int i = 0; i < matrix.length; i++) {
+				if (matrix[i] != lastSent[i]) {
+					pixels++;
+				}// if
+			}// for
+		}// if
+		if (pixels == 0) {
+			// e.g. a LED was painted and painted back again
+			return;
+		}// if
+		System.arraycopy(matrix, 0, lastSent, 0, matrix.length);
+		queue.offer(OutgoingMessage.draw(matrix));
+
+		flushes++;
+		queuedPixels += pixels;
+		maxPixelsPerFlush = Math.max(maxPixelsPerFlush, pixels);
+		if (strokeStart != 0) {
+			strokePixels += pixels;
+		}// if
+	}// flush
+
+
+	/**
+	 * Forgets the last message, e.g. if the drawing was sent in another way
+	 * @param matrix of type int[], the LED values of the wall
+	 */
+	public void reset(int[] matrix) {
+		if (lastSent == null) {
+			lastSent = new int[matrix.length];
+		}// if
+		System.arraycopy(matrix, 0, lastSent, 0, matrix.length);
+	}// reset
+
+
+	/**
+	 * Starts the time of a stroke for the report
+	 */
+	public void startStroke() {
+		strokeStart = System.nanoTime();
+	}// startStroke
+
+
+	/**
+	 * Sends the last changes of the stroke and stops its time
+	 * @param matrix of type int[], the LED values of the drawing
+	 */
+	public void endStroke(int[] matrix) {
+		flush(matrix);
+		if (strokeStart != 0) {
+			strokeNanos += System.nanoTime() - strokeStart;
+			strokeStart = 0;
+		}// if
+	}// endStroke
+
+
+	/**
+	 * @return of type double, the LEDs which were added to the list per second while strokes were drawn
+	 */
+	public double getQueuedPixelsPerSecond() {
+		return strokeNanos > 0 ? strokePixels * 1e9 / strokeNanos : 0;
+	}// getQueuedPixelsPerSecond
+
+
+	/**
+	 * Creates the report of the batcher
+	 * @return of type String, one value per line
+	 */
+	public String report() {
+		StringBuilder report = new StringBuilder(128);
+		report.append("draw: changes=").append(changes)
+				.append(" messages=").append(flushes)
+				.append(" queued pixels=").append(queuedPixels)
+				.append(" max/message=").append(maxPixelsPerFlush).append('\n');
+		report.append("strokes: ").append(TimeUnit.NANOSECONDS.toMillis(strokeNanos)).append(" ms, ")
+				.append(String.format(Locale.US, "%.1f", getQueuedPixelsPerSecond()))
+				.append(" pixels/s queued\n");
+		return report.toString();
+	}// report
+
+}// class DrawBatcher
@@ -0,0 +1,428 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+/**
+ * The class splits the character stream from the server into single messages.<br/>
+ * TCP does not preserve message boundaries, so one read can contain several<br/>
+ * messages or only a part of a message. The decoder collects the characters<br/>
+ * in a growable buffer and calls the FrameListener exactly once<br/>
+ * for each complete message, regardless of how the stream was segmented.<br/>
+ * <br/>
+ * Supported framings:<br/>
+ * - NEWLINE: every message ends with '\n' ("\r\n" is accepted as well)<br/>
+ * - LENGTH_PREFIXED: every message starts with its length as decimal number<br/>
+ *   followed by ':', e.g. 13:{"function":1}<br/>
+ * - JSON: every message is a JSON object, the end is found by counting the braces<br/>
+ * <br/>
+ * The buffer is reused for all messages and only grows if a message<br/>
+ * does not fit into it. The class is not thread-safe.<br/>
+ * <br/>
+ * The NioConnection passes the received bytes with decode(ByteBuffer),<br/>
+ * they are decoded as UTF-8 directly into the buffer without a CharsetDecoder.
+ *
+ * @author agent
+ * @since 17.10.2026
+ *
+ */
+public class FrameDecoder {
+
+	/**
+	 * The framings supported by the decoder
+	 */
+	public enum Framing {
+		NEWLINE, LENGTH_PREFIXED, JSON
+	}// enum Framing
+
+
+	/**
+	 * The listener is called for each complete message.<br/>
+	 * The characters are only valid during the call,<br/>
+	 * because the buffer is reused for the next messages.
+	 */
+	public interface FrameListener {
+		void onFrame(char[] buffer, int offset, int length);
+	}// interface FrameListener
+
+
+	/**
+	 * The default initial size of the buffer
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+
+	/**
+	 * The default maximum length of a message
+	 */
+	public static final int DEFAULT_MAX_FRAME_LENGTH = 64 * 1024;
+
+
+	private final Framing framing;
+	private final int maxFrameLength;
+	private FrameListener listener;
+
+
+	/**
+	 * The buffer with the received characters.<br/>
+	 * The characters between start and end are not yet delivered.
+	 */
+	private char[] buffer;
+	private int start;
+	private int end;
+
+
+	/**
+	 * Position up to which the current message is already scanned,<br/>
+	 * so a message which arrives in several parts is not scanned again.
+	 */
+	private int scan;
+
+
+	/*
+	 * scan state of the JSON framing
+	 */
+	private int depth;
+	private boolean inString;
+	private boolean escaped;
+
+
+	/**
+	 * scan state of the LENGTH_PREFIXED framing, -1 while the prefix is read
+	 */
+	private int frameLength = -1;
+
+
+	/*
+	 * state of the UTF-8 decoding, a character can be split between two reads
+	 */
+	private int utf8Code;
+	private int utf8Remaining;
+
+
+	/**
+	 * Constructor of the FrameDecoder with the default buffer size and maximum message length
+	 * @param framing of type Framing, the framing of the stream
+	 * @param listener of type FrameListener, the listener for the complete messages
+	 */
+	public FrameDecoder(Framing framing, FrameListener listener) {
+		this(framing, DEFAULT_CAPACITY, DEFAULT_MAX_FRAME_LENGTH, listener);
+	}// constructor
+
+
+	/**
+	 * Constructor of the FrameDecoder
+	 * @param framing of type Framing, the framing of the stream
+	 * @param capacity of type Integer, the initial size of the buffer
+	 * @param maxFrameLength of type Integer, the maximum length of a message
+	 * @param listener of type FrameListener, the listener for the complete messages
+	 */
+	public FrameDecoder(Framing framing, int capacity, int maxFrameLength,
+			FrameListener listener) {
+		this.framing = framing;
+		this.maxFrameLength = maxFrameLength;
+		this.listener = listener;
+		buffer = new char[Math.min(capacity, maxFrameLength)];
+	}// constructor
+
+
+	public Framing getFraming() {
+		return framing;
+	}// getFraming
+
+
+	public void setFrameListener(FrameListener listener) {
+		this.listener = listener;
+	}// setFrameListener
+
+
+	/**
+	 * The method reads once from the reader directly into the buffer<br/>
+	 * and delivers all messages which are complete afterwards.<br/>
+	 * The method blocks as long as the reader blocks.
+	 * @param in of type Reader, the stream from the server
+	 * @return of type Integer, the number of characters read or -1 at the end of the stream
+	 * @throws IOException if the reader fails or a message is longer than the maximum length
+	 */
+	public int readFrom(Reader in) throws IOException {
+		ensureSpace();
+		int count = in.read(buffer, end, buffer.length - end);
+		if (count > 0) {
+			end += count;
+			decodeFrames();
+		}// if
+		return count;
+	}// readFrom
+
+
+	/**
+	 * The method appends the given characters and delivers<br/>
+	 * all messages which are complete afterwards.
+	 * @param data of type char[], the received characters
+	 * @param offset of type Integer, the first character in data
+	 * @param length of type Integer, the number of characters
+	 * @throws IOException if a message is longer than the maximum length
+	 */
+	public void decode(char[] data, int offset, int length) throws IOException {
+		while (length > 0) {
+			ensureSpace();
+			int count = Math.min(length, buffer.length - end);
+			System.arraycopy(data, offset, buffer, end, count);
+			end += count;
+			offset += count;
+			length -= count;
+			decodeFrames();
+		}// while
+	}// decode
+
+
+	/**
+	 * The method decodes the UTF-8 bytes of the buffer directly into the character buffer<br/>
+	 * and delivers all messages which are complete afterwards. All bytes are consumed,<br/>
+	 * a character which is split between two reads is completed by the next call.<br/>
+	 * The server only sends ASCII, so the loop mostly copies one byte per character.<br/>
+	 * Invalid sequences and characters outside of the BMP are replaced by U+FFFD.
+	 * @param data of type ByteBuffer, the received bytes between position and limit
+	 * @throws IOException if a message is longer than the maximum length
+	 */
+	public void decode(ByteBuffer data) throws IOException {
+		while (data.hasRemaining()) {
+			ensureSpace();
+			while (end < buffer.length && data.hasRemaining()) {
+				int b = data.get();
+				if (utf8Remaining == 0) {
+					if (b >= 0) {
+						buffer[end++] = (char) b;
+					} else if ((b & 0xE0) == 0xC0) {
+						utf8Code = b & 0x1F;
+						utf8Remaining = 1;
+					} else if ((b & 0xF0) == 0xE0) {
+						utf8Code = b & 0x0F;
+						utf8Remaining = 2;
+					} else if ((b & 0xF8) == 0xF0) {
+						utf8Code = b & 0x07;
+						utf8Remaining = 3;
+					} else {
+						buffer[end++] = '\uFFFD';
+					}// if
+				} else if ((b & 0xC0) == 0x80) {
+					utf8Code = (utf8Code << 6) | (b & 0x3F);
+					if (--utf8Remaining == 0) {
+						buffer[end++] = utf8Code < 0x10000 ? (char) utf8Code : '\uFFFD';
+					}// if
+				} else {
+					// the sequence is incomplete, the byte is decoded again as first byte
+					buffer[end++] = '\uFFFD';
+					utf8Remaining = 0;
+					data.position(data.position() - 1);
+				}// if
+			}// while
+			decodeFrames();
+		}// while
+	}// decode
+
+
+	/**
+	 * Discards all characters which are not yet delivered,<br/>
+	 * e.g. after the connection was reestablished.
+	 */
+	public void reset() {
+		start = 0;
+		end = 0;
+		scan = 0;
+		utf8Remaining = 0;
+		resetScanState();
+	}// reset
+
+
+	/**
+	 * @return of type Integer, the number of buffered characters which are not yet delivered
+	 */
+	public int getPending() {
+		return end - start;
+	}// getPending
+
+
+	/**
+	 * Makes room for at least one character at the end of the buffer.<br/>
+	 * Delivered characters are removed first, the buffer only grows<br/>
+	 * if the current message does not fit into it.
+	 */
+	private void ensureSpace() throws IOException {
+		if (end < buffer.length) {
+			return;
+		}// if
+
+		if (start > 0) {
+			int pending = end - start;
+			System.arraycopy(buffer, start, buffer, 0, pending);
+			scan -= start;
+			start = 0;
+			end = pending;
+			return;
+		}// if
+
+		if (buffer.length >= maxFrameLength) {
+			throw new IOException("message is longer than " + maxFrameLength
+					+ " characters");
+		}// if
+
+		char[] larger = new char[Math.min(buffer.length * 2, maxFrameLength)];
+		System.arraycopy(buffer, 0, larger, 0, end);
+		buffer = larger;
+	}// ensureSpace
+
+
+	/**
+	 * Delivers all complete messages in the buffer
+	 */
+	private void decodeFrames() throws IOException {
+		boolean found = true;
+		while (found && scan < end) {
+			switch (framing) {
+			case NEWLINE:
+				found = decodeNewline();
+				break;
+			case LENGTH_PREFIXED:
+				found = decodeLengthPrefixed();
+				break;
+			default:
+				found = decodeJson();
+				break;
+			}// switch
+		}// while
+
+		if (start == end) {
+			// everything is delivered, the buffer starts from the beginning
+			start = 0;
+			end = 0;
+			scan = 0;
+		}// if
+	}// decodeFrames
+
+
+	private boolean decodeNewline() {
+		while (scan < end) {
+			if (buffer[scan++] == '\n') {
+				int length = scan - 1 - start;
+				if (length > 0 && buffer[start + length - 1] == '\r') {
+					length--;
+				}// if
+				if (length > 0) {
+					deliver(start, length);
+				}// if
+				start = scan;
+				return true;
+			}// if
+		}// while
+		return false;
+	}// decodeNewline
+
+
+	private boolean decodeLengthPrefixed() throws IOException {
+		if (frameLength < 0) {
+			while (scan < end) {
+				char c = buffer[scan++];
+				if (c == ':') {
+					frameLength = parseLength(start, scan - 1);
+					start = scan;
+					break;
+				} else if (c < '0' || c > '9') {
+					if (scan - 1 == start && Character.isWhitespace(c)) {
+						// whitespace between two messages is ignored
+						start = scan;
+					} else {
+						throw new IOException("invalid length prefix: '" + c + "'");
+					}// if
+				}// if
+			}// while
+			if (frameLength < 0) {
+				return false;
+			}// if
+		}// if
+
+		if (end - start < frameLength) {
+			scan = end;
+			return false;
+		}// if
+
+		deliver(start, frameLength);
+		start += frameLength;
+		scan = start;
+		frameLength = -1;
+		return true;
+	}// decodeLengthPrefixed
+
+
+	private int parseLength(int from, int to) throws IOException {
+		if (from == to) {
+			throw new IOException("empty length prefix");
+		}// if
+		long length = 0;
+		for (int i = from; i < to; i++) {
+			length = length * 10 + (buffer[i] - '0');
+			if (length > maxFrameLength) {
+				throw new IOException("message is longer than " + maxFrameLength
+						+ " characters");
+			}// if
+		}// for
+		return (int) length;
+	}// parseLength
+
+
+	private boolean decodeJson() throws IOException {
+		while (scan < end) {
+			char c = buffer[scan++];
+
+			if (depth == 0) {
+				if (c == '{') {
+					start = scan - 1;
+					depth = 1;
+				} else if (Character.isWhitespace(c) || c == '\0') {
+					// characters between two messages are ignored
+					start = scan;
+				} else {
+					throw new IOException("unexpected character outside of a message: '" + c + "'");
+				}// if
+			} else if (inString) {
+				if (escaped) {
+					escaped = false;
+				} else if (c == '\\') {
+					escaped = true;
+				} else if (c == '"') {
+					inString = false;
+				}// if
+			} else if (c == '"') {
+				inString = true;
+			} else if (c == '{') {
+				depth++;
+			} else if (c == '}') {
+				depth--;
+				if (depth == 0) {
+					deliver(start, scan - start);
+					start = scan;
+					resetScanState();
+					return true;
+				}// if
+			}// if
+		}// while
+		return false;
+	}// decodeJson
+
+
+	private void deliver(int offset, int length) {
+		if (listener != null) {
+			listener.onFrame(buffer, offset, length);
+		}// if
+	}// deliver
+
+
+	private void resetScanState() {
+		depth = 0;
+		inString = false;
+		escaped = false;
+		frameLength = -1;
+	}// resetScanState
+
+}// class FrameDecoder
@@ -2,23 +2,41 @@ package de.torstenkohn.android.ledwall.connection;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import android.os.Bundle;
 import android.os.Handler;
-import android.os.Message;
 import android.util.Log;
-import de.torstenkohn.android.ledwall.core.LEDWallActivity;
+import de.torstenkohn.android.ledwall.connection.FrameDecoder.FrameListener;
 import de.torstenkohn.android.ledwall.core.LEDWallMessage;
+import de.torstenkohn.android.ledwall.core.ServerMessageParser;
+import de.torstenkohn.android.ledwall.util.TetrisGameState;
 
 /**
  * The class uses the socket connection from the ConnectionManager<br/>
  * and enables the exchange of messages between the smartphone and the server.<br/>
- * Communication is outsourced to a thread to prevent the GUI thread is blocked.
+ * Communication is outsourced to a thread to prevent the GUI thread is blocked.<br/>
+ * <br/>
+ * There is only one instance for the whole app (Singleton), its thread runs<br/>
+ * from the CONNECT function until the connection is closed. The activities<br/>
+ * only attach their handler in onStart() and detach it in onStop(),<br/>
+ * so changing the activity neither stops the thread nor delays the messages.<br/>
+ * If the connection is lost, the thread connects again in the background<br/>
+ * (see ReconnectPolicy), the activity is only informed after the outage budget.<br/>
+ * <br/>
+ * If ConnectionManager.Transport.NIO is selected, the thread drives a NioConnection<br/>
+ * with a NioTransport instead of the blocking socket, so no separate reader thread is needed.<br/>
+ * <br/>
+ * The messages of the server are always read and passed to the MessageSubscriptions<br/>
+ * of the ConnectionManager. The service itself subscribes to the DISCONNECT and<br/>
+ * the TETRIS function, messages of other functions are dropped and counted.
  * 
  * @author Torsten Kohn
  * @since 08.05.2013
@@ -27,25 +45,38 @@ import de.torstenkohn.android.ledwall.core.LEDWallMessage;
 public class LEDWallService {
 
 	/**
-	 * The buffersize for the incoming messages
+	 * The socket timeout in ms
 	 */
-	private static final int BUFFER_SIZE = 1024;
+	private static final int TIMEOUT_SOCKET = 2500;
 	
 	/**
-	 * The socket timeout in ms
+	 * The maximum time in ms the writer waits for a new message<br/>
+	 * before it checks whether the thread should be stopped
 	 */
-	private static final int TIMEOUT_SOCKET = 2500;
+	private static final int POLL_TIMEOUT = 1000;
+	
+	/**
+	 * The read timeout of the socket in ms, after which the reader<br/>
+	 * checks whether the thread should be stopped
+	 */
+	private static final int TIMEOUT_READ = 500;
 	
 	/**
 	 * To debug the class, change boolean D to true. So you could see messages
 	 * on LogCat
 	 */
-	private final boolean D = true;
+	private static final boolean D = true;
+	
+	/**
+	 * To see every sent message on LogCat, change boolean V to true.<br/>
+	 * It is disabled by default, because it creates a string for every message.
+	 */
+	private static final boolean V = false;
 	
 	/**
 	 * The class name is shown as TAG in the LogCat output
 	 */
-	private final String TAG;
+	private static final String TAG = "LEDWallService";
 
 	/**
 	 * thread counter for debugging
@@ -54,54 +85,197 @@ public class LEDWallService {
 
 	
 	/**
-	 * The handler object to send messages between activity and LEDWallSerice
+	 * instance of LEDWallService (Singleton)
+	 */
+	private static LEDWallService instance;
+	
+	
+	/**
+	 * The handler of the visible activity, null while no activity is attached
 	 */
-	private final Handler handler;
+	private Handler handler;
+	
+	
+	/**
+	 * The last event for the activity which arrived while no activity
+	 * was attached, e.g. the FAILURE during the change of the activity
+	 */
+	private ServiceEvent pendingEvent;
 	
 	
 	private ConnectionManager connectionManager;
+	private MessageSubscriptions subscriptions;
 	private ServiceThread thread;
-	private LEDWallMessage ledWallMessage;
+	
+	
+	/**
+	 * The CONNECT function of the current session, it is sent again<br/>
+	 * with the same udid after the connection was lost
+	 */
+	private OutgoingMessage connectMessage;
+	
+	
+	/**
+	 * The game state is updated in place by the parser of the ServiceThread and passed<br/>
+	 * to the activity, which copies the values in the GUI thread.<br/>
+	 * It is kept when the thread is restarted, so the current stone is not lost.
+	 */
+	private final TetrisGameState gameState = new TetrisGameState();
+	private final ServiceEvent gameStateEvent = ServiceEvent.gameState(gameState);
+
+	/**
+	 * The event GAME_STATE is sent and not yet delivered by the GUI thread
+	 */
+	private final AtomicBoolean isGameStatePending = new AtomicBoolean();
 
 	
 	/**
-	 * Constructor for the LEDWallService
-	 * @param handler of type Handler, the handler for the communication between Activity and thread
-	 * @param connectionManager of type ConnectionManager, the class for the communication between Smartphone and server
-	 * @param TAG of type String, for debugging informations
+	 * The server closes the connection with the DISCONNECT function, it is not connected again
 	 */
-	public LEDWallService(Handler handler, ConnectionManager connectionManager,
-			String TAG) {
-		this.handler = handler;
-		this.TAG = TAG + " " + getClass().getSimpleName();
-		this.connectionManager = connectionManager;
-		ledWallMessage = new LEDWallMessage();
+	private final MessageSubscriptions.Subscriber disconnectSubscriber = new MessageSubscriptions.Subscriber() {
+
+		@Override
+		public void onMessage(ServerMessageParser parser, TetrisGameState state) {
+			stopService();
+			eventToActivity(ServiceEvent.DISCONNECTED_EVENT);
+		}// onMessage
+	};
+
+	
+	/**
+	 * The game state of the TETRIS function is passed to the attached activity
+	 */
+	private final MessageSubscriptions.Subscriber gameStateSubscriber = new MessageSubscriptions.Subscriber() {
+
+		@Override
+		public void onMessage(ServerMessageParser parser, TetrisGameState state) {
+			if (parser.hasGameState()) {
+				gameStateToActivity();
+			}// if
+		}// onMessage
+	};
+
+	
+	/**
+	 * private constructor to implement the singleton pattern
+	 */
+	private LEDWallService() {
+		connectionManager = ConnectionManager.getInstance();
+		subscriptions = connectionManager.getSubscriptions();
+		subscriptions.subscribe(LEDWallMessage.FUNC_DISCONNECT, disconnectSubscriber,
+				MessageSubscriptions.CALLING_THREAD);
+		subscriptions.subscribe(LEDWallMessage.FUNC_TETRIS, gameStateSubscriber,
+				MessageSubscriptions.CALLING_THREAD);
 	}// constructor
 
 	
 	/**
-	 * Creates and starts a new thread for the communication
+	 * The method returns a instance of the class.
+	 * @return of type LEDWallService, only one Object of the class LEDWallService
 	 */
-	public void startService() {
-		if (D)
-			Log.d(TAG, "startService");
-		thread = new ServiceThread();
-		thread.start();
+	public static synchronized LEDWallService getInstance() {
+		if (instance == null) {
+			instance = new LEDWallService();
+		}// if
+		return instance;
+	}// getInstance
+
+	
+	/**
+	 * The activity receives the messages of the service from now on.<br/>
+	 * An event which arrived while no activity was attached is delivered immediately.
+	 * @param handler of type Handler, the handler of the activity
+	 */
+	public synchronized void attach(Handler handler) {
+		this.handler = handler;
+		// a game state which is still in the queue of the previous handler is not awaited
+		isGameStatePending.set(false);
+		if (pendingEvent != null) {
+			ServiceEvent event = pendingEvent;
+			pendingEvent = null;
+			eventToActivity(event);
+		}// if
+	}// attach
+
+	
+	/**
+	 * The activity receives no more messages.<br/>
+	 * The next activity is started before the current one is stopped,<br/>
+	 * so only the handler of the given activity is removed.
+	 * @param handler of type Handler, the handler of the activity
+	 */
+	public synchronized void detach(Handler handler) {
+		if (this.handler == handler) {
+			this.handler = null;
+		}// if
+	}// detach
+
+	
+	/**
+	 * Starts the thread for the communication, if it is not already running
+	 */
+	public synchronized void startService() {
+		if (thread == null || !thread.isActive()) {
+			if (D)
+				Log.d(TAG, "startService");
+			thread = new ServiceThread();
+			thread.start();
+		}// if
 	}// startService
 
 	
 	/**
-	 * Stops the threads for the communication
+	 * Stops the threads for the communication,<br/>
+	 * messages which are already in the list are still sent.
 	 */
-	public void stopService() {
+	public synchronized void stopService() {
 		if (D)
 			Log.d(TAG, "stopService");
 		if (thread != null && thread.isAlive()) {
 			thread.stopService();
 		}// if
+		thread = null;
 	}// stopService
 
 	
+	/**
+	 * This method sends an event to the attached activity by the handler.<br/>
+	 * The message of the handler is taken from the pool of Android, the event is the object<br/>
+	 * of the message. If no activity is attached, the event is kept until the next one is attached.
+	 * 
+	 * @param event
+	 *            of type ServiceEvent, the event for the activity
+	 */
+	private synchronized void eventToActivity(ServiceEvent event) {
+		if (handler == null) {
+			pendingEvent = event;
+			return;
+		}// if
+		handler.sendMessage(handler.obtainMessage(event.getType(), event));
+	}// method eventToActivity
+
+	
+	/**
+	 * The method passes the updated game state to the attached activity.<br/>
+	 * If the last game state is not yet delivered to the activity,<br/>
+	 * no further message is sent, because the activity always copies the newest values.
+	 */
+	private synchronized void gameStateToActivity() {
+		if (handler != null && isGameStatePending.compareAndSet(false, true)) {
+			handler.sendMessage(handler.obtainMessage(ServiceEvent.GAME_STATE, gameStateEvent));
+		}// if
+	}// method gameStateToActivity
+
+	
+	/**
+	 * Called by the GUI thread before it copies the game state of the event GAME_STATE,<br/>
+	 * a newer game state is sent again from now on.
+	 */
+	public void gameStateDelivered() {
+		isGameStatePending.set(false);
+	}// gameStateDelivered
+
+	
 	/**
 	 * The service thread is used for communication between the smartphone and the server.<br/>
 	 * Via the Connection Manager, the thread has access to the Socket, BufferedReader<br/>
@@ -112,7 +286,7 @@ public class LEDWallService {
 	 * @since 08.05.2013
 	 *
 	 */
-	private class ServiceThread extends Thread {
+	private class ServiceThread extends Thread implements FrameListener {
 
 		/**
 		 * The class name is shown as TAG in the LogCat output
@@ -120,12 +294,6 @@ public class LEDWallService {
 		private static final String TAG = "ServiceThread";
 		
 		
-		/**
-		 * The handler object to send messages between activity and LEDWallSerice
-		 */
-		private final Handler handler = LEDWallService.this.handler;
-		
-		
 		/**
 		 * the socket for the communication
 		 */
@@ -144,7 +312,87 @@ public class LEDWallService {
 		private BufferedWriter out;
 		
 		
-		private boolean isRunning;
+		/**
+		 * The writer encodes the messages in the negotiated format and reuses its buffers
+		 */
+		private final MessageWriter messageWriter = new MessageWriter(
+				connectionManager.getDrawDeltaEncoder());
+		
+		
+		/**
+		 * The decoder splits the stream from the server into single messages
+		 */
+		private FrameDecoder decoder;
+		
+		
+		/**
+		 * The parser reads every message of the server only once
+		 */
+		private final ServerMessageParser parser = new ServerMessageParser();
+		
+		
+		/**
+		 * The measurements of the connection, they are shown by the DebugActivity
+		 */
+		private final ConnectionMetrics metrics = connectionManager.getMetrics();
+		
+		
+		
+		/**
+		 * The response to the CONNECT function, read by startExchange()
+		 */
+		private String statusMessage;
+		private boolean isAwaitingStatus;
+		private boolean isStatusSuccess;
+		private boolean isStatusBinary;
+		private boolean isStatusDelta;
+		private boolean isStatusMoves;
+		
+		
+		/**
+		 * The thread which receives the messages from the server
+		 */
+		private ReaderThread reader;
+		
+		
+		/**
+		 * The transport of the NIO connection, the ServiceThread is its selector thread
+		 */
+		private volatile NioTransport transport;
+		
+		
+		/**
+		 * The policy of the current outage of the NIO connection, null while it is connected
+		 */
+		private ReconnectPolicy nioPolicy;
+		
+		
+		/**
+		 * The server has confirmed the CONNECT function of the NIO connection at least once
+		 */
+		private boolean isNioConnected;
+		
+		
+		private volatile boolean isRunning;
+		
+		
+		/**
+		 * The thread was stopped or the connection is broken,<br/>
+		 * startService() then creates a new thread.
+		 */
+		private volatile boolean isStopped;
+		
+		
+		/**
+		 * The connection is broken, no more messages are written
+		 */
+		private volatile boolean isFailed;
+		
+		
+		/**
+		 * The connection was lost, the writer connects again in the background
+		 */
+		private volatile boolean isReconnecting;
 
 		
 		/**
@@ -160,6 +408,10 @@ public class LEDWallService {
 			socket = connectionManager.getSocket();
 			in = connectionManager.getIn();
 			out = connectionManager.getOut();
+			decoder = connectionManager.getFrameDecoder();
+			if (decoder != null) {
+				decoder.setFrameListener(this);
+			}// if
 		}// constructor
 
 		/**
@@ -170,6 +422,11 @@ public class LEDWallService {
 		@Override
 		public void run() {
 
+			if (connectionManager.getTransport() == ConnectionManager.Transport.NIO) {
+				runNio();
+				return;
+			}// if
+
 			// 1. initializes and starts the connection to the server
 			initConnection();
 
@@ -178,7 +435,7 @@ public class LEDWallService {
 				startExchange();
 			}// if
 
-			if (socket != null && socket.isConnected()) {
+			if (socket != null && socket.isConnected() && !isStopped) {
 				// 3. data exchange
 				isRunning = true;
 				runExchange();
@@ -186,11 +443,46 @@ public class LEDWallService {
 		}// run
 
 		
+		/**
+		 * Stops the exchange mode, the waiting writer is woken up immediately.
+		 */
 		private void stopService() {
+			isStopped = true;
 			isRunning = false;
+			NioTransport current = transport;
+			if (current != null) {
+				// the list is still sent, an interrupt is not needed for the selector
+				current.shutdown();
+			} else {
+				interrupt();
+			}// if
 		}// stopService
 
 		
+		/**
+		 * @return of type boolean, true -> the thread is running and has not been stopped
+		 */
+		private boolean isActive() {
+			return isAlive() && !isStopped;
+		}// isActive
+
+		
+		/**
+		 * The connection is broken: the thread is stopped and the activity is informed once,<br/>
+		 * even if the reader and the writer both notice the error.
+		 * @param error of type String, the description of the error
+		 */
+		private synchronized void fail(String error) {
+			if (isFailed) {
+				return;
+			}// if
+			isFailed = true;
+			connectionManager.setConnected(false);
+			stopService();
+			eventToActivity(ServiceEvent.failure(error));
+		}// fail
+
+		
 		/**
 		 * The method creates a new socket and connects to the IP address and
 		 * port for the server and sets the timeout. In addition the
@@ -201,34 +493,55 @@ public class LEDWallService {
 				Log.d(TAG, "initConnection");
 			
 			if (socket == null || !socket.isConnected()) {
-				socket = new Socket();
-				
 				try {
-					socket.connect(
-							new InetSocketAddress(connectionManager
-									.getIpaddress(), connectionManager
-									.getPort()), TIMEOUT_SOCKET);
-					in = new BufferedReader(new InputStreamReader(
-							socket.getInputStream()));
-					out = new BufferedWriter(new OutputStreamWriter(
-							socket.getOutputStream()));
-					
+					openSocket();
+					metrics.countConnect(true);
 				} catch (IOException e) {
 					if (D)
 						Log.e(TAG, "initConnection()", e);
-					isRunning = false;
-					connectionManager.setConnected(false);
-					messageToActivity(LEDWallActivity.FAILURE, e.toString());
+					metrics.countConnect(false);
+					fail(e.toString());
 				}// try
-
-				// connection is successful
-				connectionManager.setIn(in);
-				connectionManager.setOut(out);
-				connectionManager.setSocket(socket);
 			}// if
 		}// initConnection
 
 		
+		/**
+		 * Creates a new socket, connects it to the server and initializes the streams<br/>
+		 * and the FrameDecoder. They are stored in the ConnectionManager.
+		 * @throws IOException if the server cannot be reached
+		 */
+		private void openSocket() throws IOException {
+			socket = new Socket();
+			socket.connect(
+					new InetSocketAddress(connectionManager
+							.getIpaddress(), connectionManager
+							.getPort()), TIMEOUT_SOCKET);
+			in = new BufferedReader(new InputStreamReader(
+					socket.getInputStream()));
+			out = new BufferedWriter(new OutputStreamWriter(
+					socket.getOutputStream()));
+
+			// connection is successful
+			decoder = new FrameDecoder(connectionManager.getFraming(), this);
+			connectionManager.setFrameDecoder(decoder);
+			// the new server session does not know the last frame, the first frame is sent in full
+			messageWriter.reset();
+			connectionManager.setIn(in);
+			connectionManager.setOut(out);
+			connectionManager.setSocket(socket);
+		}// openSocket
+
+		
+		private void closeSocket() {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// nothing to do, the socket is not used anymore
+			}// try
+		}// closeSocket
+
+		
 		/**
 		 * The method sends over the BufferedWriter the CONNECT function to the server<br/>
 		 * and waits for a response. If the server responds with status success,<br/>
@@ -240,18 +553,19 @@ public class LEDWallService {
 				Log.d(TAG, "startExchange");
 			if ((socket != null && socket.isConnected() && !connectionManager
 					.isConnected())) {
-				if (connectionManager.hasMessage()) {
-					write(connectionManager.getMessage());
-					String message = read();
+				OutgoingMessage connect = connectionManager.getMessage();
+				if (connect != null) {
+					connectMessage = connect;
+					write(connect);
+					String message = readStatus();
 
 					if (D)
 						Log.d(TAG, "startExchange - message: " + message);
-					if (isSuccess(message)) {
-						connectionManager.setConnected(true);
-						messageToActivity(LEDWallActivity.CONNECTED, message);
+					if (isStatusSuccess) {
+						applyStatus();
+						eventToActivity(ServiceEvent.CONNECTED_EVENT);
 					} else {
-						connectionManager.setConnected(false);
-						messageToActivity(LEDWallActivity.FAILURE, message);
+						fail(message);
 					}// if
 				}// if
 
@@ -259,128 +573,446 @@ public class LEDWallService {
 		}// startExchange
 
 		
+		/**
+		 * Waits for the response of the server to the CONNECT function.
+		 * @return of type String, the response or "" if the connection is broken
+		 */
+		private String readStatus() {
+			String message = "";
+			isStatusSuccess = false;
+			try {
+				isAwaitingStatus = true;
+				while (isAwaitingStatus) {
+					read();
+				}// while
+				message = statusMessage;
+			} catch (IOException e) {
+				if (D)
+					Log.e(TAG, "IOException: ", e);
+			}// try
+			isAwaitingStatus = false;
+			return message;
+		}// readStatus
+
+		
+		/**
+		 * Stores the formats which the server has confirmed in its response
+		 */
+		private void applyStatus() {
+			connectionManager.setBinaryDraw(connectionManager
+					.isBinaryDrawRequested() && isStatusBinary);
+			connectionManager.setDeltaDraw(connectionManager
+					.isDeltaDrawRequested() && isStatusDelta);
+			connectionManager.setTetrisMoves(connectionManager
+					.isTetrisMovesRequested() && isStatusMoves);
+			connectionManager.setConnected(true);
+		}// applyStatus
+
+		
 		/**
 		 * Once the connection is established to the server<br/>
 		 * and the CONNECT function is successful, the method is used for<br/>
-		 * sending messages to the server and receive messages.
+		 * sending messages to the server.<br/>
+		 * The thread blocks on the list of the ConnectionManager until a message<br/>
+		 * is added, so no CPU time is used while there is nothing to send.<br/>
+		 * Incoming messages are received by the ReaderThread.
 		 */
 		private void runExchange() {
 			if (D)
 				Log.d(TAG, "runExchange");
 
-			String messageFrom = "";
+			reader = new ReaderThread(getName(), in, decoder);
+			reader.start();
 
-			if (socket != null || socket.isConnected()) {
-				while (isRunning) {
-					
-					if (connectionManager.hasMessage()) {
-						// Sent the message from the list of the ConnectionManager
-						write(connectionManager.getMessage());
+			while (isRunning) {
+				if (isReconnecting) {
+					if (!reconnect()) {
+						break;
 					}// if
-					
-					try {
-						if (in.ready() && LEDWallService.this.TAG.contains("TetrisActivity")) {
-							
-							// receive messages
-							messageFrom = read();
-							
-							String function = ledWallMessage.getFunction(messageFrom);
-							
-							/*
-							 * The server sends only two variants of messages in the exchange mode. 
-							 * On the one hand the DISCONNECT function can be sent and otherwise 
-							 * the function TETRIS will be sent from the server.
-							 */
-							if(function.equals(LEDWallMessage.FUNC_DISCONNECT)){
-								messageToActivity(LEDWallActivity.DISCONNECTED, messageFrom);
-							}else if(function.equals(LEDWallMessage.FUNC_TETRIS)){
-								messageToActivity(LEDWallActivity.TETRIS, messageFrom);
-							}// if
-							
-							// is used to reduce the GarbageCollector
-							Thread.sleep(50);
-							
-						}// if
-					} catch (IOException e) {
-						messageToActivity(LEDWallActivity.FAILURE, e.toString());
-					} catch (InterruptedException e) {
-						// nothing to do, because there is no fault
-					}// try
-				}// while
+					continue;
+				}// if
+
+				try {
+					// Sent the message from the list of the ConnectionManager
+					OutgoingMessage message = connectionManager.pollMessage(
+							POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+					if (message != null) {
+						write(message);
+					}// if
+				} catch (InterruptedException e) {
+					// the thread was stopped by stopService() or the reader has lost the connection
+				}// try
+			}// while
+
+			/*
+			 * Messages which are added just before the thread is stopped
+			 * (e.g. DISCONNECT or the Tetris QUIT) are still sent to the server.
+			 */
+			OutgoingMessage message = connectionManager.getMessage();
+			while (message != null) {
+				write(message);
+				message = connectionManager.getMessage();
+			}// while
+
+			if (reader != null) {
+				reader.stopReading();
 			}// if
 		}// runExchange
 
 		
-		private boolean isSuccess(String message) {
-			return ledWallMessage.readStatus(message);
-		}// isSuccess
+		/**
+		 * The connection was lost in the exchange mode. The socket is closed,<br/>
+		 * the reader is stopped and the writer connects again in reconnect().<br/>
+		 * The activity is not informed, the messages stay in the list.
+		 * @param e of type IOException, the error of the reader or the writer
+		 */
+		private synchronized void connectionLost(IOException e) {
+			if (isReconnecting || !isRunning) {
+				return;
+			}// if
+			if (D)
+				Log.w(TAG, "connection lost: " + e);
+			isReconnecting = true;
+			if (reader != null) {
+				reader.stopReading();
+			}// if
+			closeSocket();
+			if (Thread.currentThread() != this) {
+				// wakes up the writer, which waits for the next message
+				interrupt();
+			}// if
+		}// connectionLost
 
 		
 		/**
-		 * The method reads the stream and returns the characters read as a
-		 * string. The maximum length of the message is based on the
-		 * BUFFER_SIZE.
-		 * 
-		 * @return of type String, the message from the server (JSON)
+		 * The method connects again after the connection was lost.<br/>
+		 * The attempts are delayed by the ReconnectPolicy (exponential backoff with jitter).<br/>
+		 * The CONNECT function is sent again with the same udid, so the server<br/>
+		 * continues the session of the app, e.g. the Tetris game.<br/>
+		 * Only if the server cannot be reached within the outage budget<br/>
+		 * the activity is informed with FAILURE.
+		 * @return of type boolean, true -> connected again | false -> stopped or given up
 		 */
-		private String read() {
-			String message = "";
-			if (socket != null && socket.isConnected()) {
-
+		private boolean reconnect() {
+			ReconnectPolicy policy = new ReconnectPolicy(connectionManager.getOutageBudget());
+			policy.start();
+			while (isRunning) {
+				if (policy.isExhausted() || connectMessage == null) {
+					metrics.countReconnectFailure();
+					fail("connection lost, " + policy.getAttempts() + " attempts to reconnect");
+					return false;
+				}// if
 				try {
-					char[] buf = new char[BUFFER_SIZE];
-					int readingCount = in.read(buf);
+					Thread.sleep(policy.nextDelay());
+				} catch (InterruptedException e) {
+					// the loop checks whether the thread was stopped
+					continue;
+				}// try
 
-					if (buf != null && buf.length > 0 && buf[0] == '{') {
-						message = new String(buf, 0, readingCount).trim();
+				try {
+					openSocket();
+					socket.setSoTimeout(TIMEOUT_SOCKET);
+					messageWriter.write(connectMessage, out, socket.getOutputStream());
+					String message = readStatus();
+					if (isStatusSuccess) {
+						applyStatus();
+						metrics.countReconnect(policy.getOutage());
+						if (D)
+							Log.d(TAG, "reconnected after " + policy.getOutage() + " ms: " + message);
+						isReconnecting = false;
+						reader = new ReaderThread(getName(), in, decoder);
+						reader.start();
+						return true;
 					}// if
+					closeSocket();
 				} catch (IOException e) {
 					if (D)
-						Log.e(TAG, "IOException: ", e);
+						Log.d(TAG, "reconnect attempt " + policy.getAttempts() + ": " + e);
+					closeSocket();
 				}// try
+			}// while
+			return false;
+		}// reconnect
+
+		
+		/**
+		 * The exchange via a NioConnection: the thread connects, sends the CONNECT function,<br/>
+		 * reads and writes in the loop of the NioTransport until the service is stopped.<br/>
+		 * The messages of the list are written as soon as they are added,<br/>
+		 * several waiting messages are written together.<br/>
+		 * The events of the connection are handled by the NioListener.
+		 */
+		private void runNio() {
+			if (D)
+				Log.d(TAG, "runNio");
+			OutgoingMessage connect = connectionManager.isConnected() ? connectMessage
+					: connectionManager.getMessage();
+			if (connect == null) {
+				return;
+			}// if
+			connectMessage = connect;
+
+			NioTransport nio;
+			try {
+				nio = new NioTransport();
+			} catch (IOException e) {
+				if (D)
+					Log.e(TAG, "runNio()", e);
+				fail(e.toString());
+				return;
+			}// try
+			NioConnection connection = nio.open(new InetSocketAddress(
+					connectionManager.getIpaddress(), connectionManager.getPort()),
+					connectionManager.getFraming(), connectionManager.getQueue(),
+					connectionManager.getDrawDeltaEncoder(), connect, new NioListener());
+			connection.setMetrics(metrics);
+			transport = nio;
+			if (isStopped) {
+				nio.shutdown();
+			}// if
+			isRunning = true;
+			nio.run();
+		}// runNio
+
+
+		/**
+		 * The method reads the stream once and passes the characters to the FrameDecoder.<br/>
+		 * Each complete message is delivered to onFrame(), regardless of<br/>
+		 * whether the server message was split or combined by TCP.<br/>
+		 * The method blocks until the server sends data.
+		 * 
+		 * @throws SocketTimeoutException if the read timeout of the socket elapsed
+		 * @throws IOException if the server has closed the connection or the stream is broken
+		 */
+		private void read() throws IOException {
+			if (socket != null && socket.isConnected()) {
+				if (decoder.readFrom(in) < 0) {
+					throw new EOFException("connection closed by server");
+				}// if
 			}// if
-			return message;
 		}// method read
 
 		
 		/**
-		 * Sends a string to the server via the BufferedWriter stream
+		 * The method is called by the FrameDecoder for each complete message from the server.<br/>
+		 * The message is read once by the ServerMessageParser directly from the buffer.<br/>
+		 * The first message after the CONNECT function is the response of the server,<br/>
+		 * all other messages are passed to the subscribers of their function.<br/>
+		 * A message without a subscriber is dropped, it is only counted.
+		 */
+		@Override
+		public void onFrame(char[] buffer, int offset, int length) {
+			long receiveTime = System.nanoTime();
+			if (isAwaitingStatus) {
+				parser.parse(buffer, offset, length, null);
+				metrics.recordRead(LEDWallMessage.FUNC_CONNECT, length);
+				statusMessage = new String(buffer, offset, length);
+				isStatusSuccess = parser.isSuccess();
+				isStatusBinary = LEDWallMessage.ENCODING_BINARY.equals(parser.getEncoding());
+				isStatusDelta = parser.isDelta();
+				isStatusMoves = parser.isMoves();
+				isAwaitingStatus = false;
+				return;
+			}// if
+			if (!parser.parse(buffer, offset, length, gameState)) {
+				metrics.recordRead(null, length);
+				if (D)
+					Log.d(TAG, "invalid message: " + new String(buffer, offset, length));
+				return;
+			}// if
+			String function = parser.getFunction();
+			metrics.recordRead(function, length);
+
+			// the message is passed to the components which have subscribed to its function
+			if (subscriptions.dispatch(parser, gameState, buffer, offset, length)) {
+				metrics.recordDispatch(System.nanoTime() - receiveTime);
+			} else {
+				metrics.recordDrop(function);
+			}// if
+		}// onFrame
+
+		
+		/**
+		 * Sends a message from the list of the ConnectionManager to the server.<br/>
+		 * DRAW messages are sent in the format which the server has confirmed,<br/>
+		 * see MessageWriter.
 		 * 
 		 * @param message
-		 *            of type String, the message to the server (JSON)
+		 *            of type OutgoingMessage, the message to the server
 		 */
-		private void write(String message) {
-			if (socket != null && socket.isConnected()) {
+		private void write(OutgoingMessage message) {
+			if (socket != null && socket.isConnected() && !isFailed) {
 				try {
-					out.write(message);
-					out.flush();
-					Log.d(TAG, "write: " + message);
+					messageWriter.setBinaryDraw(connectionManager.isBinaryDraw());
+					messageWriter.setDeltaDraw(connectionManager.isDeltaDraw());
+					long startTime = System.nanoTime();
+					int length = messageWriter.write(message, out, socket.getOutputStream());
+					metrics.recordWrite(message, startTime, System.nanoTime(), length);
+					if (V)
+						Log.d(TAG, "write: " + message.getFunction() + ", " + length);
 				} catch (IOException e) {
 					if (D)
 						Log.e(TAG, "write()", e);
-					isRunning = false;
-					connectionManager.setConnected(false);
-					messageToActivity(LEDWallActivity.FAILURE, e.toString());
+					if (isRunning && connectionManager.isConnected()) {
+						// the message is sent after the reconnect
+						connectionManager.requeueMessage(message);
+						connectionLost(e);
+					} else {
+						fail(e.toString());
+					}// if
 				}// try
 			}// if
 		}// method write
 
+
+		
+		/**
+		 * The listener of the NioConnection, it is called in the ServiceThread.<br/>
+		 * The response to the CONNECT function is read like on the blocking socket,<br/>
+		 * a lost connection is connected again with the ReconnectPolicy.
+		 * 
+		 * @author Torsten Kohn
+		 * @since 17.10.2026
+		 *
+		 */
+		private class NioListener implements NioConnection.ConnectionListener {
+
+			@Override
+			public void onConnected(NioConnection connection) {
+				if (!isNioConnected) {
+					metrics.countConnect(true);
+				}// if
+				isStatusSuccess = false;
+				isAwaitingStatus = true;
+			}// onConnected
+
+
+			@Override
+			public void onFrame(NioConnection connection, char[] buffer, int offset, int length) {
+				boolean isStatus = isAwaitingStatus;
+				ServiceThread.this.onFrame(buffer, offset, length);
+				if (!isStatus) {
+					return;
+				}// if
+
+				if (isStatusSuccess) {
+					applyStatus();
+					connection.startExchange(connectionManager.isBinaryDraw(),
+							connectionManager.isDeltaDraw());
+					if (nioPolicy == null) {
+						eventToActivity(ServiceEvent.CONNECTED_EVENT);
+					} else {
+						metrics.countReconnect(nioPolicy.getOutage());
+						if (D)
+							Log.d(TAG, "reconnected after " + nioPolicy.getOutage() + " ms: " + statusMessage);
+						nioPolicy = null;
+					}// if
+					isNioConnected = true;
+				} else if (!isNioConnected) {
+					fail(statusMessage);
+				} else {
+					// the server has refused the CONNECT function, the next attempt follows
+					onClosed(connection, new IOException("CONNECT refused: " + statusMessage));
+				}// if
+			}// onFrame
+
+
+			@Override
+			public void onClosed(NioConnection connection, IOException cause) {
+				isAwaitingStatus = false;
+				if (!isNioConnected) {
+					if (D)
+						Log.e(TAG, "NIO connect", cause);
+					metrics.countConnect(false);
+					fail(cause.toString());
+					return;
+				}// if
+				if (isStopped) {
+					return;
+				}// if
+
+				if (nioPolicy == null) {
+					if (D)
+						Log.w(TAG, "connection lost: " + cause);
+					nioPolicy = new ReconnectPolicy(connectionManager.getOutageBudget());
+					nioPolicy.start();
+				} else if (D) {
+					Log.d(TAG, "reconnect attempt " + nioPolicy.getAttempts() + ": " + cause);
+				}// if
+				if (nioPolicy.isExhausted()) {
+					metrics.countReconnectFailure();
+					fail("connection lost, " + nioPolicy.getAttempts() + " attempts to reconnect");
+					return;
+				}// if
+				connection.reconnect(nioPolicy.nextDelay());
+			}// onClosed
+		}// inner class NioListener
+
+
 		
 		/**
-		 * This method sends a message to the activity by the handler
+		 * The reader thread receives the messages from the server in the exchange mode.<br/>
+		 * It blocks on the BufferedReader of the socket until the server sends data,<br/>
+		 * so no CPU time is used while the server is silent.<br/>
+		 * The read timeout of the socket is used to check whether the thread should be stopped.
 		 * 
-		 * @param what
-		 *            of type Integer, the message key
-		 * @param json
-		 *            of type String, the message to the Activity
-		 */
-		private void messageToActivity(int what, String json) {
-			Message msg = handler.obtainMessage(what);
-			Bundle bundle = new Bundle();
-			bundle.putString(LEDWallActivity.JSON, json);
-			msg.setData(bundle);
-			handler.sendMessage(msg);
-		}// method messageToActivity
+		 * @author Torsten Kohn
+		 * @since 17.10.2026
+		 *
+		 */
+		private class ReaderThread extends Thread {
+
+			private volatile boolean isReading = true;
+			
+			
+			/*
+			 * The stream of the reader, after a reconnect a new reader is created
+			 * with the new stream
+			 */
+			private final Socket readerSocket;
+			private final BufferedReader readerIn;
+			private final FrameDecoder readerDecoder;
+
+			
+			private ReaderThread(String name, BufferedReader in, FrameDecoder decoder) {
+				super(name + "_reader");
+				readerSocket = socket;
+				readerIn = in;
+				readerDecoder = decoder;
+			}// constructor
+
+			
+			private void stopReading() {
+				isReading = false;
+			}// stopReading
+
+			
+			@Override
+			public void run() {
+				try {
+					readerSocket.setSoTimeout(TIMEOUT_READ);
+				} catch (IOException e) {
+					if (D)
+						Log.e(ServiceThread.TAG, "setSoTimeout()", e);
+				}// try
+
+				while (isReading && isRunning) {
+					try {
+						// receive messages, they are delivered to onFrame()
+						if (readerDecoder.readFrom(readerIn) < 0) {
+							throw new EOFException("connection closed by server");
+						}// if
+					} catch (SocketTimeoutException e) {
+						// nothing to do, the loop checks whether the thread should be stopped
+					} catch (IOException e) {
+						if (isReading && isRunning) {
+							isReading = false;
+							connectionLost(e);
+						}// if
+					}// try
+				}// while
+			}// run
+		}// inner class ReaderThread
 
 	}// inner class ServiceThread
 }// class LEDWallService
@@ -0,0 +1,189 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram for durations in microseconds with a fixed number of buckets.<br/>
+ * Like a HDR histogram the buckets grow with the value: values below 64 µs<br/>
+ * have their own bucket, above that each power of two is divided into<br/>
+ * 32 buckets, so the error of a percentile is at most about 3 %.<br/>
+ * <br/>
+ * Recording a value only increments counters, it creates no objects<br/>
+ * and needs no lock, so it can be called in the service thread for every message.<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class LatencyHistogram {
+
+	/**
+	 * Each power of two is divided into 2^SUB_BUCKET_BITS buckets
+	 */
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * Values below LINEAR_LIMIT have their own bucket
+	 */
+	private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+	private static final int LINEAR_BITS = SUB_BUCKET_BITS + 1;
+
+	/**
+	 * The highest power of two which is tracked, about 12.7 days in µs
+	 */
+	private static final int MAX_BITS = 40;
+
+	private static final int BUCKETS = LINEAR_LIMIT + (MAX_BITS - LINEAR_BITS) * SUB_BUCKETS;
+
+
+	private final String name;
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+
+	/**
+	 * Constructor of the LatencyHistogram
+	 * @param name of type String, the name in the report
+	 */
+	public LatencyHistogram(String name) {
+		this.name = name;
+	}// constructor
+
+
+	public String getName() {
+		return name;
+	}// getName
+
+
+	/**
+	 * Adds a duration
+	 * @param micros of type long, the duration in µs, negative values are recorded as 0
+	 */
+	public void record(long micros) {
+		if (micros < 0) {
+			micros = 0;
+		}// if
+		counts.incrementAndGet(index(micros));
+		count.incrementAndGet();
+		sum.addAndGet(micros);
+
+		long current = max.get();
+		while (micros > current && !max.compareAndSet(current, micros)) {
+			current = max.get();
+		}// while
+	}// record
+
+
+	/**
+	 * Adds a duration which was measured with System.nanoTime()
+	 * @param nanos of type long, the duration in ns
+	 */
+	public void recordNanos(long nanos) {
+		record(nanos / 1000);
+	}// recordNanos
+
+
+	public long getCount() {
+		return count.get();
+	}// getCount
+
+
+	/**
+	 * @return of type long, the highest recorded value in µs
+	 */
+	public long getMax() {
+		return max.get();
+	}// getMax
+
+
+	/**
+	 * @return of type long, the average of the recorded values in µs
+	 */
+	public long getMean() {
+		long total = count.get();
+		return total == 0 ? 0 : sum.get() / total;
+	}// getMean
+
+
+	/**
+	 * The method returns the value below which the given percentage of the values lies.<br/>
+	 * The result is the upper limit of the bucket, so it is never too small.
+	 * @param percentile of type double, e.g. 99.0
+	 * @return of type long, the value in µs or 0 if nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long total = count.get();
+		if (total == 0) {
+			return 0;
+		}// if
+		long limit = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= limit) {
+				return Math.min(highestValue(i), max.get());
+			}// if
+		}// for
+		return max.get();
+	}// getValueAtPercentile
+
+
+	/**
+	 * Removes all values
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}// for
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}// reset
+
+
+	/**
+	 * Appends a line like "write: n=120 mean=85 p50=70 p90=150 p99=410 max=1203 us"
+	 * @param report of type StringBuilder, the report
+	 */
+	public void appendTo(StringBuilder report) {
+		report.append(name).append(": n=").append(getCount());
+		if (getCount() > 0) {
+			report.append(" mean=").append(getMean())
+					.append(" p50=").append(getValueAtPercentile(50))
+					.append(" p90=").append(getValueAtPercentile(90))
+					.append(" p99=").append(getValueAtPercentile(99))
+					.append(" max=").append(getMax()).append(" us");
+		}// if
+		report.append('\n');
+	}// appendTo
+
+
+	private static int index(long value) {
+		if (value < LINEAR_LIMIT) {
+			return (int) value;
+		}// if
+		int bits = 64 - Long.numberOfLeadingZeros(value);
+		if (bits > MAX_BITS) {
+			return BUCKETS - 1;
+		}// if
+		// the value is shifted until SUB_BUCKET_BITS + 1 bits remain
+		int shift = bits - LINEAR_BITS;
+		return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS
+				+ (int) (value >>> shift) - SUB_BUCKETS;
+	}// index
+
+
+	private static long highestValue(int index) {
+		if (index < LINEAR_LIMIT) {
+			return index;
+		}// if
+		int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+		long sub = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+		return ((sub + 1) << shift) - 1;
+	}// highestValue
+
+}// class LatencyHistogram
@@ -0,0 +1,185 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import java.util.concurrent.Executor;
+
+import de.torstenkohn.android.ledwall.core.ServerMessageParser;
+import de.torstenkohn.android.ledwall.util.TetrisGameState;
+
+/**
+ * The registry of the components which receive the messages of the server.<br/>
+ * A component subscribes to a function (LEDWallMessage.FUNC_...) and chooses<br/>
+ * the executor in which it is called. The reader of the LEDWallService reads<br/>
+ * every message, no matter which activity is visible, and passes it to dispatch().<br/>
+ * A message without a subscriber is dropped after it was read, so it never stays<br/>
+ * in the receive buffer; the caller counts it (ConnectionMetrics.recordDrop()).<br/>
+ * <br/>
+ * Subscribers of CALLING_THREAD are called in the reader thread with its parser<br/>
+ * and game state, so nothing is copied; they must not block. For all other executors<br/>
+ * the message is copied once and read again by a parser in the executor.<br/>
+ * <br/>
+ * The subscribers are kept in arrays which are replaced when a subscriber is added<br/>
+ * or removed, so dispatch() needs no lock and creates no objects for CALLING_THREAD.<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class MessageSubscriptions {
+
+	/**
+	 * A component which receives the messages of one or more functions
+	 */
+	public interface Subscriber {
+
+		/**
+		 * @param parser of type ServerMessageParser, the values of the message, only valid during the call
+		 * @param gameState of type TetrisGameState, the game state of the message if parser.hasGameState(),<br/>
+		 *            only valid during the call
+		 */
+		void onMessage(ServerMessageParser parser, TetrisGameState gameState);
+	}// interface Subscriber
+
+
+	/**
+	 * Calls the subscriber at once in the thread which reads the message
+	 */
+	public static final Executor CALLING_THREAD = new Executor() {
+
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}// execute
+	};
+
+
+	/**
+	 * A subscriber with its function and executor
+	 */
+	private static final class Subscription {
+
+		private final String function;
+		private final Subscriber subscriber;
+		private final Executor executor;
+
+		private Subscription(String function, Subscriber subscriber, Executor executor) {
+			this.function = function;
+			this.subscriber = subscriber;
+			this.executor = executor;
+		}// constructor
+	}// class Subscription
+
+
+	/**
+	 * Reads the copied message in the executor and calls the subscriber
+	 */
+	private static final class Delivery implements Runnable {
+
+		private final Subscriber subscriber;
+		private final char[] message;
+
+		private Delivery(Subscriber subscriber, char[] message) {
+			this.subscriber = subscriber;
+			this.message = message;
+		}// constructor
+
+		@Override
+		public void run() {
+			ServerMessageParser parser = new ServerMessageParser();
+			TetrisGameState gameState = new TetrisGameState();
+			parser.parse(message, 0, message.length, gameState);
+			subscriber.onMessage(parser, gameState);
+		}// run
+	}// class Delivery
+
+
+	private volatile Subscription[] subscriptions = new Subscription[0];
+
+
+	/**
+	 * Adds a subscriber, it receives every following message of the function
+	 * @param function of type String, one of the FUNC_ constants of LEDWallMessage
+	 * @param subscriber of type Subscriber, the component which receives the messages
+	 * @param executor of type Executor, calls the subscriber, e.g. CALLING_THREAD
+	 */
+	public synchronized void subscribe(String function, Subscriber subscriber, Executor executor) {
+		if (function == null || subscriber == null || executor == null) {
+			throw new IllegalArgumentException("function, subscriber and executor are required");
+		}// if
+		Subscription[] current = subscriptions;
+		Subscription[] changed = new Subscription[current.length + 1];
+		System.arraycopy(current, 0, changed, 0, current.length);
+		changed[current.length] = new Subscription(function, subscriber, executor);
+		subscriptions = changed;
+	}// subscribe
+
+
+	/**
+	 * Removes the subscriber from the function, a message which is already<br/>
+	 * passed to its executor is still delivered
+	 * @param function of type String, one of the FUNC_ constants of LEDWallMessage
+	 * @param subscriber of type Subscriber, the component which was added by subscribe()
+	 */
+	public synchronized void unsubscribe(String function, Subscriber subscriber) {
+		Subscription[] current = subscriptions;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i].subscriber == subscriber && current[i].function.equals(function)) {
+				Subscription[] changed = new Subscription[current.length - 1];
+				System.arraycopy(current, 0, changed, 0, i);
+				System.arraycopy(current, i + 1, changed, i, changed.length - i);
+				subscriptions = changed;
+				return;
+			}// if
+		}// for
+	}// unsubscribe
+
+
+	/**
+	 * @param function of type String, one of the FUNC_ constants of LEDWallMessage
+	 * @return of type boolean, true -> at least one component receives the messages of the function
+	 */
+	public boolean hasSubscriber(String function) {
+		Subscription[] current = subscriptions;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i].function.equals(function)) {
+				return true;
+			}// if
+		}// for
+		return false;
+	}// hasSubscriber
+
+
+	/**
+	 * Passes the message which was read by the parser to the subscribers of its function
+	 * @param parser of type ServerMessageParser, the parser which has read the message
+	 * @param gameState of type TetrisGameState, the game state which was updated by the parser
+	 * @param buffer of type char[], the buffer with the message, it is copied for other executors
+	 * @param offset of type Integer, the first character of the message
+	 * @param length of type Integer, the number of characters of the message
+	 * @return of type boolean, false -> no subscriber, the message is dropped
+	 */
+	public boolean dispatch(ServerMessageParser parser, TetrisGameState gameState, char[] buffer,
+			int offset, int length) {
+		String function = parser.getFunction();
+		Subscription[] current = subscriptions;
+		char[] copy = null;
+		boolean isDelivered = false;
+		for (int i = 0; i < current.length; i++) {
+			Subscription subscription = current[i];
+			if (!subscription.function.equals(function)) {
+				continue;
+			}// if
+			isDelivered = true;
+			if (subscription.executor == CALLING_THREAD) {
+				subscription.subscriber.onMessage(parser, gameState);
+			} else {
+				if (copy == null) {
+					copy = new char[length];
+					System.arraycopy(buffer, offset, copy, 0, length);
+				}// if
+				subscription.executor.execute(new Delivery(subscription.subscriber, copy));
+			}// if
+		}// for
+		return isDelivered;
+	}// dispatch
+
+}// class MessageSubscriptions
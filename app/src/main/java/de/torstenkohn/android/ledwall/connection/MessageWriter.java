@@ -0,0 +1,385 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+
+import de.torstenkohn.android.ledwall.core.DrawDeltaEncoder;
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+import de.torstenkohn.android.ledwall.core.LEDWallMessage;
+
+/**
+ * The class writes the messages of the list to the server.<br/>
+ * DRAW messages are sent in the format which was negotiated with<br/>
+ * the CONNECT function: binary or JSON, complete frame or only the changed LEDs.<br/>
+ * All buffers are reused, so sending a DRAW message creates no objects.<br/>
+ * <br/>
+ * The JSON DRAW messages are written to the Writer, binary frames and the bytes<br/>
+ * of the other JSON messages directly to the OutputStream below it.<br/>
+ * The Writer is flushed after every message, so the order of the messages is kept.<br/>
+ * <br/>
+ * The NioConnection uses encode() instead, it writes the bytes of a message<br/>
+ * directly into its ByteBuffer, so several messages can be sent with one write.<br/>
+ * A broadcast message of a WallGroup is only encoded by the first wall,<br/>
+ * all other walls copy its bytes. The PreEncoder stores the bytes of all formats<br/>
+ * before the message is added to the list, then no connection has to encode it.<br/>
+ * The class does not use any Android classes, so it can also be used by the simulator.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class MessageWriter {
+
+	private final LEDWallMessage ledWallMessage = new LEDWallMessage();
+	private final DrawDeltaEncoder deltaEncoder;
+
+	/**
+	 * The buffer for the binary DRAW frames, it is reused for every frame
+	 */
+	private final ByteBuffer drawBuffer = ByteBuffer.allocate(DrawFrameCodec.DELTA_MAX_SIZE);
+
+	/**
+	 * The buffer for the JSON DRAW messages, it is reused for every message
+	 */
+	private char[] charBuffer = new char[DrawFrameCodec.NUMBER_OF_LED * 2 + 64];
+
+	private boolean isBinaryDraw;
+	private boolean isDeltaDraw;
+
+	/**
+	 * The sequence number of the last broadcast DRAW message which was sent, 0 otherwise
+	 */
+	private long lastSequence;
+
+
+	/**
+	 * Constructor of the MessageWriter
+	 * @param deltaEncoder of type DrawDeltaEncoder, the encoder with the last frame of the connection
+	 */
+	public MessageWriter(DrawDeltaEncoder deltaEncoder) {
+		this.deltaEncoder = deltaEncoder;
+	}// constructor
+
+
+	public void setBinaryDraw(boolean isBinaryDraw) {
+		this.isBinaryDraw = isBinaryDraw;
+	}// setBinaryDraw
+
+
+	public void setDeltaDraw(boolean isDeltaDraw) {
+		this.isDeltaDraw = isDeltaDraw;
+	}// setDeltaDraw
+
+
+	/**
+	 * Forgets the last frame, e.g. after a reconnect the new session of the server does not know it
+	 */
+	public void reset() {
+		deltaEncoder.reset();
+		lastSequence = 0;
+	}// reset
+
+
+	/**
+	 * Sends a message from the list to the server.
+	 * @param message of type OutgoingMessage, the message to the server
+	 * @param out of type Writer, the stream for the JSON messages
+	 * @param stream of type OutputStream, the stream below the Writer for the binary frames
+	 * @return of type Integer, the number of characters or bytes written, 0 if nothing was sent
+	 * @throws IOException if the connection is broken
+	 */
+	public int write(OutgoingMessage message, Writer out, OutputStream stream)
+			throws IOException {
+		if (message.isBroadcast()) {
+			return writeBroadcast(message, out, stream);
+		}// if
+		if (message.isDraw()) {
+			return writeDraw(message.getPixels(), out, stream);
+		}// if
+		byte[] bytes = message.getBytes();
+		stream.write(bytes);
+		stream.flush();
+		return bytes.length;
+	}// write
+
+
+	/**
+	 * Writes a message from the list into the buffer instead of a stream.<br/>
+	 * The bytes of JSON messages are copied, DRAW messages are encoded directly into the buffer.<br/>
+	 * If the message does not fit into the remaining space of the buffer, nothing is written<br/>
+	 * and the DrawDeltaEncoder is not changed, so the message can be encoded again<br/>
+	 * after the buffer was sent.
+	 * @param message of type OutgoingMessage, the message to the server
+	 * @param target of type ByteBuffer, the buffer for the bytes to the server
+	 * @return of type Integer, the number of bytes written, 0 if nothing has to be sent,<br/>
+	 *         -1 if the message does not fit into the buffer
+	 */
+	public int encode(OutgoingMessage message, ByteBuffer target) {
+		if (message.isBroadcast()) {
+			return encodeBroadcast(message, target);
+		}// if
+		if (message.isDraw()) {
+			lastSequence = 0;
+			return encodeDraw(message.getPixels(), target);
+		}// if
+		return put(message.getBytes(), target);
+	}// encode
+
+
+	/**
+	 * Encodes a broadcast message. If another wall with the same format has already<br/>
+	 * encoded it, its bytes are copied, otherwise the bytes are stored in the message.<br/>
+	 * The changed LEDs can only be copied if this wall has sent the previous<br/>
+	 * DRAW message of the group, otherwise they refer to another frame.
+	 */
+	private int encodeBroadcast(OutgoingMessage message, ByteBuffer target) {
+		if (!message.isDraw()) {
+			return put(message.getBytes(), target);
+		}// if
+		int encoding = getBroadcastEncoding(message);
+		byte[] bytes = encoding < 0 ? null : message.getEncoded(encoding);
+		int length;
+		if (bytes != null) {
+			if (target.remaining() < bytes.length) {
+				return -1;
+			}// if
+			target.put(bytes);
+			length = bytes.length;
+			deltaEncoder.commit(message.getPixels());
+		} else {
+			int start = target.position();
+			length = encodeDraw(message.getPixels(), target);
+			if (length < 0) {
+				return -1;
+			}// if
+			if (encoding >= 0) {
+				bytes = new byte[length];
+				for (int i = 0; i < length; i++) {
+					bytes[i] = target.get(start + i);
+				}// for
+				message.setEncoded(encoding, bytes);
+			}// if
+		}// if
+		lastSequence = message.getSequence();
+		return length;
+	}// encodeBroadcast
+
+
+	/**
+	 * Returns the encoding of a broadcast DRAW message for this connection
+	 * @return of type Integer, OutgoingMessage.ENCODED_..., -1 if the changed LEDs<br/>
+	 *         refer to another frame than the last frame of this connection
+	 */
+	private int getBroadcastEncoding(OutgoingMessage message) {
+		if (!isDeltaDraw) {
+			return isBinaryDraw ? OutgoingMessage.ENCODED_BINARY : OutgoingMessage.ENCODED_JSON;
+		} else if (lastSequence != 0 && lastSequence == message.getPreviousSequence()) {
+			return isBinaryDraw ? OutgoingMessage.ENCODED_BINARY_DELTA
+					: OutgoingMessage.ENCODED_JSON_DELTA;
+		}// if
+		return -1;
+	}// getBroadcastEncoding
+
+
+	/**
+	 * Sends a broadcast DRAW message like encodeBroadcast(). The stored bytes are written<br/>
+	 * directly to the stream, the Writer is flushed after every message,<br/>
+	 * so the order is kept. Without stored bytes the message is sent as usual.
+	 */
+	private int writeBroadcast(OutgoingMessage message, Writer out, OutputStream stream)
+			throws IOException {
+		if (!message.isDraw()) {
+			byte[] bytes = message.getBytes();
+			stream.write(bytes);
+			stream.flush();
+			return bytes.length;
+		}// if
+		int encoding = getBroadcastEncoding(message);
+		byte[] bytes = encoding < 0 ? null : message.getEncoded(encoding);
+		int length;
+		if (bytes != null) {
+			stream.write(bytes);
+			stream.flush();
+			length = bytes.length;
+			deltaEncoder.commit(message.getPixels());
+		} else {
+			length = writeDraw(message.getPixels(), out, stream);
+		}// if
+		lastSequence = message.getSequence();
+		return length;
+	}// writeBroadcast
+
+
+	/**
+	 * Sends the DRAW function. If the server supports it, only the LEDs<br/>
+	 * which have changed since the last frame are sent. A complete frame<br/>
+	 * is sent after a reconnect or if too many LEDs have changed.
+	 */
+	private int writeDraw(int[] pixels, Writer out, OutputStream stream)
+			throws IOException {
+		lastSequence = 0;
+		int runs = diff(pixels);
+		if (runs == 0) {
+			// nothing has changed since the last frame
+			return 0;
+		}// if
+
+		int length;
+		if (isBinaryDraw) {
+			drawBuffer.clear();
+			encodeBinaryDraw(pixels, runs, drawBuffer);
+			length = drawBuffer.position();
+			stream.write(drawBuffer.array(), 0, length);
+			stream.flush();
+		} else {
+			length = write(encodeJsonDraw(pixels, runs), out);
+		}// if
+		deltaEncoder.commit(pixels);
+		return length;
+	}// writeDraw
+
+
+	/**
+	 * Encodes the DRAW function like writeDraw() into the buffer
+	 */
+	private int encodeDraw(int[] pixels, ByteBuffer target) {
+		int runs = diff(pixels);
+		if (runs == 0) {
+			return 0;
+		}// if
+
+		int length;
+		if (isBinaryDraw) {
+			length = runs == DrawDeltaEncoder.KEYFRAME ? DrawFrameCodec.FRAME_SIZE
+					: 2 + runs * DrawDeltaEncoder.RUN_SIZE;
+			if (target.remaining() < length) {
+				return -1;
+			}// if
+			encodeBinaryDraw(pixels, runs, target);
+		} else {
+			length = encode(encodeJsonDraw(pixels, runs), target);
+			if (length < 0) {
+				return -1;
+			}// if
+		}// if
+		deltaEncoder.commit(pixels);
+		return length;
+	}// encodeDraw
+
+
+	/**
+	 * Compares the frame with the last frame sent to the server
+	 * @return of type Integer, the number of changed runs, 0 if nothing has changed<br/>
+	 *         or DrawDeltaEncoder.KEYFRAME if the complete frame has to be sent
+	 */
+	private int diff(int[] pixels) {
+		int runs = DrawDeltaEncoder.KEYFRAME;
+		if (isDeltaDraw) {
+			runs = deltaEncoder.diff(pixels);
+		}// if
+
+		if (runs > 0 && isBinaryDraw
+				&& 2 + runs * DrawDeltaEncoder.RUN_SIZE >= DrawFrameCodec.FRAME_SIZE) {
+			// the complete binary frame is smaller than the runs
+			runs = DrawDeltaEncoder.KEYFRAME;
+		}// if
+		return runs;
+	}// diff
+
+
+	private void encodeBinaryDraw(int[] pixels, int runs, ByteBuffer target) {
+		if (runs == DrawDeltaEncoder.KEYFRAME) {
+			DrawFrameCodec.encode(pixels, target);
+		} else {
+			DrawFrameCodec.encodeDelta(deltaEncoder.getRuns(), runs, target);
+		}// if
+	}// encodeBinaryDraw
+
+
+	private StringBuilder encodeJsonDraw(int[] pixels, int runs) {
+		if (runs == DrawDeltaEncoder.KEYFRAME) {
+			return ledWallMessage.encodeFunctionDraw(pixels);
+		}// if
+		return ledWallMessage.encodeFunctionDrawDelta(deltaEncoder.getRuns(), runs);
+	}// encodeJsonDraw
+
+
+	/**
+	 * Copies the bytes of a JSON message into the buffer
+	 * @return of type Integer, the number of bytes or -1 if the bytes do not fit into the buffer
+	 */
+	private static int put(byte[] bytes, ByteBuffer target) {
+		if (target.remaining() < bytes.length) {
+			return -1;
+		}// if
+		target.put(bytes);
+		return bytes.length;
+	}// put
+
+
+	/**
+	 * Encodes the characters of a JSON DRAW message as UTF-8 into the buffer.<br/>
+	 * The length is counted first, so an incomplete message is never written.
+	 * @return of type Integer, the number of bytes or -1 if the characters do not fit into the buffer
+	 */
+	private static int encode(CharSequence message, ByteBuffer target) {
+		int length = message.length();
+		int bytes = 0;
+		for (int i = 0; i < length; i++) {
+			char c = message.charAt(i);
+			if (c < 0x80) {
+				bytes++;
+			} else if (c < 0x800) {
+				bytes += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(message.charAt(i + 1))) {
+				bytes += 4;
+				i++;
+			} else {
+				bytes += 3;
+			}// if
+		}// for
+		if (target.remaining() < bytes) {
+			return -1;
+		}// if
+
+		for (int i = 0; i < length; i++) {
+			char c = message.charAt(i);
+			if (c < 0x80) {
+				target.put((byte) c);
+			} else if (c < 0x800) {
+				target.put((byte) (0xC0 | (c >> 6)));
+				target.put((byte) (0x80 | (c & 0x3F)));
+			} else if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(message.charAt(i + 1))) {
+				int code = Character.toCodePoint(c, message.charAt(++i));
+				target.put((byte) (0xF0 | (code >> 18)));
+				target.put((byte) (0x80 | ((code >> 12) & 0x3F)));
+				target.put((byte) (0x80 | ((code >> 6) & 0x3F)));
+				target.put((byte) (0x80 | (code & 0x3F)));
+			} else {
+				target.put((byte) (0xE0 | (c >> 12)));
+				target.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+				target.put((byte) (0x80 | (c & 0x3F)));
+			}// if
+		}// for
+		return bytes;
+	}// encode
+
+
+	/**
+	 * Writes the StringBuilder via a reused array, so no string is created.
+	 */
+	private int write(StringBuilder message, Writer out) throws IOException {
+		int length = message.length();
+		if (charBuffer.length < length) {
+			charBuffer = new char[length];
+		}// if
+		message.getChars(0, length, charBuffer, 0);
+		out.write(charBuffer, 0, length);
+		out.flush();
+		return length;
+	}// write
+
+}// class MessageWriter
@@ -0,0 +1,546 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+import de.torstenkohn.android.ledwall.connection.FrameDecoder.FrameListener;
+import de.torstenkohn.android.ledwall.connection.OutboundQueue.QueueListener;
+import de.torstenkohn.android.ledwall.core.DrawDeltaEncoder;
+
+/**
+ * A non-blocking connection to one LED wall, it is driven by the selector thread<br/>
+ * of a NioTransport. All methods except close() are called in this thread.<br/>
+ * <br/>
+ * After the socket is connected the handshake (the CONNECT function) is sent.<br/>
+ * The listener reads the response of the server and calls startExchange(),<br/>
+ * from then on the messages of the OutboundQueue are sent whenever the socket is writable.<br/>
+ * The messages are encoded by the MessageWriter directly into a direct ByteBuffer,<br/>
+ * several messages are sent with one write. The received bytes are decoded<br/>
+ * by the FrameDecoder without converting them to a string first.<br/>
+ * <br/>
+ * If the connection is lost, the messages which are not completely written<br/>
+ * are put back to the list and the listener decides whether to reconnect.<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class NioConnection implements FrameListener, QueueListener {
+
+	/**
+	 * The listener of the connection, it is called in the selector thread
+	 */
+	public interface ConnectionListener {
+
+		/**
+		 * The socket is connected, the handshake is sent now
+		 */
+		void onConnected(NioConnection connection);
+
+		/**
+		 * A complete message of the server, the characters are only valid during the call
+		 */
+		void onFrame(NioConnection connection, char[] buffer, int offset, int length);
+
+		/**
+		 * The connection could not be established or was lost.<br/>
+		 * The listener calls reconnect() or close(), otherwise the connection stays idle.<br/>
+		 * It is not called after close().
+		 */
+		void onClosed(NioConnection connection, IOException cause);
+	}// interface ConnectionListener
+
+
+	/**
+	 * The states of the connection
+	 */
+	private enum State {
+		IDLE, WAITING, CONNECTING, HANDSHAKE, OPEN, CLOSING, CLOSED
+	}// enum State
+
+
+	/**
+	 * The time in ms for the connect and the response to the handshake
+	 */
+	public static final int TIMEOUT = 2500;
+
+	/**
+	 * The time in ms close() waits until the list is sent
+	 */
+	public static final int CLOSE_TIMEOUT = 1000;
+
+	private static final int READ_BUFFER_SIZE = 8 * 1024;
+	private static final int WRITE_BUFFER_SIZE = 8 * 1024;
+	private static final int MAX_WRITE_BUFFER_SIZE = 256 * 1024;
+
+	/**
+	 * The maximum number of messages which are sent with one write
+	 */
+	private static final int MAX_BATCH = 32;
+
+
+	private final NioTransport transport;
+	private final InetSocketAddress address;
+	private final OutboundQueue queue;
+	private final MessageWriter messageWriter;
+	private final FrameDecoder decoder;
+	private final OutgoingMessage handshake;
+	private final ConnectionListener listener;
+	private ConnectionMetrics metrics;
+
+	private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+	private ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+
+	/**
+	 * The buffer is being written, it is only filled again when it is completely sent
+	 */
+	private boolean isWriting;
+
+	/*
+	 * The messages in the write buffer and the position after each message,
+	 * they are counted as sent when the socket has accepted all their bytes
+	 */
+	private final OutgoingMessage[] batch = new OutgoingMessage[MAX_BATCH];
+	private final int[] batchEnds = new int[MAX_BATCH];
+	private int batchCount;
+	private int batchSent;
+	private long batchStart;
+
+	/**
+	 * The message which did not fit into the write buffer anymore
+	 */
+	private OutgoingMessage pending;
+
+	private SocketChannel channel;
+	private SelectionKey key;
+	private volatile State state = State.IDLE;
+
+	/**
+	 * The deadline (System.nanoTime()) of the current state:<br/>
+	 * the reconnect in WAITING, the timeout in CONNECTING and HANDSHAKE<br/>
+	 * and the end of CLOSING
+	 */
+	private long timer;
+
+	private volatile boolean isCloseRequested;
+
+
+	/**
+	 * Constructor of the NioConnection, it is created by NioTransport.open()
+	 */
+	NioConnection(NioTransport transport, InetSocketAddress address,
+			FrameDecoder.Framing framing, OutboundQueue queue,
+			DrawDeltaEncoder deltaEncoder, OutgoingMessage handshake,
+			ConnectionListener listener) {
+		this.transport = transport;
+		this.address = address;
+		this.queue = queue;
+		this.messageWriter = new MessageWriter(deltaEncoder);
+		this.decoder = new FrameDecoder(framing, this);
+		this.handshake = handshake;
+		this.listener = listener;
+		queue.setQueueListener(this);
+	}// constructor
+
+
+	public InetSocketAddress getAddress() {
+		return address;
+	}// getAddress
+
+
+	public OutboundQueue getQueue() {
+		return queue;
+	}// getQueue
+
+
+	/**
+	 * @param metrics of type ConnectionMetrics, receives the measurements of the written messages or null
+	 */
+	public void setMetrics(ConnectionMetrics metrics) {
+		this.metrics = metrics;
+	}// setMetrics
+
+
+	/**
+	 * @return of type boolean, true -> the handshake is confirmed and the messages are sent
+	 */
+	public boolean isOpen() {
+		return state == State.OPEN;
+	}// isOpen
+
+
+	/**
+	 * The server has confirmed the handshake, from now on the messages of the list are sent.<br/>
+	 * It is called by the listener in the selector thread.
+	 * @param isBinaryDraw of type boolean, true -> the DRAW function is sent in the binary format
+	 * @param isDeltaDraw of type boolean, true -> only the changed LEDs are sent
+	 */
+	public void startExchange(boolean isBinaryDraw, boolean isDeltaDraw) {
+		messageWriter.setBinaryDraw(isBinaryDraw);
+		messageWriter.setDeltaDraw(isDeltaDraw);
+		if (state == State.HANDSHAKE) {
+			state = State.OPEN;
+		}// if
+	}// startExchange
+
+
+	/**
+	 * Closes the socket and connects again after the delay.<br/>
+	 * It is called by the listener in the selector thread, e.g. in onClosed().
+	 * @param delay of type long, the delay in ms
+	 */
+	public void reconnect(long delay) {
+		if (state == State.CLOSED || isCloseRequested) {
+			return;
+		}// if
+		requeueUnsent();
+		closeChannel();
+		state = State.WAITING;
+		timer = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+	}// reconnect
+
+
+	/**
+	 * Closes the connection, the messages in the list are still sent<br/>
+	 * for up to CLOSE_TIMEOUT ms. The method can be called in any thread.
+	 */
+	public void close() {
+		isCloseRequested = true;
+		transport.wakeup();
+	}// close
+
+
+	/**
+	 * Closes the socket immediately, it is called by the selector thread when it ends
+	 */
+	void abort() {
+		isCloseRequested = true;
+		closed();
+	}// abort
+
+
+	/**
+	 * A message was added to the list, the selector thread is woken up to send it
+	 */
+	@Override
+	public void onMessageAdded(OutboundQueue queue) {
+		if (state == State.OPEN) {
+			transport.wakeup();
+		}// if
+	}// onMessageAdded
+
+
+	@Override
+	public void onFrame(char[] buffer, int offset, int length) {
+		listener.onFrame(this, buffer, offset, length);
+	}// onFrame
+
+
+	/**
+	 * Opens the socket, the connect is completed in handle()
+	 */
+	void connect(Selector selector) {
+		decoder.reset();
+		writeBuffer.clear();
+		isWriting = false;
+		// the new session of the server does not know the last frame
+		messageWriter.reset();
+		messageWriter.setBinaryDraw(false);
+		messageWriter.setDeltaDraw(false);
+		timer = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT);
+		state = State.CONNECTING;
+		try {
+			channel = SocketChannel.open();
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			if (channel.connect(address)) {
+				key = channel.register(selector, SelectionKey.OP_READ, this);
+				connected();
+			} else {
+				key = channel.register(selector, SelectionKey.OP_CONNECT, this);
+			}// if
+		} catch (IOException e) {
+			lost(e);
+		}// try
+	}// connect
+
+
+	/**
+	 * Handles the ready operations of the socket
+	 */
+	void handle(SelectionKey selected) {
+		try {
+			if (selected.isConnectable()) {
+				channel.finishConnect();
+				selected.interestOps(SelectionKey.OP_READ);
+				connected();
+			}// if
+			if (selected.isValid() && selected.isReadable()) {
+				read();
+			}// if
+			if (selected.isValid() && selected.isWritable()) {
+				flush();
+			}// if
+		} catch (IOException e) {
+			lost(e);
+		}// try
+	}// handle
+
+
+	/**
+	 * Checks the timers and the close request and sends the messages of the list.<br/>
+	 * It is called by the selector thread in every loop.
+	 * @param now of type long, System.nanoTime()
+	 * @return of type boolean, false -> the connection is closed and can be removed
+	 */
+	boolean service(long now) {
+		try {
+			if (isCloseRequested && state != State.CLOSING && state != State.CLOSED) {
+				if (state == State.OPEN) {
+					state = State.CLOSING;
+					timer = now + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT);
+				} else {
+					closed();
+				}// if
+			}// if
+
+			switch (state) {
+			case WAITING:
+				if (now - timer >= 0) {
+					connect(transport.getSelector());
+				}// if
+				break;
+
+			case CONNECTING:
+			case HANDSHAKE:
+				if (now - timer >= 0) {
+					throw new SocketTimeoutException("no response of " + address);
+				}// if
+				break;
+
+			case OPEN:
+				if (!isWriting && (pending != null || !queue.isEmpty())) {
+					flush();
+				}// if
+				break;
+
+			case CLOSING:
+				if (!isWriting) {
+					flush();
+				}// if
+				if ((!isWriting && pending == null && queue.isEmpty()) || now - timer >= 0) {
+					closed();
+				}// if
+				break;
+
+			default:
+				break;
+			}// switch
+		} catch (IOException e) {
+			lost(e);
+		}// try
+		return state != State.CLOSED;
+	}// service
+
+
+	/**
+	 * @param now of type long, System.nanoTime()
+	 * @return of type long, the time in ns until the timer of the state elapses or -1 if there is none
+	 */
+	long getTimeout(long now) {
+		switch (state) {
+		case WAITING:
+		case CONNECTING:
+		case HANDSHAKE:
+		case CLOSING:
+			return Math.max(0, timer - now);
+		default:
+			return -1;
+		}// switch
+	}// getTimeout
+
+
+	/**
+	 * The socket is connected, the handshake is sent
+	 */
+	private void connected() throws IOException {
+		state = State.HANDSHAKE;
+		timer = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT);
+		listener.onConnected(this);
+		if (handshake != null && messageWriter.encode(handshake, writeBuffer) > 0) {
+			writeBuffer.flip();
+			isWriting = true;
+			flush();
+		}// if
+	}// connected
+
+
+	private void read() throws IOException {
+		int count = channel.read(readBuffer);
+		if (count < 0) {
+			throw new EOFException("connection closed by server");
+		}// if
+		readBuffer.flip();
+		decoder.decode(readBuffer);
+		readBuffer.clear();
+	}// read
+
+
+	/**
+	 * Writes the buffer to the socket. If the buffer is empty, it is filled<br/>
+	 * with the messages of the list first. If the socket does not accept all bytes,<br/>
+	 * the rest is written as soon as the socket is writable again.
+	 */
+	private void flush() throws IOException {
+		if (!isWriting) {
+			if (state == State.OPEN || state == State.CLOSING) {
+				fill();
+			}// if
+			if (writeBuffer.position() == 0) {
+				key.interestOps(SelectionKey.OP_READ);
+				return;
+			}// if
+			writeBuffer.flip();
+			isWriting = true;
+		}// if
+
+		channel.write(writeBuffer);
+		sent(writeBuffer.position());
+
+		if (writeBuffer.hasRemaining()) {
+			key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+			return;
+		}// if
+		writeBuffer.clear();
+		isWriting = false;
+		batchCount = 0;
+		batchSent = 0;
+		if ((state == State.OPEN || state == State.CLOSING)
+				&& (pending != null || !queue.isEmpty())) {
+			// the next batch is written in the next loop, so the reading is not delayed
+			key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		} else {
+			key.interestOps(SelectionKey.OP_READ);
+		}// if
+	}// flush
+
+
+	/**
+	 * Encodes the messages of the list into the write buffer until it is full
+	 */
+	private void fill() throws IOException {
+		batchStart = System.nanoTime();
+		if (pending == null) {
+			pending = queue.poll();
+		}// if
+		while (pending != null && batchCount < MAX_BATCH) {
+			int length = messageWriter.encode(pending, writeBuffer);
+			if (length < 0) {
+				if (writeBuffer.position() > 0) {
+					// the message is sent with the next batch
+					return;
+				}// if
+				growWriteBuffer();
+				continue;
+			}// if
+			batch[batchCount] = pending;
+			batchEnds[batchCount] = writeBuffer.position();
+			batchCount++;
+			pending = queue.poll();
+		}// while
+	}// fill
+
+
+	/**
+	 * A message is larger than the empty write buffer
+	 */
+	private void growWriteBuffer() throws IOException {
+		if (writeBuffer.capacity() >= MAX_WRITE_BUFFER_SIZE) {
+			throw new IOException("message is longer than " + MAX_WRITE_BUFFER_SIZE + " bytes");
+		}// if
+		writeBuffer = ByteBuffer.allocateDirect(writeBuffer.capacity() * 2);
+	}// growWriteBuffer
+
+
+	/**
+	 * The messages whose bytes are completely accepted by the socket are sent
+	 * @param position of type Integer, the position of the write buffer after the write
+	 */
+	private void sent(int position) {
+		long now = System.nanoTime();
+		while (batchSent < batchCount && batchEnds[batchSent] <= position) {
+			if (metrics != null) {
+				int start = batchSent == 0 ? 0 : batchEnds[batchSent - 1];
+				metrics.recordWrite(batch[batchSent], batchStart, now, batchEnds[batchSent] - start);
+			}// if
+			batch[batchSent++] = null;
+		}// while
+	}// sent
+
+
+	/**
+	 * Puts the messages which are not completely written back to the front of the list,<br/>
+	 * so they are sent after the reconnect in the original order.
+	 */
+	private void requeueUnsent() {
+		if (pending != null) {
+			queue.requeue(pending);
+			pending = null;
+		}// if
+		for (int i = batchCount - 1; i >= batchSent; i--) {
+			queue.requeue(batch[i]);
+			batch[i] = null;
+		}// for
+		batchCount = 0;
+		batchSent = 0;
+		isWriting = false;
+		writeBuffer.clear();
+	}// requeueUnsent
+
+
+	/**
+	 * The connection could not be established or was lost, the listener is informed
+	 */
+	private void lost(IOException e) {
+		if (isCloseRequested || state == State.CLOSING || state == State.CLOSED) {
+			closed();
+			return;
+		}// if
+		requeueUnsent();
+		closeChannel();
+		state = State.IDLE;
+		listener.onClosed(this, e);
+	}// lost
+
+
+	private void closed() {
+		requeueUnsent();
+		closeChannel();
+		state = State.CLOSED;
+		queue.setQueueListener(null);
+	}// closed
+
+
+	private void closeChannel() {
+		if (key != null) {
+			key.cancel();
+			key = null;
+		}// if
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// nothing to do, the channel is not used anymore
+			}// try
+			channel = null;
+		}// if
+	}// closeChannel
+
+}// class NioConnection
@@ -0,0 +1,193 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import de.torstenkohn.android.ledwall.connection.NioConnection.ConnectionListener;
+import de.torstenkohn.android.ledwall.core.DrawDeltaEncoder;
+
+/**
+ * The transport drives any number of NioConnections with one thread and one Selector.<br/>
+ * The thread which calls run() connects, reads and writes all connections,<br/>
+ * so no thread blocks on a single socket and several LED walls can be served<br/>
+ * by the same thread. While nothing is to do, the thread waits in select().<br/>
+ * <br/>
+ * Other threads only add connections, close them or add messages to their lists,<br/>
+ * the selector is then woken up. A wakeup which is already pending is not repeated,<br/>
+ * so adding many messages in a short time costs only one wakeup.<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class NioTransport implements Runnable {
+
+	private final Selector selector;
+
+	/**
+	 * The connections of the transport, only used by the selector thread
+	 */
+	private final List<NioConnection> connections = new ArrayList<NioConnection>();
+
+	/**
+	 * The connections which are opened by other threads and not yet registered
+	 */
+	private final ConcurrentLinkedQueue<NioConnection> added = new ConcurrentLinkedQueue<NioConnection>();
+
+	private final AtomicBoolean isWakeupPending = new AtomicBoolean();
+
+	private volatile boolean isShutdown;
+
+
+	/**
+	 * Constructor of the NioTransport
+	 * @throws IOException if the selector cannot be opened
+	 */
+	public NioTransport() throws IOException {
+		selector = Selector.open();
+	}// constructor
+
+
+	Selector getSelector() {
+		return selector;
+	}// getSelector
+
+
+	/**
+	 * Opens a connection to a LED wall, the socket is connected by the selector thread.<br/>
+	 * The method can be called in any thread.
+	 * @param address of type InetSocketAddress, the address of the server
+	 * @param framing of type Framing, the framing of the messages from the server
+	 * @param queue of type OutboundQueue, the messages for the server
+	 * @param deltaEncoder of type DrawDeltaEncoder, the encoder with the last frame of the connection
+	 * @param handshake of type OutgoingMessage, the CONNECT function which is sent after every connect
+	 * @param listener of type ConnectionListener, the listener of the connection
+	 * @return of type NioConnection, the new connection
+	 */
+	public NioConnection open(InetSocketAddress address, FrameDecoder.Framing framing,
+			OutboundQueue queue, DrawDeltaEncoder deltaEncoder, OutgoingMessage handshake,
+			ConnectionListener listener) {
+		NioConnection connection = new NioConnection(this, address, framing, queue,
+				deltaEncoder, handshake, listener);
+		added.offer(connection);
+		wakeup();
+		return connection;
+	}// open
+
+
+	/**
+	 * Wakes up the selector thread, if it is not already woken up
+	 */
+	void wakeup() {
+		if (isWakeupPending.compareAndSet(false, true)) {
+			selector.wakeup();
+		}// if
+	}// wakeup
+
+
+	/**
+	 * Closes all connections, the messages in their lists are still sent.<br/>
+	 * run() returns as soon as all connections are closed.
+	 */
+	public void shutdown() {
+		isShutdown = true;
+		wakeup();
+	}// shutdown
+
+
+	/**
+	 * The loop of the selector thread, it runs until shutdown() is called<br/>
+	 * and all connections are closed.
+	 */
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				// an interrupt would let every select() return immediately
+				Thread.interrupted();
+				long timeout = nextTimeout();
+				if (timeout == 0) {
+					selector.selectNow();
+				} else {
+					selector.select(timeout < 0 ? 0 : timeout);
+				}// if
+				isWakeupPending.set(false);
+
+				NioConnection connection = added.poll();
+				while (connection != null) {
+					connections.add(connection);
+					connection.connect(selector);
+					connection = added.poll();
+				}// while
+
+				if (isShutdown) {
+					for (int i = 0; i < connections.size(); i++) {
+						connections.get(i).close();
+					}// for
+				}// if
+
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (key.isValid()) {
+						((NioConnection) key.attachment()).handle(key);
+					}// if
+				}// while
+
+				long now = System.nanoTime();
+				for (int i = connections.size() - 1; i >= 0; i--) {
+					if (!connections.get(i).service(now)) {
+						connections.remove(i);
+					}// if
+				}// for
+
+				if (isShutdown && connections.isEmpty() && added.isEmpty()) {
+					break;
+				}// if
+			}// while
+		} catch (IOException e) {
+			// the selector is broken, all connections are closed below
+		} finally {
+			for (int i = 0; i < connections.size(); i++) {
+				connections.get(i).abort();
+			}// for
+			connections.clear();
+			try {
+				selector.close();
+			} catch (IOException e) {
+				// nothing to do, the transport is not used anymore
+			}// try
+		}// try
+	}// run
+
+
+	/**
+	 * @return of type long, the time in ms until the next timer of a connection,<br/>
+	 *         0 if a timer has elapsed, -1 if there is no timer
+	 */
+	private long nextTimeout() {
+		long now = System.nanoTime();
+		long next = -1;
+		for (int i = 0; i < connections.size(); i++) {
+			long timeout = connections.get(i).getTimeout(now);
+			if (timeout >= 0 && (next < 0 || timeout < next)) {
+				next = timeout;
+			}// if
+		}// for
+		if (next < 0) {
+			return -1;
+		}// if
+		// round up, so the timer has elapsed when select() returns
+		return TimeUnit.NANOSECONDS.toMillis(next + 999999);
+	}// nextTimeout
+
+}// class NioTransport
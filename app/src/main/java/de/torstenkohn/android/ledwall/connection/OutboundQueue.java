@@ -0,0 +1,217 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import java.util.Iterator;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.torstenkohn.android.ledwall.core.LEDWallMessage;
+
+/**
+ * The list of the messages for the server.<br/>
+ * DRAW and TEXT messages describe the complete content of the wall,<br/>
+ * so a new message of these functions replaces the message of the same function<br/>
+ * which is not yet sent. Thus, old frames do not pile up when the network<br/>
+ * is slower than the user and the latency stays bounded.<br/>
+ * All other messages (CONNECT, DISCONNECT, TETRIS, ...) are kept in order<br/>
+ * and are never dropped.<br/>
+ * <br/>
+ * A thread-safe LinkedBlockingDeque is used, so the sending thread<br/>
+ * can wait for new messages. A thread which does not wait on the list,<br/>
+ * like the selector thread of the NioTransport, is informed by a QueueListener.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class OutboundQueue {
+
+	/**
+	 * The listener is called after a message was added to the list.<br/>
+	 * It is called in the thread which adds the message, so it must not block.
+	 */
+	public interface QueueListener {
+		void onMessageAdded(OutboundQueue queue);
+	}// interface QueueListener
+
+
+	private final LinkedBlockingDeque<OutgoingMessage> messages = new LinkedBlockingDeque<OutgoingMessage>();
+
+	/*
+	 * counters for the debugging and the measurements
+	 */
+	private final AtomicLong offeredCount = new AtomicLong();
+	private final AtomicLong coalescedCount = new AtomicLong();
+	private volatile int maxDepth;
+
+	private volatile QueueListener listener;
+
+
+	public void setQueueListener(QueueListener listener) {
+		this.listener = listener;
+	}// setQueueListener
+
+
+	/**
+	 * The method checks whether a newer message of the function replaces an older one
+	 * @param function of type String, the function of the message
+	 * @return of type boolean, true -> only the newest message is sent
+	 */
+	public static boolean isCoalescable(String function) {
+		return LEDWallMessage.FUNC_DRAW.equals(function)
+				|| LEDWallMessage.FUNC_TEXT.equals(function);
+	}// isCoalescable
+
+
+	/**
+	 * Adds the message to the end of the list.<br/>
+	 * A not yet sent message of the same function is removed,<br/>
+	 * if the function is coalescable and no other function which is not coalescable<br/>
+	 * (e.g. DISCONNECT or CONNECT) is waiting behind it. Thus, a frame is never moved<br/>
+	 * past a control message and the order of the functions stays the same.
+	 * @param message of type OutgoingMessage, the message for the server
+	 * @return of type boolean, true -> the message has replaced a waiting message
+	 */
+	public boolean offer(OutgoingMessage message) {
+		offeredCount.incrementAndGet();
+		boolean isReplaced = false;
+		if (isCoalescable(message.getFunction())) {
+			synchronized (this) {
+				// only the messages behind the last control message are replaced
+				Iterator<OutgoingMessage> iterator = messages.descendingIterator();
+				while (iterator.hasNext()) {
+					OutgoingMessage waiting = iterator.next();
+					if (!isCoalescable(waiting.getFunction())) {
+						break;
+					}// if
+					if (message.getFunction().equals(waiting.getFunction())) {
+						iterator.remove();
+						coalescedCount.incrementAndGet();
+						isReplaced = true;
+					}// if
+				}// while
+				messages.offer(message);
+			}// synchronized
+		} else {
+			// not concurrently with the replacement above, which would move a frame past it
+			synchronized (this) {
+				messages.offer(message);
+			}// synchronized
+		}// if
+
+		int depth = messages.size();
+		if (depth > maxDepth) {
+			maxDepth = depth;
+		}// if
+		notifyListener();
+		return isReplaced;
+	}// offer
+
+
+	/**
+	 * Puts a message back to the front of the list, e.g. if it could not be sent<br/>
+	 * because the connection was lost. If the function is coalescable<br/>
+	 * and a newer message of the function is waiting, the message is dropped.
+	 * @param message of type OutgoingMessage, the message which was taken from the list
+	 */
+	public void requeue(OutgoingMessage message) {
+		synchronized (this) {
+			if (isCoalescable(message.getFunction())) {
+				for (OutgoingMessage waiting : messages) {
+					if (message.getFunction().equals(waiting.getFunction())) {
+						coalescedCount.incrementAndGet();
+						return;
+					}// if
+				}// for
+			}// if
+			messages.offerFirst(message);
+		}// synchronized
+		notifyListener();
+	}// requeue
+
+
+	private void notifyListener() {
+		QueueListener current = listener;
+		if (current != null) {
+			current.onMessageAdded(this);
+		}// if
+	}// notifyListener
+
+
+	/**
+	 * @return of type OutgoingMessage, the first message or null if the list is empty
+	 */
+	public OutgoingMessage poll() {
+		return messages.poll();
+	}// poll
+
+
+	/**
+	 * Returns the first message and waits up to the given timeout if the list is empty.
+	 * @param timeout of type long, the maximum time to wait
+	 * @param unit of type TimeUnit, the unit of the timeout
+	 * @return of type OutgoingMessage, the first message or null if the timeout elapsed
+	 * @throws InterruptedException if the waiting thread is interrupted
+	 */
+	public OutgoingMessage poll(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		return messages.poll(timeout, unit);
+	}// poll
+
+
+	public boolean isEmpty() {
+		return messages.isEmpty();
+	}// isEmpty
+
+
+	/**
+	 * The method checks whether a message of the function is not yet sent
+	 * @param function of type String, the function (LEDWallMessage.FUNC_...)
+	 * @return of type boolean, true -> a message of the function is waiting in the list
+	 */
+	public boolean contains(String function) {
+		for (OutgoingMessage message : messages) {
+			if (function.equals(message.getFunction())) {
+				return true;
+			}// if
+		}// for
+		return false;
+	}// contains
+
+
+	public void clear() {
+		messages.clear();
+	}// clear
+
+
+	/**
+	 * @return of type Integer, the number of messages which are not yet sent
+	 */
+	public int getDepth() {
+		return messages.size();
+	}// getDepth
+
+
+	/**
+	 * @return of type Integer, the highest number of waiting messages so far
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}// getMaxDepth
+
+
+	/**
+	 * @return of type long, the number of messages added to the list
+	 */
+	public long getOfferedCount() {
+		return offeredCount.get();
+	}// getOfferedCount
+
+
+	/**
+	 * @return of type long, the number of messages replaced by a newer message
+	 */
+	public long getCoalescedCount() {
+		return coalescedCount.get();
+	}// getCoalescedCount
+
+}// class OutboundQueue
@@ -0,0 +1,214 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.torstenkohn.android.ledwall.core.LEDWallMessage;
+
+/**
+ * The class represents a message in the list of the ConnectionManager.<br/>
+ * Most messages are already complete JSON strings, they are encoded<br/>
+ * as UTF-8 once when the message is created, so the connection only copies the bytes.<br/>
+ * A DRAW message only stores a copy of the LED array, because the format<br/>
+ * (JSON or binary) is chosen by the service thread when the message is sent.<br/>
+ * <br/>
+ * A broadcast message of a WallGroup is added to the lists of several walls.<br/>
+ * A broadcast DRAW message stores the bytes which the first wall has encoded, so all other walls<br/>
+ * with the same format only copy them (one encode, N writes).<br/>
+ * A broadcast DRAW message knows the previous broadcast DRAW message of the group,<br/>
+ * so the changed LEDs are only shared between walls which have sent the same previous frame.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class OutgoingMessage {
+
+	/*
+	 * The encodings which are stored by a broadcast message
+	 */
+	public static final int ENCODED_JSON = 0;
+	public static final int ENCODED_BINARY = 1;
+	public static final int ENCODED_JSON_DELTA = 2;
+	public static final int ENCODED_BINARY_DELTA = 3;
+	private static final int ENCODINGS = 4;
+
+	/**
+	 * The sequence numbers of the broadcast messages, 0 is no broadcast
+	 */
+	private static final AtomicLong sequences = new AtomicLong();
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final String function;
+	private final String json;
+
+	/**
+	 * The UTF-8 bytes of a JSON message, null for a DRAW message
+	 */
+	private final byte[] bytes;
+	private final int[] pixels;
+
+	/**
+	 * The time when the message was added to the list (System.nanoTime())
+	 */
+	private final long enqueueTime;
+
+	/*
+	 * The sequence number of a broadcast message and of the previous
+	 * broadcast DRAW message of the group, 0 if there is none
+	 */
+	private final long sequence;
+	private final long previousSequence;
+
+	/**
+	 * The bytes of a broadcast message per encoding, created by the first wall
+	 */
+	private byte[][] encoded;
+
+
+	private OutgoingMessage(String function, String json, int[] pixels) {
+		this(function, json, pixels, 0, 0);
+	}// constructor
+
+
+	private OutgoingMessage(String function, String json, int[] pixels, long sequence,
+			long previousSequence) {
+		this.function = function;
+		this.json = json;
+		this.bytes = json == null ? null : json.getBytes(UTF8);
+		this.pixels = pixels;
+		this.sequence = sequence;
+		this.previousSequence = previousSequence;
+		this.enqueueTime = System.nanoTime();
+	}// constructor
+
+
+	/**
+	 * Creates a message which is sent unchanged to the server
+	 * @param function of type String, the function of the message or null if it is unknown
+	 * @param json of type String, the JSON message
+	 * @return of type OutgoingMessage, the message for the list
+	 */
+	public static OutgoingMessage json(String function, String json) {
+		return new OutgoingMessage(function, json, null);
+	}// json
+
+
+	/**
+	 * Creates a DRAW message with a copy of the LED array
+	 * @param pixels of type int[], the LED values 0 - 3
+	 * @return of type OutgoingMessage, the message for the list
+	 */
+	public static OutgoingMessage draw(int[] pixels) {
+		return new OutgoingMessage(LEDWallMessage.FUNC_DRAW, null, pixels.clone());
+	}// draw
+
+
+	/**
+	 * Creates a message which is sent unchanged to several walls
+	 * @param function of type String, the function of the message or null if it is unknown
+	 * @param json of type String, the JSON message
+	 * @return of type OutgoingMessage, the message for the lists of the walls
+	 */
+	public static OutgoingMessage broadcastJson(String function, String json) {
+		return new OutgoingMessage(function, json, null, sequences.incrementAndGet(), 0);
+	}// broadcastJson
+
+
+	/**
+	 * Creates a DRAW message with a copy of the LED array for several walls
+	 * @param pixels of type int[], the LED values 0 - 3
+	 * @param previousSequence of type long, the sequence number of the previous broadcast DRAW message of the group or 0
+	 * @return of type OutgoingMessage, the message for the lists of the walls
+	 */
+	public static OutgoingMessage broadcastDraw(int[] pixels, long previousSequence) {
+		return new OutgoingMessage(LEDWallMessage.FUNC_DRAW, null, pixels.clone(),
+				sequences.incrementAndGet(), previousSequence);
+	}// broadcastDraw
+
+
+	/**
+	 * @return of type String, the function of the message or null if it is unknown
+	 */
+	public String getFunction() {
+		return function;
+	}// getFunction
+
+
+	public String getJson() {
+		return json;
+	}// getJson
+
+
+	/**
+	 * @return of type byte[], the UTF-8 bytes of a JSON message, null for a DRAW message
+	 */
+	public byte[] getBytes() {
+		return bytes;
+	}// getBytes
+
+
+	public int[] getPixels() {
+		return pixels;
+	}// getPixels
+
+
+	/**
+	 * @return of type long, the time when the message was created in ns (System.nanoTime())
+	 */
+	public long getEnqueueTime() {
+		return enqueueTime;
+	}// getEnqueueTime
+
+
+	public boolean isDraw() {
+		return pixels != null;
+	}// isDraw
+
+
+	/**
+	 * @return of type boolean, true -> the message is sent to several walls and stores its bytes
+	 */
+	public boolean isBroadcast() {
+		return sequence != 0;
+	}// isBroadcast
+
+
+	/**
+	 * @return of type long, the sequence number of a broadcast message or 0
+	 */
+	public long getSequence() {
+		return sequence;
+	}// getSequence
+
+
+	/**
+	 * @return of type long, the sequence number of the previous broadcast DRAW message of the group or 0
+	 */
+	public long getPreviousSequence() {
+		return previousSequence;
+	}// getPreviousSequence
+
+
+	/**
+	 * @param encoding of type Integer, ENCODED_JSON, ENCODED_BINARY, ENCODED_JSON_DELTA or ENCODED_BINARY_DELTA
+	 * @return of type byte[], the bytes which were stored by the first wall or null
+	 */
+	public synchronized byte[] getEncoded(int encoding) {
+		return encoded == null ? null : encoded[encoding];
+	}// getEncoded
+
+
+	/**
+	 * Stores the bytes of the encoding for the other walls
+	 * @param encoding of type Integer, ENCODED_JSON, ENCODED_BINARY, ENCODED_JSON_DELTA or ENCODED_BINARY_DELTA
+	 * @param bytes of type byte[], the encoded message, an empty array if nothing has to be sent
+	 */
+	public synchronized void setEncoded(int encoding, byte[] bytes) {
+		if (encoded == null) {
+			encoded = new byte[ENCODINGS][];
+		}// if
+		encoded[encoding] = bytes;
+	}// setEncoded
+
+}// class OutgoingMessage
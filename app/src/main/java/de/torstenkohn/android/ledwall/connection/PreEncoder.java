@@ -0,0 +1,70 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import java.nio.ByteBuffer;
+
+import de.torstenkohn.android.ledwall.core.DrawDeltaEncoder;
+
+/**
+ * Encodes broadcast DRAW messages in all formats before they are added to the list.<br/>
+ * A MessageWriter per format (JSON or binary, complete frame or changed LEDs)<br/>
+ * encodes every message, the MessageWriter stores the bytes in the message,<br/>
+ * so the connection only copies them, whatever format was negotiated.<br/>
+ * <br/>
+ * The changed LEDs refer to the previous message of the PreEncoder,<br/>
+ * a connection which has not sent that message encodes the frame itself.<br/>
+ * The messages must be encoded in the order they are added to the list.<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class PreEncoder {
+
+	/**
+	 * The size of the buffer, enough for the changed LEDs as JSON in the worst case
+	 */
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	private final MessageWriter[] writers = new MessageWriter[4];
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+
+	/**
+	 * Constructor of the PreEncoder
+	 */
+	public PreEncoder() {
+		for (int i = 0; i < writers.length; i++) {
+			writers[i] = new MessageWriter(new DrawDeltaEncoder());
+			writers[i].setBinaryDraw(i == OutgoingMessage.ENCODED_BINARY
+					|| i == OutgoingMessage.ENCODED_BINARY_DELTA);
+			writers[i].setDeltaDraw(i == OutgoingMessage.ENCODED_JSON_DELTA
+					|| i == OutgoingMessage.ENCODED_BINARY_DELTA);
+		}// for
+	}// constructor
+
+
+	/**
+	 * Stores the bytes of all formats in the message
+	 * @param message of type OutgoingMessage, a message from OutgoingMessage.broadcastDraw()
+	 */
+	public void encode(OutgoingMessage message) {
+		if (!message.isBroadcast()) {
+			throw new IllegalArgumentException("only broadcast messages can be encoded in advance");
+		}// if
+		for (MessageWriter writer : writers) {
+			buffer.clear();
+			writer.encode(message, buffer);
+		}// for
+	}// encode
+
+
+	/**
+	 * Forgets the previous message, e.g. when a new animation starts
+	 */
+	public void reset() {
+		for (MessageWriter writer : writers) {
+			writer.reset();
+		}// for
+	}// reset
+
+}// class PreEncoder
@@ -0,0 +1,121 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import java.util.Random;
+
+/**
+ * The class decides how long to wait before the next attempt<br/>
+ * to connect again after the connection to the server was lost.<br/>
+ * The delay doubles with every attempt up to a maximum (exponential backoff).<br/>
+ * A random part of the delay (jitter) ensures that several apps<br/>
+ * do not connect at the same moment after the server or the WLAN is back.<br/>
+ * <br/>
+ * After the outage budget the connection is given up and the user is informed.<br/>
+ * An instance is used for one connection at a time, start() begins a new outage.<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class ReconnectPolicy {
+
+	/**
+	 * The delay in ms before the first attempt
+	 */
+	public static final long DEFAULT_BASE_DELAY = 250;
+
+	/**
+	 * The maximum delay in ms between two attempts
+	 */
+	public static final long DEFAULT_MAX_DELAY = 4000;
+
+	/**
+	 * The time in ms after which the connection is given up
+	 */
+	public static final long DEFAULT_OUTAGE_BUDGET = 15000;
+
+
+	private final long baseDelay;
+	private final long maxDelay;
+	private final long outageBudget;
+	private final Random random;
+
+	private long outageStart;
+	private int attempt;
+
+
+	/**
+	 * Constructor of the ReconnectPolicy with the default delays
+	 * @param outageBudget of type long, the time in ms after which the connection is given up
+	 */
+	public ReconnectPolicy(long outageBudget) {
+		this(DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY, outageBudget, new Random());
+	}// constructor
+
+
+	/**
+	 * Constructor of the ReconnectPolicy
+	 * @param baseDelay of type long, the delay in ms before the first attempt
+	 * @param maxDelay of type long, the maximum delay in ms between two attempts
+	 * @param outageBudget of type long, the time in ms after which the connection is given up
+	 * @param random of type Random, the source of the jitter
+	 */
+	public ReconnectPolicy(long baseDelay, long maxDelay, long outageBudget, Random random) {
+		this.baseDelay = baseDelay;
+		this.maxDelay = maxDelay;
+		this.outageBudget = outageBudget;
+		this.random = random;
+	}// constructor
+
+
+	/**
+	 * Begins a new outage, the next delay is the base delay again
+	 */
+	public void start() {
+		outageStart = System.nanoTime();
+		attempt = 0;
+	}// start
+
+
+	/**
+	 * The method returns the delay before the next attempt.<br/>
+	 * The delay is between the half and the full backoff,<br/>
+	 * so it grows with every attempt, but never two apps wait exactly the same time.<br/>
+	 * The delay never exceeds the rest of the outage budget.
+	 * @return of type long, the delay in ms
+	 */
+	public long nextDelay() {
+		long backoff = baseDelay << Math.min(attempt, 20);
+		if (backoff > maxDelay || backoff <= 0) {
+			backoff = maxDelay;
+		}// if
+		attempt++;
+		long half = backoff / 2;
+		long delay = half + (long) (random.nextDouble() * (backoff - half));
+		return Math.max(0, Math.min(delay, outageBudget - getOutage()));
+	}// nextDelay
+
+
+	/**
+	 * @return of type Integer, the number of attempts in the current outage
+	 */
+	public int getAttempts() {
+		return attempt;
+	}// getAttempts
+
+
+	/**
+	 * @return of type long, the time in ms since the connection was lost
+	 */
+	public long getOutage() {
+		return (System.nanoTime() - outageStart) / 1000000;
+	}// getOutage
+
+
+	/**
+	 * @return of type boolean, true -> the outage budget is used up, the connection is given up
+	 */
+	public boolean isExhausted() {
+		return getOutage() >= outageBudget;
+	}// isExhausted
+
+}// class ReconnectPolicy
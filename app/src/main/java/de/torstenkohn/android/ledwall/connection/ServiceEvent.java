@@ -0,0 +1,99 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import de.torstenkohn.android.ledwall.util.TetrisGameState;
+
+/**
+ * An event of the LEDWallService for the attached activity.<br/>
+ * The service thread has already read the message of the server,<br/>
+ * so the activity only evaluates the type and never parses a message.<br/>
+ * <br/>
+ * The fields of an event never change. The events without values are created only once,<br/>
+ * so sending them creates no objects. The event GAME_STATE is not immutable: it refers<br/>
+ * to the game state of the service, which the reader thread updates in place; it is sent only if<br/>
+ * the last one was delivered, so the activity always copies the newest values<br/>
+ * and a GUI thread which is behind shows only the latest game state.<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public final class ServiceEvent {
+
+	/*
+	 * the types of the events, also used as Message.what of the handler
+	 */
+	public static final int CONNECTED = 0;
+	public static final int GAME_STATE = 1;
+	public static final int DISCONNECTED = 10;
+	public static final int FAILURE = 20;
+
+
+	/**
+	 * The connection to the server was established
+	 */
+	public static final ServiceEvent CONNECTED_EVENT = new ServiceEvent(CONNECTED, null, null);
+
+	/**
+	 * The server has closed the connection with the DISCONNECT function
+	 */
+	public static final ServiceEvent DISCONNECTED_EVENT = new ServiceEvent(DISCONNECTED, null,
+			null);
+
+
+	private final int type;
+	private final String error;
+	private final TetrisGameState gameState;
+
+
+	private ServiceEvent(int type, String error, TetrisGameState gameState) {
+		this.type = type;
+		this.error = error;
+		this.gameState = gameState;
+	}// constructor
+
+
+	/**
+	 * Creates the event for the game state of the service, it is created once per service
+	 * @param gameState of type TetrisGameState, the game state which is updated by the parser
+	 * @return of type ServiceEvent, the event GAME_STATE
+	 */
+	public static ServiceEvent gameState(TetrisGameState gameState) {
+		return new ServiceEvent(GAME_STATE, null, gameState);
+	}// gameState
+
+
+	/**
+	 * Creates the event for a broken connection, it is sent at most once per connection
+	 * @param error of type String, the description of the error
+	 * @return of type ServiceEvent, the event FAILURE
+	 */
+	public static ServiceEvent failure(String error) {
+		return new ServiceEvent(FAILURE, error, null);
+	}// failure
+
+
+	/**
+	 * @return of type Integer, CONNECTED, GAME_STATE, DISCONNECTED or FAILURE
+	 */
+	public int getType() {
+		return type;
+	}// getType
+
+
+	/**
+	 * @return of type String, the description of the error of the event FAILURE, otherwise null
+	 */
+	public String getError() {
+		return error;
+	}// getError
+
+
+	/**
+	 * @return of type TetrisGameState, the game state of the event GAME_STATE, otherwise null.<br/>
+	 *         It is changed by the reader thread, so it must be copied with TetrisGameState.copyFrom().
+	 */
+	public TetrisGameState getGameState() {
+		return gameState;
+	}// getGameState
+
+}// class ServiceEvent
@@ -0,0 +1,163 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import java.util.concurrent.TimeUnit;
+
+import de.torstenkohn.android.ledwall.core.LEDWallMessage;
+
+/**
+ * The batcher collects the Tetris moves of the player, no move is lost.<br/>
+ * <br/>
+ * The first move after a pause is sent at once, all moves within the following<br/>
+ * interval are sent together at its end. If the server has confirmed the moves<br/>
+ * in the response to the CONNECT function, they are sent in one TETRIS function<br/>
+ * (see LEDWallMessage.getFunctionTetrisMoves()), otherwise as one TETRIS function<br/>
+ * per move like before. The caller schedules flush() at the time which getDelay()<br/>
+ * returns, e.g. with View.postDelayed(), like for the DrawBatcher.<br/>
+ * <br/>
+ * report() shows the moves per message and the time the moves waited in the batcher.<br/>
+ * The class must be used by one thread only (the UI thread).<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class TetrisInputBatcher {
+
+	/**
+	 * The interval in ms between two messages
+	 */
+	public static final int DEFAULT_INTERVAL = 50;
+
+	/**
+	 * The number of moves in one message, more moves within the interval are sent at once
+	 */
+	private static final int MAX_MOVES = 32;
+
+
+	private final OutboundQueue queue;
+	private final LEDWallMessage ledWallMessage;
+	private final long interval;
+	private boolean isMovesSupported;
+
+	/*
+	 * the moves which are not yet sent and the time of the player's input
+	 */
+	private final String[] actions = new String[MAX_MOVES];
+	private final long[] times = new long[MAX_MOVES];
+	private int count;
+	private long lastFlush;
+
+	/*
+	 * counters for the report
+	 */
+	private long moves;
+	private long messages;
+	private int maxMovesPerMessage;
+	private final LatencyHistogram waitTime = new LatencyHistogram("move wait");
+
+
+	/**
+	 * Constructor of the TetrisInputBatcher
+	 * @param queue of type OutboundQueue, the list of the messages for the server
+	 * @param ledWallMessage of type LEDWallMessage, creates the TETRIS functions
+	 * @param interval of type Integer, the interval in ms between two messages
+	 */
+	public TetrisInputBatcher(OutboundQueue queue, LEDWallMessage ledWallMessage, int interval) {
+		this.queue = queue;
+		this.ledWallMessage = ledWallMessage;
+		this.interval = TimeUnit.MILLISECONDS.toNanos(interval);
+	}// constructor
+
+
+	/**
+	 * @param isMovesSupported of type boolean, true -> the server has confirmed several moves in one message
+	 */
+	public void setMovesSupported(boolean isMovesSupported) {
+		this.isMovesSupported = isMovesSupported;
+	}// setMovesSupported
+
+
+	/**
+	 * Adds a move of the player
+	 * @param action of type String, LEDWallMessage.ACTION_LEFT, ACTION_RIGHT, ACTION_CLOCKWISE<br/>
+	 *            or ACTION_COUNTERCLOCKWISE
+	 * @return of type boolean, true if flush() has to be scheduled, false if it is already scheduled
+	 */
+	public boolean add(String action) {
+		if (count == MAX_MOVES) {
+			// the player is faster than the interval, the full message is sent at once
+			send(System.nanoTime());
+		}// if
+		actions[count] = action;
+		times[count] = System.nanoTime();
+		count++;
+		moves++;
+		return count == 1;
+	}// add
+
+
+	/**
+	 * @return of type long, the time in ms until flush() should be called, 0 -> at once
+	 */
+	public long getDelay() {
+		long delay = lastFlush + interval - System.nanoTime();
+		return delay > 0 ? TimeUnit.NANOSECONDS.toMillis(delay) + 1 : 0;
+	}// getDelay
+
+
+	/**
+	 * Adds the collected moves to the list of the messages
+	 */
+	public void flush() {
+		if (count == 0) {
+			return;
+		}// if
+		long now = System.nanoTime();
+		lastFlush = now;
+		send(now);
+	}// flush
+
+
+	/**
+	 * Forgets the moves which are not yet sent, e.g. when the game is stopped
+	 */
+	public void clear() {
+		count = 0;
+	}// clear
+
+
+	private void send(long now) {
+		if (isMovesSupported && count > 1) {
+			queue.offer(OutgoingMessage.json(LEDWallMessage.FUNC_TETRIS,
+					ledWallMessage.getFunctionTetrisMoves(actions, count)));
+			messages++;
+		} else {
+			for (int i = 0; i < count; i++) {
+				queue.offer(OutgoingMessage.json(LEDWallMessage.FUNC_TETRIS,
+						ledWallMessage.getFunctionTetris(actions[i])));
+			}// for
+			messages += count;
+		}// if
+		for (int i = 0; i < count; i++) {
+			waitTime.recordNanos(now - times[i]);
+		}// for
+		maxMovesPerMessage = Math.max(maxMovesPerMessage, count);
+		count = 0;
+	}// send
+
+
+	/**
+	 * Creates the report of the batcher
+	 * @return of type String, one value per line
+	 */
+	public String report() {
+		StringBuilder report = new StringBuilder(128);
+		report.append("tetris input: moves=").append(moves)
+				.append(" messages=").append(messages)
+				.append(" max/message=").append(maxMovesPerMessage)
+				.append(isMovesSupported ? "" : " (one message per move)").append('\n');
+		waitTime.appendTo(report);
+		return report.toString();
+	}// report
+
+}// class TetrisInputBatcher
@@ -0,0 +1,410 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import de.torstenkohn.android.ledwall.core.DrawDeltaEncoder;
+import de.torstenkohn.android.ledwall.core.LEDWallMessage;
+import de.torstenkohn.android.ledwall.core.ServerMessageParser;
+
+/**
+ * A group of LED walls which are driven together by one app, e.g. a row of walls at an event.<br/>
+ * Every wall has its own list of messages, its own connection state and its own<br/>
+ * ConnectionMetrics, all walls are connected by the same NioTransport, so one thread<br/>
+ * drives the whole group.<br/>
+ * <br/>
+ * broadcastDraw() and broadcastText() add one message to the lists of all walls.<br/>
+ * The message is encoded only once per format, the other walls copy its bytes<br/>
+ * (see MessageWriter). A slow wall does not delay the others: its list replaces<br/>
+ * the older DRAW and TEXT messages like the list of the ConnectionManager.<br/>
+ * <br/>
+ * A wall which loses its connection is connected again with the ReconnectPolicy,<br/>
+ * after the outage budget it is FAILED and the other walls are not affected.<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class WallGroup {
+
+	/**
+	 * The states of a wall
+	 */
+	public enum WallState {
+		CONNECTING, CONNECTED, RECONNECTING, FAILED, CLOSED
+	}// enum WallState
+
+
+	/**
+	 * The listener is informed when the state of a wall changes.<br/>
+	 * It is called in the thread of the NioTransport, so it must not block.
+	 */
+	public interface WallGroupListener {
+		void onStateChanged(Wall wall, WallState state);
+	}// interface WallGroupListener
+
+
+	private final NioTransport transport;
+	private final List<Wall> walls = new CopyOnWriteArrayList<Wall>();
+
+	/**
+	 * Creates the JSON functions, its builder is not thread-safe,<br/>
+	 * so it is only used while the lock of the group is held
+	 */
+	private final LEDWallMessage ledWallMessage = new LEDWallMessage();
+	private volatile WallGroupListener listener;
+
+	private boolean isBinaryDrawRequested = true;
+	private boolean isDeltaDrawRequested = true;
+	private long outageBudget = ReconnectPolicy.DEFAULT_OUTAGE_BUDGET;
+
+	/**
+	 * The sequence number of the last broadcast DRAW message
+	 */
+	private long lastDrawSequence;
+
+
+	/**
+	 * Constructor of the WallGroup
+	 * @param transport of type NioTransport, the transport whose thread drives the walls
+	 */
+	public WallGroup(NioTransport transport) {
+		this.transport = transport;
+	}// constructor
+
+
+	public void setWallGroupListener(WallGroupListener listener) {
+		this.listener = listener;
+	}// setWallGroupListener
+
+
+	/**
+	 * @param isBinaryDrawRequested of type boolean, true -> walls added from now on request the binary DRAW format
+	 */
+	public void setBinaryDrawRequested(boolean isBinaryDrawRequested) {
+		this.isBinaryDrawRequested = isBinaryDrawRequested;
+	}// setBinaryDrawRequested
+
+
+	/**
+	 * @param isDeltaDrawRequested of type boolean, true -> walls added from now on request the delta DRAW function
+	 */
+	public void setDeltaDrawRequested(boolean isDeltaDrawRequested) {
+		this.isDeltaDrawRequested = isDeltaDrawRequested;
+	}// setDeltaDrawRequested
+
+
+	/**
+	 * @param outageBudget of type long, the time in ms a wall is connected again before it is FAILED
+	 */
+	public void setOutageBudget(long outageBudget) {
+		this.outageBudget = outageBudget;
+	}// setOutageBudget
+
+
+	/**
+	 * @return of type List, the walls of the group in the order they were added
+	 */
+	public List<Wall> getWalls() {
+		return Collections.unmodifiableList(walls);
+	}// getWalls
+
+
+	/**
+	 * Adds a wall to the group and connects it
+	 * @param host of type String, the address of the server of the wall
+	 * @param port of type Integer, the port of the server
+	 * @param udid of type Integer, the udid of the app on this wall
+	 * @return of type Wall, the new wall
+	 */
+	public Wall addWall(String host, int port, int udid) {
+		Wall wall = new Wall(walls.size(), new InetSocketAddress(host, port), udid,
+				isBinaryDrawRequested, isDeltaDrawRequested);
+		walls.add(wall);
+		wall.open();
+		return wall;
+	}// addWall
+
+
+	/**
+	 * Sends the DRAW function to all walls of the group.<br/>
+	 * The LED array is copied once, the message is encoded once per format.
+	 * @param pixels of type int[], the LED values 0 (none), 1 (red), 2 (green) or 3 (blue)
+	 */
+	public void broadcastDraw(int[] pixels) {
+		OutgoingMessage message;
+		synchronized (this) {
+			message = OutgoingMessage.broadcastDraw(pixels, lastDrawSequence);
+			lastDrawSequence = message.getSequence();
+		}// synchronized
+		broadcast(message);
+	}// broadcastDraw
+
+
+	/**
+	 * Sends the TEXT function to all walls of the group
+	 * @param top of type String, the upper text line
+	 * @param bottom of type String, the lower text line
+	 * @param color of type String, the colour of the text
+	 * @param isBlink of type boolean, true -> the text blinks
+	 * @param scroll of type String, the scroll direction
+	 */
+	public void broadcastText(String top, String bottom, String color, boolean isBlink,
+			String scroll) {
+		String text;
+		synchronized (this) {
+			text = ledWallMessage.getFunctionText(top, bottom, color, isBlink, scroll);
+		}// synchronized
+		broadcast(OutgoingMessage.broadcastJson(LEDWallMessage.FUNC_TEXT, text));
+	}// broadcastText
+
+
+	/**
+	 * Adds the message to the lists of all walls which are not FAILED or CLOSED
+	 * @param message of type OutgoingMessage, a message created by OutgoingMessage.broadcastJson() or broadcastDraw()
+	 */
+	public void broadcast(OutgoingMessage message) {
+		for (Wall wall : walls) {
+			if (wall.isActive()) {
+				wall.queue.offer(message);
+			}// if
+		}// for
+	}// broadcast
+
+
+	/**
+	 * Sends the DISCONNECT function to all walls and closes their connections
+	 */
+	public void close() {
+		String json;
+		synchronized (this) {
+			json = ledWallMessage.getFunctionDisconnect();
+		}// synchronized
+		OutgoingMessage disconnect = OutgoingMessage.broadcastJson(LEDWallMessage.FUNC_DISCONNECT, json);
+		for (Wall wall : walls) {
+			if (wall.isActive()) {
+				wall.queue.offer(disconnect);
+			}// if
+			wall.close();
+		}// for
+	}// close
+
+
+	/**
+	 * Creates a report with one line per wall
+	 * @return of type String, state, list and latencies of every wall
+	 */
+	public String report() {
+		StringBuilder report = new StringBuilder(walls.size() * 120);
+		for (Wall wall : walls) {
+			LatencyHistogram queueWait = wall.metrics.getQueueWait();
+			report.append("wall ").append(wall.index).append(' ')
+					.append(wall.address.getHostName()).append(':').append(wall.address.getPort())
+					.append(' ').append(wall.state)
+					.append(" sent=").append(queueWait.getCount())
+					.append(" queue=").append(wall.queue.getDepth())
+					.append(" replaced=").append(wall.queue.getCoalescedCount())
+					.append(" reconnects=").append(wall.metrics.getReconnects())
+					.append(" wait p99=").append(queueWait.getValueAtPercentile(99))
+					.append(" us\n");
+		}// for
+		return report.toString();
+	}// report
+
+
+	private void stateChanged(Wall wall, WallState state) {
+		wall.state = state;
+		WallGroupListener current = listener;
+		if (current != null) {
+			current.onStateChanged(wall, state);
+		}// if
+	}// stateChanged
+
+
+	/**
+	 * A wall of the group with its own list, connection and measurements.<br/>
+	 * The methods of the ConnectionListener are called in the thread of the NioTransport.
+	 *
+	 * @author agent
+	 * @since 17.10.2026
+	 */
+	public class Wall implements NioConnection.ConnectionListener {
+
+		private final int index;
+		private final InetSocketAddress address;
+		private final int udid;
+		private final boolean isBinaryRequested;
+		private final boolean isDeltaRequested;
+
+		private final OutboundQueue queue = new OutboundQueue();
+		private final DrawDeltaEncoder deltaEncoder = new DrawDeltaEncoder();
+		private final ConnectionMetrics metrics = new ConnectionMetrics(queue);
+		private final ServerMessageParser parser = new ServerMessageParser();
+
+		private NioConnection connection;
+		private ReconnectPolicy policy;
+		private volatile WallState state = WallState.CONNECTING;
+		private boolean isAwaitingStatus;
+		private boolean isConnected;
+
+
+		private Wall(int index, InetSocketAddress address, int udid,
+				boolean isBinaryRequested, boolean isDeltaRequested) {
+			this.index = index;
+			this.address = address;
+			this.udid = udid;
+			this.isBinaryRequested = isBinaryRequested;
+			this.isDeltaRequested = isDeltaRequested;
+		}// constructor
+
+
+		private void open() {
+			String connect;
+			synchronized (WallGroup.this) {
+				connect = ledWallMessage.getFunctionConnect("menu", udid, isBinaryRequested,
+						isDeltaRequested);
+			}// synchronized
+			connection = transport.open(address, FrameDecoder.Framing.JSON, queue,
+					deltaEncoder, OutgoingMessage.json(LEDWallMessage.FUNC_CONNECT, connect), this);
+			connection.setMetrics(metrics);
+		}// open
+
+
+		/**
+		 * @return of type Integer, the position of the wall in the group
+		 */
+		public int getIndex() {
+			return index;
+		}// getIndex
+
+
+		public InetSocketAddress getAddress() {
+			return address;
+		}// getAddress
+
+
+		public int getUdid() {
+			return udid;
+		}// getUdid
+
+
+		public WallState getState() {
+			return state;
+		}// getState
+
+
+		public OutboundQueue getQueue() {
+			return queue;
+		}// getQueue
+
+
+		public ConnectionMetrics getMetrics() {
+			return metrics;
+		}// getMetrics
+
+
+		/**
+		 * @return of type boolean, true -> messages are still added to the list of the wall
+		 */
+		private boolean isActive() {
+			return state != WallState.FAILED && state != WallState.CLOSED;
+		}// isActive
+
+
+		/**
+		 * Sends the DRAW function only to this wall
+		 * @param pixels of type int[], the LED values 0 (none), 1 (red), 2 (green) or 3 (blue)
+		 */
+		public void draw(int[] pixels) {
+			queue.offer(OutgoingMessage.draw(pixels));
+		}// draw
+
+
+		/**
+		 * Adds a message only to the list of this wall
+		 * @param function of type String, the function of the message (LEDWallMessage.FUNC_...)
+		 * @param json of type String, the message for the server
+		 */
+		public void send(String function, String json) {
+			queue.offer(OutgoingMessage.json(function, json));
+		}// send
+
+
+		/**
+		 * Closes the connection of the wall, the messages in its list are still sent
+		 */
+		public void close() {
+			if (connection != null) {
+				connection.close();
+			}// if
+			if (state != WallState.FAILED) {
+				stateChanged(this, WallState.CLOSED);
+			}// if
+		}// close
+
+
+		@Override
+		public void onConnected(NioConnection connection) {
+			if (!isConnected) {
+				metrics.countConnect(true);
+			}// if
+			isAwaitingStatus = true;
+		}// onConnected
+
+
+		@Override
+		public void onFrame(NioConnection connection, char[] buffer, int offset, int length) {
+			boolean isValid = parser.parse(buffer, offset, length, null);
+			if (isAwaitingStatus) {
+				isAwaitingStatus = false;
+				metrics.recordRead(LEDWallMessage.FUNC_CONNECT, length);
+				if (!parser.isSuccess()) {
+					onClosed(connection, new IOException("CONNECT refused by " + address));
+					return;
+				}// if
+				connection.startExchange(
+						isBinaryRequested && LEDWallMessage.ENCODING_BINARY.equals(parser.getEncoding()),
+						isDeltaRequested && parser.isDelta());
+				if (policy != null) {
+					metrics.countReconnect(policy.getOutage());
+					policy = null;
+				}// if
+				isConnected = true;
+				stateChanged(this, WallState.CONNECTED);
+				return;
+			}// if
+
+			metrics.recordRead(isValid ? parser.getFunction() : null, length);
+			if (isValid && LEDWallMessage.FUNC_DISCONNECT.equals(parser.getFunction())) {
+				// the server closes the connection, it is not connected again
+				connection.close();
+				stateChanged(this, WallState.CLOSED);
+			}// if
+		}// onFrame
+
+
+		@Override
+		public void onClosed(NioConnection connection, IOException cause) {
+			isAwaitingStatus = false;
+			if (!isConnected) {
+				metrics.countConnect(false);
+			}// if
+			if (policy == null) {
+				policy = new ReconnectPolicy(outageBudget);
+				policy.start();
+				stateChanged(this, isConnected ? WallState.RECONNECTING : WallState.CONNECTING);
+			}// if
+			if (policy.isExhausted()) {
+				metrics.countReconnectFailure();
+				connection.close();
+				stateChanged(this, WallState.FAILED);
+				return;
+			}// if
+			connection.reconnect(policy.nextDelay());
+		}// onClosed
+	}// inner class Wall
+
+}// class WallGroup
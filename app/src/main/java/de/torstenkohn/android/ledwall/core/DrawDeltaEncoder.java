@@ -0,0 +1,134 @@
+package de.torstenkohn.android.ledwall.core;
+
+/**
+ * The class compares a new LED array with the last frame sent to the server<br/>
+ * and describes the changed LEDs as runs. A run is a sequence of neighbouring<br/>
+ * LEDs which have changed to the same colour and is stored as three values:<br/>
+ * start index, length and colour.<br/>
+ * <br/>
+ * If there is no last frame (e.g. after a reconnect) or if more than<br/>
+ * the keyframe threshold of the LEDs have changed, a complete frame (keyframe)<br/>
+ * has to be sent instead.<br/>
+ * The class does not use any Android classes and is not thread-safe,<br/>
+ * it is only used by the thread which sends the messages.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class DrawDeltaEncoder {
+
+	/**
+	 * Return value of diff() if a complete frame has to be sent
+	 */
+	public static final int KEYFRAME = -1;
+
+	/**
+	 * Default fraction of changed LEDs above which a keyframe is sent
+	 */
+	public static final float DEFAULT_KEYFRAME_THRESHOLD = 0.25f;
+
+	/**
+	 * Number of values per run: start, length, colour
+	 */
+	public static final int RUN_SIZE = 3;
+
+
+	private final int[] lastFrame = new int[DrawFrameCodec.NUMBER_OF_LED];
+	private boolean hasLastFrame;
+
+	/**
+	 * The runs of the last call of diff(), reused for every frame
+	 */
+	private final int[] runs = new int[DrawFrameCodec.NUMBER_OF_LED * RUN_SIZE];
+
+	private float keyframeThreshold = DEFAULT_KEYFRAME_THRESHOLD;
+
+
+	public float getKeyframeThreshold() {
+		return keyframeThreshold;
+	}// getKeyframeThreshold
+
+
+	/**
+	 * @param keyframeThreshold of type float, fraction of changed LEDs (0.0 - 1.0) above which a keyframe is sent
+	 */
+	public void setKeyframeThreshold(float keyframeThreshold) {
+		this.keyframeThreshold = keyframeThreshold;
+	}// setKeyframeThreshold
+
+
+	/**
+	 * @return of type int[], the runs of the last call of diff(), three values per run
+	 */
+	public int[] getRuns() {
+		return runs;
+	}// getRuns
+
+
+	/**
+	 * The method compares the frame with the last frame sent to the server.
+	 * @param frame of type int[], the LED values 0 - 3
+	 * @return of type Integer, the number of runs in getRuns(),<br/>
+	 *         0 if nothing has changed or KEYFRAME if a complete frame has to be sent
+	 */
+	public int diff(int[] frame) {
+		if (!hasLastFrame || frame.length != lastFrame.length) {
+			return KEYFRAME;
+		}// if
+
+		int changed = 0;
+		for (int i = 0; i < lastFrame.length; i++) {
+			if (frame[i] != lastFrame[i]) {
+				changed++;
+			}// if
+		}// for
+		if (changed > keyframeThreshold * lastFrame.length) {
+			return KEYFRAME;
+		}// if
+
+		int count = 0;
+		int i = 0;
+		while (i < lastFrame.length) {
+			if (frame[i] == lastFrame[i]) {
+				i++;
+				continue;
+			}// if
+			int start = i;
+			int colour = frame[i];
+			while (i < lastFrame.length && frame[i] != lastFrame[i]
+					&& frame[i] == colour) {
+				i++;
+			}// while
+			runs[count * RUN_SIZE] = start;
+			runs[count * RUN_SIZE + 1] = i - start;
+			runs[count * RUN_SIZE + 2] = colour;
+			count++;
+		}// while
+		return count;
+	}// diff
+
+
+	/**
+	 * Stores the frame as the last frame sent to the server.<br/>
+	 * Must be called after the frame (keyframe or runs) is sent.
+	 * @param frame of type int[], the LED values 0 - 3
+	 */
+	public void commit(int[] frame) {
+		if (frame.length != lastFrame.length) {
+			hasLastFrame = false;
+			return;
+		}// if
+		System.arraycopy(frame, 0, lastFrame, 0, lastFrame.length);
+		hasLastFrame = true;
+	}// commit
+
+
+	/**
+	 * Forgets the last frame, so the next frame is sent as keyframe.<br/>
+	 * Is used after a new connection to the server was established.
+	 */
+	public void reset() {
+		hasLastFrame = false;
+	}// reset
+
+}// class DrawDeltaEncoder
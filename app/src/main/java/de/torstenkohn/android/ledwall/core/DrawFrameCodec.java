@@ -0,0 +1,149 @@
+package de.torstenkohn.android.ledwall.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The class implements the compact binary encoding of the DRAW function.<br/>
+ * Each LED can assume only four values (0 = none, 1 = red, 2 = green, 3 = blue),<br/>
+ * so four LEDs are packed into one byte and the whole wall fits into 40 bytes.<br/>
+ * A frame starts with the MARKER_DRAW byte, which can never be the first character<br/>
+ * of a JSON message, so binary frames and JSON messages can share one stream.<br/>
+ * <br/>
+ * Frame layout: MARKER_DRAW | 40 bytes data<br/>
+ * The first LED is stored in the two most significant bits of the first data byte.<br/>
+ * <br/>
+ * Delta layout: MARKER_DRAW_DELTA | number of runs | runs<br/>
+ * Each run has three bytes: start index, length and colour (see DrawDeltaEncoder).<br/>
+ * <br/>
+ * The binary encoding is only used if the server confirms it<br/>
+ * in the response to the CONNECT function.<br/>
+ * The class does not use any Android classes, so it can also be used by the simulator.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class DrawFrameCodec {
+
+	/**
+	 * The first byte of a binary DRAW frame
+	 */
+	public static final byte MARKER_DRAW = 0x02;
+
+	/**
+	 * The first byte of a binary DRAW delta frame
+	 */
+	public static final byte MARKER_DRAW_DELTA = 0x03;
+
+	/**
+	 * The number of LEDs in a row and in a column of the wall
+	 */
+	public static final int LEDWALL_WIDTH = 10;
+	public static final int LEDWALL_HEIGHT = 16;
+
+	/**
+	 * The number of LEDs of the wall (10x16)
+	 */
+	public static final int NUMBER_OF_LED = LEDWALL_WIDTH * LEDWALL_HEIGHT;
+
+	/**
+	 * Four LEDs with two bits each are stored in one byte
+	 */
+	private static final int LED_PER_BYTE = 4;
+
+	/**
+	 * The size of the packed LED data in bytes
+	 */
+	public static final int DATA_SIZE = NUMBER_OF_LED / LED_PER_BYTE;
+
+	/**
+	 * The size of a complete frame with marker in bytes
+	 */
+	public static final int FRAME_SIZE = 1 + DATA_SIZE;
+
+	/**
+	 * The maximum size of a delta frame in bytes (every LED is its own run)
+	 */
+	public static final int DELTA_MAX_SIZE = 2 + NUMBER_OF_LED * DrawDeltaEncoder.RUN_SIZE;
+
+
+	private DrawFrameCodec() {
+	}// constructor
+
+
+	/**
+	 * The method writes the LED array as binary DRAW frame into the buffer.<br/>
+	 * Missing LEDs are written as 0 (none).
+	 * @param data of type int[], the LED values 0 - 3
+	 * @param buffer of type ByteBuffer, the buffer with at least FRAME_SIZE bytes remaining
+	 */
+	public static void encode(int[] data, ByteBuffer buffer) {
+		buffer.put(MARKER_DRAW);
+		for (int i = 0; i < DATA_SIZE; i++) {
+			int led = i * LED_PER_BYTE;
+			int packed = (pixel(data, led) << 6) | (pixel(data, led + 1) << 4)
+					| (pixel(data, led + 2) << 2) | pixel(data, led + 3);
+			buffer.put((byte) packed);
+		}// for
+	}// encode
+
+
+	/**
+	 * The method reads the packed LED data of a binary DRAW frame.<br/>
+	 * The marker must already be read from the buffer.
+	 * @param buffer of type ByteBuffer, the buffer with at least DATA_SIZE bytes remaining
+	 * @param data of type int[], the array for the LED values, at least NUMBER_OF_LED long
+	 */
+	public static void decode(ByteBuffer buffer, int[] data) {
+		for (int i = 0; i < DATA_SIZE; i++) {
+			int packed = buffer.get() & 0xFF;
+			int led = i * LED_PER_BYTE;
+			data[led] = (packed >> 6) & 3;
+			data[led + 1] = (packed >> 4) & 3;
+			data[led + 2] = (packed >> 2) & 3;
+			data[led + 3] = packed & 3;
+		}// for
+	}// decode
+
+
+	/**
+	 * The method writes the runs of the DrawDeltaEncoder as binary delta frame into the buffer.
+	 * @param runs of type int[], start index, length and colour for each run
+	 * @param count of type Integer, the number of runs
+	 * @param buffer of type ByteBuffer, the buffer with at least 2 + 3 * count bytes remaining
+	 */
+	public static void encodeDelta(int[] runs, int count, ByteBuffer buffer) {
+		buffer.put(MARKER_DRAW_DELTA);
+		buffer.put((byte) count);
+		for (int i = 0; i < count * DrawDeltaEncoder.RUN_SIZE; i++) {
+			buffer.put((byte) runs[i]);
+		}// for
+	}// encodeDelta
+
+
+	/**
+	 * The method applies the runs of a binary delta frame to the LED array.<br/>
+	 * The marker and the number of runs must already be read from the buffer.
+	 * @param buffer of type ByteBuffer, the buffer with at least 3 * count bytes remaining
+	 * @param count of type Integer, the number of runs
+	 * @param data of type int[], the LED array which is changed
+	 */
+	public static void decodeDelta(ByteBuffer buffer, int count, int[] data) {
+		for (int i = 0; i < count; i++) {
+			int start = buffer.get() & 0xFF;
+			int length = buffer.get() & 0xFF;
+			int colour = buffer.get() & 3;
+			for (int led = start; led < start + length && led < data.length; led++) {
+				data[led] = colour;
+			}// for
+		}// for
+	}// decodeDelta
+
+
+	private static int pixel(int[] data, int index) {
+		if (index < data.length) {
+			return data[index] & 3;
+		}// if
+		return 0;
+	}// pixel
+
+}// class DrawFrameCodec
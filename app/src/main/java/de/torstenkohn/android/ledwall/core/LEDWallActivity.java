@@ -12,6 +12,7 @@ import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.actionbarsherlock.app.SherlockActivity;
@@ -22,6 +23,7 @@ import com.devspark.sidenavigation.SideNavigationView;
 import com.devspark.sidenavigation.SideNavigationView.Mode;
 
 import de.torstenkohn.android.ledwall.R;
+import de.torstenkohn.android.ledwall.activities.DebugActivity;
 import de.torstenkohn.android.ledwall.activities.DrawActivity;
 import de.torstenkohn.android.ledwall.activities.InfoActivity;
 import de.torstenkohn.android.ledwall.activities.MainActivity;
@@ -31,6 +33,8 @@ import de.torstenkohn.android.ledwall.activities.TetrisActivity;
 import de.torstenkohn.android.ledwall.activities.TextActivity;
 import de.torstenkohn.android.ledwall.connection.ConnectionManager;
 import de.torstenkohn.android.ledwall.connection.LEDWallService;
+import de.torstenkohn.android.ledwall.connection.ServiceEvent;
+import de.torstenkohn.android.ledwall.util.TetrisGameState;
 
 /**
  * The class LEDWallActivity serves as the backbone for all Activities of the
@@ -82,22 +86,20 @@ public class LEDWallActivity extends SherlockActivity implements
 	 * keyword for the port in the SharedPreferences
 	 */
 	public final static String DATA_PORT = "port";
-
 	
-	/*
-	 * status code for the Handler message
-	 */
-	public static final int CONNECTED = 0;
-	public static final int TETRIS = 1;
-	public static final int DISCONNECTED = 10;
-	public static final int FAILURE = 20;
 	
+	/**
+	 * keyword for the binary DRAW format in the SharedPreferences
+	 */
+	public final static String DATA_BINARY_DRAW = "binaryDraw";
+
 	
 	/**
-	 * keyword for the JSON message by the Handler
+	 * keyword for the NIO transport in the SharedPreferences
 	 */
-	public static final String JSON = "json";
+	public final static String DATA_NIO_TRANSPORT = "nioTransport";
 
+	
 
 	/**
 	 * View of the side navigation It is used for the library SlideNavigation.
@@ -138,6 +140,36 @@ public class LEDWallActivity extends SherlockActivity implements
 	}// setPort
 
 	
+	/**
+	 * The method saves in the SharedPreferences from Android system<br/>
+	 * whether the DRAW function should be sent in the binary format.
+	 * @param isBinaryDraw of type boolean, true -> binary format is requested from the server
+	 */
+	public void setBinaryDraw(boolean isBinaryDraw) {
+		ConnectionManager connMan = ConnectionManager.getInstance();
+		connMan.setBinaryDrawRequested(isBinaryDraw);
+		SharedPreferences prefs = getSharedPreferences(DATA_FILENAME,
+				MODE_PRIVATE);
+		prefs.edit().putBoolean(DATA_BINARY_DRAW, connMan.isBinaryDrawRequested())
+				.commit();
+	}// setBinaryDraw
+
+	
+	/**
+	 * The method saves in the SharedPreferences from Android system<br/>
+	 * whether the connection uses the non-blocking NIO transport.
+	 * @param isNioTransport of type boolean, true -> NIO transport | false -> blocking socket
+	 */
+	public void setNioTransport(boolean isNioTransport) {
+		ConnectionManager connMan = ConnectionManager.getInstance();
+		connMan.setTransport(isNioTransport ? ConnectionManager.Transport.NIO
+				: ConnectionManager.Transport.STREAM);
+		SharedPreferences prefs = getSharedPreferences(DATA_FILENAME,
+				MODE_PRIVATE);
+		prefs.edit().putBoolean(DATA_NIO_TRANSPORT, isNioTransport).commit();
+	}// setNioTransport
+
+	
 	protected void setTAG(String TAG) {
 		this.TAG = TAG;
 	}// setTAG
@@ -193,7 +225,9 @@ public class LEDWallActivity extends SherlockActivity implements
 	
 	/**
 	 * The method disables the logo as a button when the app is not connected to the server.<br/>
-	 * In addition, a new service thread is started when the socket connection to the server.
+	 * In addition, the activity receives the messages of the LEDWallService from now on.<br/>
+	 * The service thread keeps running when the activity is changed,<br/>
+	 * it is only started again if it was stopped.
 	 */
 	@Override
 	protected void onStart() {
@@ -202,6 +236,7 @@ public class LEDWallActivity extends SherlockActivity implements
 		if (D)
 			Log.d(TAG, "++ onStart ++");
 		
+		service.attach(handler);
 		if (connectionManager.isConnected()) {
 			service.startService();
 		}// if
@@ -214,15 +249,25 @@ public class LEDWallActivity extends SherlockActivity implements
 	
 	/**
 	 * Once the activity is changed or the app loses the focus,<br/>
-	 * the thread of communication is terminated.<br/>
-	 * The socket connection remains intact.
+	 * the activity receives no more messages from the LEDWallService.<br/>
+	 * The socket connection and the thread of communication remain intact.
 	 */
 	@Override
 	protected void onStop() {
 		super.onStop();
-		service.stopService();
+		service.detach(handler);
 	}// onStop
 
+
+	/**
+	 * Called in the GUI thread when the server has sent a new game state.<br/>
+	 * Only the TetrisActivity shows the game state, the other activities ignore it.
+	 * @param gameState of type TetrisGameState, the game state of the service,<br/>
+	 *            the values must be copied with TetrisGameState.copyFrom()
+	 */
+	protected void onGameState(TetrisGameState gameState) {
+	}// onGameState
+
 	
 	/**
 	 * Sets the title in the ActionBar
@@ -334,6 +379,10 @@ public class LEDWallActivity extends SherlockActivity implements
 			startLEDWallActivity(InfoActivity.class);
 			break;
 			
+		case R.id.menu_debug:
+			startLEDWallActivity(DebugActivity.class);
+			break;
+			
 		case R.id.menu_disconnect:
 			disconnect();
 			break;
@@ -398,7 +447,7 @@ public class LEDWallActivity extends SherlockActivity implements
 	 * Initializes the connection to the server.<br/>
 	 * It is an instance requested by the ConnectionManager to manage<br/>
 	 * the communication between the smartphone and the server.<br/>
-	 * In addition, a LEDWallService object is created, which serves messages <br/>
+	 * In addition, the LEDWallService is requested, which serves messages <br/>
 	 * between phone and server to send.<br/>
 	 * It also creates an instance of the class LEDWallMessage<br/>
 	 * to generate messages in JSON format.
@@ -409,7 +458,7 @@ public class LEDWallActivity extends SherlockActivity implements
 		}// if
 		Log.d(getTAG(), "conn: " + connectionManager);
 		if (service == null) {
-			service = new LEDWallService(handler, connectionManager, TAG);
+			service = LEDWallService.getInstance();
 		}// if
 		if (ledWallMessage == null) {
 			ledWallMessage = new LEDWallMessage();
@@ -426,7 +475,7 @@ public class LEDWallActivity extends SherlockActivity implements
 	public void disconnect() {
 		if (connectionManager.isConnected()) {
 			String message = ledWallMessage.getFunctionDisconnect();
-			connectionManager.addMessage(message);
+			connectionManager.addMessage(LEDWallMessage.FUNC_DISCONNECT, message);
 			service.stopService();
 			connectionManager.stopConnection();
 			startLEDWallActivity(MainActivity.class);
@@ -473,8 +522,8 @@ public class LEDWallActivity extends SherlockActivity implements
 		 *   Connection to the server has been established successfully.<br/>
 		 *   The Activity MenuActivity starts.<br/><br/>
 		 *   
-		 * - TETRIS<br/>
-		 *   Reads the JSON message and updates the GameState<br/><br/>
+		 * - GAME_STATE<br/>
+		 *   Passes the GameState read by the LEDWallService to onGameState()<br/><br/>
 		 * 
 		 * - DISCONNECTED<br/>
 		 *   The server has closed the connection.<br/>
@@ -484,6 +533,8 @@ public class LEDWallActivity extends SherlockActivity implements
 		 * - FAILURE<br/>
 		 *   During the connection setup or there are communication problems<br/>
 		 *   e.g. Wireless connection lost, server is no longer available.<br/>
+		 *   A lost connection is only reported, if the LEDWallService could not<br/>
+		 *   connect again within the outage budget of the ConnectionManager.<br/>
 		 *   There is an ErrorDialog is displayed to inform the user about it.<br/>
 		 *   In addition, the socket connection is terminated and<br/>
 		 *   deleted the messages from the Connection Manager. 
@@ -492,39 +543,45 @@ public class LEDWallActivity extends SherlockActivity implements
 		public void handleMessage(Message msg) {
 			if (D)
 				Log.d(TAG, "Handler msg.what: " + msg.what);
+			// how late the message is delivered by the GUI thread
+			ConnectionManager.getInstance().getMetrics()
+					.recordHandlerLag(SystemClock.uptimeMillis() - msg.getWhen());
+			ServiceEvent event = (ServiceEvent) msg.obj;
+			if (event.getType() == ServiceEvent.GAME_STATE) {
+				// a newer game state is sent again, this one is copied below
+				service.gameStateDelivered();
+			}// if
+			LEDWallActivity activity = ledActivity.get();
+			if (activity == null) {
+				return;
+			}// if
 			stopProgressDialog();
 
-			switch (msg.what) {
+			switch (event.getType()) {
 			
-			case CONNECTED:
-				String activity = LEDWallActivity.this.getLocalClassName();
-				if (activity.equals("MainActivity")) {
+			case ServiceEvent.CONNECTED:
+				if (activity.getLocalClassName().equals("MainActivity")) {
 					startLEDWallActivity(MenuActivity.class);
 				}// if
 				break;
 				
-			case TETRIS:
-				if (ledActivity != null) {
-					TetrisActivity tetrisActivity = (TetrisActivity) ledActivity.get();
-					String temp = msg.getData().getString(JSON);
-					Log.d(TAG, "Handler TETRIS: "+temp);
-					tetrisActivity.updateGameState(temp);
-				}// if
+			case ServiceEvent.GAME_STATE:
+				// the event may arrive after the Tetris game was left
+				activity.onGameState(event.getGameState());
 				break;
 				
-			case DISCONNECTED:
+			case ServiceEvent.DISCONNECTED:
 				startLEDWallActivity(MainActivity.class);
+				service.stopService();
 				connectionManager.stopConnection();
 				connectionManager.clearMessages();
 				break;
 				
-			case FAILURE:
-				String error = "";
-				if (ledActivity != null) {
-					error = ledActivity.get().getResources()
-							.getString(R.string.connection_error);
-				}// if
-				createErrorDialog(error);
+			case ServiceEvent.FAILURE:
+				if (D)
+					Log.d(TAG, "Handler failure: " + event.getError());
+				createErrorDialog(activity.getResources().getString(R.string.connection_error));
+				service.stopService();
 				connectionManager.stopConnection();
 				connectionManager.clearMessages();
 				break;
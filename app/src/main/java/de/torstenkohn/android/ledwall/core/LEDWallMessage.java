@@ -1,6 +1,5 @@
 package de.torstenkohn.android.ledwall.core;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -23,6 +22,13 @@ public class LEDWallMessage {
 	 */
 	private final static boolean D = true;
 
+	/**
+	 * The variable "V" enables the LogCat output of every message of the functions<br/>
+	 * TEXT, TETRIS and DRAW. These functions are called very often,<br/>
+	 * so the output is disabled by default to avoid the additional strings.
+	 */
+	private final static boolean V = false;
+
 	/**
 	 * The variable "TAG" is used as a tag for LogCat, this can identify the
 	 * class. TAG should always contain the simple name of the class.
@@ -57,6 +63,9 @@ public class LEDWallMessage {
 	private static final String KEY_ISRUNNING = "isRunning";
 	private static final String KEY_NEXTSTONE = "nextStone";
 	private static final String KEY_DATA = "data";
+	private static final String KEY_ENCODING = "encoding";
+	private static final String KEY_DELTA = "delta";
+	private static final String KEY_MOVES = "moves";
 
 	public static final String ACTION_INIT = "init";
 	public static final String ACTION_START = "start";
@@ -65,10 +74,73 @@ public class LEDWallMessage {
 	public static final String ACTION_RIGHT = "R";
 	public static final String ACTION_COUNTERCLOCKWISE = "CC";
 	public static final String ACTION_CLOCKWISE = "C";
+
+	/**
+	 * Several moves in one TETRIS function, e.g. "moves":"2L,C", see getFunctionTetrisMoves()
+	 */
+	public static final String ACTION_MOVES = "moves";
 	
 	private static final String STATUS_SUCCESS = "success";
 	private static final String STATUS_FAILURE = "failure";
 
+	/*
+	 * The formats for the DRAW function, negotiated with the CONNECT function
+	 */
+	public static final String ENCODING_JSON = "json";
+	public static final String ENCODING_BINARY = "binary";
+
+	/*
+	 * Pre-encoded fragments of the functions TEXT, TETRIS and DRAW.
+	 * The functions have a fixed structure, so the messages are written
+	 * directly into a StringBuilder without JSONObject.
+	 */
+	private static final String PREFIX_TEXT = "{\"" + KEY_FUNCTION + "\":\"" + FUNC_TEXT
+			+ "\",\"" + KEY_TEXT_TOP + "\":";
+	private static final String FRAGMENT_TEXT_BOTTOM = ",\"" + KEY_TEXT_BOTTOM + "\":";
+	private static final String FRAGMENT_COLOR = ",\"" + KEY_COLOR + "\":";
+	private static final String FRAGMENT_INVERTED = ",\"" + KEY_INVERTED + "\":";
+	private static final String FRAGMENT_ANIMATION = ",\"" + KEY_ANIMATION + "\":";
+	private static final String PREFIX_TETRIS = "{\"" + KEY_FUNCTION + "\":\"" + FUNC_TETRIS
+			+ "\",\"" + KEY_ACTION + "\":";
+	private static final String PREFIX_DRAW = "{\"" + KEY_FUNCTION + "\":\"" + FUNC_DRAW
+			+ "\",\"" + KEY_DATA + "\":[";
+	private static final String PREFIX_DRAW_DELTA = "{\"" + KEY_FUNCTION + "\":\"" + FUNC_DRAW
+			+ "\",\"" + KEY_DELTA + "\":[";
+	private static final String SUFFIX_ARRAY = "]}";
+
+	/*
+	 * The TETRIS messages of all actions, created only once
+	 */
+	private static final String TETRIS_INIT = PREFIX_TETRIS + "\"" + ACTION_INIT + "\"}";
+	private static final String TETRIS_START = PREFIX_TETRIS + "\"" + ACTION_START + "\"}";
+	private static final String TETRIS_QUIT = PREFIX_TETRIS + "\"" + ACTION_QUIT + "\"}";
+	private static final String TETRIS_LEFT = PREFIX_TETRIS + "\"" + ACTION_LEFT + "\"}";
+	private static final String TETRIS_RIGHT = PREFIX_TETRIS + "\"" + ACTION_RIGHT + "\"}";
+	private static final String TETRIS_COUNTERCLOCKWISE = PREFIX_TETRIS + "\""
+			+ ACTION_COUNTERCLOCKWISE + "\"}";
+	private static final String TETRIS_CLOCKWISE = PREFIX_TETRIS + "\"" + ACTION_CLOCKWISE
+			+ "\"}";
+	private static final String PREFIX_TETRIS_MOVES = PREFIX_TETRIS + "\"" + ACTION_MOVES
+			+ "\",\"" + KEY_MOVES + "\":\"";
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/**
+	 * The initial size of the StringBuilder, large enough for a complete DRAW function
+	 */
+	private static final int BUILDER_CAPACITY = 512;
+
+	/**
+	 * The StringBuilder is reused for the functions TEXT, TETRIS and DRAW,<br/>
+	 * so the class is not thread-safe. Each thread uses its own instance.
+	 */
+	private final StringBuilder builder = new StringBuilder(BUILDER_CAPACITY);
+
+	/**
+	 * The parser for the messages of the server, it is reused for every message
+	 */
+	private final ServerMessageParser parser = new ServerMessageParser();
+
 	/**
 	 * Constructor of the class.<br/>
 	 * Saves only the TAG for debugging output.
@@ -85,11 +157,55 @@ public class LEDWallMessage {
 	
 	public String getFunctionConnect(String status) {
 		ConnectionManager connMan = ConnectionManager.getInstance();
+		return getFunctionConnect(status, connMan.getUdid(),
+				connMan.isBinaryDrawRequested(), connMan.isDeltaDrawRequested(),
+				connMan.isTetrisMovesRequested());
+	}// getFunctionConnect
+
+	
+	/**
+	 * The method creates the CONNECT function for the given udid and formats,<br/>
+	 * e.g. for the walls of a WallGroup.
+	 * @param status of type String, the status of the app
+	 * @param udid of type Integer, the udid which identifies the app on the server
+	 * @param isBinaryDraw of type boolean, true -> the binary DRAW format is requested
+	 * @param isDeltaDraw of type boolean, true -> the delta DRAW function is requested
+	 * @return of type String, the CONNECT function
+	 */
+	public String getFunctionConnect(String status, int udid, boolean isBinaryDraw,
+			boolean isDeltaDraw) {
+		return getFunctionConnect(status, udid, isBinaryDraw, isDeltaDraw, false);
+	}// getFunctionConnect
+
+	
+	/**
+	 * The method creates the CONNECT function for the given udid and formats.
+	 * @param status of type String, the status of the app
+	 * @param udid of type Integer, the udid which identifies the app on the server
+	 * @param isBinaryDraw of type boolean, true -> the binary DRAW format is requested
+	 * @param isDeltaDraw of type boolean, true -> the delta DRAW function is requested
+	 * @param isTetrisMoves of type boolean, true -> several Tetris moves in one message are requested
+	 * @return of type String, the CONNECT function
+	 */
+	public String getFunctionConnect(String status, int udid, boolean isBinaryDraw,
+			boolean isDeltaDraw, boolean isTetrisMoves) {
 		JSONObject json = new JSONObject();
 		try {
 			json.put(KEY_FUNCTION, FUNC_CONNECT);
 			json.put(KEY_STATUS, status);
-			json.put(KEY_UDID, connMan.getUdid());
+			json.put(KEY_UDID, udid);
+			if (isBinaryDraw) {
+				// the server confirms the binary format in its response
+				json.put(KEY_ENCODING, ENCODING_BINARY);
+			}// if
+			if (isDeltaDraw) {
+				// the server confirms the delta DRAW function in its response
+				json.put(KEY_DELTA, true);
+			}// if
+			if (isTetrisMoves) {
+				// the server confirms the moves of the TETRIS function in its response
+				json.put(KEY_MOVES, true);
+			}// if
 		} catch (JSONException e) {
 			Log.d(TAG, "getFunctionConnect: " + e);
 		}// try
@@ -127,55 +243,214 @@ public class LEDWallMessage {
 	
 	public String getFunctionText(String top, String bottom, String color,
 			boolean isInverted, String animation) {
-		JSONObject json = new JSONObject();
-		try {
-			json.put(KEY_FUNCTION, FUNC_TEXT);
-			json.put(KEY_TEXT_TOP, top);
-			json.put(KEY_TEXT_BOTTOM, bottom);
-			json.put(KEY_COLOR, color);
-			json.put(KEY_INVERTED, isInverted);
-			json.put(KEY_ANIMATION, animation);
-		} catch (JSONException e) {
-			Log.d(TAG, "getFunctionText: " + e);
-		}// try
-		if (D)
-			Log.d(TAG, "getFunctionText: " + json.toString());
-		return json.toString();
+		return encodeFunctionText(top, bottom, color, isInverted, animation)
+				.toString();
 	}// getFunctionText
 
 	
+	/**
+	 * The method writes the TEXT function into the reused StringBuilder.
+	 * @return of type StringBuilder, the JSON message, valid until the next call of an encode method
+	 */
+	public StringBuilder encodeFunctionText(String top, String bottom,
+			String color, boolean isInverted, String animation) {
+		StringBuilder json = builder;
+		json.setLength(0);
+		json.append(PREFIX_TEXT);
+		appendQuoted(json, top);
+		json.append(FRAGMENT_TEXT_BOTTOM);
+		appendQuoted(json, bottom);
+		json.append(FRAGMENT_COLOR);
+		appendQuoted(json, color);
+		json.append(FRAGMENT_INVERTED);
+		json.append(isInverted);
+		json.append(FRAGMENT_ANIMATION);
+		appendQuoted(json, animation);
+		json.append('}');
+		if (V)
+			Log.d(TAG, "getFunctionText: " + json);
+		return json;
+	}// encodeFunctionText
+
+	
+	/**
+	 * The method returns the TETRIS function for the action.<br/>
+	 * The messages of the known actions are created only once.
+	 * @param action of type String, one of the ACTION_ constants
+	 * @return of type String, the JSON message
+	 */
 	public String getFunctionTetris(String action) {
-		JSONObject json = new JSONObject();
-		try {
-			json.put(KEY_FUNCTION, FUNC_TETRIS);
-			json.put(KEY_ACTION, action);
-		} catch (JSONException e) {
-			Log.d(TAG, "getFunctionTetris: " + e);
-		}// try
-		if (D)
-			Log.d(TAG, "getFunctionTetris: " + json.toString());
-		return json.toString();
+		String json;
+		if (ACTION_LEFT.equals(action)) {
+			json = TETRIS_LEFT;
+		} else if (ACTION_RIGHT.equals(action)) {
+			json = TETRIS_RIGHT;
+		} else if (ACTION_CLOCKWISE.equals(action)) {
+			json = TETRIS_CLOCKWISE;
+		} else if (ACTION_COUNTERCLOCKWISE.equals(action)) {
+			json = TETRIS_COUNTERCLOCKWISE;
+		} else if (ACTION_INIT.equals(action)) {
+			json = TETRIS_INIT;
+		} else if (ACTION_START.equals(action)) {
+			json = TETRIS_START;
+		} else if (ACTION_QUIT.equals(action)) {
+			json = TETRIS_QUIT;
+		} else {
+			builder.setLength(0);
+			builder.append(PREFIX_TETRIS);
+			appendQuoted(builder, action);
+			builder.append('}');
+			json = builder.toString();
+		}// if
+		if (V)
+			Log.d(TAG, "getFunctionTetris: " + json);
+		return json;
 	}// getFunctionTetris
 	
 	
+	/**
+	 * The method returns one TETRIS function for several moves.<br/>
+	 * Repeated moves are written once with their number, e.g. L, L, L, C, CC, CC<br/>
+	 * -> {"function":"tetris","action":"moves","moves":"3L,C,2CC"}<br/>
+	 * The server applies all moves at once. It is only sent if the server<br/>
+	 * has confirmed the moves in the response to the CONNECT function.
+	 * @param actions of type String[], the moves as ACTION_LEFT, ACTION_RIGHT, ACTION_CLOCKWISE<br/>
+	 *            or ACTION_COUNTERCLOCKWISE in the order of the player
+	 * @param count of type Integer, the number of moves in the array
+	 * @return of type String, the JSON message
+	 */
+	public String getFunctionTetrisMoves(String[] actions, int count) {
+		builder.setLength(0);
+		builder.append(PREFIX_TETRIS_MOVES);
+		int i = 0;
+		while (i < count) {
+			int run = 1;
+			while (i + run < count && actions[i + run].equals(actions[i])) {
+				run++;
+			}// while
+			if (i > 0) {
+				builder.append(',');
+			}// if
+			if (run > 1) {
+				builder.append(run);
+			}// if
+			builder.append(actions[i]);
+			i += run;
+		}// while
+		builder.append("\"}");
+		String json = builder.toString();
+		if (V)
+			Log.d(TAG, "getFunctionTetrisMoves: " + json);
+		return json;
+	}// getFunctionTetrisMoves
+	
+	
 	public String getFunctionDraw(int[] data) {
-		JSONObject json = new JSONObject();
-		JSONArray jsonArr = new JSONArray();
-		try {
-			json.put(KEY_FUNCTION, FUNC_DRAW);
-			for (int i = 0; i < data.length; i++) {
-				jsonArr.put(i, data[i]);
-			}
-			json.put(KEY_DATA, jsonArr);
-		} catch (JSONException e) {
-			Log.d(TAG, "getFunctionDraw: " + e);
-		}// try
-		if (D)
-			Log.d(TAG, "getFunctionDraw: " + json.toString());
-		return json.toString();
+		return encodeFunctionDraw(data).toString();
 	}// getFunctionDraw
 
 	
+	/**
+	 * The method writes the DRAW function into the reused StringBuilder.
+	 * @param data of type int[], the LED values 0 - 3
+	 * @return of type StringBuilder, the JSON message, valid until the next call of an encode method
+	 */
+	public StringBuilder encodeFunctionDraw(int[] data) {
+		StringBuilder json = builder;
+		json.setLength(0);
+		json.append(PREFIX_DRAW);
+		for (int i = 0; i < data.length; i++) {
+			if (i > 0) {
+				json.append(',');
+			}// if
+			json.append(data[i]);
+		}// for
+		json.append(SUFFIX_ARRAY);
+		if (V)
+			Log.d(TAG, "getFunctionDraw: " + json);
+		return json;
+	}// encodeFunctionDraw
+
+	
+	/**
+	 * The method creates the DRAW function with only the changed LEDs.<br/>
+	 * The LEDs are sent as runs: start index, length and colour (see DrawDeltaEncoder).
+	 * @param runs of type int[], three values for each run
+	 * @param count of type Integer, the number of runs
+	 * @return of type String, the JSON message
+	 */
+	public String getFunctionDrawDelta(int[] runs, int count) {
+		return encodeFunctionDrawDelta(runs, count).toString();
+	}// getFunctionDrawDelta
+
+	
+	/**
+	 * The method writes the DRAW function with only the changed LEDs into the reused StringBuilder.
+	 * @param runs of type int[], three values for each run
+	 * @param count of type Integer, the number of runs
+	 * @return of type StringBuilder, the JSON message, valid until the next call of an encode method
+	 */
+	public StringBuilder encodeFunctionDrawDelta(int[] runs, int count) {
+		StringBuilder json = builder;
+		json.setLength(0);
+		json.append(PREFIX_DRAW_DELTA);
+		for (int i = 0; i < count * DrawDeltaEncoder.RUN_SIZE; i++) {
+			if (i > 0) {
+				json.append(',');
+			}// if
+			json.append(runs[i]);
+		}// for
+		json.append(SUFFIX_ARRAY);
+		if (V)
+			Log.d(TAG, "getFunctionDrawDelta: " + json);
+		return json;
+	}// encodeFunctionDrawDelta
+
+	
+	/**
+	 * The method appends the text as JSON string with quotes.<br/>
+	 * Quotes, backslashes and control characters are escaped,<br/>
+	 * all other characters (e.g. umlauts) are written unchanged.
+	 */
+	private static void appendQuoted(StringBuilder json, String text) {
+		if (text == null) {
+			json.append("null");
+			return;
+		}// if
+		json.append('"');
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			switch (c) {
+			case '"':
+				json.append("\\\"");
+				break;
+			case '\\':
+				json.append("\\\\");
+				break;
+			case '\n':
+				json.append("\\n");
+				break;
+			case '\r':
+				json.append("\\r");
+				break;
+			case '\t':
+				json.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					json.append("\\u00");
+					json.append(HEX[c >> 4]);
+					json.append(HEX[c & 0xF]);
+				} else {
+					json.append(c);
+				}// if
+				break;
+			}// switch
+		}// for
+		json.append('"');
+	}// appendQuoted
+
+	
 	/*
 	 * END methods for the communication 
 	 */
@@ -188,57 +463,69 @@ public class LEDWallMessage {
 	 * @return of type boolean, success -> true | failure -> false
 	 */
 	public boolean readStatus(String message) {
-		boolean result = false;
-		try {
-			JSONObject json = new JSONObject(message);
-			if (json.getString(KEY_STATUS).equals(STATUS_SUCCESS)) {
-				result = true;
-			}// if
-		} catch (JSONException e) {
-			Log.d(TAG, "readStatus: " + e);
-		}// try
-		return result;
+		parse(message, null);
+		return parser.isSuccess();
 	}// readStatus
 
 	
+	/**
+	 * The method reads the format for the DRAW function from the response<br/>
+	 * to the CONNECT function. Servers without support for the binary format<br/>
+	 * do not send the keyword, so JSON is returned.
+	 * @param message of type String, the JSON message
+	 * @return of type String, ENCODING_BINARY or ENCODING_JSON
+	 */
+	public String readEncoding(String message) {
+		parse(message, null);
+		return parser.getEncoding();
+	}// readEncoding
+	
+	
+	/**
+	 * The method reads from the response to the CONNECT function<br/>
+	 * whether the server supports the delta DRAW function.
+	 * @param message of type String, the JSON message
+	 * @return of type boolean, true -> delta is supported | false -> only complete frames
+	 */
+	public boolean readDelta(String message) {
+		parse(message, null);
+		return parser.isDelta();
+	}// readDelta
+	
+	
 	/**
 	 * The method reads the name of function from the JSON string and returns it.
 	 * @param message of type String, the JSON message
 	 * @return of type String, the function name
 	 */
 	public String getFunction(String message) {
-		String function = "";
-		try {
-			JSONObject json = new JSONObject(message);
-			function = json.getString(KEY_FUNCTION);
-		} catch (JSONException e) {
-			Log.d(TAG, "getFunction: " + e);
-		}// try
-		return function;
+		parse(message, null);
+		return parser.getFunction();
 	}// getFunction
 	
 	
 	/**
 	 * The method reads the game state from a JSON message<br/>
-	 * and created a TetrisGameState object and returns it.
+	 * and created a TetrisGameState object and returns it.<br/>
+	 * The service thread uses the ServerMessageParser directly<br/>
+	 * and updates one TetrisGameState object instead.
 	 * @param message of type String, the JSON message
 	 * @return of type TetrisGameState, the current game state from the message
 	 */
 	public TetrisGameState getTetrisGameState(String message){
-		TetrisGameState result = null;
-		try {
-			JSONObject json = new JSONObject(message);
-			json = json.getJSONObject(KEY_GAMESTATE);
-			int score = json.getInt(KEY_SCORE);
-			int level = json.getInt(KEY_LEVEL);
-			boolean isRunning = json.getBoolean(KEY_ISRUNNING);
-			String nextStone = json.getString(KEY_NEXTSTONE);
-			result = new TetrisGameState(score, level, isRunning, nextStone);
-			
-		} catch (JSONException e) {
-			Log.d(TAG, "getTetrisGameState: " + e);
-		}// try
+		TetrisGameState result = new TetrisGameState();
+		parse(message, result);
+		if (!parser.hasGameState()) {
+			result = null;
+		}// if
 		return result;
 	}// getTetrisGameState
+	
+	
+	private void parse(String message, TetrisGameState gameState) {
+		if (!parser.parse(message, gameState) && D) {
+			Log.d(TAG, "invalid message: " + message);
+		}// if
+	}// parse
 
 }// class LEDWallMessage
@@ -0,0 +1,497 @@
+package de.torstenkohn.android.ledwall.core;
+
+import de.torstenkohn.android.ledwall.util.TetrisGameState;
+
+/**
+ * The class reads the messages of the server in a single pass<br/>
+ * directly from the receive buffer of the FrameDecoder.<br/>
+ * Only the keywords function, status, encoding, delta, moves and gameState<br/>
+ * are evaluated, all other values are skipped. No JSONObject and no strings<br/>
+ * are created: the function is returned as one of the FUNC_ constants<br/>
+ * of LEDWallMessage and the game state is written into an existing<br/>
+ * TetrisGameState object.<br/>
+ * <br/>
+ * The values of the last message are kept until the next call of parse(),<br/>
+ * so the class is not thread-safe. Each thread uses its own instance.<br/>
+ * The class does not use any Android classes, so it can also be used by the benchmarks.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class ServerMessageParser {
+
+	/*
+	 * The evaluated keywords of the server messages
+	 */
+	private static final String KEY_FUNCTION = "function";
+	private static final String KEY_STATUS = "status";
+	private static final String KEY_ENCODING = "encoding";
+	private static final String KEY_DELTA = "delta";
+	private static final String KEY_MOVES = "moves";
+	private static final String KEY_GAMESTATE = "gameState";
+	private static final String KEY_SCORE = "score";
+	private static final String KEY_LEVEL = "level";
+	private static final String KEY_ISRUNNING = "isRunning";
+	private static final String KEY_NEXTSTONE = "nextStone";
+
+	private static final String STATUS_SUCCESS = "success";
+	private static final String LITERAL_TRUE = "true";
+
+	/**
+	 * The functions which can be sent by the server
+	 */
+	private static final String[] FUNCTIONS = { LEDWallMessage.FUNC_CONNECT,
+			LEDWallMessage.FUNC_BREAK, LEDWallMessage.FUNC_DISCONNECT,
+			LEDWallMessage.FUNC_TEXT, LEDWallMessage.FUNC_DRAW,
+			LEDWallMessage.FUNC_TETRIS };
+
+
+	/*
+	 * The message which is read and the current position
+	 */
+	private char[] buffer;
+	private int pos;
+	private int end;
+
+	/*
+	 * The values of the last message
+	 */
+	private String function;
+	private boolean isSuccess;
+	private boolean isBinaryEncoding;
+	private boolean isDelta;
+	private boolean isMoves;
+	private boolean hasGameState;
+
+	/*
+	 * The game state of the last message, it is passed to the TetrisGameState
+	 * only when the whole message is valid
+	 */
+	private int score;
+	private int level;
+	private boolean isRunning;
+	private int nextStone;
+
+
+	/**
+	 * The method reads a message of the server.<br/>
+	 * If the message contains the keyword gameState and a TetrisGameState is given,<br/>
+	 * it is updated with the score, level, isRunning and nextStone of the message.<br/>
+	 * An invalid message does not change the TetrisGameState, because update()<br/>
+	 * moves the next stone to the current stone.
+	 * @param buffer of type char[], the buffer with the message
+	 * @param offset of type Integer, the first character of the message
+	 * @param length of type Integer, the number of characters of the message
+	 * @param gameState of type TetrisGameState, the object for the game state or null
+	 * @return of type boolean, true -> the message is a valid JSON object
+	 */
+	public boolean parse(char[] buffer, int offset, int length,
+			TetrisGameState gameState) {
+		this.buffer = buffer;
+		this.pos = offset;
+		this.end = offset + length;
+		function = "";
+		isSuccess = false;
+		isBinaryEncoding = false;
+		isDelta = false;
+		isMoves = false;
+		hasGameState = false;
+
+		boolean result = false;
+		try {
+			skipWhitespace();
+			expect('{');
+			readMessage();
+			skipWhitespace();
+			result = pos == end;
+			if (result && hasGameState && gameState != null) {
+				gameState.update(score, level, isRunning, nextStone);
+			}// if
+		} catch (IllegalArgumentException e) {
+			// the message is invalid, the values read so far are kept
+		}// try
+		this.buffer = null;
+		return result;
+	}// parse
+
+
+	/**
+	 * Convenience method for messages which are available as string
+	 * @param message of type String, the JSON message
+	 * @param gameState of type TetrisGameState, the object for the game state or null
+	 * @return of type boolean, true -> the message is a valid JSON object
+	 */
+	public boolean parse(String message, TetrisGameState gameState) {
+		char[] chars = message.toCharArray();
+		return parse(chars, 0, chars.length, gameState);
+	}// parse
+
+
+	/**
+	 * @return of type String, one of the FUNC_ constants of LEDWallMessage or "" if it is unknown
+	 */
+	public String getFunction() {
+		return function;
+	}// getFunction
+
+
+	/**
+	 * @return of type boolean, true -> the status is success
+	 */
+	public boolean isSuccess() {
+		return isSuccess;
+	}// isSuccess
+
+
+	/**
+	 * @return of type String, ENCODING_BINARY or ENCODING_JSON
+	 */
+	public String getEncoding() {
+		return isBinaryEncoding ? LEDWallMessage.ENCODING_BINARY
+				: LEDWallMessage.ENCODING_JSON;
+	}// getEncoding
+
+
+	/**
+	 * @return of type boolean, true -> the server supports the delta DRAW function
+	 */
+	public boolean isDelta() {
+		return isDelta;
+	}// isDelta
+
+
+	/**
+	 * @return of type boolean, true -> the server accepts several Tetris moves in one message
+	 */
+	public boolean isMoves() {
+		return isMoves;
+	}// isMoves
+
+
+	/**
+	 * @return of type boolean, true -> the message contains a complete game state
+	 */
+	public boolean hasGameState() {
+		return hasGameState;
+	}// hasGameState
+
+
+	/**
+	 * Reads the members of the message, the opening brace is already read
+	 */
+	private void readMessage() {
+		skipWhitespace();
+		if (peek() == '}') {
+			pos++;
+			return;
+		}// if
+		do {
+			skipWhitespace();
+			int key = readKey();
+			skipWhitespace();
+			if (matches(key, KEY_FUNCTION) && peek() == '"') {
+				function = "";
+				for (int i = 0; i < FUNCTIONS.length; i++) {
+					if (matches(pos, FUNCTIONS[i])) {
+						function = FUNCTIONS[i];
+						break;
+					}// if
+				}// for
+				skipString();
+			} else if (matches(key, KEY_STATUS) && peek() == '"') {
+				isSuccess = matches(pos, STATUS_SUCCESS);
+				skipString();
+			} else if (matches(key, KEY_ENCODING) && peek() == '"') {
+				isBinaryEncoding = matches(pos, LEDWallMessage.ENCODING_BINARY);
+				skipString();
+			} else if (matches(key, KEY_DELTA)) {
+				isDelta = readBoolean();
+			} else if (matches(key, KEY_MOVES)) {
+				isMoves = readBoolean();
+			} else if (matches(key, KEY_GAMESTATE) && peek() == '{') {
+				pos++;
+				readGameState();
+			} else {
+				skipValue();
+			}// if
+			skipWhitespace();
+		} while (next() == ',');
+		pos--;
+		expect('}');
+	}// readMessage
+
+
+	/**
+	 * Reads the object of the keyword gameState, the opening brace is already read.<br/>
+	 * The game state is only complete if all four values are present.
+	 */
+	private void readGameState() {
+		int found = 0;
+
+		skipWhitespace();
+		if (peek() == '}') {
+			pos++;
+			return;
+		}// if
+		do {
+			skipWhitespace();
+			int key = readKey();
+			skipWhitespace();
+			if (matches(key, KEY_SCORE)) {
+				score = readInt();
+				found |= 1;
+			} else if (matches(key, KEY_LEVEL)) {
+				level = readInt();
+				found |= 2;
+			} else if (matches(key, KEY_ISRUNNING)) {
+				isRunning = readBoolean();
+				found |= 4;
+			} else if (matches(key, KEY_NEXTSTONE) && peek() == '"') {
+				nextStone = readStone();
+				found |= 8;
+			} else {
+				skipValue();
+			}// if
+			skipWhitespace();
+		} while (next() == ',');
+		pos--;
+		expect('}');
+
+		hasGameState = found == 15;
+	}// readGameState
+
+
+	/**
+	 * Reads a keyword and the following colon
+	 * @return of type Integer, the position of the opening quote of the keyword
+	 */
+	private int readKey() {
+		int key = pos;
+		if (peek() != '"') {
+			throw new IllegalArgumentException("keyword expected at " + pos);
+		}// if
+		skipString();
+		skipWhitespace();
+		expect(':');
+		return key;
+	}// readKey
+
+
+	/**
+	 * Reads a stone like "I" and converts it with TetrisGameState
+	 */
+	private int readStone() {
+		int stone = 0;
+		if (pos + 2 < end && buffer[pos + 2] == '"') {
+			stone = TetrisGameState.convertStone(buffer[pos + 1]);
+		}// if
+		skipString();
+		return stone;
+	}// readStone
+
+
+	/**
+	 * Reads an integer number. Fraction and exponent are skipped,<br/>
+	 * like getInt() of JSONObject a number like 12.0 is read as 12.
+	 */
+	private int readInt() {
+		boolean isNegative = false;
+		if (peek() == '-') {
+			isNegative = true;
+			pos++;
+		}// if
+		if (pos >= end || !isDigit(buffer[pos])) {
+			throw new IllegalArgumentException("number expected at " + pos);
+		}// if
+		int value = 0;
+		while (pos < end && isDigit(buffer[pos])) {
+			value = value * 10 + (buffer[pos] - '0');
+			pos++;
+		}// while
+		while (pos < end && isNumberChar(buffer[pos])) {
+			pos++;
+		}// while
+		return isNegative ? -value : value;
+	}// readInt
+
+
+	/**
+	 * Reads true or false, like getBoolean() of JSONObject also "true" and "false" as string
+	 */
+	private boolean readBoolean() {
+		boolean value;
+		if (peek() == '"') {
+			value = matches(pos, LITERAL_TRUE);
+			skipString();
+		} else {
+			value = peek() == 't';
+			skipLiteral();
+		}// if
+		return value;
+	}// readBoolean
+
+
+	/**
+	 * The method compares the string at the given position with the expected value.<br/>
+	 * Escape sequences in the message are decoded while comparing.
+	 * @param quote of type Integer, the position of the opening quote
+	 * @param expected of type String, the expected value without quotes
+	 * @return of type boolean, true -> the string is equal to the expected value
+	 */
+	private boolean matches(int quote, String expected) {
+		int i = quote + 1;
+		int index = 0;
+		while (i < end) {
+			char c = buffer[i++];
+			if (c == '"') {
+				return index == expected.length();
+			}// if
+			if (c == '\\') {
+				if (i >= end) {
+					return false;
+				}// if
+				c = buffer[i++];
+				if (c == 'u') {
+					if (i + 4 > end) {
+						return false;
+					}// if
+					c = (char) hex(i);
+					i += 4;
+				} else if (c == 'n') {
+					c = '\n';
+				} else if (c == 't') {
+					c = '\t';
+				} else if (c == 'r') {
+					c = '\r';
+				} else if (c == 'b') {
+					c = '\b';
+				} else if (c == 'f') {
+					c = '\f';
+				}// if
+			}// if
+			if (index >= expected.length() || expected.charAt(index) != c) {
+				return false;
+			}// if
+			index++;
+		}// while
+		return false;
+	}// matches
+
+
+	private int hex(int start) {
+		int value = 0;
+		for (int i = start; i < start + 4; i++) {
+			int digit = Character.digit(buffer[i], 16);
+			if (digit < 0) {
+				return -1;
+			}// if
+			value = value * 16 + digit;
+		}// for
+		return value;
+	}// hex
+
+
+	/**
+	 * Skips any JSON value including nested objects and arrays
+	 */
+	private void skipValue() {
+		char c = peek();
+		if (c == '"') {
+			skipString();
+		} else if (c == '{' || c == '[') {
+			skipNested();
+		} else if (c == '-' || isDigit(c)) {
+			pos++;
+			while (pos < end && isNumberChar(buffer[pos])) {
+				pos++;
+			}// while
+		} else {
+			skipLiteral();
+		}// if
+	}// skipValue
+
+
+	/**
+	 * Skips an object or array, the braces are counted outside of strings
+	 */
+	private void skipNested() {
+		int depth = 0;
+		do {
+			char c = next();
+			if (c == '"') {
+				pos--;
+				skipString();
+			} else if (c == '{' || c == '[') {
+				depth++;
+			} else if (c == '}' || c == ']') {
+				depth--;
+			}// if
+		} while (depth > 0);
+	}// skipNested
+
+
+	private void skipString() {
+		expect('"');
+		while (true) {
+			char c = next();
+			if (c == '"') {
+				return;
+			} else if (c == '\\') {
+				next();
+			}// if
+		}// while
+	}// skipString
+
+
+	private void skipLiteral() {
+		int start = pos;
+		while (pos < end && Character.isLetter(buffer[pos])) {
+			pos++;
+		}// while
+		if (pos == start) {
+			throw new IllegalArgumentException("value expected at " + pos);
+		}// if
+	}// skipLiteral
+
+
+	private void skipWhitespace() {
+		while (pos < end && buffer[pos] <= ' ') {
+			pos++;
+		}// while
+	}// skipWhitespace
+
+
+	private void expect(char expected) {
+		if (next() != expected) {
+			throw new IllegalArgumentException("'" + expected + "' expected at "
+					+ (pos - 1));
+		}// if
+	}// expect
+
+
+	private char peek() {
+		if (pos >= end) {
+			throw new IllegalArgumentException("unexpected end of message");
+		}// if
+		return buffer[pos];
+	}// peek
+
+
+	private char next() {
+		char c = peek();
+		pos++;
+		return c;
+	}// next
+
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}// isDigit
+
+
+	private static boolean isNumberChar(char c) {
+		return isDigit(c) || c == '.' || c == 'e' || c == 'E' || c == '+'
+				|| c == '-';
+	}// isNumberChar
+
+}// class ServerMessageParser
@@ -0,0 +1,50 @@
+package de.torstenkohn.android.ledwall.image;
+
+/**
+ * An image whose ARGB colours are stored row by row in an array.<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class ArrayPixelSource implements PixelSource {
+
+	private final int[] pixels;
+	private final int width;
+	private final int height;
+
+
+	/**
+	 * Constructor of the ArrayPixelSource
+	 * @param pixels of type int[], the ARGB colours, width * height values, the array is not copied
+	 * @param width of type Integer, the width of the image
+	 * @param height of type Integer, the height of the image
+	 */
+	public ArrayPixelSource(int[] pixels, int width, int height) {
+		if (pixels.length < width * height) {
+			throw new IllegalArgumentException("the array has less than " + width + "x" + height + " pixels");
+		}// if
+		this.pixels = pixels;
+		this.width = width;
+		this.height = height;
+	}// constructor
+
+
+	@Override
+	public int getWidth() {
+		return width;
+	}// getWidth
+
+
+	@Override
+	public int getHeight() {
+		return height;
+	}// getHeight
+
+
+	@Override
+	public void getPixels(int[] buffer, int y, int rows) {
+		System.arraycopy(pixels, y * width, buffer, 0, rows * width);
+	}// getPixels
+
+}// class ArrayPixelSource
@@ -0,0 +1,45 @@
+package de.torstenkohn.android.ledwall.image;
+
+import android.graphics.Bitmap;
+
+/**
+ * Reads the pixels of an Android Bitmap for the ImageConverter.<br/>
+ * The rows are copied band by band with Bitmap.getPixels(),<br/>
+ * so the whole image is never copied into one array.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class BitmapPixelSource implements PixelSource {
+
+	private final Bitmap bitmap;
+
+
+	/**
+	 * Constructor of the BitmapPixelSource
+	 * @param bitmap of type Bitmap, the image, it must not be changed or recycled during the conversion
+	 */
+	public BitmapPixelSource(Bitmap bitmap) {
+		this.bitmap = bitmap;
+	}// constructor
+
+
+	@Override
+	public int getWidth() {
+		return bitmap.getWidth();
+	}// getWidth
+
+
+	@Override
+	public int getHeight() {
+		return bitmap.getHeight();
+	}// getHeight
+
+
+	@Override
+	public void getPixels(int[] buffer, int y, int rows) {
+		int width = bitmap.getWidth();
+		bitmap.getPixels(buffer, 0, width, 0, y, width, rows);
+	}// getPixels
+
+}// class BitmapPixelSource
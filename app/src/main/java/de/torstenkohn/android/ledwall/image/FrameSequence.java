@@ -0,0 +1,38 @@
+package de.torstenkohn.android.ledwall.image;
+
+import java.io.IOException;
+
+/**
+ * The frames of an animation, e.g. an animated GIF or a folder of numbered images.<br/>
+ * The frames are decoded one after another by next(), only the current frame is kept,<br/>
+ * so a long animation does not need more memory than a short one.<br/>
+ * The interface does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public interface FrameSequence {
+
+	/**
+	 * Decodes the next frame
+	 * @return of type boolean, false if there is no more frame
+	 * @throws IOException if the frame could not be read
+	 */
+	boolean next() throws IOException;
+
+	/**
+	 * @return of type PixelSource, the current frame, it is changed by the next call of next()
+	 */
+	PixelSource getFrame();
+
+	/**
+	 * @return of type Integer, the time in ms the current frame is shown
+	 */
+	int getDelay();
+
+	/**
+	 * Closes the file of the sequence
+	 */
+	void close();
+
+}// interface FrameSequence
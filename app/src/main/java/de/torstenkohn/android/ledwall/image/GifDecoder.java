@@ -0,0 +1,439 @@
+package de.torstenkohn.android.ledwall.image;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes an animated GIF frame by frame.<br/>
+ * Android can only show an animated GIF (Movie), it does not tell the delay<br/>
+ * of the frames, so the file is decoded here: LZW, interlaced images,<br/>
+ * local colour tables, transparency and the disposal of the frames.<br/>
+ * <br/>
+ * Every frame is drawn onto one canvas of the size of the GIF, a frame only<br/>
+ * changes its rectangle, like a browser shows it. next() reads the file only<br/>
+ * up to the end of the next frame, so the file is never loaded as a whole.<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class GifDecoder implements FrameSequence {
+
+	/**
+	 * The delay in ms of a frame without a delay, browsers use the same value
+	 */
+	public static final int DEFAULT_DELAY = 100;
+
+	/**
+	 * Delays of less than 20 ms are replaced by DEFAULT_DELAY, browsers do the same
+	 */
+	private static final int MIN_DELAY = 20;
+
+	private static final int MAX_CODES = 4096;
+
+	private static final int BLOCK_EXTENSION = 0x21;
+	private static final int BLOCK_IMAGE = 0x2C;
+	private static final int BLOCK_TRAILER = 0x3B;
+	private static final int EXTENSION_GRAPHIC_CONTROL = 0xF9;
+
+	/*
+	 * the disposal of a frame before the next frame is drawn
+	 */
+	private static final int DISPOSE_BACKGROUND = 2;
+	private static final int DISPOSE_PREVIOUS = 3;
+
+
+	private final InputStream in;
+	private final int width;
+	private final int height;
+	private final int[] globalColors;
+
+	/**
+	 * The ARGB colours of the current frame, transparent pixels are 0 (none)
+	 */
+	private final int[] canvas;
+	private final PixelSource frame;
+
+	/**
+	 * The canvas before the current frame, if it is restored afterwards
+	 */
+	private int[] previousCanvas;
+
+	/*
+	 * the graphic control extension of the next frame
+	 */
+	private int nextDisposal;
+	private int nextDelay;
+	private int nextTransparent = -1;
+
+	/*
+	 * the current frame
+	 */
+	private int delay;
+	private int disposal;
+	private int frameX;
+	private int frameY;
+	private int frameWidth;
+	private int frameHeight;
+
+	/*
+	 * the LZW decoder, the tables are reused for every frame
+	 */
+	private final short[] prefix = new short[MAX_CODES];
+	private final byte[] suffix = new byte[MAX_CODES];
+	private final byte[] stack = new byte[MAX_CODES + 1];
+	private final byte[] block = new byte[256];
+	private byte[] indices;
+
+
+	/**
+	 * Constructor of the GifDecoder, reads the header of the GIF
+	 * @param in of type InputStream, the GIF, it should be buffered
+	 * @throws IOException if the stream is not a GIF
+	 */
+	public GifDecoder(InputStream in) throws IOException {
+		this.in = in;
+		if (read() != 'G' || read() != 'I' || read() != 'F') {
+			throw new IOException("the file is not a GIF");
+		}// if
+		skip(3); // version 87a or 89a
+
+		width = readShort();
+		height = readShort();
+		int packed = read();
+		read(); // background colour, browsers show a transparent background
+		read(); // aspect ratio
+		if (width == 0 || height == 0) {
+			throw new IOException("the GIF is empty");
+		}// if
+		globalColors = (packed & 0x80) != 0 ? readColorTable(2 << (packed & 7)) : null;
+		canvas = new int[width * height];
+		frame = new ArrayPixelSource(canvas, width, height);
+	}// constructor
+
+
+	public int getWidth() {
+		return width;
+	}// getWidth
+
+
+	public int getHeight() {
+		return height;
+	}// getHeight
+
+
+	@Override
+	public boolean next() throws IOException {
+		while (true) {
+			int code = in.read();
+			switch (code) {
+			case BLOCK_EXTENSION:
+				readExtension();
+				break;
+
+			case BLOCK_IMAGE:
+				readImage();
+				return true;
+
+			case BLOCK_TRAILER:
+			case -1:
+				return false;
+
+			default:
+				throw new IOException("unknown block " + code + " in the GIF");
+			}// switch
+		}// while
+	}// next
+
+
+	@Override
+	public PixelSource getFrame() {
+		return frame;
+	}// getFrame
+
+
+	@Override
+	public int getDelay() {
+		return delay;
+	}// getDelay
+
+
+	@Override
+	public void close() {
+		try {
+			in.close();
+		} catch (IOException e) {
+			// nothing to do, the file is not needed any more
+		}// try
+	}// close
+
+
+	/**
+	 * Reads an extension, only the graphic control extension is used
+	 */
+	private void readExtension() throws IOException {
+		int label = read();
+		if (label == EXTENSION_GRAPHIC_CONTROL) {
+			read(); // block size 4
+			int packed = read();
+			nextDisposal = (packed >> 2) & 7;
+			nextDelay = readShort() * 10;
+			int transparent = read();
+			nextTransparent = (packed & 1) != 0 ? transparent : -1;
+		}// if
+		skipBlocks();
+	}// readExtension
+
+
+	/**
+	 * Reads an image and draws it onto the canvas
+	 */
+	private void readImage() throws IOException {
+		int x = readShort();
+		int y = readShort();
+		int w = readShort();
+		int h = readShort();
+		int packed = read();
+		int[] colors = (packed & 0x80) != 0 ? readColorTable(2 << (packed & 7)) : globalColors;
+		boolean isInterlaced = (packed & 0x40) != 0;
+
+		// the previous frame is removed as its disposal demands
+		if (disposal == DISPOSE_BACKGROUND) {
+			fill(frameX, frameY, frameWidth, frameHeight);
+		} else if (disposal == DISPOSE_PREVIOUS && previousCanvas != null) {
+			System.arraycopy(previousCanvas, 0, canvas, 0, canvas.length);
+		}// if
+		if (nextDisposal == DISPOSE_PREVIOUS) {
+			if (previousCanvas == null) {
+				previousCanvas = new int[canvas.length];
+			}// if
+			System.arraycopy(canvas, 0, previousCanvas, 0, canvas.length);
+		}// if
+
+		int count = w * h;
+		if (indices == null || indices.length < count) {
+			indices = new byte[count];
+		}// if
+		decodeLzw(count);
+
+		int transparent = nextTransparent;
+		int pass = 0;
+		int step = isInterlaced ? 8 : 1;
+		int row = 0;
+		for (int i = 0; i < h; i++) {
+			int line = isInterlaced ? row : i;
+			int ty = y + line;
+			if (ty < height) {
+				int offset = ty * width;
+				for (int n = 0, index = i * w; n < w && x + n < width; n++, index++) {
+					int value = indices[index] & 0xFF;
+					if (value != transparent) {
+						canvas[offset + x + n] = colors != null && value < colors.length ? colors[value] : 0;
+					}// if
+				}// for
+			}// if
+
+			if (isInterlaced) {
+				// the rows 0, 8, 16, ..., then 4, 12, ..., then 2, 6, ..., then 1, 3, ...
+				row += step;
+				while (row >= h && pass < 3) {
+					pass++;
+					row = 8 >> pass;
+					step = row << 1;
+				}// while
+			}// if
+		}// for
+
+		delay = nextDelay < MIN_DELAY ? DEFAULT_DELAY : nextDelay;
+		disposal = nextDisposal;
+		frameX = x;
+		frameY = y;
+		frameWidth = w;
+		frameHeight = h;
+		nextDisposal = 0;
+		nextDelay = 0;
+		nextTransparent = -1;
+	}// readImage
+
+
+	/**
+	 * Decodes the LZW data of an image into the indices of its colours
+	 * @param count of type Integer, the number of pixels of the image
+	 */
+	private void decodeLzw(int count) throws IOException {
+		int minCodeSize = read();
+		if (minCodeSize < 1 || minCodeSize > 11) {
+			throw new IOException("invalid LZW code size " + minCodeSize);
+		}// if
+		int clear = 1 << minCodeSize;
+		int end = clear + 1;
+		int available = clear + 2;
+		int codeSize = minCodeSize + 1;
+		int codeMask = (1 << codeSize) - 1;
+		int oldCode = -1;
+		int first = 0;
+		for (int code = 0; code < clear; code++) {
+			prefix[code] = 0;
+			suffix[code] = (byte) code;
+		}// for
+
+		int datum = 0;
+		int bits = 0;
+		int blockSize = 0;
+		int blockPosition = 0;
+		boolean isDataEnd = false;
+		int top = 0;
+		int pixel = 0;
+
+		while (pixel < count) {
+			if (top == 0) {
+				// reads the next code from the blocks
+				while (bits < codeSize && !isDataEnd) {
+					if (blockPosition == blockSize) {
+						blockSize = read();
+						blockPosition = 0;
+						if (blockSize == 0) {
+							isDataEnd = true;
+							break;
+						}// if
+						readFully(block, blockSize);
+					}// if
+					datum |= (block[blockPosition++] & 0xFF) << bits;
+					bits += 8;
+				}// while
+				if (bits < codeSize) {
+					break;
+				}// if
+				int code = datum & codeMask;
+				datum >>= codeSize;
+				bits -= codeSize;
+
+				if (code == clear) {
+					codeSize = minCodeSize + 1;
+					codeMask = (1 << codeSize) - 1;
+					available = clear + 2;
+					oldCode = -1;
+					continue;
+				} else if (code == end || code > available) {
+					break;
+				} else if (oldCode == -1) {
+					stack[top++] = suffix[code];
+					oldCode = code;
+					first = code;
+					continue;
+				}// if
+
+				int inCode = code;
+				if (code == available) {
+					// the code is defined by this step: the last string and its first colour
+					stack[top++] = (byte) first;
+					code = oldCode;
+				}// if
+				while (code > end) {
+					stack[top++] = suffix[code];
+					code = prefix[code];
+				}// while
+				first = suffix[code] & 0xFF;
+				stack[top++] = (byte) first;
+
+				if (available < MAX_CODES) {
+					prefix[available] = (short) oldCode;
+					suffix[available] = (byte) first;
+					available++;
+					if ((available & codeMask) == 0 && available < MAX_CODES) {
+						codeSize++;
+						codeMask += available;
+					}// if
+				}// if
+				oldCode = inCode;
+			}// if
+
+			indices[pixel++] = stack[--top];
+		}// while
+
+		// a broken image: the missing pixels get the first colour
+		for (int i = pixel; i < count; i++) {
+			indices[i] = 0;
+		}// for
+		if (!isDataEnd) {
+			// the current block is already read, the following blocks are skipped
+			skipBlocks();
+		}// if
+	}// decodeLzw
+
+
+	/**
+	 * Sets the rectangle to transparent (none)
+	 */
+	private void fill(int x, int y, int w, int h) {
+		int right = Math.min(x + w, width);
+		int bottom = Math.min(y + h, height);
+		for (int ty = y; ty < bottom; ty++) {
+			for (int tx = x; tx < right; tx++) {
+				canvas[ty * width + tx] = 0;
+			}// for
+		}// for
+	}// fill
+
+
+	/**
+	 * Reads a colour table
+	 * @return of type int[], the ARGB colours
+	 */
+	private int[] readColorTable(int size) throws IOException {
+		byte[] bytes = new byte[size * 3];
+		readFully(bytes, bytes.length);
+		int[] colors = new int[size];
+		for (int i = 0, j = 0; i < size; i++, j += 3) {
+			colors[i] = 0xFF000000 | (bytes[j] & 0xFF) << 16 | (bytes[j + 1] & 0xFF) << 8
+					| (bytes[j + 2] & 0xFF);
+		}// for
+		return colors;
+	}// readColorTable
+
+
+	/**
+	 * Skips data sub-blocks up to the empty block at their end
+	 */
+	private void skipBlocks() throws IOException {
+		int size;
+		while ((size = read()) > 0) {
+			skip(size);
+		}// while
+	}// skipBlocks
+
+
+	private int read() throws IOException {
+		int value = in.read();
+		if (value < 0) {
+			throw new EOFException("the GIF ends too early");
+		}// if
+		return value;
+	}// read
+
+
+	private int readShort() throws IOException {
+		return read() | read() << 8;
+	}// readShort
+
+
+	private void readFully(byte[] buffer, int length) throws IOException {
+		int offset = 0;
+		while (offset < length) {
+			int count = in.read(buffer, offset, length - offset);
+			if (count < 0) {
+				throw new EOFException("the GIF ends too early");
+			}// if
+			offset += count;
+		}// while
+	}// readFully
+
+
+	private void skip(int length) throws IOException {
+		for (int i = 0; i < length; i++) {
+			read();
+		}// for
+	}// skip
+
+}// class GifDecoder
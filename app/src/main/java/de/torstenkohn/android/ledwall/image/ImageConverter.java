@@ -0,0 +1,328 @@
+package de.torstenkohn.android.ledwall.image;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+
+/**
+ * The converter turns an image into the 10x16 LEDs of the wall.<br/>
+ * <br/>
+ * 1. downscale(): every LED gets the average colour of its area of the image.<br/>
+ *    Every row of LEDs is a band of the image, the 16 bands are summed up<br/>
+ *    by several threads at the same time, each thread reads its band in small<br/>
+ *    blocks of rows, so a large image from the camera is never copied as a whole.<br/>
+ * 2. dither(): the colours are reduced to the four colours of the wall<br/>
+ *    (none, red, green, blue), optionally with ordered dithering (Bayer matrix)<br/>
+ *    or error diffusion (Floyd-Steinberg), so mixed colours and shades remain visible.<br/>
+ * <br/>
+ * The threads are created when they are needed the first time and are stopped by shutdown().<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class ImageConverter {
+
+	/**
+	 * The methods to reduce the colours to the four colours of the wall
+	 */
+	public enum Dithering {
+		/**
+		 * Every LED gets the nearest colour
+		 */
+		NONE,
+		/**
+		 * A threshold from a 4x4 Bayer matrix is added before the nearest colour is chosen
+		 */
+		ORDERED,
+		/**
+		 * The error of every LED is passed on to its neighbours (Floyd-Steinberg)
+		 */
+		FLOYD_STEINBERG
+	}// enum Dithering
+
+
+	private static final int WIDTH = DrawFrameCodec.LEDWALL_WIDTH;
+	private static final int HEIGHT = DrawFrameCodec.LEDWALL_HEIGHT;
+
+	/**
+	 * The number of rows which are read from the image at once
+	 */
+	private static final int READ_ROWS = 16;
+
+	/**
+	 * The colours of the LED values 0 (none), 1 (red), 2 (green) and 3 (blue)
+	 */
+	private static final int[] PALETTE = { 0x000000, 0xFF0000, 0x00FF00, 0x0000FF };
+
+	/**
+	 * The 4x4 Bayer matrix, the values 0 to 15 are the order of the thresholds
+	 */
+	private static final int[] BAYER = { 0, 8, 2, 10, 12, 4, 14, 6, 3, 11, 1, 9, 15, 7, 13, 5 };
+	private static final int ORDERED_SPREAD = 255;
+
+
+	private final int threads;
+	private ExecutorService executor;
+
+
+	/**
+	 * Constructor of the ImageConverter with one thread per processor
+	 */
+	public ImageConverter() {
+		this(Runtime.getRuntime().availableProcessors());
+	}// constructor
+
+
+	/**
+	 * Constructor of the ImageConverter
+	 * @param threads of type Integer, the number of threads for the downscale, 1 -> the calling thread only
+	 */
+	public ImageConverter(int threads) {
+		this.threads = Math.max(1, threads);
+	}// constructor
+
+
+	/**
+	 * Stops the threads of the converter, they are created again if necessary
+	 */
+	public synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}// if
+	}// shutdown
+
+
+	private synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "ImageConverter_" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}// newThread
+			});
+		}// if
+		return executor;
+	}// getExecutor
+
+
+	/**
+	 * Converts the image into LED values
+	 * @param source of type PixelSource, the image
+	 * @param dithering of type Dithering, the method to reduce the colours
+	 * @param matrix of type int[], the 160 LED values 0 (none), 1 (red), 2 (green) or 3 (blue)
+	 * @throws InterruptedException if the thread is interrupted while it waits for the other threads
+	 */
+	public void convert(PixelSource source, Dithering dithering, int[] matrix)
+			throws InterruptedException {
+		int[] colors = new int[DrawFrameCodec.NUMBER_OF_LED];
+		downscale(source, colors);
+		dither(colors, dithering, matrix);
+	}// convert
+
+
+	/**
+	 * Calculates the average colour of the area of every LED
+	 * @param source of type PixelSource, the image
+	 * @param colors of type int[], the 160 RGB colours (0xRRGGBB)
+	 * @throws InterruptedException if the thread is interrupted while it waits for the other threads
+	 */
+	public void downscale(final PixelSource source, final int[] colors)
+			throws InterruptedException {
+		int width = source.getWidth();
+		final int[] left = new int[WIDTH];
+		final int[] right = new int[WIDTH];
+		for (int x = 0; x < WIDTH; x++) {
+			left[x] = x * width / WIDTH;
+			// an image smaller than the wall: every LED gets at least one pixel
+			right[x] = Math.max((x + 1) * width / WIDTH, left[x] + 1);
+		}// for
+
+		if (threads == 1) {
+			int[] buffer = new int[width * READ_ROWS];
+			for (int y = 0; y < HEIGHT; y++) {
+				downscaleRow(source, y, left, right, buffer, colors);
+			}// for
+			return;
+		}// if
+
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(HEIGHT);
+		for (int y = 0; y < HEIGHT; y++) {
+			final int row = y;
+			tasks.add(new Callable<Void>() {
+
+				@Override
+				public Void call() {
+					int[] buffer = new int[source.getWidth() * READ_ROWS];
+					downscaleRow(source, row, left, right, buffer, colors);
+					return null;
+				}// call
+			});
+		}// for
+		for (Future<Void> future : getExecutor().invokeAll(tasks)) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("the image could not be read", e.getCause());
+			}// try
+		}// for
+	}// downscale
+
+
+	/**
+	 * Sums up the band of the image which belongs to a row of LEDs
+	 */
+	private static void downscaleRow(PixelSource source, int row, int[] left, int[] right,
+			int[] buffer, int[] colors) {
+		int width = source.getWidth();
+		int height = source.getHeight();
+		int top = row * height / HEIGHT;
+		int bottom = Math.max((row + 1) * height / HEIGHT, top + 1);
+		long[] red = new long[WIDTH];
+		long[] green = new long[WIDTH];
+		long[] blue = new long[WIDTH];
+
+		for (int y = top; y < bottom; y += READ_ROWS) {
+			int rows = Math.min(READ_ROWS, bottom - y);
+			source.getPixels(buffer, y, rows);
+			for (int offset = 0; offset < rows * width; offset += width) {
+				for (int led = 0; led < WIDTH; led++) {
+					int r = 0;
+					int g = 0;
+					int b = 0;
+					for (int i = offset + left[led]; i < offset + right[led]; i++) {
+						int pixel = buffer[i];
+						r += (pixel >> 16) & 0xFF;
+						g += (pixel >> 8) & 0xFF;
+						b += pixel & 0xFF;
+					}// for
+					red[led] += r;
+					green[led] += g;
+					blue[led] += b;
+				}// for
+			}// for
+		}// for
+
+		for (int led = 0; led < WIDTH; led++) {
+			long count = (long) (right[led] - left[led]) * (bottom - top);
+			colors[row * WIDTH + led] = (int) (red[led] / count) << 16
+					| (int) (green[led] / count) << 8 | (int) (blue[led] / count);
+		}// for
+	}// downscaleRow
+
+
+	/**
+	 * Reduces the colours to the four colours of the wall
+	 * @param colors of type int[], the 160 RGB colours (0xRRGGBB)
+	 * @param dithering of type Dithering, the method to reduce the colours
+	 * @param matrix of type int[], the 160 LED values 0 (none), 1 (red), 2 (green) or 3 (blue)
+	 */
+	public static void dither(int[] colors, Dithering dithering, int[] matrix) {
+		switch (dithering) {
+		case NONE:
+			for (int i = 0; i < colors.length; i++) {
+				int color = colors[i];
+				matrix[i] = nearest((color >> 16) & 0xFF, (color >> 8) & 0xFF, color & 0xFF);
+			}// for
+			break;
+
+		case ORDERED:
+			for (int i = 0; i < colors.length; i++) {
+				int color = colors[i];
+				// a threshold between -spread/2 and spread/2
+				int threshold = (BAYER[(i / WIDTH & 3) * 4 + (i % WIDTH & 3)] * 2 - 15)
+						* ORDERED_SPREAD / 32;
+				matrix[i] = nearest(((color >> 16) & 0xFF) + threshold,
+						((color >> 8) & 0xFF) + threshold, (color & 0xFF) + threshold);
+			}// for
+			break;
+
+		case FLOYD_STEINBERG:
+			floydSteinberg(colors, matrix);
+			break;
+		}// switch
+	}// dither
+
+
+	/**
+	 * Error diffusion in serpentine order: the even rows from the left, the odd rows from the right
+	 */
+	private static void floydSteinberg(int[] colors, int[] matrix) {
+		// the errors of the current and the next row in 1/16, with a border at both sides
+		int[][] current = new int[3][WIDTH + 2];
+		int[][] next = new int[3][WIDTH + 2];
+		int[] value = new int[3];
+
+		for (int y = 0; y < HEIGHT; y++) {
+			boolean isLeftToRight = (y & 1) == 0;
+			int step = isLeftToRight ? 1 : -1;
+			for (int n = 0; n < WIDTH; n++) {
+				int x = isLeftToRight ? n : WIDTH - 1 - n;
+				int i = y * WIDTH + x;
+				int color = colors[i];
+				value[0] = clamp(((color >> 16) & 0xFF) + current[0][x + 1] / 16);
+				value[1] = clamp(((color >> 8) & 0xFF) + current[1][x + 1] / 16);
+				value[2] = clamp((color & 0xFF) + current[2][x + 1] / 16);
+				int led = nearest(value[0], value[1], value[2]);
+				matrix[i] = led;
+
+				for (int c = 0; c < 3; c++) {
+					int error = value[c] - ((PALETTE[led] >> (16 - 8 * c)) & 0xFF);
+					current[c][x + 1 + step] += error * 7;
+					next[c][x + 1 - step] += error * 3;
+					next[c][x + 1] += error * 5;
+					next[c][x + 1 + step] += error;
+				}// for
+			}// for
+
+			int[][] swap = current;
+			current = next;
+			next = swap;
+			for (int c = 0; c < 3; c++) {
+				for (int x = 0; x < next[c].length; x++) {
+					next[c][x] = 0;
+				}// for
+			}// for
+		}// for
+	}// floydSteinberg
+
+
+	/**
+	 * Every colour of the wall has only one channel, so the nearest colour<br/>
+	 * is the strongest channel if it is brighter than the half, otherwise none.
+	 * @return of type Integer, the LED value 0 (none), 1 (red), 2 (green) or 3 (blue)
+	 */
+	private static int nearest(int r, int g, int b) {
+		int led = 1;
+		int max = r;
+		if (g > max) {
+			led = 2;
+			max = g;
+		}// if
+		if (b > max) {
+			led = 3;
+			max = b;
+		}// if
+		return max > 127 ? led : 0;
+	}// nearest
+
+
+	private static int clamp(int value) {
+		return value < 0 ? 0 : (value > 255 ? 255 : value);
+	}// clamp
+
+}// class ImageConverter
@@ -0,0 +1,172 @@
+package de.torstenkohn.android.ledwall.image;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+/**
+ * The frames of an animation which are stored as numbered PNG files in a folder,<br/>
+ * e.g. frame1.png, frame2.png, ..., frame10.png. The files are sorted by their number.<br/>
+ * Only the current frame is decoded, a large picture is reduced by a power of two<br/>
+ * while it is decoded, like a picture which is loaded by the DrawActivity.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class ImageSequence implements FrameSequence {
+
+	/**
+	 * The time in ms every frame is shown if no other time is set
+	 */
+	public static final int DEFAULT_DELAY = 100;
+
+	/**
+	 * The name of a frame: any text without digits, the number and .png
+	 */
+	private static final Pattern NUMBERED = Pattern.compile("\\D*(\\d+)\\.png", Pattern.CASE_INSENSITIVE);
+
+
+	private final File[] files;
+	private final int delay;
+	private final int minWidth;
+	private final int minHeight;
+
+	private int index;
+	private int sampleSize;
+	private Bitmap bitmap;
+	private PixelSource frame;
+
+
+	/**
+	 * Constructor of the ImageSequence
+	 * @param files of type File[], the frames, e.g. from findFrames()
+	 * @param delay of type Integer, the time in ms every frame is shown
+	 * @param minWidth of type Integer, the picture is reduced only down to this width
+	 * @param minHeight of type Integer, the picture is reduced only down to this height
+	 */
+	public ImageSequence(File[] files, int delay, int minWidth, int minHeight) {
+		this.files = files;
+		this.delay = delay;
+		this.minWidth = minWidth;
+		this.minHeight = minHeight;
+	}// constructor
+
+
+	/**
+	 * Returns the numbered PNG files of a folder
+	 * @param directory of type File, the folder
+	 * @return of type File[], the files sorted by their number, an empty array if there is none
+	 */
+	public static File[] findFrames(File directory) {
+		File[] files = directory.listFiles(new FileFilter() {
+
+			@Override
+			public boolean accept(File file) {
+				return file.isFile() && NUMBERED.matcher(file.getName()).matches();
+			}// accept
+		});
+		if (files == null) {
+			return new File[0];
+		}// if
+		Arrays.sort(files, new Comparator<File>() {
+
+			@Override
+			public int compare(File lhs, File rhs) {
+				long left = getNumber(lhs);
+				long right = getNumber(rhs);
+				return left < right ? -1 : (left == right ? lhs.getName().compareTo(rhs.getName()) : 1);
+			}// compare
+		});
+		return files;
+	}// findFrames
+
+
+	/**
+	 * @return of type boolean, true if the name of the file is the name of a frame
+	 */
+	public static boolean isFrame(File file) {
+		return NUMBERED.matcher(file.getName()).matches();
+	}// isFrame
+
+
+	private static long getNumber(File file) {
+		Matcher matcher = NUMBERED.matcher(file.getName());
+		if (!matcher.matches()) {
+			return Long.MAX_VALUE;
+		}// if
+		try {
+			return Long.parseLong(matcher.group(1));
+		} catch (NumberFormatException e) {
+			return Long.MAX_VALUE;
+		}// try
+	}// getNumber
+
+
+	@Override
+	public boolean next() throws IOException {
+		recycle();
+		if (index >= files.length) {
+			return false;
+		}// if
+		File file = files[index++];
+		if (sampleSize == 0) {
+			// all frames of an animation have the same size, the first frame is measured
+			BitmapFactory.Options options = new BitmapFactory.Options();
+			options.inJustDecodeBounds = true;
+			BitmapFactory.decodeFile(file.getPath(), options);
+			if (options.outWidth <= 0 || options.outHeight <= 0) {
+				throw new IOException("no picture: " + file);
+			}// if
+			sampleSize = 1;
+			while (options.outWidth / (sampleSize * 2) >= minWidth
+					&& options.outHeight / (sampleSize * 2) >= minHeight) {
+				sampleSize *= 2;
+			}// while
+		}// if
+
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inSampleSize = sampleSize;
+		options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+		bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+		if (bitmap == null) {
+			throw new IOException("the picture cannot be decoded: " + file);
+		}// if
+		frame = new BitmapPixelSource(bitmap);
+		return true;
+	}// next
+
+
+	@Override
+	public PixelSource getFrame() {
+		return frame;
+	}// getFrame
+
+
+	@Override
+	public int getDelay() {
+		return delay;
+	}// getDelay
+
+
+	@Override
+	public void close() {
+		recycle();
+	}// close
+
+
+	private void recycle() {
+		if (bitmap != null) {
+			bitmap.recycle();
+			bitmap = null;
+			frame = null;
+		}// if
+	}// recycle
+
+}// class ImageSequence
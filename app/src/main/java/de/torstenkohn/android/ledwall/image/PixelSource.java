@@ -0,0 +1,26 @@
+package de.torstenkohn.android.ledwall.image;
+
+/**
+ * The pixels of an image which is converted by the ImageConverter.<br/>
+ * The converter reads the image in bands of rows from several threads at the same time,<br/>
+ * so getPixels() must be thread-safe and must not change the image.<br/>
+ * The interface does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public interface PixelSource {
+
+	int getWidth();
+
+	int getHeight();
+
+	/**
+	 * Copies rows of the image into the buffer
+	 * @param buffer of type int[], the ARGB colours, width * rows values
+	 * @param y of type Integer, the first row
+	 * @param rows of type Integer, the number of rows
+	 */
+	void getPixels(int[] buffer, int y, int rows);
+
+}// interface PixelSource
@@ -2,7 +2,9 @@ package de.torstenkohn.android.ledwall.util;
 
 /**
  * The class stores the state of the Tetris game.<br/>
- * Is used only in the Activity TetrisActivity and LEDWallMessage.
+ * Is used only in the Activity TetrisActivity and LEDWallMessage.<br/>
+ * The ServerMessageParser updates one object in place for every message,<br/>
+ * so the methods which change or copy the state are synchronized.
  * @author Torsten Kohn
  * @since 05.05.2013
  */
@@ -33,6 +35,12 @@ public class TetrisGameState {
 	 */
 	private boolean isRunning;
 
+	/**
+	 * Creates an empty game state, which is filled by update()
+	 */
+	public TetrisGameState() {
+	}// constructor
+
 	/**
 	 * The constructor of the class
 	 * @param score of type Integer, the current score
@@ -48,6 +56,37 @@ public class TetrisGameState {
 		this.nextStone = convertStone(nextStone);
 	}// constructor
 
+	/**
+	 * The method sets the values of a new message from the server.<br/>
+	 * The previous next stone becomes the current stone.
+	 * @param score of type Integer, the current score
+	 * @param level of type Integer, the current level
+	 * @param isRunning of type boolean, the current game state
+	 * @param nextStone of type Integer, the next stone as STONE_ constant
+	 */
+	public synchronized void update(int score, int level, boolean isRunning,
+			int nextStone) {
+		this.currStone = this.nextStone;
+		this.score = score;
+		this.level = level;
+		this.isRunning = isRunning;
+		this.nextStone = nextStone;
+	}// update
+
+	/**
+	 * The method copies all values of the other game state into this object
+	 * @param other of type TetrisGameState, the game state to be copied
+	 */
+	public void copyFrom(TetrisGameState other) {
+		synchronized (other) {
+			this.score = other.score;
+			this.level = other.level;
+			this.isRunning = other.isRunning;
+			this.nextStone = other.nextStone;
+			this.currStone = other.currStone;
+		}// synchronized
+	}// copyFrom
+
 	public int getScore() {
 		return score;
 	}// getScore
@@ -84,21 +123,42 @@ public class TetrisGameState {
 	 */
 	private int convertStone(String stone) {
 		int result = 0;
-		if (stone.equals("I")) {
+		if (stone.length() == 1) {
+			result = convertStone(stone.charAt(0));
+		}// if
+		return result;
+	}// convertStone
+
+	/**
+	 * The method converts the letter of a Tetrimino (Stone) to an Integer
+	 * @param stone of type char, the to be converted stone
+	 * @return of type Integer, the stone as an Integer or 0 if the letter is unknown
+	 */
+	public static int convertStone(char stone) {
+		int result = 0;
+		switch (stone) {
+		case 'I':
 			result = STONE_I;
-		} else if (stone.equals("J")) {
+			break;
+		case 'J':
 			result = STONE_J;
-		} else if (stone.equals("L")) {
+			break;
+		case 'L':
 			result = STONE_L;
-		} else if (stone.equals("O")) {
+			break;
+		case 'O':
 			result = STONE_O;
-		} else if (stone.equals("S")) {
+			break;
+		case 'S':
 			result = STONE_S;
-		} else if (stone.equals("T")) {
+			break;
+		case 'T':
 			result = STONE_T;
-		} else if (stone.equals("Z")) {
+			break;
+		case 'Z':
 			result = STONE_Z;
-		}// if
+			break;
+		}// switch
 		return result;
 	}// convertStone
 }// class TetrisGameState
@@ -0,0 +1,163 @@
+package de.torstenkohn.android.ledwall.util;
+
+/**
+ * The HUD shows the score, the level, the stones and the buttons of the Tetris game.<br/>
+ * update() compares the game state with the shown values and passes only the changed<br/>
+ * values to the Display, so a game state with the same values does not touch any view.<br/>
+ * The numbers are written into a reused char array per view, so an update creates no objects.<br/>
+ * A TextView keeps the array of setText(char[], int, int) instead of copying it, so the<br/>
+ * score and the level need their own arrays.<br/>
+ * <br/>
+ * The class must be used by one thread only (the UI thread).<br/>
+ * The class does not use any Android classes, so it can also be used by the benchmarks.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class TetrisHud {
+
+	/**
+	 * The views of the HUD, implemented by the TetrisActivity
+	 */
+	public interface Display {
+		void showRunning(boolean isRunning);
+
+		/**
+		 * @param digits of type char[], the score, the same array for every score, it is<br/>
+		 *            changed only by the next showScore()
+		 * @param length of type Integer, the number of digits
+		 */
+		void showScore(char[] digits, int length);
+
+		/**
+		 * @param digits of type char[], the level, the same array for every level, it is<br/>
+		 *            changed only by the next showLevel()
+		 * @param length of type Integer, the number of digits
+		 */
+		void showLevel(char[] digits, int length);
+
+		void showNextStone(int stone);
+
+		void showCurrStone(int stone);
+	}// interface Display
+
+
+	private final Display display;
+
+	/*
+	 * the values which are shown at the moment
+	 */
+	private boolean isShown;
+	private boolean isRunning;
+	private int score;
+	private int level;
+	private int nextStone;
+	private int currStone;
+
+	/*
+	 * the digits of the score and the level, 11 characters are enough for Integer.MIN_VALUE
+	 */
+	private final char[] scoreDigits = new char[11];
+	private final char[] levelDigits = new char[11];
+
+	/*
+	 * counters for the report
+	 */
+	private long updates;
+	private long changes;
+
+
+	/**
+	 * Constructor of the TetrisHud
+	 * @param display of type Display, the views of the HUD
+	 */
+	public TetrisHud(Display display) {
+		this.display = display;
+	}// constructor
+
+
+	/**
+	 * Shows the changed values of the game state
+	 * @param state of type TetrisGameState, the game state, e.g. the copy of the TetrisActivity
+	 */
+	public void update(TetrisGameState state) {
+		updates++;
+		if (!isShown || state.isRunning() != isRunning) {
+			isRunning = state.isRunning();
+			display.showRunning(isRunning);
+			changes++;
+		}// if
+		if (!isShown || state.getScore() != score) {
+			score = state.getScore();
+			display.showScore(scoreDigits, format(score, scoreDigits));
+			changes++;
+		}// if
+		if (!isShown || state.getLevel() != level) {
+			level = state.getLevel();
+			display.showLevel(levelDigits, format(level, levelDigits));
+			changes++;
+		}// if
+		if (!isShown || state.getNextStone() != nextStone) {
+			nextStone = state.getNextStone();
+			display.showNextStone(nextStone);
+			changes++;
+		}// if
+		if (!isShown || state.getCurrStone() != currStone) {
+			currStone = state.getCurrStone();
+			display.showCurrStone(currStone);
+			changes++;
+		}// if
+		isShown = true;
+	}// update
+
+
+	/**
+	 * The next update() shows all values again, e.g. if the views were changed in another way
+	 */
+	public void invalidate() {
+		isShown = false;
+	}// invalidate
+
+
+	/**
+	 * Writes the number into the char array
+	 * @param digits of type char[], at least 11 characters
+	 * @return of type Integer, the number of characters
+	 */
+	private static int format(int value, char[] digits) {
+		if (value == Integer.MIN_VALUE) {
+			String text = String.valueOf(value);
+			text.getChars(0, text.length(), digits, 0);
+			return text.length();
+		}// if
+		int length = 0;
+		int rest = Math.abs(value);
+		do {
+			digits[length++] = (char) ('0' + rest % 10);
+			rest /= 10;
+		} while (rest > 0);
+		if (value < 0) {
+			digits[length++] = '-';
+		}// if
+		// the digits were written from the right
+		for (int i = 0, j = length - 1; i < j; i++, j--) {
+			char temp = digits[i];
+			digits[i] = digits[j];
+			digits[j] = temp;
+		}// for
+		return length;
+	}// format
+
+
+	/**
+	 * Creates the report of the HUD
+	 * @return of type String, one value per line
+	 */
+	public String report() {
+		StringBuilder report = new StringBuilder(64);
+		report.append("hud: updates=").append(updates)
+				.append(" changed views=").append(changes).append('\n');
+		return report.toString();
+	}// report
+
+}// class TetrisHud
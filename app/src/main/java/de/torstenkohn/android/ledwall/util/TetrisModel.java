@@ -0,0 +1,322 @@
+package de.torstenkohn.android.ledwall.util;
+
+/**
+ * A deterministic model of the Tetris game on the 10x16 LEDs of the wall.<br/>
+ * The model contains the board with the locked stones and the falling stone.<br/>
+ * The same moves on the same state always give the same result,<br/>
+ * so the TetrisPredictor can go back to an older state and repeat the moves.<br/>
+ * <br/>
+ * The stones are the TetrisGameState.STONE_ constants, the rotations are calculated<br/>
+ * once from the shape of each stone. The board stores the LED value of every field,<br/>
+ * so it can be shown directly in a LEDMatrixView.<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class TetrisModel {
+
+	public static final int WIDTH = 10;
+	public static final int HEIGHT = 16;
+
+	/**
+	 * The shapes of the stones I, J, L, O, S, T and Z in their start position
+	 */
+	private static final String[][] SHAPES = {
+			{ "....", "XXXX", "....", "...." },
+			{ "X..", "XXX", "..." },
+			{ "..X", "XXX", "..." },
+			{ "XX", "XX" },
+			{ ".XX", "XX.", "..." },
+			{ ".X.", "XXX", "..." },
+			{ "XX.", ".XX", "..." } };
+
+	/**
+	 * The LED values of the stones, the wall has only three colours
+	 */
+	private static final int[] COLORS = { 3, 3, 1, 2, 2, 1, 1 };
+
+	/**
+	 * The fields of every stone in every rotation: CELLS[stone][rotation] = {x0, y0, x1, y1, ...}
+	 */
+	private static final int[][][] CELLS = new int[SHAPES.length][4][];
+
+	/**
+	 * The offsets which are tried if a rotated stone collides, e.g. at the border
+	 */
+	private static final int[] KICKS = { 0, -1, 1, -2, 2 };
+
+	static {
+		for (int stone = 0; stone < SHAPES.length; stone++) {
+			String[] shape = SHAPES[stone];
+			int size = shape.length;
+			for (int rotation = 0; rotation < 4; rotation++) {
+				int[] cells = new int[8];
+				int count = 0;
+				for (int y = 0; y < size; y++) {
+					for (int x = 0; x < size; x++) {
+						if (shape[y].charAt(x) == 'X') {
+							// rotated clockwise: (x, y) -> (size - 1 - y, x)
+							int rx = x;
+							int ry = y;
+							for (int i = 0; i < rotation; i++) {
+								int temp = rx;
+								rx = size - 1 - ry;
+								ry = temp;
+							}// for
+							cells[count++] = rx;
+							cells[count++] = ry;
+						}// if
+					}// for
+				}// for
+				CELLS[stone][rotation] = cells;
+			}// for
+		}// for
+	}// static
+
+
+	private final int[] board = new int[WIDTH * HEIGHT];
+
+	/*
+	 * the falling stone, stone is -1 if there is none
+	 */
+	private int stone = -1;
+	private int rotation;
+	private int x;
+	private int y;
+
+	private int nextStone;
+	private int lines;
+	private boolean isGameOver;
+
+
+	/**
+	 * Copies the state of the other model into this model
+	 * @param other of type TetrisModel, the model to be copied
+	 */
+	public void copyFrom(TetrisModel other) {
+		System.arraycopy(other.board, 0, board, 0, board.length);
+		stone = other.stone;
+		rotation = other.rotation;
+		x = other.x;
+		y = other.y;
+		nextStone = other.nextStone;
+		lines = other.lines;
+		isGameOver = other.isGameOver;
+	}// copyFrom
+
+
+	/**
+	 * Clears the board for a new game
+	 */
+	public void reset() {
+		for (int i = 0; i < board.length; i++) {
+			board[i] = 0;
+		}// for
+		stone = -1;
+		nextStone = 0;
+		lines = 0;
+		isGameOver = false;
+	}// reset
+
+
+	/**
+	 * Lets a new stone appear at the top of the board
+	 * @param newStone of type Integer, the stone as TetrisGameState.STONE_ constant
+	 * @param newNextStone of type Integer, the following stone or 0 if it is unknown
+	 * @return of type boolean, false if the stone has no space, the game is over
+	 */
+	public boolean spawn(int newStone, int newNextStone) {
+		nextStone = newNextStone;
+		int index = newStone / 10 - 1;
+		if (index < 0 || index >= SHAPES.length) {
+			stone = -1;
+			return true;
+		}// if
+		stone = index;
+		rotation = 0;
+		x = (WIDTH - SHAPES[index].length) / 2;
+		// the first row of the shape is at the top of the board
+		y = SHAPES[index][0].indexOf('X') < 0 ? -1 : 0;
+		if (collides(x, y, rotation)) {
+			stone = -1;
+			isGameOver = true;
+			return false;
+		}// if
+		return true;
+	}// spawn
+
+
+	/**
+	 * Lets the next known stone appear, the stone after it is unknown until the server sends it
+	 * @return of type boolean, false if there is no next stone or no space
+	 */
+	public boolean spawnNext() {
+		if (nextStone == 0) {
+			return false;
+		}// if
+		return spawn(nextStone, 0);
+	}// spawnNext
+
+
+	/**
+	 * @param dx of type Integer, -1 -> left, 1 -> right
+	 * @return of type boolean, true if the stone has moved
+	 */
+	public boolean move(int dx) {
+		if (stone < 0 || collides(x + dx, y, rotation)) {
+			return false;
+		}// if
+		x += dx;
+		return true;
+	}// move
+
+
+	/**
+	 * @param direction of type Integer, 1 -> clockwise, -1 -> counterclockwise
+	 * @return of type boolean, true if the stone was rotated
+	 */
+	public boolean rotate(int direction) {
+		if (stone < 0) {
+			return false;
+		}// if
+		int newRotation = (rotation + direction + 4) & 3;
+		for (int kick : KICKS) {
+			if (!collides(x + kick, y, newRotation)) {
+				x += kick;
+				rotation = newRotation;
+				return true;
+			}// if
+		}// for
+		return false;
+	}// rotate
+
+
+	/**
+	 * Lets the stone fall by one row, a stone which cannot fall is locked
+	 * @return of type boolean, true if the stone has fallen, false if it was locked or there is none
+	 */
+	public boolean step() {
+		if (stone < 0) {
+			return false;
+		}// if
+		if (!collides(x, y + 1, rotation)) {
+			y++;
+			return true;
+		}// if
+		lock();
+		return false;
+	}// step
+
+
+	/**
+	 * Lets the stone fall down to the bottom and locks it
+	 */
+	public void drop() {
+		if (stone < 0) {
+			return;
+		}// if
+		while (!collides(x, y + 1, rotation)) {
+			y++;
+		}// while
+		lock();
+	}// drop
+
+
+	/**
+	 * Writes the stone into the board and removes the full rows
+	 */
+	private void lock() {
+		int[] cells = CELLS[stone][rotation];
+		for (int i = 0; i < cells.length; i += 2) {
+			int cy = y + cells[i + 1];
+			if (cy >= 0) {
+				board[cy * WIDTH + x + cells[i]] = COLORS[stone];
+			}// if
+		}// for
+		stone = -1;
+
+		for (int row = HEIGHT - 1; row >= 0; row--) {
+			boolean isFull = true;
+			for (int column = 0; column < WIDTH && isFull; column++) {
+				isFull = board[row * WIDTH + column] != 0;
+			}// for
+			if (isFull) {
+				// the rows above move down by one row, the same row is checked again
+				System.arraycopy(board, 0, board, WIDTH, row * WIDTH);
+				for (int column = 0; column < WIDTH; column++) {
+					board[column] = 0;
+				}// for
+				lines++;
+				row++;
+			}// if
+		}// for
+	}// lock
+
+
+	private boolean collides(int newX, int newY, int newRotation) {
+		int[] cells = CELLS[stone][newRotation];
+		for (int i = 0; i < cells.length; i += 2) {
+			int cx = newX + cells[i];
+			int cy = newY + cells[i + 1];
+			if (cx < 0 || cx >= WIDTH || cy >= HEIGHT) {
+				return true;
+			}// if
+			if (cy >= 0 && board[cy * WIDTH + cx] != 0) {
+				return true;
+			}// if
+		}// for
+		return false;
+	}// collides
+
+
+	/**
+	 * Draws the board and the falling stone
+	 * @param frame of type int[], the 160 LED values
+	 */
+	public void render(int[] frame) {
+		System.arraycopy(board, 0, frame, 0, board.length);
+		if (stone < 0) {
+			return;
+		}// if
+		int[] cells = CELLS[stone][rotation];
+		for (int i = 0; i < cells.length; i += 2) {
+			int cy = y + cells[i + 1];
+			if (cy >= 0) {
+				frame[cy * WIDTH + x + cells[i]] = COLORS[stone];
+			}// if
+		}// for
+	}// render
+
+
+	public boolean hasStone() {
+		return stone >= 0;
+	}// hasStone
+
+
+	/**
+	 * @return of type Integer, the falling stone as TetrisGameState.STONE_ constant, 0 if there is none
+	 */
+	public int getStone() {
+		return stone < 0 ? 0 : (stone + 1) * 10;
+	}// getStone
+
+
+	public int getNextStone() {
+		return nextStone;
+	}// getNextStone
+
+
+	/**
+	 * @return of type Integer, the number of removed rows since reset()
+	 */
+	public int getLines() {
+		return lines;
+	}// getLines
+
+
+	public boolean isGameOver() {
+		return isGameOver;
+	}// isGameOver
+
+}// class TetrisModel
@@ -0,0 +1,352 @@
+package de.torstenkohn.android.ledwall.util;
+
+import java.util.Arrays;
+
+/**
+ * The predictor shows the Tetris game on the phone without waiting for the server.<br/>
+ * The moves of the player are applied at once to a TetrisModel and the stone falls<br/>
+ * with an estimated speed, so the controls react without the delay of the network.<br/>
+ * <br/>
+ * The server only sends a game state when a new stone appears: the score, the level<br/>
+ * and the next stone. It sends neither the board nor the position of the stone.<br/>
+ * So every game state is a point of reconciliation:<br/>
+ * 1. Rollback: the model goes back to the state when the last stone appeared.<br/>
+ * 2. The moves which the server had received before it sent the game state are repeated<br/>
+ *    and the stone is locked, because the server has already created the next stone.<br/>
+ * 3. The stone of the server appears, this state is stored for the next rollback.<br/>
+ * 4. The moves which the server had not yet received are applied again.<br/>
+ * If the board or the stone differs from the prediction which was shown before,<br/>
+ * a correction is counted, see report().<br/>
+ * <br/>
+ * The times are passed in ms by the caller, so the predictor is deterministic.<br/>
+ * The class must be used by one thread only (the UI thread).<br/>
+ * The class does not use any Android classes.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class TetrisPredictor {
+
+	/*
+	 * the moves of the player
+	 */
+	public static final int MOVE_LEFT = 0;
+	public static final int MOVE_RIGHT = 1;
+	public static final int MOVE_CLOCKWISE = 2;
+	public static final int MOVE_COUNTERCLOCKWISE = 3;
+
+	/**
+	 * The estimated time in ms from sending a move until the server has applied it
+	 */
+	public static final int DEFAULT_INPUT_DELAY = 50;
+
+	/**
+	 * The number of moves which are kept for the repetition after a rollback
+	 */
+	private static final int MAX_INPUTS = 64;
+
+	/*
+	 * the estimated time in ms a stone needs to fall by one row, faster with every level
+	 */
+	private static final int FIRST_INTERVAL = 1000;
+	private static final int LEVEL_INTERVAL = 100;
+	private static final int MIN_INTERVAL = 100;
+
+
+	/**
+	 * The state when the last stone of the server appeared
+	 */
+	private final TetrisModel confirmed = new TetrisModel();
+	private long confirmedTime;
+
+	/**
+	 * The state which is shown to the player
+	 */
+	private final TetrisModel predicted = new TetrisModel();
+
+	/**
+	 * The time of the last step of the predicted stone
+	 */
+	private long predictedTime;
+
+	private final TetrisModel work = new TetrisModel();
+
+	/*
+	 * the moves since the last stone of the server, ordered by time:
+	 * the time of the player's input and the time the move is sent to the server
+	 */
+	private final long[] inputTimes = new long[MAX_INPUTS];
+	private final long[] sendTimes = new long[MAX_INPUTS];
+	private final int[] inputs = new int[MAX_INPUTS];
+	private int inputCount;
+
+	private int level = 1;
+	private int inputDelay = DEFAULT_INPUT_DELAY;
+
+	private final int[] before = new int[TetrisModel.WIDTH * TetrisModel.HEIGHT];
+	private final int[] after = new int[TetrisModel.WIDTH * TetrisModel.HEIGHT];
+
+	/*
+	 * counters for the report
+	 */
+	private long moves;
+	private long reconciliations;
+	private long corrections;
+	private long stoneMismatches;
+
+
+	/**
+	 * @param inputDelay of type Integer, the estimated time in ms from sending a move<br/>
+	 *            until the server has applied it
+	 */
+	public void setInputDelay(int inputDelay) {
+		this.inputDelay = Math.max(0, inputDelay);
+	}// setInputDelay
+
+
+	/**
+	 * Starts a new game with an empty board
+	 * @param now of type long, the current time in ms
+	 */
+	public void reset(long now) {
+		confirmed.reset();
+		predicted.reset();
+		confirmedTime = now;
+		predictedTime = now;
+		inputCount = 0;
+		level = 1;
+	}// reset
+
+
+	/**
+	 * Applies a move of the player at once, the move is sent at once
+	 * @param move of type Integer, one of the MOVE_ constants
+	 * @param now of type long, the current time in ms
+	 * @return of type boolean, true if the stone has moved
+	 */
+	public boolean input(int move, long now) {
+		return input(move, now, 0);
+	}// input
+
+
+	/**
+	 * Applies a move of the player at once, the move is sent later, e.g. by the TetrisInputBatcher
+	 * @param move of type Integer, one of the MOVE_ constants
+	 * @param now of type long, the current time in ms
+	 * @param sendDelay of type long, the time in ms until the move is sent to the server
+	 * @return of type boolean, true if the stone has moved
+	 */
+	public boolean input(int move, long now, long sendDelay) {
+		tick(now);
+		moves++;
+		if (inputCount == MAX_INPUTS) {
+			// the stone falls for a long time, the moves which the server must have received
+			// become part of the confirmed state
+			confirm(sendTimes[MAX_INPUTS / 2] + inputDelay);
+		}// if
+		inputTimes[inputCount] = now;
+		// the moves are sent in the order of the input
+		long sendTime = now + Math.max(0, sendDelay);
+		sendTimes[inputCount] = inputCount > 0 ? Math.max(sendTimes[inputCount - 1], sendTime)
+				: sendTime;
+		inputs[inputCount] = move;
+		inputCount++;
+		return apply(predicted, move);
+	}// input
+
+
+	/**
+	 * Lets the predicted stone fall with the estimated speed up to the time
+	 * @param now of type long, the current time in ms
+	 * @return of type boolean, true if the board or the stone has changed
+	 */
+	public boolean tick(long now) {
+		int interval = getInterval();
+		boolean isChanged = false;
+		while (predictedTime + interval <= now) {
+			predictedTime += interval;
+			isChanged |= fall(predicted);
+		}// while
+		return isChanged;
+	}// tick
+
+
+	/**
+	 * Reconciles the prediction with the game state of the server
+	 * @param state of type TetrisGameState, the game state of the server
+	 * @param now of type long, the current time in ms
+	 */
+	public void reconcile(TetrisGameState state, long now) {
+		reconciliations++;
+		tick(now);
+		predicted.render(before);
+		long serverTime = Math.max(confirmedTime, now - inputDelay);
+
+		// 1. rollback and 2. the moves the server has received, they arrived there after they were sent
+		work.copyFrom(confirmed);
+		int acknowledged = replay(work, confirmedTime, serverTime, sendTimes, inputDelay, false);
+		work.drop();
+		remove(acknowledged);
+
+		// 3. the stone of the server
+		if (predictedStoneDiffers(state)) {
+			stoneMismatches++;
+		}// if
+		if (state.getCurrStone() != 0) {
+			work.spawn(state.getCurrStone(), state.getNextStone());
+		}// if
+		level = Math.max(1, state.getLevel());
+		confirmed.copyFrom(work);
+		confirmedTime = serverTime;
+
+		// 4. the moves the server has not yet received
+		predicted.copyFrom(confirmed);
+		predictedTime = serverTime;
+		replay(predicted, serverTime, now, inputTimes, 0, true);
+		predictedTime = serverTime + (now - serverTime) / getInterval() * getInterval();
+
+		predicted.render(after);
+		if (!Arrays.equals(before, after)) {
+			corrections++;
+		}// if
+	}// reconcile
+
+
+	/**
+	 * Applies the moves which the server has received up to the time to the confirmed state.<br/>
+	 * The time of the confirmed state stays at a step of the stone, so the steps are repeated<br/>
+	 * at the same times.
+	 */
+	private void confirm(long time) {
+		if (time <= confirmedTime) {
+			return;
+		}// if
+		int interval = getInterval();
+		int acknowledged = replay(confirmed, confirmedTime, time, sendTimes, inputDelay, false);
+		remove(acknowledged);
+		confirmedTime += (time - confirmedTime) / interval * interval;
+	}// confirm
+
+
+	/**
+	 * Removes the oldest moves from the list
+	 */
+	private void remove(int count) {
+		System.arraycopy(inputTimes, count, inputTimes, 0, inputCount - count);
+		System.arraycopy(sendTimes, count, sendTimes, 0, inputCount - count);
+		System.arraycopy(inputs, count, inputs, 0, inputCount - count);
+		inputCount -= count;
+	}// remove
+
+
+	/**
+	 * The prediction had already shown the new stone, but another one than the server
+	 */
+	private boolean predictedStoneDiffers(TetrisGameState state) {
+		int expected = confirmed.getNextStone();
+		return expected != 0 && state.getCurrStone() != 0 && expected != state.getCurrStone();
+	}// predictedStoneDiffers
+
+
+	/**
+	 * Repeats the moves and the steps of the stone between the times
+	 * @param times of type long[], the times of the moves, inputTimes or sendTimes
+	 * @param delay of type long, the time in ms from these times until the move is applied
+	 * @param isSpawning of type boolean, false -> a locked stone is not followed by the next stone,<br/>
+	 *            the server sends it
+	 * @return of type Integer, the number of moves up to the end time
+	 */
+	private int replay(TetrisModel model, long start, long end, long[] times, long delay,
+			boolean isSpawning) {
+		int interval = getInterval();
+		long step = start + interval;
+		int index = 0;
+		while (true) {
+			long inputTime = index < inputCount ? times[index] + delay : Long.MAX_VALUE;
+			boolean hasInput = inputTime <= end;
+			boolean hasStep = step <= end;
+			if (hasInput && (!hasStep || inputTime <= step)) {
+				apply(model, inputs[index]);
+				index++;
+			} else if (hasStep) {
+				if (isSpawning) {
+					fall(model);
+				} else {
+					model.step();
+				}// if
+				step += interval;
+			} else {
+				return index;
+			}// if
+		}// while
+	}// replay
+
+
+	/**
+	 * Lets the stone fall by one row, a locked stone is followed by the next known stone
+	 */
+	private boolean fall(TetrisModel model) {
+		boolean hadStone = model.hasStone();
+		if (model.step()) {
+			return true;
+		}// if
+		return model.spawnNext() || hadStone;
+	}// fall
+
+
+	private boolean apply(TetrisModel model, int move) {
+		switch (move) {
+		case MOVE_LEFT:
+			return model.move(-1);
+		case MOVE_RIGHT:
+			return model.move(1);
+		case MOVE_CLOCKWISE:
+			return model.rotate(1);
+		case MOVE_COUNTERCLOCKWISE:
+			return model.rotate(-1);
+		default:
+			return false;
+		}// switch
+	}// apply
+
+
+	private int getInterval() {
+		return Math.max(MIN_INTERVAL, FIRST_INTERVAL - (level - 1) * LEVEL_INTERVAL);
+	}// getInterval
+
+
+	/**
+	 * Draws the predicted board and stone
+	 * @param frame of type int[], the 160 LED values
+	 */
+	public void render(int[] frame) {
+		predicted.render(frame);
+	}// render
+
+
+	/**
+	 * @return of type long, how often the prediction was corrected by the server
+	 */
+	public long getCorrections() {
+		return corrections;
+	}// getCorrections
+
+
+	/**
+	 * Creates the report of the predictor
+	 * @return of type String, one value per line
+	 */
+	public String report() {
+		StringBuilder report = new StringBuilder(128);
+		report.append("tetris: moves=").append(moves).append('\n');
+		report.append("reconciliations=").append(reconciliations)
+				.append(" corrections=").append(corrections)
+				.append(" wrong stones=").append(stoneMismatches);
+		if (reconciliations > 0) {
+			report.append(" (").append(corrections * 100 / reconciliations).append(" %)");
+		}// if
+		report.append('\n');
+		return report.toString();
+	}// report
+
+}// class TetrisPredictor
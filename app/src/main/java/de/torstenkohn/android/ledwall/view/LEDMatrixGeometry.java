@@ -0,0 +1,210 @@
+package de.torstenkohn.android.ledwall.view;
+
+/**
+ * The position of the LEDs of a LEDMatrixView and the work of the view<br/>
+ * for a change and a draw: which rectangle is invalidated and which LEDs<br/>
+ * are inside the clip of the canvas.<br/>
+ * The LEDs are square cells, they are centered in the view.<br/>
+ * <br/>
+ * The class does not use any Android classes, so the draw and invalidate<br/>
+ * logic of the view can also be measured by the benchmarks.
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class LEDMatrixGeometry {
+
+	/**
+	 * Draws one LED, e.g. on the Canvas of the LEDMatrixView
+	 */
+	public interface CellPainter {
+		/**
+		 * @param x of type Integer, the left side of the cell in the view
+		 * @param y of type Integer, the top side of the cell in the view
+		 * @param value of type Integer, 0 (none), 1 (red), 2 (green) or 3 (blue)
+		 */
+		void drawCell(int x, int y, int value);
+	}// interface CellPainter
+
+
+	private int columns;
+	private int rows;
+
+	/*
+	 * the position of the LEDs in the view
+	 */
+	private int cellSize;
+	private int left;
+	private int top;
+
+
+	/**
+	 * Constructor of the LEDMatrixGeometry
+	 * @param columns of type Integer, the number of LEDs in a row
+	 * @param rows of type Integer, the number of rows
+	 */
+	public LEDMatrixGeometry(int columns, int rows) {
+		setDimensions(columns, rows);
+	}// constructor
+
+
+	/**
+	 * Changes the number of LEDs, layout() must be called again
+	 * @param columns of type Integer, the number of LEDs in a row
+	 * @param rows of type Integer, the number of rows
+	 */
+	public void setDimensions(int columns, int rows) {
+		if (columns < 1 || rows < 1) {
+			throw new IllegalArgumentException("the wall needs at least one LED");
+		}// if
+		this.columns = columns;
+		this.rows = rows;
+		cellSize = 0;
+	}// setDimensions
+
+
+	/**
+	 * Calculates the size of the cells, the LEDs are centered in the area
+	 * @param paddingLeft of type Integer, the left side of the area in the view
+	 * @param paddingTop of type Integer, the top side of the area in the view
+	 * @param width of type Integer, the width of the area without the padding
+	 * @param height of type Integer, the height of the area without the padding
+	 */
+	public void layout(int paddingLeft, int paddingTop, int width, int height) {
+		cellSize = Math.max(0, Math.min(width / columns, height / rows));
+		left = paddingLeft + (width - cellSize * columns) / 2;
+		top = paddingTop + (height - cellSize * rows) / 2;
+	}// layout
+
+
+	public int getColumns() {
+		return columns;
+	}// getColumns
+
+
+	public int getRows() {
+		return rows;
+	}// getRows
+
+
+	/**
+	 * @return of type Integer, the size of a LED in pixels, 0 before layout()
+	 */
+	public int getCellSize() {
+		return cellSize;
+	}// getCellSize
+
+
+	/**
+	 * Returns the LED at the coordinates
+	 * @param x of type float, the x coordinate in the view
+	 * @param y of type float, the y coordinate in the view
+	 * @return of type Integer, the position of the LED, -1 if there is no LED
+	 */
+	public int getIndex(float x, float y) {
+		if (cellSize == 0 || x < left || y < top) {
+			return -1;
+		}// if
+		int column = (int) (x - left) / cellSize;
+		int row = (int) (y - top) / cellSize;
+		if (column >= columns || row >= rows) {
+			return -1;
+		}// if
+		return row * columns + column;
+	}// getIndex
+
+
+	/**
+	 * Returns the LED at the coordinates, outside of the field the nearest LED at its border
+	 * @param x of type float, the x coordinate in the view
+	 * @param y of type float, the y coordinate in the view
+	 * @return of type Integer, the position of the LED, -1 before layout()
+	 */
+	public int getNearestIndex(float x, float y) {
+		if (cellSize == 0) {
+			return -1;
+		}// if
+		int column = Math.max(0, Math.min(columns - 1, (int) Math.floor((x - left) / cellSize)));
+		int row = Math.max(0, Math.min(rows - 1, (int) Math.floor((y - top) / cellSize)));
+		return row * columns + column;
+	}// getNearestIndex
+
+
+	/**
+	 * Writes the rectangle of the LED into the array
+	 * @param index of type Integer, the position of the LED
+	 * @param rect of type int[], left, top, right and bottom in the view
+	 */
+	public void getCellRect(int index, int[] rect) {
+		rect[0] = left + (index % columns) * cellSize;
+		rect[1] = top + (index / columns) * cellSize;
+		rect[2] = rect[0] + cellSize;
+		rect[3] = rect[1] + cellSize;
+	}// getCellRect
+
+
+	/**
+	 * Copies the changed LED values and calculates the rectangle around the changed LEDs
+	 * @param values of type int[], the LED values of the view, they are changed
+	 * @param newValues of type int[], the new LED values, columns * rows values
+	 * @param rect of type int[], left, top, right and bottom of the changed LEDs in the view
+	 * @return of type boolean, true if at least one LED has changed
+	 */
+	public boolean update(int[] values, int[] newValues, int[] rect) {
+		int minColumn = columns;
+		int maxColumn = -1;
+		int minRow = rows;
+		int maxRow = -1;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != newValues[i]) {
+				values[i] = newValues[i];
+				int column = i % columns;
+				int row = i / columns;
+				minColumn = Math.min(minColumn, column);
+				maxColumn = Math.max(maxColumn, column);
+				minRow = Math.min(minRow, row);
+				maxRow = Math.max(maxRow, row);
+			}// if
+		}// for
+		if (maxColumn < 0) {
+			return false;
+		}// if
+		rect[0] = left + minColumn * cellSize;
+		rect[1] = top + minRow * cellSize;
+		rect[2] = left + (maxColumn + 1) * cellSize;
+		rect[3] = top + (maxRow + 1) * cellSize;
+		return true;
+	}// update
+
+
+	/**
+	 * Draws the LEDs inside the clip
+	 * @param values of type int[], the LED values, columns * rows values
+	 * @param clipLeft of type Integer, the left side of the clip in the view
+	 * @param clipTop of type Integer, the top side of the clip in the view
+	 * @param clipRight of type Integer, the right side of the clip in the view
+	 * @param clipBottom of type Integer, the bottom side of the clip in the view
+	 * @param painter of type CellPainter, draws the LEDs
+	 * @return of type Integer, the number of drawn LEDs
+	 */
+	public int draw(int[] values, int clipLeft, int clipTop, int clipRight, int clipBottom,
+			CellPainter painter) {
+		if (cellSize == 0) {
+			return 0;
+		}// if
+		int firstColumn = Math.max(0, (clipLeft - left) / cellSize);
+		int lastColumn = Math.min(columns - 1, (clipRight - 1 - left) / cellSize);
+		int firstRow = Math.max(0, (clipTop - top) / cellSize);
+		int lastRow = Math.min(rows - 1, (clipBottom - 1 - top) / cellSize);
+
+		for (int row = firstRow; row <= lastRow; row++) {
+			int y = top + row * cellSize;
+			int index = row * columns + firstColumn;
+			for (int column = firstColumn; column <= lastColumn; column++, index++) {
+				painter.drawCell(left + column * cellSize, y, values[index] & 3);
+			}// for
+		}// for
+		return Math.max(0, lastColumn - firstColumn + 1) * Math.max(0, lastRow - firstRow + 1);
+	}// draw
+
+}// class LEDMatrixGeometry
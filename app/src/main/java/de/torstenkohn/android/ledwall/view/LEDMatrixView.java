@@ -0,0 +1,400 @@
+package de.torstenkohn.android.ledwall.view;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import de.torstenkohn.android.ledwall.R;
+import de.torstenkohn.android.ledwall.connection.LatencyHistogram;
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+
+/**
+ * The view draws the LEDs of the wall from an array of LED values.<br/>
+ * One view replaces a field of ImageViews, so a wall with many LEDs<br/>
+ * is inflated and drawn as fast as the 10x16 LEDs of the LED Wall.<br/>
+ * <br/>
+ * - The images of the LEDs are scaled once to the size of a cell, if a cell<br/>
+ *   is too small for the image, the LEDs are drawn as rectangles with cached Paints.<br/>
+ * - A change of LEDs only invalidates the rectangle of the changed LEDs<br/>
+ *   and onDraw() only draws the LEDs inside the clip of the canvas.<br/>
+ * - A touch is turned into the index of the LED by the coordinates.<br/>
+ *   While the finger moves, the OnLEDTouchListener is informed about every LED<br/>
+ *   of the stroke, also about the LEDs between two touch events of a fast stroke.<br/>
+ * <br/>
+ * The position of the LEDs, the invalidated rectangles and the LEDs inside the clip<br/>
+ * are calculated by a LEDMatrixGeometry, see the LEDMatrixBenchmark.<br/>
+ * The time of onDraw() is recorded in a LatencyHistogram, see getDrawTime().
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class LEDMatrixView extends View {
+
+	/**
+	 * The listener is informed about the LEDs of a stroke, a click is a stroke of one LED
+	 */
+	public interface OnLEDTouchListener {
+		/**
+		 * @param view of type LEDMatrixView, the view of the LED
+		 * @param index of type Integer, the position of the LED in the array of LED values
+		 * @param isStrokeStart of type boolean, true for the first LED of a stroke
+		 */
+		void onLEDTouched(LEDMatrixView view, int index, boolean isStrokeStart);
+
+		/**
+		 * The finger was lifted or the stroke was cancelled
+		 * @param view of type LEDMatrixView, the view of the LED
+		 */
+		void onStrokeEnd(LEDMatrixView view);
+	}// interface OnLEDTouchListener
+
+
+	/**
+	 * The images of the LED values 0 (none), 1 (red), 2 (green) and 3 (blue)
+	 */
+	private static final int[] IMAGES = { R.drawable.pixel_none, R.drawable.pixel_red,
+			R.drawable.pixel_green, R.drawable.pixel_blue };
+
+	/**
+	 * The colours of the LED values if a cell is too small for the images
+	 */
+	private static final int[] COLORS = { Color.DKGRAY, Color.RED, Color.GREEN, Color.BLUE };
+
+	/**
+	 * The smallest size of a cell in pixels which is drawn with the images
+	 */
+	private static final int MIN_IMAGE_SIZE = 8;
+
+
+	private final LEDMatrixGeometry geometry = new LEDMatrixGeometry(
+			DrawFrameCodec.LEDWALL_WIDTH, DrawFrameCodec.LEDWALL_HEIGHT);
+	private int[] values = new int[DrawFrameCodec.LEDWALL_WIDTH * DrawFrameCodec.LEDWALL_HEIGHT];
+
+	private final Bitmap[] images = new Bitmap[IMAGES.length];
+	private final Bitmap[] scaledImages = new Bitmap[IMAGES.length];
+	private final Paint[] paints = new Paint[COLORS.length];
+
+	private final Rect clip = new Rect();
+	private final int[] dirty = new int[4];
+
+	/**
+	 * The canvas of onDraw() for the cellPainter
+	 */
+	private Canvas canvas;
+	private boolean isImage;
+
+	/**
+	 * Draws one LED inside the clip on the canvas of onDraw()
+	 */
+	private final LEDMatrixGeometry.CellPainter cellPainter = new LEDMatrixGeometry.CellPainter() {
+		@Override
+		public void drawCell(int x, int y, int value) {
+			if (isImage) {
+				canvas.drawBitmap(scaledImages[value], x, y, null);
+				return;
+			}// if
+			int cellSize = geometry.getCellSize();
+			if (value != 0 || cellSize > 2) {
+				// a small gap between the LEDs
+				int gap = cellSize > 2 ? 1 : 0;
+				canvas.drawRect(x, y, x + cellSize - gap, y + cellSize - gap, paints[value]);
+			}// if
+		}// drawCell
+	};
+	private final LatencyHistogram drawTime = new LatencyHistogram("draw");
+
+	private OnLEDTouchListener listener;
+
+	/**
+	 * The LED which was touched last, -1 if there is no stroke
+	 */
+	private int touchedIndex = -1;
+	private boolean isStroke;
+	private int touchedCount;
+
+
+	public LEDMatrixView(Context context) {
+		super(context);
+		init();
+	}// constructor
+
+
+	public LEDMatrixView(Context context, AttributeSet attrs) {
+		super(context, attrs);
+		init();
+	}// constructor
+
+
+	public LEDMatrixView(Context context, AttributeSet attrs, int defStyle) {
+		super(context, attrs, defStyle);
+		init();
+	}// constructor
+
+
+	private void init() {
+		for (int i = 0; i < IMAGES.length; i++) {
+			images[i] = BitmapFactory.decodeResource(getResources(), IMAGES[i]);
+			paints[i] = new Paint();
+			paints[i].setColor(COLORS[i]);
+		}// for
+		setBackgroundColor(Color.BLACK);
+	}// init
+
+
+	public void setOnLEDTouchListener(OnLEDTouchListener listener) {
+		this.listener = listener;
+	}// setOnLEDTouchListener
+
+
+	/**
+	 * Changes the number of LEDs, all LEDs are set to 0 (none)
+	 * @param columns of type Integer, the number of LEDs in a row
+	 * @param rows of type Integer, the number of rows
+	 */
+	public void setDimensions(int columns, int rows) {
+		geometry.setDimensions(columns, rows);
+		values = new int[columns * rows];
+		if (getWidth() > 0) {
+			layoutCells(getWidth(), getHeight());
+		}// if
+		requestLayout();
+		invalidate();
+	}// setDimensions
+
+
+	public int getColumns() {
+		return geometry.getColumns();
+	}// getColumns
+
+
+	public int getRows() {
+		return geometry.getRows();
+	}// getRows
+
+
+	public int getValue(int index) {
+		return values[index];
+	}// getValue
+
+
+	/**
+	 * Changes one LED, only its rectangle is drawn again
+	 * @param index of type Integer, the position of the LED
+	 * @param value of type Integer, 0 (none), 1 (red), 2 (green) or 3 (blue)
+	 */
+	public void setValue(int index, int value) {
+		if (values[index] == value) {
+			return;
+		}// if
+		values[index] = value;
+		geometry.getCellRect(index, dirty);
+		invalidate(dirty[0], dirty[1], dirty[2], dirty[3]);
+	}// setValue
+
+
+	/**
+	 * Changes all LEDs, only the rectangle around the changed LEDs is drawn again
+	 * @param newValues of type int[], the LED values, columns * rows values
+	 */
+	public void setValues(int[] newValues) {
+		if (geometry.update(values, newValues, dirty)) {
+			invalidate(dirty[0], dirty[1], dirty[2], dirty[3]);
+		}// if
+	}// setValues
+
+
+	/**
+	 * Returns the LED at the coordinates
+	 * @param x of type float, the x coordinate in the view
+	 * @param y of type float, the y coordinate in the view
+	 * @return of type Integer, the position of the LED, -1 if there is no LED
+	 */
+	public int getIndex(float x, float y) {
+		return geometry.getIndex(x, y);
+	}// getIndex
+
+
+	/**
+	 * @return of type LatencyHistogram, the time of onDraw()
+	 */
+	public LatencyHistogram getDrawTime() {
+		return drawTime;
+	}// getDrawTime
+
+
+	/**
+	 * The LEDs are square, without a fixed size they have the size of their images
+	 */
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		int paddingWidth = getPaddingLeft() + getPaddingRight();
+		int paddingHeight = getPaddingTop() + getPaddingBottom();
+		int imageSize = images[0].getWidth();
+		int columns = geometry.getColumns();
+		int rows = geometry.getRows();
+		int maxWidth = MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.UNSPECIFIED
+				? imageSize * columns : MeasureSpec.getSize(widthMeasureSpec) - paddingWidth;
+		int maxHeight = MeasureSpec.getMode(heightMeasureSpec) == MeasureSpec.UNSPECIFIED
+				? imageSize * rows : MeasureSpec.getSize(heightMeasureSpec) - paddingHeight;
+		int size = Math.max(1, Math.min(maxWidth / columns, maxHeight / rows));
+		setMeasuredDimension(resolveSize(size * columns + paddingWidth, widthMeasureSpec),
+				resolveSize(size * rows + paddingHeight, heightMeasureSpec));
+	}// onMeasure
+
+
+	/**
+	 * Calculates the size of the cells and scales the images of the LEDs once
+	 */
+	@Override
+	protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+		super.onSizeChanged(w, h, oldw, oldh);
+		layoutCells(w, h);
+	}// onSizeChanged
+
+
+	private void layoutCells(int w, int h) {
+		geometry.layout(getPaddingLeft(), getPaddingTop(),
+				w - getPaddingLeft() - getPaddingRight(), h - getPaddingTop() - getPaddingBottom());
+		int cellSize = geometry.getCellSize();
+		for (int i = 0; i < images.length; i++) {
+			scaledImages[i] = cellSize >= MIN_IMAGE_SIZE
+					? Bitmap.createScaledBitmap(images[i], cellSize, cellSize, true) : null;
+		}// for
+	}// layoutCells
+
+
+	/**
+	 * Draws the LEDs inside the clip of the canvas, normally only the changed LEDs
+	 */
+	@Override
+	protected void onDraw(Canvas canvas) {
+		if (geometry.getCellSize() == 0) {
+			return;
+		}// if
+		long start = System.nanoTime();
+		if (!canvas.getClipBounds(clip)) {
+			return;
+		}// if
+		this.canvas = canvas;
+		isImage = scaledImages[0] != null;
+		geometry.draw(values, clip.left, clip.top, clip.right, clip.bottom, cellPainter);
+		this.canvas = null;
+		drawTime.recordNanos(System.nanoTime() - start);
+	}// onDraw
+
+
+	/**
+	 * A stroke starts on a LED and ends when the finger is lifted,<br/>
+	 * a stroke of only one LED is also a click of the view
+	 */
+	@Override
+	public boolean onTouchEvent(MotionEvent event) {
+		if (!isEnabled()) {
+			return false;
+		}// if
+		switch (event.getActionMasked()) {
+		case MotionEvent.ACTION_DOWN:
+			int index = getIndex(event.getX(), event.getY());
+			if (index < 0) {
+				return false;
+			}// if
+			isStroke = true;
+			touchedIndex = -1;
+			touchedCount = 0;
+			touch(index);
+			return true;
+
+		case MotionEvent.ACTION_MOVE:
+			if (!isStroke) {
+				return false;
+			}// if
+			// the points between the last and this event, a fast finger skips several LEDs
+			for (int i = 0; i < event.getHistorySize(); i++) {
+				moveTo(event.getHistoricalX(i), event.getHistoricalY(i));
+			}// for
+			moveTo(event.getX(), event.getY());
+			return true;
+
+		case MotionEvent.ACTION_UP:
+		case MotionEvent.ACTION_CANCEL:
+			if (!isStroke) {
+				return false;
+			}// if
+			if (event.getActionMasked() == MotionEvent.ACTION_UP) {
+				moveTo(event.getX(), event.getY());
+				if (touchedCount == 1) {
+					performClick();
+				}// if
+			}// if
+			isStroke = false;
+			touchedIndex = -1;
+			if (listener != null) {
+				listener.onStrokeEnd(this);
+			}// if
+			return true;
+
+		default:
+			return isStroke;
+		}// switch
+	}// onTouchEvent
+
+
+	/**
+	 * Touches all LEDs on the line from the last LED to the LED at the coordinates
+	 */
+	private void moveTo(float x, float y) {
+		// outside of the field the line ends at its border
+		int index = geometry.getNearestIndex(x, y);
+		if (index < 0 || index == touchedIndex) {
+			return;
+		}// if
+		int columns = geometry.getColumns();
+		int column = index % columns;
+		int row = index / columns;
+
+		// Bresenham's line between the LEDs, the first LED was already touched
+		int startColumn = touchedIndex % columns;
+		int startRow = touchedIndex / columns;
+		int dx = Math.abs(column - startColumn);
+		int dy = -Math.abs(row - startRow);
+		int stepX = startColumn < column ? 1 : -1;
+		int stepY = startRow < row ? 1 : -1;
+		int error = dx + dy;
+		int c = startColumn;
+		int r = startRow;
+		while (c != column || r != row) {
+			int error2 = 2 * error;
+			if (error2 >= dy) {
+				error += dy;
+				c += stepX;
+			}// if
+			if (error2 <= dx) {
+				error += dx;
+				r += stepY;
+			}// if
+			touch(r * columns + c);
+		}// while
+	}// moveTo
+
+
+	private void touch(int index) {
+		touchedIndex = index;
+		touchedCount++;
+		if (listener != null) {
+			listener.onLEDTouched(this, index, touchedCount == 1);
+		}// if
+	}// touch
+
+
+	@Override
+	public boolean performClick() {
+		return super.performClick();
+	}// performClick
+
+}// class LEDMatrixView
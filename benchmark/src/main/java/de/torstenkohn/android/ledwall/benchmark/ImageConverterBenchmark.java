@@ -0,0 +1,162 @@
+package de.torstenkohn.android.ledwall.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+import de.torstenkohn.android.ledwall.image.ArrayPixelSource;
+import de.torstenkohn.android.ledwall.image.ImageConverter;
+
+/**
+ * Measures the conversion of an image into the LEDs of the wall.<br/>
+ * The sample images are generated like a photo: a sky with a gradient,<br/>
+ * a sun, a green ground and some noise, in the sizes of a small image,<br/>
+ * a Full HD image and the image of a 12 MP camera.<br/>
+ * <br/>
+ * - convert: downscale with the given number of threads and Floyd-Steinberg dithering<br/>
+ * - ditherNone, ditherOrdered, ditherFloydSteinberg: only the reduction of the 160 colours
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageConverterBenchmark {
+
+	/**
+	 * A sample image and a converter with the given number of threads
+	 */
+	@State(Scope.Thread)
+	public static class Image {
+
+		@Param({ "640x480", "1920x1080", "4000x3000" })
+		private String size;
+
+		@Param({ "1", "4" })
+		private int threads;
+
+		private ArrayPixelSource source;
+		private ImageConverter converter;
+		private final int[] matrix = new int[DrawFrameCodec.NUMBER_OF_LED];
+
+
+		@Setup
+		public void setup() {
+			int width = Integer.parseInt(size.substring(0, size.indexOf('x')));
+			int height = Integer.parseInt(size.substring(size.indexOf('x') + 1));
+			source = new ArrayPixelSource(createImage(width, height), width, height);
+			converter = new ImageConverter(threads);
+		}// setup
+
+
+		@TearDown
+		public void tearDown() {
+			converter.shutdown();
+		}// tearDown
+	}// inner class Image
+
+
+	/**
+	 * The 160 colours of the downscaled sample image
+	 */
+	@State(Scope.Thread)
+	public static class Colors {
+
+		private final int[] colors = new int[DrawFrameCodec.NUMBER_OF_LED];
+		private final int[] matrix = new int[DrawFrameCodec.NUMBER_OF_LED];
+
+
+		@Setup
+		public void setup() throws InterruptedException {
+			int width = 320;
+			int height = 240;
+			new ImageConverter(1).downscale(
+					new ArrayPixelSource(createImage(width, height), width, height), colors);
+		}// setup
+	}// inner class Colors
+
+
+	private static int[] createImage(int width, int height) {
+		int[] pixels = new int[width * height];
+		Random random = new Random(42);
+		int sunX = width * 2 / 3;
+		int sunY = height / 4;
+		long sunRadius = height / 8;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int r;
+				int g;
+				int b;
+				long dx = x - sunX;
+				long dy = y - sunY;
+				if (dx * dx + dy * dy < sunRadius * sunRadius) {
+					r = 250;
+					g = 220;
+					b = 60;
+				} else if (y > height * 2 / 3) {
+					r = 40;
+					g = 120 + 80 * x / width;
+					b = 30;
+				} else {
+					r = 60 + 60 * y / height;
+					g = 120 + 60 * y / height;
+					b = 230;
+				}// if
+				int noise = random.nextInt(32) - 16;
+				pixels[y * width + x] = 0xFF000000 | clamp(r + noise) << 16
+						| clamp(g + noise) << 8 | clamp(b + noise);
+			}// for
+		}// for
+		return pixels;
+	}// createImage
+
+
+	private static int clamp(int value) {
+		return Math.max(0, Math.min(255, value));
+	}// clamp
+
+
+	@Benchmark
+	public int[] convert(Image image) throws InterruptedException {
+		image.converter.convert(image.source, ImageConverter.Dithering.FLOYD_STEINBERG, image.matrix);
+		return image.matrix;
+	}// convert
+
+
+	@Benchmark
+	public int[] ditherNone(Colors colors) {
+		ImageConverter.dither(colors.colors, ImageConverter.Dithering.NONE, colors.matrix);
+		return colors.matrix;
+	}// ditherNone
+
+
+	@Benchmark
+	public int[] ditherOrdered(Colors colors) {
+		ImageConverter.dither(colors.colors, ImageConverter.Dithering.ORDERED, colors.matrix);
+		return colors.matrix;
+	}// ditherOrdered
+
+
+	@Benchmark
+	public int[] ditherFloydSteinberg(Colors colors) {
+		ImageConverter.dither(colors.colors, ImageConverter.Dithering.FLOYD_STEINBERG, colors.matrix);
+		return colors.matrix;
+	}// ditherFloydSteinberg
+
+}// class ImageConverterBenchmark
@@ -0,0 +1,63 @@
+package de.torstenkohn.android.ledwall.benchmark;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * The previous implementation of the functions TEXT, TETRIS and DRAW<br/>
+ * with org.json, including the second serialisation for the LogCat output.<br/>
+ * It is only used as reference for the benchmarks.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class JsonObjectEncoder {
+
+	/**
+	 * The LogCat output of the previous implementation, the string is created but discarded
+	 */
+	private String lastLog;
+
+
+	public String getFunctionText(String top, String bottom, String color,
+			boolean isInverted, String animation) throws JSONException {
+		JSONObject json = new JSONObject();
+		json.put("function", "text");
+		json.put("text-top", top);
+		json.put("text-bottom", bottom);
+		json.put("color", color);
+		json.put("inverted", isInverted);
+		json.put("animation", animation);
+		lastLog = "getFunctionText: " + json.toString();
+		return json.toString();
+	}// getFunctionText
+
+
+	public String getFunctionTetris(String action) throws JSONException {
+		JSONObject json = new JSONObject();
+		json.put("function", "tetris");
+		json.put("action", action);
+		lastLog = "getFunctionTetris: " + json.toString();
+		return json.toString();
+	}// getFunctionTetris
+
+
+	public String getFunctionDraw(int[] data) throws JSONException {
+		JSONObject json = new JSONObject();
+		JSONArray jsonArr = new JSONArray();
+		json.put("function", "draw");
+		for (int i = 0; i < data.length; i++) {
+			jsonArr.put(i, data[i]);
+		}// for
+		json.put("data", jsonArr);
+		lastLog = "getFunctionDraw: " + json.toString();
+		return json.toString();
+	}// getFunctionDraw
+
+
+	public String getLastLog() {
+		return lastLog;
+	}// getLastLog
+
+}// class JsonObjectEncoder
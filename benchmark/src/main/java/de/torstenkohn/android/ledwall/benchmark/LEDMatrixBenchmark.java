@@ -0,0 +1,150 @@
+package de.torstenkohn.android.ledwall.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.torstenkohn.android.ledwall.view.LEDMatrixGeometry;
+
+/**
+ * Measures the work of the LEDMatrixView for a change of the LEDs:<br/>
+ * the invalidated rectangle is calculated by the LEDMatrixGeometry and<br/>
+ * only the LEDs inside this rectangle are drawn again.<br/>
+ * <br/>
+ * - singleLED: one LED of a stroke, setValue() and the draw of its cell<br/>
+ * - animationFrame: a frame of the AnimationPlayer in which a column of LEDs<br/>
+ *   changes, setValues() and the draw of the changed rectangle<br/>
+ * - fullRedraw: every LED is drawn again, like a whole field which is invalidated,<br/>
+ *   e.g. the 160 ImageViews of the previous DrawActivity after setImageResource()<br/>
+ * <br/>
+ * The Canvas is replaced by the RasterPainter, which fills the pixels of a cell<br/>
+ * in an int array, so the cost of a drawn LED grows with the size of the cell.<br/>
+ * The view has the size of a phone screen, 1080x1080 pixels, the LEDs are square.
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LEDMatrixBenchmark {
+
+	/**
+	 * The width and the height of the view in pixels
+	 */
+	private static final int VIEW_SIZE = 1080;
+
+	/**
+	 * The number of prepared frames of the animation
+	 */
+	private static final int FRAMES = 64;
+
+	private static final int[] COLORS = { 0xFF444444, 0xFFFF0000, 0xFF00FF00, 0xFF0000FF };
+
+
+	/**
+	 * Replaces the Canvas of onDraw(), fills the rectangle of a LED with its colour
+	 */
+	private static class RasterPainter implements LEDMatrixGeometry.CellPainter {
+
+		private final int[] pixels = new int[VIEW_SIZE * VIEW_SIZE];
+		private int cellSize;
+
+		@Override
+		public void drawCell(int x, int y, int value) {
+			int color = COLORS[value];
+			for (int row = y; row < y + cellSize; row++) {
+				int offset = row * VIEW_SIZE;
+				for (int column = x; column < x + cellSize; column++) {
+					pixels[offset + column] = color;
+				}// for
+			}// for
+		}// drawCell
+
+	}// class RasterPainter
+
+
+	/**
+	 * The number of LEDs, columns x rows, 10x16 is the LED Wall
+	 */
+	@Param({ "10x16", "64x64", "128x128" })
+	public String dimensions;
+
+	private LEDMatrixGeometry geometry;
+	private RasterPainter painter;
+	private int[] values;
+	private int[][] frames;
+	private int frame;
+	private int led;
+	private final int[] dirty = new int[4];
+
+
+	/**
+	 * Prepares the frames of a marquee: every frame changes one column of LEDs
+	 */
+	@Setup
+	public void setup() {
+		int separator = dimensions.indexOf('x');
+		int columns = Integer.parseInt(dimensions.substring(0, separator));
+		int rows = Integer.parseInt(dimensions.substring(separator + 1));
+		geometry = new LEDMatrixGeometry(columns, rows);
+		geometry.layout(0, 0, VIEW_SIZE, VIEW_SIZE);
+		painter = new RasterPainter();
+		painter.cellSize = geometry.getCellSize();
+		values = new int[columns * rows];
+
+		Random random = new Random(42);
+		frames = new int[FRAMES][];
+		int[] previous = new int[values.length];
+		for (int i = 0; i < FRAMES; i++) {
+			frames[i] = previous.clone();
+			int column = i % columns;
+			for (int row = 0; row < rows; row++) {
+				frames[i][row * columns + column] = random.nextInt(4);
+			}// for
+			previous = frames[i];
+		}// for
+	}// setup
+
+
+	@Benchmark
+	public int singleLED() {
+		led = (led + 7) % values.length;
+		values[led] = (values[led] + 1) & 3;
+		geometry.getCellRect(led, dirty);
+		return geometry.draw(values, dirty[0], dirty[1], dirty[2], dirty[3], painter);
+	}// singleLED
+
+
+	@Benchmark
+	public int animationFrame() {
+		frame = (frame + 1) % FRAMES;
+		if (!geometry.update(values, frames[frame], dirty)) {
+			return 0;
+		}// if
+		return geometry.draw(values, dirty[0], dirty[1], dirty[2], dirty[3], painter);
+	}// animationFrame
+
+
+	@Benchmark
+	public int fullRedraw() {
+		frame = (frame + 1) % FRAMES;
+		System.arraycopy(frames[frame], 0, values, 0, values.length);
+		return geometry.draw(values, 0, 0, VIEW_SIZE, VIEW_SIZE, painter);
+	}// fullRedraw
+
+}// class LEDMatrixBenchmark
@@ -0,0 +1,154 @@
+package de.torstenkohn.android.ledwall.benchmark;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.torstenkohn.android.ledwall.connection.FrameDecoder;
+import de.torstenkohn.android.ledwall.connection.FrameDecoder.FrameListener;
+import de.torstenkohn.android.ledwall.core.ServerMessageParser;
+import de.torstenkohn.android.ledwall.util.TetrisGameState;
+
+/**
+ * Measures the receive path of the LEDWallService over a loopback socket:<br/>
+ * the server side writes TETRIS messages, the app side reads them with<br/>
+ * the FrameDecoder and the ServerMessageParser like the ReaderThread does.<br/>
+ * The LEDWallService itself is not used, because it depends on the activities.<br/>
+ * <br/>
+ * - single: one message per round trip through the socket<br/>
+ * - batch: BATCH messages are written at once, so one read returns<br/>
+ *   several messages and messages are split between two reads
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoopbackFramingBenchmark implements FrameListener {
+
+	private static final String MESSAGE = "{\"function\":\"tetris\",\"gameState\":"
+			+ "{\"score\":1250,\"level\":4,\"isRunning\":true,\"nextStone\":\"L\"}}";
+
+	/**
+	 * The number of messages of the batch benchmark, they fit into the socket buffer
+	 */
+	private static final int BATCH = 64;
+
+
+	@Param({ "NEWLINE", "LENGTH_PREFIXED", "JSON" })
+	private FrameDecoder.Framing framing;
+
+	private ServerSocket serverSocket;
+	private Socket server;
+	private Socket client;
+	private BufferedWriter out;
+	private BufferedReader in;
+
+	private char[] frame;
+	private FrameDecoder decoder;
+	private ServerMessageParser parser;
+	private TetrisGameState gameState;
+	private int frames;
+
+
+	@Setup
+	public void setup() throws IOException {
+		serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		client = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+		client.setTcpNoDelay(true);
+		server = serverSocket.accept();
+		server.setTcpNoDelay(true);
+		out = new BufferedWriter(new OutputStreamWriter(server.getOutputStream(), "UTF-8"));
+		in = new BufferedReader(new InputStreamReader(client.getInputStream(), "UTF-8"));
+
+		frame = frame(framing).toCharArray();
+		decoder = new FrameDecoder(framing, this);
+		parser = new ServerMessageParser();
+		gameState = new TetrisGameState();
+	}// setup
+
+
+	@TearDown
+	public void tearDown() throws IOException {
+		client.close();
+		server.close();
+		serverSocket.close();
+	}// tearDown
+
+
+	private static String frame(FrameDecoder.Framing framing) {
+		switch (framing) {
+		case NEWLINE:
+			return MESSAGE + "\n";
+		case LENGTH_PREFIXED:
+			return MESSAGE.length() + ":" + MESSAGE;
+		default:
+			return MESSAGE;
+		}// switch
+	}// frame
+
+
+	@Override
+	public void onFrame(char[] buffer, int offset, int length) {
+		parser.parse(buffer, offset, length, gameState);
+		frames++;
+	}// onFrame
+
+
+	@Benchmark
+	public int single() throws IOException {
+		out.write(frame);
+		out.flush();
+		return receive(1);
+	}// single
+
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int batch() throws IOException {
+		for (int i = 0; i < BATCH; i++) {
+			out.write(frame);
+		}// for
+		out.flush();
+		return receive(BATCH);
+	}// batch
+
+
+	/**
+	 * Reads until the given number of messages is delivered by the FrameDecoder
+	 */
+	private int receive(int count) throws IOException {
+		int expected = frames + count;
+		while (frames < expected) {
+			if (decoder.readFrom(in) < 0) {
+				throw new IOException("connection closed");
+			}// if
+		}// while
+		return gameState.getScore();
+	}// receive
+
+}// class LoopbackFramingBenchmark
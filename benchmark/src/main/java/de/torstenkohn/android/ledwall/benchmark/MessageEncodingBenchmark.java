@@ -0,0 +1,158 @@
+package de.torstenkohn.android.ledwall.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.torstenkohn.android.ledwall.core.DrawDeltaEncoder;
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+import de.torstenkohn.android.ledwall.core.LEDWallMessage;
+
+/**
+ * Compares the encoding of the functions TEXT, TETRIS and DRAW<br/>
+ * with org.json (JsonObjectEncoder) and with the LEDWallMessage encoder.<br/>
+ * The rarely sent functions CONNECT, BREAK and DISCONNECT and the<br/>
+ * DRAW delta and binary formats are measured as well.<br/>
+ * Run with the GC profiler (-prof gc) to see the allocations per message<br/>
+ * (gc.alloc.rate.norm).
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageEncodingBenchmark {
+
+	private LEDWallMessage ledWallMessage;
+	private JsonObjectEncoder jsonObjectEncoder;
+	private int[] matrix;
+	private int[] runs;
+	private int runCount;
+	private ByteBuffer drawBuffer;
+
+
+	@Setup
+	public void setup() {
+		ledWallMessage = new LEDWallMessage();
+		jsonObjectEncoder = new JsonObjectEncoder();
+		matrix = new int[DrawFrameCodec.NUMBER_OF_LED];
+		Random random = new Random(42);
+		for (int i = 0; i < matrix.length; i++) {
+			matrix[i] = random.nextInt(4);
+		}// for
+
+		// a typical delta: a few LEDs changed since the last frame
+		DrawDeltaEncoder deltaEncoder = new DrawDeltaEncoder();
+		deltaEncoder.commit(matrix);
+		int[] changed = matrix.clone();
+		for (int i = 0; i < 8; i++) {
+			changed[random.nextInt(changed.length)] = random.nextInt(4);
+		}// for
+		runCount = deltaEncoder.diff(changed);
+		runs = deltaEncoder.getRuns().clone();
+		drawBuffer = ByteBuffer.allocate(DrawFrameCodec.DELTA_MAX_SIZE);
+	}// setup
+
+
+	@Benchmark
+	public String tetrisJsonObject() throws JSONException {
+		return jsonObjectEncoder.getFunctionTetris(LEDWallMessage.ACTION_LEFT);
+	}// tetrisJsonObject
+
+
+	@Benchmark
+	public String tetrisEncoder() {
+		return ledWallMessage.getFunctionTetris(LEDWallMessage.ACTION_LEFT);
+	}// tetrisEncoder
+
+
+	@Benchmark
+	public String drawJsonObject() throws JSONException {
+		return jsonObjectEncoder.getFunctionDraw(matrix);
+	}// drawJsonObject
+
+
+	@Benchmark
+	public String drawEncoder() {
+		return ledWallMessage.getFunctionDraw(matrix);
+	}// drawEncoder
+
+
+	/**
+	 * The service thread writes the StringBuilder directly to the stream,<br/>
+	 * so this is the path without any allocation.
+	 */
+	@Benchmark
+	public int drawEncoderBuilder() {
+		return ledWallMessage.encodeFunctionDraw(matrix).length();
+	}// drawEncoderBuilder
+
+
+	@Benchmark
+	public int drawDeltaEncoderBuilder() {
+		return ledWallMessage.encodeFunctionDrawDelta(runs, runCount).length();
+	}// drawDeltaEncoderBuilder
+
+
+	@Benchmark
+	public int drawBinary() {
+		drawBuffer.clear();
+		DrawFrameCodec.encode(matrix, drawBuffer);
+		return drawBuffer.position();
+	}// drawBinary
+
+
+	@Benchmark
+	public int drawBinaryDelta() {
+		drawBuffer.clear();
+		DrawFrameCodec.encodeDelta(runs, runCount, drawBuffer);
+		return drawBuffer.position();
+	}// drawBinaryDelta
+
+
+	@Benchmark
+	public String connect() {
+		return ledWallMessage.getFunctionConnect("menu");
+	}// connect
+
+
+	@Benchmark
+	public String breakFunction() {
+		return ledWallMessage.getFunctionBreak();
+	}// breakFunction
+
+
+	@Benchmark
+	public String disconnect() {
+		return ledWallMessage.getFunctionDisconnect();
+	}// disconnect
+
+
+	@Benchmark
+	public String textJsonObject() throws JSONException {
+		return jsonObjectEncoder.getFunctionText("Hallo", "Welt", "red", false, "none");
+	}// textJsonObject
+
+
+	@Benchmark
+	public String textEncoder() {
+		return ledWallMessage.getFunctionText("Hallo", "Welt", "red", false, "none");
+	}// textEncoder
+
+}// class MessageEncodingBenchmark
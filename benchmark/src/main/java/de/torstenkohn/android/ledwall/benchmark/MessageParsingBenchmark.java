@@ -0,0 +1,154 @@
+package de.torstenkohn.android.ledwall.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.torstenkohn.android.ledwall.core.DrawDeltaEncoder;
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+import de.torstenkohn.android.ledwall.core.ServerMessageParser;
+import de.torstenkohn.android.ledwall.util.TetrisGameState;
+
+/**
+ * Compares the receive path for a TETRIS message of the server.<br/>
+ * The previous implementation created a string and parsed it twice with org.json<br/>
+ * (function in the service thread, game state in the activity),<br/>
+ * the ServerMessageParser reads the receive buffer once.<br/>
+ * The other messages of the server (CONNECT response, DISCONNECT)<br/>
+ * and the decoding of the binary DRAW formats are measured as well.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageParsingBenchmark {
+
+	private static final String MESSAGE = "{\"function\":\"tetris\",\"gameState\":"
+			+ "{\"score\":1250,\"level\":4,\"isRunning\":true,\"nextStone\":\"L\"}}";
+
+	private static final String CONNECT_RESPONSE = "{\"function\":\"connect\","
+			+ "\"status\":\"success\",\"encoding\":\"binary\",\"delta\":true}";
+
+	private static final String DISCONNECT = "{\"function\":\"disconnect\"}";
+
+	private char[] buffer;
+	private char[] connectBuffer;
+	private char[] disconnectBuffer;
+	private ByteBuffer drawFrame;
+	private ByteBuffer deltaFrame;
+	private int deltaCount;
+	private int[] matrix;
+	private ServerMessageParser parser;
+	private TetrisGameState gameState;
+
+
+	@Setup
+	public void setup() {
+		buffer = MESSAGE.toCharArray();
+		parser = new ServerMessageParser();
+		gameState = new TetrisGameState();
+		connectBuffer = CONNECT_RESPONSE.toCharArray();
+		disconnectBuffer = DISCONNECT.toCharArray();
+
+		matrix = new int[DrawFrameCodec.NUMBER_OF_LED];
+		Random random = new Random(42);
+		for (int i = 0; i < matrix.length; i++) {
+			matrix[i] = random.nextInt(4);
+		}// for
+		drawFrame = ByteBuffer.allocate(DrawFrameCodec.FRAME_SIZE);
+		DrawFrameCodec.encode(matrix, drawFrame);
+
+		DrawDeltaEncoder deltaEncoder = new DrawDeltaEncoder();
+		deltaEncoder.commit(matrix);
+		int[] changed = matrix.clone();
+		for (int i = 0; i < 8; i++) {
+			changed[random.nextInt(changed.length)] = random.nextInt(4);
+		}// for
+		deltaCount = deltaEncoder.diff(changed);
+		deltaFrame = ByteBuffer.allocate(DrawFrameCodec.DELTA_MAX_SIZE);
+		DrawFrameCodec.encodeDelta(deltaEncoder.getRuns(), deltaCount, deltaFrame);
+	}// setup
+
+
+	@Benchmark
+	public TetrisGameState tetrisJsonObject() throws JSONException {
+		String message = new String(buffer, 0, buffer.length);
+		String function = new JSONObject(message).getString("function");
+		TetrisGameState result = null;
+		if (function.equals("tetris")) {
+			JSONObject json = new JSONObject(message).getJSONObject("gameState");
+			result = new TetrisGameState(json.getInt("score"), json.getInt("level"),
+					json.getBoolean("isRunning"), json.getString("nextStone"));
+		}// if
+		return result;
+	}// tetrisJsonObject
+
+
+	@Benchmark
+	public TetrisGameState tetrisParser() {
+		parser.parse(buffer, 0, buffer.length, gameState);
+		return gameState;
+	}// tetrisParser
+
+
+	@Benchmark
+	public boolean connectResponseJsonObject() throws JSONException {
+		// startExchange() parsed the response three times (status, encoding, delta)
+		String message = new String(connectBuffer, 0, connectBuffer.length);
+		boolean isSuccess = new JSONObject(message).getString("status").equals("success");
+		boolean isBinary = new JSONObject(message).optString("encoding", "json").equals("binary");
+		boolean isDelta = new JSONObject(message).optBoolean("delta", false);
+		return isSuccess && isBinary && isDelta;
+	}// connectResponseJsonObject
+
+
+	@Benchmark
+	public boolean connectResponseParser() {
+		parser.parse(connectBuffer, 0, connectBuffer.length, null);
+		return parser.isSuccess() && parser.isDelta();
+	}// connectResponseParser
+
+
+	@Benchmark
+	public String disconnectParser() {
+		parser.parse(disconnectBuffer, 0, disconnectBuffer.length, gameState);
+		return parser.getFunction();
+	}// disconnectParser
+
+
+	@Benchmark
+	public int[] drawBinaryDecode() {
+		// the marker is read by the receiver before the data
+		drawFrame.position(1);
+		DrawFrameCodec.decode(drawFrame, matrix);
+		return matrix;
+	}// drawBinaryDecode
+
+
+	@Benchmark
+	public int[] drawBinaryDeltaDecode() {
+		// the marker and the number of runs are read by the receiver before the runs
+		deltaFrame.position(2);
+		DrawFrameCodec.decodeDelta(deltaFrame, deltaCount, matrix);
+		return matrix;
+	}// drawBinaryDeltaDecode
+
+}// class MessageParsingBenchmark
@@ -0,0 +1,115 @@
+package de.torstenkohn.android.ledwall.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+
+import de.torstenkohn.android.ledwall.connection.ConnectionManager;
+import de.torstenkohn.android.ledwall.connection.OutgoingMessage;
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+import de.torstenkohn.android.ledwall.core.LEDWallMessage;
+
+/**
+ * Measures the list of the ConnectionManager under contention.<br/>
+ * Several GUI threads add messages while the service thread takes them out,<br/>
+ * like the DrawActivity and the TetrisActivity do with fast input.<br/>
+ * <br/>
+ * - draw: DRAW messages, a newer message replaces the waiting one<br/>
+ * - tetris: TETRIS messages, which are never replaced<br/>
+ * <br/>
+ * The TETRIS producers wait while MAX_DEPTH messages are in the list,<br/>
+ * otherwise the list would grow until the memory is exhausted.<br/>
+ * They stop waiting at the end of the measurement, when the consumer is already finished.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageQueueBenchmark {
+
+	/**
+	 * The maximum number of waiting TETRIS messages
+	 */
+	private static final int MAX_DEPTH = 1024;
+
+
+	private ConnectionManager connectionManager;
+	private String tetrisMessage;
+	private int[] matrix;
+
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		connectionManager = ConnectionManager.getInstance();
+		connectionManager.clearMessages();
+		tetrisMessage = new LEDWallMessage().getFunctionTetris(LEDWallMessage.ACTION_LEFT);
+		matrix = new int[DrawFrameCodec.NUMBER_OF_LED];
+		Random random = new Random(42);
+		for (int i = 0; i < matrix.length; i++) {
+			matrix[i] = random.nextInt(4);
+		}// for
+	}// setup
+
+
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		connectionManager.clearMessages();
+	}// tearDown
+
+
+	@Benchmark
+	@Group("draw")
+	@GroupThreads(3)
+	public void drawProducer() {
+		connectionManager.addDrawMessage(matrix);
+	}// drawProducer
+
+
+	@Benchmark
+	@Group("draw")
+	@GroupThreads(1)
+	public OutgoingMessage drawConsumer() {
+		return connectionManager.getMessage();
+	}// drawConsumer
+
+
+	@Benchmark
+	@Group("tetris")
+	@GroupThreads(3)
+	public void tetrisProducer(Control control) {
+		while (connectionManager.getQueueDepth() >= MAX_DEPTH
+				&& !control.stopMeasurement) {
+			Thread.yield();
+		}// while
+		connectionManager.addMessage(LEDWallMessage.FUNC_TETRIS, tetrisMessage);
+	}// tetrisProducer
+
+
+	@Benchmark
+	@Group("tetris")
+	@GroupThreads(1)
+	public OutgoingMessage tetrisConsumer() {
+		return connectionManager.getMessage();
+	}// tetrisConsumer
+
+}// class MessageQueueBenchmark
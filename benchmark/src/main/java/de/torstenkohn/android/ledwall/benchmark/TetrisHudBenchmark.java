@@ -0,0 +1,174 @@
+package de.torstenkohn.android.ledwall.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.torstenkohn.android.ledwall.core.ServerMessageParser;
+import de.torstenkohn.android.ledwall.util.TetrisGameState;
+import de.torstenkohn.android.ledwall.util.TetrisHud;
+
+/**
+ * Measures the time of the UI thread for one game state of the server.<br/>
+ * A recorded stream of TETRIS messages is read once by the ServerMessageParser<br/>
+ * like the LEDWallService does it, the benchmark replays the game states:<br/>
+ * <br/>
+ * - hudUpdate: the TetrisHud passes only the changed values to the views<br/>
+ * - fullUpdate: every value is set again and the numbers are converted into strings,<br/>
+ *   like the previous updateGUI() of the TetrisActivity<br/>
+ * <br/>
+ * The views are replaced by the ViewStub, which copies the text and counts the calls.<br/>
+ * The allocations per update are shown by the GC profiler.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TetrisHudBenchmark {
+
+	/**
+	 * The number of game states of the recorded stream
+	 */
+	private static final int STREAM_LENGTH = 1024;
+
+	private static final String STONES = "IJLOSTZ";
+
+
+	/**
+	 * Replaces the TextViews, ImageViews and Buttons of the TetrisActivity
+	 */
+	private static class ViewStub implements TetrisHud.Display {
+
+		private final char[] score = new char[16];
+		private final char[] level = new char[16];
+		private int nextStone;
+		private int currStone;
+		private boolean isEnabled;
+		private int calls;
+
+		@Override
+		public void showRunning(boolean isRunning) {
+			// the stop button, the four control buttons and the start button
+			isEnabled = isRunning;
+			calls += 6;
+		}// showRunning
+
+		@Override
+		public void showScore(char[] digits, int length) {
+			System.arraycopy(digits, 0, score, 0, length);
+			calls++;
+		}// showScore
+
+		@Override
+		public void showLevel(char[] digits, int length) {
+			System.arraycopy(digits, 0, level, 0, length);
+			calls++;
+		}// showLevel
+
+		@Override
+		public void showNextStone(int stone) {
+			nextStone = stone;
+			calls++;
+		}// showNextStone
+
+		@Override
+		public void showCurrStone(int stone) {
+			currStone = stone;
+			calls++;
+		}// showCurrStone
+
+		/**
+		 * Like TextView.setText(CharSequence)
+		 */
+		private void setText(char[] view, CharSequence text) {
+			for (int i = 0; i < text.length(); i++) {
+				view[i] = text.charAt(i);
+			}// for
+			calls++;
+		}// setText
+
+	}// class ViewStub
+
+
+	private TetrisGameState[] stream;
+	private int position;
+	private TetrisGameState gameState;
+	private ViewStub views;
+	private TetrisHud hud;
+
+
+	/**
+	 * Records the stream: a new stone every message, the score changes with every<br/>
+	 * fourth stone, the level every 40 stones and every second message repeats<br/>
+	 * the previous game state, like a server which sends the state at a fixed rate.
+	 */
+	@Setup
+	public void setup() {
+		ServerMessageParser parser = new ServerMessageParser();
+		TetrisGameState received = new TetrisGameState();
+		Random random = new Random(42);
+		stream = new TetrisGameState[STREAM_LENGTH];
+		int score = 0;
+		char nextStone = 'T';
+		for (int i = 0; i < STREAM_LENGTH; i++) {
+			if (i % 2 == 0) {
+				nextStone = STONES.charAt(random.nextInt(STONES.length()));
+				if (random.nextInt(4) == 0) {
+					score += 40 * (1 + random.nextInt(4));
+				}// if
+			}// if
+			String message = "{\"function\":\"tetris\",\"gameState\":{\"score\":" + score
+					+ ",\"level\":" + (1 + i / 80) + ",\"isRunning\":true,\"nextStone\":\""
+					+ nextStone + "\"}}";
+			parser.parse(message, received);
+			stream[i] = new TetrisGameState();
+			stream[i].copyFrom(received);
+		}// for
+		position = 0;
+		gameState = new TetrisGameState();
+		views = new ViewStub();
+		hud = new TetrisHud(views);
+	}// setup
+
+
+	private TetrisGameState nextState() {
+		position = (position + 1) & (STREAM_LENGTH - 1);
+		return stream[position];
+	}// nextState
+
+
+	@Benchmark
+	public int hudUpdate() {
+		gameState.copyFrom(nextState());
+		hud.update(gameState);
+		return views.calls;
+	}// hudUpdate
+
+
+	@Benchmark
+	public int fullUpdate() {
+		gameState.copyFrom(nextState());
+		views.showRunning(gameState.isRunning());
+		views.setText(views.score, gameState.getScore() + "");
+		views.setText(views.level, gameState.getLevel() + "");
+		views.showNextStone(gameState.getNextStone());
+		views.showCurrStone(gameState.getCurrStone());
+		return views.calls;
+	}// fullUpdate
+
+}// class TetrisHudBenchmark
@@ -0,0 +1,89 @@
+package de.torstenkohn.android.ledwall.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.torstenkohn.android.ledwall.animation.MarqueeAnimation;
+import de.torstenkohn.android.ledwall.animation.TextRasterizer;
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+
+/**
+ * Measures one step of a marquee with the text rasterizer.<br/>
+ * <br/>
+ * - marqueeStep: the frame is moved by one column and the new column is written<br/>
+ * - renderFrame: the whole frame is written from the column stream<br/>
+ * - rasterizeFrame: the text is rasterized again for every step,<br/>
+ *   like a rasterizer without a column stream would do<br/>
+ * <br/>
+ * The result is the time per step, 1000 steps per second need less than 1 ms per second.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextRasterizerBenchmark {
+
+	private static final String TOP = "Grüße aus der Äpfelstraße!";
+	private static final String BOTTOM = "LED-Wall";
+
+	private MarqueeAnimation marquee;
+	private int[] columns;
+	private int[] frame;
+	private int step;
+
+
+	@Setup
+	public void setup() {
+		marquee = new MarqueeAnimation(TOP, BOTTOM, TextRasterizer.MULTICOLORED, false, 100);
+		columns = TextRasterizer.rasterize(TOP, BOTTOM, TextRasterizer.MULTICOLORED, 10);
+		frame = new int[DrawFrameCodec.NUMBER_OF_LED];
+		step = 0;
+	}// setup
+
+
+	private int nextStep() {
+		step++;
+		if (step == marquee.getSteps()) {
+			step = 0;
+		}// if
+		return step;
+	}// nextStep
+
+
+	@Benchmark
+	public int[] marqueeStep() {
+		marquee.renderStep(nextStep(), frame);
+		return frame;
+	}// marqueeStep
+
+
+	@Benchmark
+	public int[] renderFrame() {
+		TextRasterizer.render(columns, nextStep(), false, frame);
+		return frame;
+	}// renderFrame
+
+
+	@Benchmark
+	public int[] rasterizeFrame() {
+		int[] text = TextRasterizer.rasterize(TOP, BOTTOM, TextRasterizer.MULTICOLORED, 10);
+		TextRasterizer.render(text, nextStep(), false, frame);
+		return frame;
+	}// rasterizeFrame
+
+}// class TextRasterizerBenchmark
@@ -0,0 +1,39 @@
+package android.util;
+
+/**
+ * Stub of the Android Log class for the simulator on a plain JVM.<br/>
+ * The output is discarded, so the logging does not distort the latencies.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public final class Log {
+
+	public static final int DEBUG = 3;
+	public static final int ERROR = 6;
+
+
+	private Log() {
+	}// constructor
+
+
+	public static int d(String tag, String msg) {
+		return 0;
+	}// d
+
+
+	public static int d(String tag, String msg, Throwable tr) {
+		return 0;
+	}// d
+
+
+	public static int e(String tag, String msg) {
+		return 0;
+	}// e
+
+
+	public static int e(String tag, String msg, Throwable tr) {
+		return 0;
+	}// e
+
+}// class Log
@@ -0,0 +1,447 @@
+package de.torstenkohn.android.ledwall.simulator;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import de.torstenkohn.android.ledwall.core.DrawDeltaEncoder;
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+
+/**
+ * The class serves one connected app for the StandInServer.<br/>
+ * The stream can contain JSON messages and binary DRAW frames,<br/>
+ * which are distinguished by their first byte.<br/>
+ * All functions of the "API - Kommunikation" are handled: CONNECT, BREAK,<br/>
+ * DISCONNECT, TEXT, DRAW and TETRIS. The TETRIS function controls<br/>
+ * a TetrisEngine, which sends the gameState back to the app.<br/>
+ * Every applied message is reported to the WallListener.<br/>
+ * <br/>
+ * If the connection is lost without the DISCONNECT function, the session<br/>
+ * is kept by the StandInServer. When the app connects again with the same udid,<br/>
+ * the new session continues the wall, the text and the Tetris game.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class ClientSession extends Thread implements TetrisEngine.Output {
+
+	private static final String CHARSET = "UTF-8";
+
+	private static int sessionCounter = 1;
+
+
+	private final StandInServer server;
+	private final Socket socket;
+	private final boolean isBinarySupported;
+	private final ProtocolStatistics statistics;
+	private final WallListener listener;
+
+	/**
+	 * The game of the session, it is taken from the old session after a reconnect
+	 */
+	private volatile TetrisEngine tetris;
+
+	private InputStream in;
+	private OutputStream out;
+
+	/**
+	 * The current content of the LED wall
+	 */
+	private final int[] matrix = new int[DrawFrameCodec.NUMBER_OF_LED];
+
+	/**
+	 * Buffer for the JSON messages, it is reused for every message
+	 */
+	private final ByteArrayOutputStream jsonBuffer = new ByteArrayOutputStream(1024);
+
+	/**
+	 * Buffer for the binary DRAW frames, it is reused for every frame
+	 */
+	private final ByteBuffer drawBuffer = ByteBuffer.allocate(DrawFrameCodec.DELTA_MAX_SIZE);
+
+	/**
+	 * The udid of the app, sent with the CONNECT function
+	 */
+	private volatile int udid = -1;
+
+	/*
+	 * The last text of the TEXT function
+	 */
+	private volatile String textTop = "";
+	private volatile String textBottom = "";
+
+	/*
+	 * The end of the session: closed by the DISCONNECT function,
+	 * continued by a new session of the same app or suspended
+	 * until the app connects again
+	 */
+	private boolean isDisconnected;
+	private boolean isHandedOver;
+	private boolean isTetrisSuspended;
+
+
+	/**
+	 * Constructor of the ClientSession
+	 * @param server of type StandInServer, keeps the sessions by the udid of the app
+	 * @param socket of type Socket, the connection to the app
+	 * @param isBinarySupported of type boolean, true -> the binary DRAW format is confirmed
+	 * @param statistics of type ProtocolStatistics, counts the received messages
+	 * @param listener of type WallListener, is informed about every applied message or null
+	 * @param scheduler of type ScheduledExecutorService, executes the ticks of the Tetris game
+	 */
+	public ClientSession(StandInServer server, Socket socket, boolean isBinarySupported,
+			ProtocolStatistics statistics, WallListener listener,
+			ScheduledExecutorService scheduler) {
+		super(nextName());
+		this.server = server;
+		this.socket = socket;
+		this.isBinarySupported = isBinarySupported;
+		this.statistics = statistics;
+		this.listener = listener;
+		this.tetris = new TetrisEngine(this, scheduler, socket.getPort());
+	}// constructor
+
+
+	private static synchronized String nextName() {
+		return "ClientSession_" + sessionCounter++;
+	}// nextName
+
+
+	public int[] getMatrix() {
+		return matrix;
+	}// getMatrix
+
+
+	public int getUdid() {
+		return udid;
+	}// getUdid
+
+
+	public String getTextTop() {
+		return textTop;
+	}// getTextTop
+
+
+	public String getTextBottom() {
+		return textBottom;
+	}// getTextBottom
+
+
+	@Override
+	public void run() {
+		StandInServer.log(getName() + " connected: " + socket.getRemoteSocketAddress());
+		try {
+			in = new BufferedInputStream(socket.getInputStream());
+			out = socket.getOutputStream();
+
+			boolean isOpen = true;
+			while (isOpen) {
+				int first = in.read();
+				if (first < 0) {
+					break;
+				} else if (first == DrawFrameCodec.MARKER_DRAW) {
+					readBinaryDraw();
+				} else if (first == DrawFrameCodec.MARKER_DRAW_DELTA) {
+					readBinaryDelta();
+				} else if (first == '{') {
+					isOpen = handleJson(readJson());
+				}// if
+				// all other bytes (whitespace, line breaks) are ignored
+			}// while
+		} catch (IOException e) {
+			StandInServer.log(getName() + ": " + e);
+		} finally {
+			finish();
+			close();
+		}// try
+		StandInServer.log(getName() + " disconnected");
+	}// run
+
+
+	/**
+	 * Ends the session. Without the DISCONNECT function the Tetris game is only paused,<br/>
+	 * it is continued when the app connects again.
+	 */
+	private synchronized void finish() {
+		if (isHandedOver) {
+			return;
+		}// if
+		if (isDisconnected || udid < 0) {
+			tetris.stop();
+			server.remove(udid, this);
+		} else {
+			isTetrisSuspended = tetris.isRunning();
+			tetris.stop();
+		}// if
+	}// finish
+
+
+	/**
+	 * The new session of the same app continues this session.<br/>
+	 * The game sends its messages to the new session, this connection is closed.
+	 * @param next of type ClientSession, the new session
+	 * @return of type boolean, true -> the Tetris game was running and is continued
+	 */
+	private synchronized boolean handOver(ClientSession next) {
+		isHandedOver = true;
+		boolean isTetrisRunning = isTetrisSuspended || tetris.isRunning();
+		tetris.setOutput(next);
+		close();
+		return isTetrisRunning;
+	}// handOver
+
+
+	/**
+	 * Continues the wall, the text and the game of the old session of the app
+	 * @param previous of type ClientSession, the old session with the same udid
+	 */
+	private void resume(ClientSession previous) {
+		boolean isTetrisRunning = previous.handOver(this);
+		System.arraycopy(previous.matrix, 0, matrix, 0, matrix.length);
+		textTop = previous.textTop;
+		textBottom = previous.textBottom;
+		tetris = previous.tetris;
+		if (isTetrisRunning) {
+			tetris.onAction("start");
+		}// if
+		StandInServer.log(getName() + " RESUME udid=" + udid + " from " + previous.getName()
+				+ (isTetrisRunning ? ", Tetris continued" : ""));
+	}// resume
+
+
+	/**
+	 * Closes the connection without the DISCONNECT function, like a lost WLAN
+	 */
+	public void drop() {
+		close();
+	}// drop
+
+
+	private void readBinaryDraw() throws IOException {
+		readFully(DrawFrameCodec.DATA_SIZE);
+		DrawFrameCodec.decode(drawBuffer, matrix);
+		statistics.countDraw(ProtocolStatistics.DRAW_BINARY, DrawFrameCodec.FRAME_SIZE);
+		drawApplied();
+	}// readBinaryDraw
+
+
+	private void readBinaryDelta() throws IOException {
+		int count = in.read();
+		if (count < 0) {
+			throw new EOFException("incomplete binary DRAW delta frame");
+		}// if
+		int size = count * DrawDeltaEncoder.RUN_SIZE;
+		readFully(size);
+		DrawFrameCodec.decodeDelta(drawBuffer, count, matrix);
+		statistics.countDraw(ProtocolStatistics.DRAW_BINARY_DELTA, 2 + size);
+		drawApplied();
+	}// readBinaryDelta
+
+
+	/**
+	 * Reads the given number of bytes into the drawBuffer
+	 */
+	private void readFully(int size) throws IOException {
+		byte[] data = drawBuffer.array();
+		int read = 0;
+		while (read < size) {
+			int count = in.read(data, read, size - read);
+			if (count < 0) {
+				throw new EOFException("incomplete binary DRAW frame");
+			}// if
+			read += count;
+		}// while
+		drawBuffer.clear();
+		drawBuffer.limit(size);
+	}// readFully
+
+
+	/**
+	 * Reads a JSON object, the first brace is already read.<br/>
+	 * The end is found by counting the braces outside of strings.
+	 */
+	private String readJson() throws IOException {
+		jsonBuffer.reset();
+		jsonBuffer.write('{');
+		int depth = 1;
+		boolean inString = false;
+		boolean escaped = false;
+
+		while (depth > 0) {
+			int c = in.read();
+			if (c < 0) {
+				throw new EOFException("incomplete JSON message");
+			}// if
+			jsonBuffer.write(c);
+
+			if (inString) {
+				if (escaped) {
+					escaped = false;
+				} else if (c == '\\') {
+					escaped = true;
+				} else if (c == '"') {
+					inString = false;
+				}// if
+			} else if (c == '"') {
+				inString = true;
+			} else if (c == '{') {
+				depth++;
+			} else if (c == '}') {
+				depth--;
+			}// if
+		}// while
+		return jsonBuffer.toString(CHARSET);
+	}// readJson
+
+
+	/**
+	 * Handles a JSON message of the app
+	 * @return of type boolean, false if the app has disconnected
+	 */
+	private boolean handleJson(String message) throws IOException {
+		try {
+			JSONObject json = new JSONObject(message);
+			String function = json.getString("function");
+
+			if (function.equals("connect")) {
+				JSONObject response = new JSONObject();
+				response.put("function", "connect");
+				response.put("status", "success");
+				if (isBinarySupported && "binary".equals(json.optString("encoding"))) {
+					response.put("encoding", "binary");
+				}// if
+				if (json.optBoolean("delta")) {
+					response.put("delta", true);
+				}// if
+				if (json.optBoolean("moves")) {
+					response.put("moves", true);
+				}// if
+				udid = json.optInt("udid");
+				send(response.toString());
+				StandInServer.log(getName() + " CONNECT udid=" + json.optInt("udid")
+						+ " encoding=" + response.optString("encoding", "json")
+						+ " delta=" + response.optBoolean("delta"));
+				ClientSession previous = server.register(udid, this);
+				if (previous != null && previous != this) {
+					resume(previous);
+				}// if
+
+			} else if (function.equals("draw") && json.has("delta")) {
+				JSONArray runs = json.getJSONArray("delta");
+				for (int i = 0; i + 2 < runs.length(); i += DrawDeltaEncoder.RUN_SIZE) {
+					int start = runs.getInt(i);
+					int end = Math.min(start + runs.getInt(i + 1), matrix.length);
+					for (int led = start; led < end; led++) {
+						matrix[led] = runs.getInt(i + 2);
+					}// for
+				}// for
+				statistics.countDraw(ProtocolStatistics.DRAW_JSON_DELTA, jsonBuffer.size());
+				drawApplied();
+
+			} else if (function.equals("draw")) {
+				JSONArray data = json.getJSONArray("data");
+				for (int i = 0; i < data.length() && i < matrix.length; i++) {
+					matrix[i] = data.getInt(i);
+				}// for
+				statistics.countDraw(ProtocolStatistics.DRAW_JSON, jsonBuffer.size());
+				drawApplied();
+
+			} else if (function.equals("text")) {
+				textTop = json.optString("text-top");
+				textBottom = json.optString("text-bottom");
+				statistics.countOther();
+				if (listener != null) {
+					listener.onText(this, textTop);
+				}// if
+
+			} else if (function.equals("tetris")) {
+				String action = json.getString("action");
+				if (action.equals("moves")) {
+					tetris.onMoves(json.getString("moves"));
+				} else {
+					tetris.onAction(action);
+				}// if
+				statistics.countOther();
+				if (listener != null) {
+					listener.onTetris(this, action);
+				}// if
+
+			} else if (function.equals("break")) {
+				tetris.stop();
+				statistics.countOther();
+				StandInServer.log(getName() + " BREAK");
+
+			} else if (function.equals("disconnect")) {
+				StandInServer.log(getName() + " DISCONNECT");
+				synchronized (this) {
+					isDisconnected = true;
+				}// synchronized
+				return false;
+
+			} else {
+				statistics.countOther();
+				StandInServer.log(getName() + " " + message);
+			}// if
+		} catch (JSONException e) {
+			StandInServer.log(getName() + " invalid message: " + message);
+		}// try
+		return true;
+	}// handleJson
+
+
+	private void drawApplied() {
+		if (listener != null) {
+			listener.onDraw(this, matrix);
+		}// if
+	}// drawApplied
+
+
+	/**
+	 * Sends a message to the app. The method is synchronized,<br/>
+	 * because the Tetris game sends from the thread of the scheduler.
+	 */
+	private synchronized void send(String message) throws IOException {
+		out.write(message.getBytes(CHARSET));
+		out.flush();
+	}// send
+
+
+	@Override
+	public void sendGameState(String message) {
+		try {
+			send(message);
+		} catch (IOException e) {
+			StandInServer.log(getName() + " gameState: " + e);
+			close();
+		}// try
+	}// sendGameState
+
+
+	/**
+	 * The Tetris game is shown on the wall of the session
+	 */
+	@Override
+	public void showBoard(int[] board) {
+		System.arraycopy(board, 0, matrix, 0, matrix.length);
+	}// showBoard
+
+
+	private void close() {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// nothing to do, the session is finished anyway
+		}// try
+	}// close
+
+}// class ClientSession
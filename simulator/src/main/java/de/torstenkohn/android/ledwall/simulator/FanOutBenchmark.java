@@ -0,0 +1,311 @@
+package de.torstenkohn.android.ledwall.simulator;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import de.torstenkohn.android.ledwall.connection.NioTransport;
+import de.torstenkohn.android.ledwall.connection.WallGroup;
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+
+/**
+ * The benchmark drives many LED walls from one app like at an event.<br/>
+ * Every wall is a StandInServer on its own local port, all walls are connected<br/>
+ * by one WallGroup, so one NioTransport thread sends to all of them.<br/>
+ * The group broadcasts DRAW frames with a fixed rate, each frame carries its<br/>
+ * sequence number in the first 8 LEDs like in the SimulatedClient.<br/>
+ * <br/>
+ * Every second the frames which were applied on all walls per second and the latency<br/>
+ * from broadcastDraw() until the frame is applied on a wall are printed.<br/>
+ * At the end the percentiles of every wall are compared, so a wall which<br/>
+ * falls behind the others is visible (tail latency per wall).<br/>
+ * <br/>
+ * Usage: FanOutBenchmark [walls] [frames per second] [seconds] [json|binary]<br/>
+ * Default: 50 walls, 30 frames per second, 10 seconds, binary
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class FanOutBenchmark {
+
+	private static final int FIRST_UDID = 2000;
+
+	/**
+	 * The number of LEDs which store the sequence number of a frame
+	 */
+	private static final int STAMP_LEDS = 8;
+	private static final int SEQUENCE_SIZE = 1 << (2 * STAMP_LEDS);
+	private static final int SEQUENCE_MASK = SEQUENCE_SIZE - 1;
+
+	private static final int REPORT_INTERVAL = 1000;
+
+	/**
+	 * The number of walls with the highest p99 in the summary
+	 */
+	private static final int WORST_WALLS = 3;
+
+
+	private final StandInServer[] servers;
+	private final LatencyRecorder[] wallLatencies;
+	private final LatencyRecorder latency = new LatencyRecorder("DRAW all walls");
+	private final boolean isBinary;
+
+	/**
+	 * The time in ns when the frame with the sequence number was broadcast
+	 */
+	private final AtomicLongArray broadcastTimes = new AtomicLongArray(SEQUENCE_SIZE);
+	private final AtomicLong appliedFrames = new AtomicLong();
+
+
+	/**
+	 * Constructor of the FanOutBenchmark
+	 * @param count of type Integer, the number of walls
+	 * @param isBinary of type boolean, true -> the binary DRAW format is requested and confirmed
+	 */
+	public FanOutBenchmark(int count, boolean isBinary) {
+		this.isBinary = isBinary;
+		servers = new StandInServer[count];
+		wallLatencies = new LatencyRecorder[count];
+		for (int i = 0; i < count; i++) {
+			wallLatencies[i] = new LatencyRecorder("wall " + i);
+		}// for
+	}// constructor
+
+
+	/**
+	 * Starts a StandInServer for every wall
+	 */
+	private void startServers() throws IOException {
+		for (int i = 0; i < servers.length; i++) {
+			final StandInServer server = new StandInServer(0, isBinary);
+			server.setWallListener(new WallStamp(wallLatencies[i]));
+			server.open();
+			Thread thread = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						server.start();
+					} catch (IOException e) {
+						StandInServer.log("FanOutBenchmark: " + e);
+					}// try
+				}// run
+			}, "StandInServer_" + i);
+			thread.setDaemon(true);
+			thread.start();
+			servers[i] = server;
+		}// for
+	}// startServers
+
+
+	/**
+	 * Runs the benchmark
+	 * @param rate of type Integer, the broadcast frames per second
+	 * @param seconds of type Integer, the duration of the benchmark
+	 * @throws IOException if a server cannot be started
+	 * @throws InterruptedException if the benchmark is interrupted
+	 */
+	public void run(int rate, int seconds) throws IOException, InterruptedException {
+		startServers();
+
+		NioTransport transport = new NioTransport();
+		Thread transportThread = new Thread(transport, "NioTransport");
+		transportThread.start();
+
+		WallGroup group = new WallGroup(transport);
+		group.setBinaryDrawRequested(isBinary);
+		for (int i = 0; i < servers.length; i++) {
+			group.addWall("127.0.0.1", servers[i].getLocalPort(), FIRST_UDID + i);
+		}// for
+		awaitConnected(group);
+
+		long period = TimeUnit.SECONDS.toNanos(1) / rate;
+		long start = System.nanoTime();
+		long next = start;
+		long nextReport = start + TimeUnit.MILLISECONDS.toNanos(REPORT_INTERVAL);
+		long end = start + TimeUnit.SECONDS.toNanos(seconds);
+		long lastApplied = 0;
+		int sequence = 0;
+		int broadcasts = 0;
+		int[] matrix = new int[DrawFrameCodec.NUMBER_OF_LED];
+		Random random = new Random(1);
+
+		while (System.nanoTime() < end) {
+			// a few LEDs change like a drawing finger and the sequence number
+			matrix[STAMP_LEDS + random.nextInt(matrix.length - STAMP_LEDS)] = random.nextInt(4);
+			int stamp = sequence++ & SEQUENCE_MASK;
+			for (int i = 0; i < STAMP_LEDS; i++) {
+				matrix[i] = (stamp >> (2 * i)) & 3;
+			}// for
+			broadcastTimes.set(stamp, System.nanoTime());
+			group.broadcastDraw(matrix);
+			broadcasts++;
+
+			long now = System.nanoTime();
+			if (now >= nextReport) {
+				long applied = appliedFrames.get();
+				StandInServer.log("applied frames: " + (applied - lastApplied) + "/s on "
+						+ servers.length + " walls");
+				StandInServer.log(latency.report());
+				lastApplied = applied;
+				nextReport += TimeUnit.MILLISECONDS.toNanos(REPORT_INTERVAL);
+			}// if
+
+			next += period;
+			long delay = next - System.nanoTime();
+			if (delay > 0) {
+				LockSupport.parkNanos(delay);
+			}// if
+		}// while
+		double duration = (System.nanoTime() - start) / 1e9;
+
+		// the last frames are applied before the walls are closed
+		Thread.sleep(200);
+		long replaced = 0;
+		int slowWalls = 0;
+		for (WallGroup.Wall wall : group.getWalls()) {
+			long coalesced = wall.getQueue().getCoalescedCount();
+			replaced += coalesced;
+			if (coalesced > 0) {
+				slowWalls++;
+			}// if
+		}// for
+		group.close();
+		transport.shutdown();
+		transportThread.join();
+		for (StandInServer server : servers) {
+			server.stop();
+		}// for
+
+		summary(broadcasts, duration);
+		StandInServer.log("frames replaced by newer: " + replaced + " on " + slowWalls + " walls");
+	}// run
+
+
+	/**
+	 * Waits until all walls are connected
+	 */
+	private void awaitConnected(WallGroup group) throws InterruptedException, IOException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (System.nanoTime() < deadline) {
+			int connected = 0;
+			for (WallGroup.Wall wall : group.getWalls()) {
+				if (wall.getState() == WallGroup.WallState.CONNECTED) {
+					connected++;
+				}// if
+			}// for
+			if (connected == servers.length) {
+				StandInServer.log(connected + " walls connected");
+				return;
+			}// if
+			Thread.sleep(10);
+		}// while
+		throw new IOException("not all walls are connected");
+	}// awaitConnected
+
+
+	private void summary(int broadcasts, double duration) {
+		StandInServer.log("summary " + servers.length + " walls, " + broadcasts
+				+ " broadcast frames in " + String.format(Locale.US, "%.1f", duration) + " s");
+		StandInServer.log("applied frames: " + appliedFrames.get() + ", "
+				+ String.format(Locale.US, "%.0f", appliedFrames.get() / duration)
+				+ "/s on all walls");
+		StandInServer.log(latency.summary());
+
+		LatencyRecorder[] sorted = wallLatencies.clone();
+		long[] p99 = new long[sorted.length];
+		Arrays.sort(sorted, new Comparator<LatencyRecorder>() {
+
+			@Override
+			public int compare(LatencyRecorder a, LatencyRecorder b) {
+				long pa = a.getValueAtPercentile(99);
+				long pb = b.getValueAtPercentile(99);
+				return pa < pb ? -1 : (pa == pb ? 0 : 1);
+			}// compare
+		});
+		for (int i = 0; i < sorted.length; i++) {
+			p99[i] = sorted[i].getValueAtPercentile(99);
+		}// for
+		StandInServer.log("p99 per wall: best=" + millis(p99[0]) + " median="
+				+ millis(p99[p99.length / 2]) + " worst=" + millis(p99[p99.length - 1]) + " ms");
+		for (int i = Math.max(0, sorted.length - WORST_WALLS); i < sorted.length; i++) {
+			StandInServer.log(sorted[i].summary());
+		}// for
+	}// summary
+
+
+	private static String millis(long nanos) {
+		return String.format(Locale.US, "%.2f", nanos / 1000000.0);
+	}// millis
+
+
+	/**
+	 * Reads the sequence number of the applied frame and records the latency of the wall
+	 */
+	private class WallStamp implements WallListener {
+
+		private final LatencyRecorder wallLatency;
+
+
+		private WallStamp(LatencyRecorder wallLatency) {
+			this.wallLatency = wallLatency;
+		}// constructor
+
+
+		@Override
+		public void onDraw(ClientSession session, int[] matrix) {
+			int stamp = 0;
+			for (int i = 0; i < STAMP_LEDS; i++) {
+				stamp |= (matrix[i] & 3) << (2 * i);
+			}// for
+			long broadcastTime = broadcastTimes.get(stamp);
+			if (broadcastTime != 0) {
+				long nanos = System.nanoTime() - broadcastTime;
+				wallLatency.record(nanos);
+				latency.record(nanos);
+				appliedFrames.incrementAndGet();
+			}// if
+		}// onDraw
+
+
+		@Override
+		public void onText(ClientSession session, String top) {
+		}// onText
+
+
+		@Override
+		public void onTetris(ClientSession session, String action) {
+		}// onTetris
+	}// inner class WallStamp
+
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int count = 50;
+		int rate = 30;
+		int seconds = 10;
+		boolean isBinary = true;
+		if (args.length > 0) {
+			count = Integer.parseInt(args[0]);
+		}// if
+		if (args.length > 1) {
+			rate = Integer.parseInt(args[1]);
+		}// if
+		if (args.length > 2) {
+			seconds = Integer.parseInt(args[2]);
+		}// if
+		if (args.length > 3) {
+			isBinary = args[3].equals("binary");
+		}// if
+
+		StandInServer.log("fan-out benchmark: " + count + " walls, " + rate + " frames/s, "
+				+ seconds + " s, " + (isBinary ? "binary" : "json"));
+		new FanOutBenchmark(count, isBinary).run(rate, seconds);
+	}// main
+
+}// class FanOutBenchmark
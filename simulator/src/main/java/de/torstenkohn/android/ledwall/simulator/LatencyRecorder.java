@@ -0,0 +1,132 @@
+package de.torstenkohn.android.ledwall.simulator;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The class collects latencies and calculates percentiles.<br/>
+ * The samples of the current interval are reported and removed by report(),<br/>
+ * all samples (up to MAX_SAMPLES) are kept for the summary at the end.<br/>
+ * The methods are synchronized, because every client has its own thread.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class LatencyRecorder {
+
+	/**
+	 * The maximum number of samples of the summary, further samples are only counted
+	 */
+	private static final int MAX_SAMPLES = 1 << 20;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+
+	private final String name;
+
+	private long[] interval = new long[INITIAL_CAPACITY];
+	private int intervalCount;
+
+	private long[] all = new long[INITIAL_CAPACITY];
+	private int allCount;
+	private long totalCount;
+
+
+	/**
+	 * Constructor of the LatencyRecorder
+	 * @param name of type String, the name in the reports, e.g. the function
+	 */
+	public LatencyRecorder(String name) {
+		this.name = name;
+	}// constructor
+
+
+	/**
+	 * Adds a latency
+	 * @param nanos of type long, the latency in ns
+	 */
+	public synchronized void record(long nanos) {
+		if (intervalCount == interval.length) {
+			interval = Arrays.copyOf(interval, interval.length * 2);
+		}// if
+		interval[intervalCount++] = nanos;
+
+		if (allCount < MAX_SAMPLES) {
+			if (allCount == all.length) {
+				all = Arrays.copyOf(all, all.length * 2);
+			}// if
+			all[allCount++] = nanos;
+		}// if
+		totalCount++;
+	}// record
+
+
+	public synchronized long getCount() {
+		return totalCount;
+	}// getCount
+
+
+	/**
+	 * Creates a line with the percentiles of the samples since the last report
+	 * @return of type String, the report or "" if there is no new sample
+	 */
+	public synchronized String report() {
+		if (intervalCount == 0) {
+			return "";
+		}// if
+		String report = format(interval, intervalCount);
+		intervalCount = 0;
+		return report;
+	}// report
+
+
+	/**
+	 * Creates a line with the percentiles of all samples
+	 * @return of type String, the summary
+	 */
+	public synchronized String summary() {
+		if (allCount == 0) {
+			return name + ": no samples";
+		}// if
+		return format(all, allCount) + " (" + totalCount + " total)";
+	}// summary
+
+
+	/**
+	 * @param percent of type Integer, e.g. 99
+	 * @return of type long, the latency in ns below which the percentage of all samples lies, 0 without samples
+	 */
+	public synchronized long getValueAtPercentile(int percent) {
+		if (allCount == 0) {
+			return 0;
+		}// if
+		Arrays.sort(all, 0, allCount);
+		return all[percentile(allCount, percent)];
+	}// getValueAtPercentile
+
+
+	public String getName() {
+		return name;
+	}// getName
+
+
+	private String format(long[] samples, int count) {
+		Arrays.sort(samples, 0, count);
+		return name + ": n=" + count
+				+ " p50=" + millis(samples[percentile(count, 50)])
+				+ " p90=" + millis(samples[percentile(count, 90)])
+				+ " p99=" + millis(samples[percentile(count, 99)])
+				+ " max=" + millis(samples[count - 1]) + " ms";
+	}// format
+
+
+	private static int percentile(int count, int percent) {
+		return Math.min(count - 1, (int) ((long) count * percent / 100));
+	}// percentile
+
+
+	private static String millis(long nanos) {
+		return String.format(Locale.US, "%.2f", nanos / 1000000.0);
+	}// millis
+
+}// class LatencyRecorder
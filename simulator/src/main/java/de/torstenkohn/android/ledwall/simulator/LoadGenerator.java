@@ -0,0 +1,225 @@
+package de.torstenkohn.android.ledwall.simulator;
+
+import java.io.IOException;
+
+import de.torstenkohn.android.ledwall.connection.NioTransport;
+
+/**
+ * The load generator starts a StandInServer on a free local port and drives<br/>
+ * several SimulatedClients with a fixed rate of messages per client.<br/>
+ * Every second the latency from adding a message to the list until it is<br/>
+ * applied on the wall of the server is printed (p50, p90, p99, max),<br/>
+ * together with the received frames per format. At the end a summary<br/>
+ * over the whole run is printed, so two versions can be compared.<br/>
+ * <br/>
+ * With a drop interval the server closes all connections regularly like a lost WLAN.<br/>
+ * The clients connect again and the time until they are connected is printed.<br/>
+ * <br/>
+ * With the transport nio all clients are driven by one NioTransport thread<br/>
+ * instead of a sender and a reader thread per client.<br/>
+ * <br/>
+ * Usage: LoadGenerator [clients] [messages per second] [seconds] [draw|text|tetris] [json|binary] [drop interval in s] [stream|nio]<br/>
+ * Default: 10 clients, 30 messages per second, 10 seconds, draw, binary, no drops, stream
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class LoadGenerator implements WallListener {
+
+	/**
+	 * The udid of the first client, the clients are found by their udid
+	 */
+	private static final int FIRST_UDID = 1000;
+
+	private static final int REPORT_INTERVAL = 1000;
+
+
+	private final SimulatedClient[] clients;
+	private final LatencyRecorder latency;
+	private final LatencyRecorder recovery = new LatencyRecorder("reconnect");
+
+
+	/**
+	 * Constructor of the LoadGenerator
+	 * @param count of type Integer, the number of clients
+	 * @param rate of type Integer, the messages per second of each client
+	 * @param mode of type Mode, the messages which are sent
+	 * @param isBinary of type boolean, true -> the clients request the binary DRAW format
+	 */
+	public LoadGenerator(int count, int rate, SimulatedClient.Mode mode, boolean isBinary) {
+		latency = new LatencyRecorder(mode.name());
+		clients = new SimulatedClient[count];
+		for (int i = 0; i < count; i++) {
+			clients[i] = new SimulatedClient(FIRST_UDID + i, mode, isBinary, rate, latency,
+					recovery);
+		}// for
+	}// constructor
+
+
+	private SimulatedClient getClient(ClientSession session) {
+		int index = session.getUdid() - FIRST_UDID;
+		if (index >= 0 && index < clients.length) {
+			return clients[index];
+		}// if
+		return null;
+	}// getClient
+
+
+	@Override
+	public void onDraw(ClientSession session, int[] matrix) {
+		SimulatedClient client = getClient(session);
+		if (client != null) {
+			client.onDrawApplied(matrix);
+		}// if
+	}// onDraw
+
+
+	@Override
+	public void onText(ClientSession session, String top) {
+		SimulatedClient client = getClient(session);
+		if (client != null) {
+			client.onTextApplied(top);
+		}// if
+	}// onText
+
+
+	@Override
+	public void onTetris(ClientSession session, String action) {
+		SimulatedClient client = getClient(session);
+		if (client != null) {
+			client.onTetrisApplied();
+		}// if
+	}// onTetris
+
+
+	/**
+	 * Runs the load test
+	 * @param seconds of type Integer, the duration of the test
+	 * @param dropInterval of type Integer, the seconds between two drops of all connections, 0 = no drops
+	 * @param isNio of type boolean, true -> the clients use one NioTransport
+	 * @throws IOException if the server cannot be started or a client cannot connect
+	 * @throws InterruptedException if the test is interrupted
+	 */
+	public void run(int seconds, int dropInterval, boolean isNio)
+			throws IOException, InterruptedException {
+		final StandInServer server = new StandInServer(0, true);
+		server.setWallListener(this);
+		server.open();
+		Thread serverThread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					server.start();
+				} catch (IOException e) {
+					StandInServer.log("LoadGenerator: " + e);
+				}// try
+			}// run
+		}, "StandInServer");
+		serverThread.setDaemon(true);
+		serverThread.start();
+
+		NioTransport transport = null;
+		Thread transportThread = null;
+		if (isNio) {
+			transport = new NioTransport();
+			transportThread = new Thread(transport, "NioTransport");
+			transportThread.start();
+		}// if
+
+		for (SimulatedClient client : clients) {
+			if (transport != null) {
+				client.connect(transport, "127.0.0.1", server.getLocalPort());
+			} else {
+				client.connect("127.0.0.1", server.getLocalPort());
+			}// if
+		}// for
+		for (SimulatedClient client : clients) {
+			client.start();
+		}// for
+
+		for (int i = 0; i < seconds; i++) {
+			Thread.sleep(REPORT_INTERVAL);
+			String report = latency.report();
+			if (report.length() > 0) {
+				StandInServer.log(report);
+			}// if
+			report = server.getStatistics().report(REPORT_INTERVAL);
+			if (report.length() > 0) {
+				StandInServer.log(report);
+			}// if
+			report = recovery.report();
+			if (report.length() > 0) {
+				StandInServer.log(report);
+			}// if
+			if (dropInterval > 0 && (i + 1) % dropInterval == 0 && i + 1 < seconds) {
+				StandInServer.log("dropped " + server.dropConnections() + " connections");
+			}// if
+		}// for
+
+		long offered = 0;
+		long coalesced = 0;
+		long gameStates = 0;
+		long reconnects = 0;
+		for (SimulatedClient client : clients) {
+			reconnects += client.getReconnects();
+			client.stop();
+			offered += client.getQueue().getOfferedCount();
+			coalesced += client.getQueue().getCoalescedCount();
+			gameStates += client.getGameStates();
+		}// for
+		if (transport != null) {
+			// the last messages are sent before the transport ends
+			transport.shutdown();
+			transportThread.join();
+		}// if
+		server.stop();
+
+		StandInServer.log("summary " + clients.length + " clients, " + seconds + " s");
+		StandInServer.log(latency.summary());
+		StandInServer.log("messages added: " + offered + ", replaced by newer: " + coalesced
+				+ ", gameState received: " + gameStates);
+		if (dropInterval > 0) {
+			StandInServer.log(recovery.summary() + ", reconnects: " + reconnects);
+		}// if
+	}// run
+
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int count = 10;
+		int rate = 30;
+		int seconds = 10;
+		SimulatedClient.Mode mode = SimulatedClient.Mode.DRAW;
+		boolean isBinary = true;
+		int dropInterval = 0;
+		boolean isNio = false;
+		if (args.length > 0) {
+			count = Integer.parseInt(args[0]);
+		}// if
+		if (args.length > 1) {
+			rate = Integer.parseInt(args[1]);
+		}// if
+		if (args.length > 2) {
+			seconds = Integer.parseInt(args[2]);
+		}// if
+		if (args.length > 3) {
+			mode = SimulatedClient.Mode.valueOf(args[3].toUpperCase());
+		}// if
+		if (args.length > 4) {
+			isBinary = args[4].equals("binary");
+		}// if
+		if (args.length > 5) {
+			dropInterval = Integer.parseInt(args[5]);
+		}// if
+		if (args.length > 6) {
+			isNio = args[6].equals("nio");
+		}// if
+
+		StandInServer.log("load test: " + count + " clients, " + rate + " messages/s, "
+				+ seconds + " s, " + mode + ", " + (isBinary ? "binary" : "json")
+				+ (dropInterval > 0 ? ", drop every " + dropInterval + " s" : "")
+				+ (isNio ? ", nio" : ""));
+		new LoadGenerator(count, rate, mode, isBinary).run(seconds, dropInterval, isNio);
+	}// main
+
+}// class LoadGenerator
@@ -0,0 +1,92 @@
+package de.torstenkohn.android.ledwall.simulator;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The class counts the received DRAW frames and bytes per format.<br/>
+ * The counters are thread-safe, because every client has its own thread.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class ProtocolStatistics {
+
+	/*
+	 * The formats of the DRAW function
+	 */
+	public static final int DRAW_JSON = 0;
+	public static final int DRAW_JSON_DELTA = 1;
+	public static final int DRAW_BINARY = 2;
+	public static final int DRAW_BINARY_DELTA = 3;
+
+	private static final String[] NAMES = { "json", "json delta", "binary",
+			"binary delta" };
+
+
+	private final AtomicLongArray frames = new AtomicLongArray(NAMES.length);
+	private final AtomicLongArray bytes = new AtomicLongArray(NAMES.length);
+	private final AtomicLong otherMessages = new AtomicLong();
+
+	/**
+	 * values of the last report to calculate the rates
+	 */
+	private final long[] lastFrames = new long[NAMES.length];
+
+
+	/**
+	 * Counts a received DRAW frame
+	 * @param format of type Integer, one of the DRAW_ constants
+	 * @param size of type Integer, the size of the frame in bytes
+	 */
+	public void countDraw(int format, int size) {
+		frames.incrementAndGet(format);
+		bytes.addAndGet(format, size);
+	}// countDraw
+
+
+	public void countOther() {
+		otherMessages.incrementAndGet();
+	}// countOther
+
+
+	public long getFrames(int format) {
+		return frames.get(format);
+	}// getFrames
+
+
+	public long getBytes(int format) {
+		return bytes.get(format);
+	}// getBytes
+
+
+	/**
+	 * The method creates a line with the frame rates since the last report<br/>
+	 * and the average bytes per frame for every format which was received.
+	 * @param interval of type Integer, the time since the last report in ms
+	 * @return of type String, the report or "" if nothing was received since the last report
+	 */
+	public synchronized String report(int interval) {
+		StringBuilder report = new StringBuilder();
+		boolean hasChanged = false;
+		for (int format = 0; format < NAMES.length; format++) {
+			long count = frames.get(format);
+			if (count == 0) {
+				continue;
+			}// if
+			hasChanged |= count != lastFrames[format];
+			report.append("DRAW ").append(NAMES[format]).append(": ")
+					.append((count - lastFrames[format]) * 1000 / interval)
+					.append(" fps, ").append(bytes.get(format) / count)
+					.append(" bytes/frame | ");
+			lastFrames[format] = count;
+		}// for
+
+		if (!hasChanged) {
+			return "";
+		}// if
+		report.append("other messages: ").append(otherMessages.get());
+		return report.toString();
+	}// report
+
+}// class ProtocolStatistics
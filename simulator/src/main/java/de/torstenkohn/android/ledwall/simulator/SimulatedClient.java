@@ -0,0 +1,700 @@
+package de.torstenkohn.android.ledwall.simulator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import de.torstenkohn.android.ledwall.connection.FrameDecoder;
+import de.torstenkohn.android.ledwall.connection.FrameDecoder.FrameListener;
+import de.torstenkohn.android.ledwall.connection.MessageWriter;
+import de.torstenkohn.android.ledwall.connection.NioConnection;
+import de.torstenkohn.android.ledwall.connection.NioConnection.ConnectionListener;
+import de.torstenkohn.android.ledwall.connection.NioTransport;
+import de.torstenkohn.android.ledwall.connection.OutboundQueue;
+import de.torstenkohn.android.ledwall.connection.OutgoingMessage;
+import de.torstenkohn.android.ledwall.connection.ReconnectPolicy;
+import de.torstenkohn.android.ledwall.core.DrawDeltaEncoder;
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+import de.torstenkohn.android.ledwall.core.LEDWallMessage;
+import de.torstenkohn.android.ledwall.core.ServerMessageParser;
+import de.torstenkohn.android.ledwall.util.TetrisGameState;
+
+/**
+ * A simulated app for the LoadGenerator.<br/>
+ * It uses the same classes as the app for the way of a message to the wall:<br/>
+ * the messages are added to an OutboundQueue like in the ConnectionManager,<br/>
+ * the sender thread writes them with the MessageWriter like the LEDWallService<br/>
+ * and the messages of the server are read with the FrameDecoder and the ServerMessageParser.<br/>
+ * <br/>
+ * To measure the latency from the list to the wall, the time of each message<br/>
+ * is stored under a sequence number when it is added to the list:<br/>
+ * - DRAW: the number is drawn into the first 8 LEDs (2 bits each)<br/>
+ * - TEXT: the number is the upper text line<br/>
+ * - TETRIS: the actions are never replaced, so the n-th action on the wall<br/>
+ *   is the n-th action in the list<br/>
+ * The StandInServer runs in the same process, so both sides use the same clock.<br/>
+ * <br/>
+ * If the connection is lost, the client connects again like the LEDWallService:<br/>
+ * with the ReconnectPolicy and the CONNECT function with the same udid.<br/>
+ * The time from the loss until the server has confirmed the CONNECT function is recorded.<br/>
+ * <br/>
+ * With connect(NioTransport, ...) the client uses a NioConnection instead of the<br/>
+ * sender and the reader thread, all clients of the LoadGenerator then share one selector thread.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class SimulatedClient implements FrameListener {
+
+	/**
+	 * The kinds of load
+	 */
+	public enum Mode {
+		DRAW, TEXT, TETRIS
+	}// enum Mode
+
+
+	/**
+	 * The number of LEDs which store the sequence number of a DRAW message
+	 */
+	private static final int STAMP_LEDS = 8;
+
+	/**
+	 * The sequence numbers are stored modulo SEQUENCE_SIZE (16 bits = 8 LEDs)
+	 */
+	private static final int SEQUENCE_SIZE = 1 << (2 * STAMP_LEDS);
+	private static final int SEQUENCE_MASK = SEQUENCE_SIZE - 1;
+
+	private static final String[] TETRIS_ACTIONS = { LEDWallMessage.ACTION_LEFT,
+			LEDWallMessage.ACTION_RIGHT, LEDWallMessage.ACTION_CLOCKWISE,
+			LEDWallMessage.ACTION_COUNTERCLOCKWISE };
+
+	private static final int CONNECT_TIMEOUT = 2500;
+
+
+	private final int udid;
+	private final Mode mode;
+	private final boolean isBinaryRequested;
+	private final int rate;
+	private final LatencyRecorder latency;
+	private final LatencyRecorder recovery;
+	private final ReconnectPolicy policy;
+
+	private final OutboundQueue queue = new OutboundQueue();
+	private final DrawDeltaEncoder deltaEncoder = new DrawDeltaEncoder();
+	private final MessageWriter messageWriter = new MessageWriter(deltaEncoder);
+	private final LEDWallMessage ledWallMessage = new LEDWallMessage();
+	private final ServerMessageParser parser = new ServerMessageParser();
+	private final TetrisGameState gameState = new TetrisGameState();
+	private final Random random;
+
+	/**
+	 * The time in ns when the message with the sequence number was added to the list
+	 */
+	private final long[] enqueueTimes = new long[SEQUENCE_SIZE];
+	private int sequence;
+
+	/**
+	 * The number of TETRIS actions executed by the server
+	 */
+	private int appliedActions;
+
+	private final AtomicLong gameStates = new AtomicLong();
+	private final AtomicInteger reconnects = new AtomicInteger();
+
+	private String host;
+	private int port;
+
+	/*
+	 * The connection, it is only changed by connect() and by the sender
+	 * thread while isReconnecting is set
+	 */
+	private Socket socket;
+	private BufferedReader in;
+	private BufferedWriter out;
+	private FrameDecoder decoder;
+
+	/**
+	 * Protects the change of the connection, the reader waits on it during a reconnect
+	 */
+	private final Object connectionLock = new Object();
+
+	/**
+	 * Counts the connections, an error of an old connection is ignored
+	 */
+	private int generation;
+	private volatile boolean isReconnecting;
+	private long lostTime;
+
+	/**
+	 * The connection via the NioTransport, null if the blocking socket is used
+	 */
+	private NioConnection nioConnection;
+
+	private volatile boolean isRunning;
+	private boolean isAwaitingStatus;
+	private Thread producer;
+	private Thread sender;
+	private Thread reader;
+
+
+	/**
+	 * Constructor of the SimulatedClient
+	 * @param udid of type Integer, the udid of the app, it identifies the client on the server
+	 * @param mode of type Mode, the messages which are sent
+	 * @param isBinaryRequested of type boolean, true -> the binary DRAW format is requested
+	 * @param rate of type Integer, the messages per second which are added to the list
+	 * @param latency of type LatencyRecorder, receives the latencies of the messages
+	 * @param recovery of type LatencyRecorder, receives the time from a lost connection until it is connected again
+	 */
+	public SimulatedClient(int udid, Mode mode, boolean isBinaryRequested, int rate,
+			LatencyRecorder latency, LatencyRecorder recovery) {
+		this.udid = udid;
+		this.mode = mode;
+		this.isBinaryRequested = isBinaryRequested;
+		this.rate = rate;
+		this.latency = latency;
+		this.recovery = recovery;
+		this.random = new Random(udid);
+		this.policy = new ReconnectPolicy(ReconnectPolicy.DEFAULT_BASE_DELAY,
+				ReconnectPolicy.DEFAULT_MAX_DELAY, ReconnectPolicy.DEFAULT_OUTAGE_BUDGET,
+				new Random(udid));
+	}// constructor
+
+
+	public int getUdid() {
+		return udid;
+	}// getUdid
+
+
+	public OutboundQueue getQueue() {
+		return queue;
+	}// getQueue
+
+
+	/**
+	 * @return of type long, the number of gameState messages received from the server
+	 */
+	public long getGameStates() {
+		return gameStates.get();
+	}// getGameStates
+
+
+	/**
+	 * @return of type Integer, the number of successful reconnects
+	 */
+	public int getReconnects() {
+		return reconnects.get();
+	}// getReconnects
+
+
+	/**
+	 * Connects to the server, sends the CONNECT function and waits for the response
+	 * @param host of type String, the address of the server
+	 * @param port of type Integer, the port of the server
+	 * @throws IOException if the connection fails or the server refuses the CONNECT function
+	 */
+	public void connect(String host, int port) throws IOException {
+		this.host = host;
+		this.port = port;
+		open();
+	}// connect
+
+
+	/**
+	 * Connects to the server via the NioTransport, sends the CONNECT function and waits for the response.<br/>
+	 * A lost connection is connected again by the selector thread with the ReconnectPolicy.
+	 * @param transport of type NioTransport, the transport whose thread drives the connection
+	 * @param host of type String, the address of the server
+	 * @param port of type Integer, the port of the server
+	 * @throws IOException if the connection fails or the server refuses the CONNECT function
+	 */
+	public void connect(NioTransport transport, String host, int port) throws IOException {
+		NioListener listener = new NioListener();
+		nioConnection = transport.open(new InetSocketAddress(host, port),
+				FrameDecoder.Framing.JSON, queue, deltaEncoder,
+				OutgoingMessage.json(LEDWallMessage.FUNC_CONNECT, getFunctionConnect()), listener);
+		try {
+			if (!listener.connected.await(2 * CONNECT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				throw new IOException("no response of the server");
+			}// if
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted");
+		}// try
+		if (listener.error != null) {
+			nioConnection.close();
+			throw listener.error;
+		}// if
+	}// connect
+
+
+	private String getFunctionConnect() {
+		return "{\"function\":\"connect\",\"status\":\"menu\",\"udid\":" + udid
+				+ (isBinaryRequested ? ",\"encoding\":\"binary\"" : "")
+				+ ",\"delta\":true}";
+	}// getFunctionConnect
+
+
+	/**
+	 * Opens the connection and sends the CONNECT function, it is also used by the reconnect
+	 */
+	private void open() throws IOException {
+		socket = new Socket();
+		socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+		socket.setTcpNoDelay(true);
+		in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+		out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"));
+		decoder = new FrameDecoder(FrameDecoder.Framing.JSON, this);
+		// the new session of the server does not know the last frame
+		deltaEncoder.reset();
+
+		out.write(getFunctionConnect());
+		out.flush();
+
+		socket.setSoTimeout(CONNECT_TIMEOUT);
+		isAwaitingStatus = true;
+		while (isAwaitingStatus) {
+			if (decoder.readFrom(in) < 0) {
+				throw new EOFException("connection closed by server");
+			}// if
+		}// while
+		socket.setSoTimeout(0);
+		if (!parser.isSuccess()) {
+			throw new IOException("CONNECT refused by server");
+		}// if
+		messageWriter.setBinaryDraw(LEDWallMessage.ENCODING_BINARY.equals(parser.getEncoding()));
+		messageWriter.setDeltaDraw(parser.isDelta());
+	}// open
+
+
+	private void closeSocket() {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// nothing to do, the socket is not used anymore
+		}// try
+	}// closeSocket
+
+
+	/**
+	 * Starts the threads of the client: the producer adds the messages<br/>
+	 * with the given rate, the sender writes them to the server<br/>
+	 * and the reader receives the messages of the server.
+	 */
+	public void start() {
+		isRunning = true;
+		if (mode == Mode.TETRIS) {
+			offerTetris(LEDWallMessage.ACTION_INIT);
+			offerTetris(LEDWallMessage.ACTION_START);
+		}// if
+
+		producer = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				produce();
+			}// run
+		}, "SimulatedClient_" + udid + "_producer");
+
+		sender = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				send();
+			}// run
+		}, "SimulatedClient_" + udid + "_sender");
+
+		reader = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				receive();
+			}// run
+		}, "SimulatedClient_" + udid + "_reader");
+
+		producer.start();
+		if (nioConnection == null) {
+			sender.start();
+			reader.start();
+		}// if
+	}// start
+
+
+	/**
+	 * Stops the threads and sends the DISCONNECT function
+	 */
+	public void stop() {
+		isRunning = false;
+		producer.interrupt();
+		if (nioConnection != null) {
+			stopNio();
+			return;
+		}// if
+		sender.interrupt();
+		try {
+			producer.join();
+			sender.join();
+			if (mode == Mode.TETRIS) {
+				write(OutgoingMessage.json(LEDWallMessage.FUNC_TETRIS,
+						ledWallMessage.getFunctionTetris(LEDWallMessage.ACTION_QUIT)));
+			}// if
+			write(OutgoingMessage.json(LEDWallMessage.FUNC_DISCONNECT,
+					ledWallMessage.getFunctionDisconnect()));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			// the server has already closed the connection
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// nothing to do, the client is stopped anyway
+			}// try
+		}// try
+	}// stop
+
+
+	/**
+	 * Adds the last messages to the list, the NioConnection sends them before it is closed
+	 */
+	private void stopNio() {
+		try {
+			producer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}// try
+		if (mode == Mode.TETRIS) {
+			queue.offer(OutgoingMessage.json(LEDWallMessage.FUNC_TETRIS,
+					ledWallMessage.getFunctionTetris(LEDWallMessage.ACTION_QUIT)));
+		}// if
+		queue.offer(OutgoingMessage.json(LEDWallMessage.FUNC_DISCONNECT,
+				ledWallMessage.getFunctionDisconnect()));
+		nioConnection.close();
+	}// stopNio
+
+
+	/**
+	 * Adds the messages with a fixed rate, like a user who draws or plays
+	 */
+	private void produce() {
+		long period = TimeUnit.SECONDS.toNanos(1) / rate;
+		long next = System.nanoTime();
+		int[] matrix = new int[DrawFrameCodec.NUMBER_OF_LED];
+
+		while (isRunning) {
+			switch (mode) {
+			case DRAW:
+				// a few LEDs change like a drawing finger and the sequence number
+				matrix[STAMP_LEDS + random.nextInt(matrix.length - STAMP_LEDS)] = random
+						.nextInt(4);
+				int stamp = nextSequence();
+				for (int i = 0; i < STAMP_LEDS; i++) {
+					matrix[i] = (stamp >> (2 * i)) & 3;
+				}// for
+				queue.offer(OutgoingMessage.draw(matrix));
+				break;
+
+			case TEXT:
+				String top = String.valueOf(nextSequence());
+				queue.offer(OutgoingMessage.json(LEDWallMessage.FUNC_TEXT,
+						ledWallMessage.getFunctionText(top, "load", "red", false, "none")));
+				break;
+
+			case TETRIS:
+				offerTetris(TETRIS_ACTIONS[random.nextInt(TETRIS_ACTIONS.length)]);
+				break;
+			}// switch
+
+			next += period;
+			long delay = next - System.nanoTime();
+			if (delay > 0) {
+				LockSupport.parkNanos(delay);
+			}// if
+		}// while
+	}// produce
+
+
+	private void offerTetris(String action) {
+		nextSequence();
+		queue.offer(OutgoingMessage.json(LEDWallMessage.FUNC_TETRIS,
+				ledWallMessage.getFunctionTetris(action)));
+	}// offerTetris
+
+
+	/**
+	 * Stores the current time for the next sequence number
+	 * @return of type Integer, the sequence number
+	 */
+	private synchronized int nextSequence() {
+		int number = sequence++ & SEQUENCE_MASK;
+		enqueueTimes[number] = System.nanoTime();
+		return number;
+	}// nextSequence
+
+
+	/**
+	 * Sends the messages of the list like the LEDWallService.<br/>
+	 * After a lost connection the sender connects again,<br/>
+	 * the message which could not be sent is put back to the list.
+	 */
+	private void send() {
+		while (isRunning) {
+			if (isReconnecting) {
+				if (!reconnect()) {
+					break;
+				}// if
+				continue;
+			}// if
+
+			OutgoingMessage message;
+			try {
+				message = queue.poll(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				// the client is stopped or the reader has lost the connection
+				continue;
+			}// try
+			if (message != null) {
+				int current = generation;
+				try {
+					write(message);
+				} catch (IOException e) {
+					queue.requeue(message);
+					connectionLost(current, e);
+				}// try
+			}// if
+		}// while
+	}// send
+
+
+	/**
+	 * The connection was lost, the sender connects again.<br/>
+	 * An error of an old connection is ignored.
+	 * @param lostGeneration of type Integer, the connection on which the error occurred
+	 * @param e of type IOException, the error
+	 */
+	private void connectionLost(int lostGeneration, IOException e) {
+		synchronized (connectionLock) {
+			if (!isRunning || isReconnecting || lostGeneration != generation) {
+				return;
+			}// if
+			isReconnecting = true;
+			lostTime = System.nanoTime();
+		}// synchronized
+		closeSocket();
+		if (Thread.currentThread() != sender) {
+			sender.interrupt();
+		}// if
+	}// connectionLost
+
+
+	/**
+	 * Connects again with the delays of the ReconnectPolicy
+	 * @return of type boolean, true -> connected again | false -> stopped or given up
+	 */
+	private boolean reconnect() {
+		policy.start();
+		while (isRunning) {
+			if (policy.isExhausted()) {
+				StandInServer.log("SimulatedClient " + udid + ": given up after "
+						+ policy.getAttempts() + " attempts");
+				return false;
+			}// if
+			try {
+				Thread.sleep(policy.nextDelay());
+			} catch (InterruptedException e) {
+				continue;
+			}// try
+			try {
+				open();
+				synchronized (connectionLock) {
+					generation++;
+					isReconnecting = false;
+					connectionLock.notifyAll();
+				}// synchronized
+				reconnects.incrementAndGet();
+				recovery.record(System.nanoTime() - lostTime);
+				return true;
+			} catch (IOException e) {
+				closeSocket();
+			}// try
+		}// while
+		return false;
+	}// reconnect
+
+
+	private void write(OutgoingMessage message) throws IOException {
+		messageWriter.write(message, out, socket.getOutputStream());
+	}// write
+
+
+	/**
+	 * Receives the messages of the server, during a reconnect the reader waits
+	 */
+	private void receive() {
+		while (isRunning) {
+			int current;
+			BufferedReader stream;
+			FrameDecoder frameDecoder;
+			synchronized (connectionLock) {
+				if (isReconnecting) {
+					try {
+						connectionLock.wait(100);
+					} catch (InterruptedException e) {
+						return;
+					}// try
+					continue;
+				}// if
+				current = generation;
+				stream = in;
+				frameDecoder = decoder;
+			}// synchronized
+
+			try {
+				if (frameDecoder.readFrom(stream) < 0) {
+					throw new EOFException("connection closed by server");
+				}// if
+			} catch (IOException e) {
+				connectionLost(current, e);
+			}// try
+		}// while
+	}// receive
+
+
+	/**
+	 * Receives the response to CONNECT and the gameState messages of the server
+	 */
+	@Override
+	public void onFrame(char[] buffer, int offset, int length) {
+		parser.parse(buffer, offset, length, gameState);
+		if (isAwaitingStatus) {
+			isAwaitingStatus = false;
+		} else if (parser.hasGameState()) {
+			gameStates.incrementAndGet();
+		}// if
+	}// onFrame
+
+
+	/**
+	 * The listener of the NioConnection, it is called in the selector thread.<br/>
+	 * It reads the response to the CONNECT function and connects again<br/>
+	 * with the ReconnectPolicy like the LEDWallService.
+	 */
+	private class NioListener implements ConnectionListener {
+
+		private final CountDownLatch connected = new CountDownLatch(1);
+		private IOException error;
+		private boolean isLost;
+
+
+		@Override
+		public void onConnected(NioConnection connection) {
+			isAwaitingStatus = true;
+		}// onConnected
+
+
+		@Override
+		public void onFrame(NioConnection connection, char[] buffer, int offset, int length) {
+			boolean isStatus = isAwaitingStatus;
+			SimulatedClient.this.onFrame(buffer, offset, length);
+			if (!isStatus) {
+				return;
+			}// if
+			if (!parser.isSuccess()) {
+				onClosed(connection, new IOException("CONNECT refused by server"));
+				return;
+			}// if
+			connection.startExchange(
+					LEDWallMessage.ENCODING_BINARY.equals(parser.getEncoding()), parser.isDelta());
+			if (isLost) {
+				isLost = false;
+				reconnects.incrementAndGet();
+				recovery.record(System.nanoTime() - lostTime);
+			}// if
+			connected.countDown();
+		}// onFrame
+
+
+		@Override
+		public void onClosed(NioConnection connection, IOException cause) {
+			if (connected.getCount() > 0) {
+				error = cause;
+				connected.countDown();
+				return;
+			}// if
+			if (!isLost) {
+				isLost = true;
+				lostTime = System.nanoTime();
+				policy.start();
+			}// if
+			if (policy.isExhausted()) {
+				StandInServer.log("SimulatedClient " + udid + ": given up after "
+						+ policy.getAttempts() + " attempts");
+				connection.close();
+				return;
+			}// if
+			connection.reconnect(policy.nextDelay());
+		}// onClosed
+	}// inner class NioListener
+
+
+	/**
+	 * Called by the LoadGenerator when the server has applied a DRAW message
+	 * @param matrix of type int[], the wall of the server
+	 */
+	public void onDrawApplied(int[] matrix) {
+		int stamp = 0;
+		for (int i = 0; i < STAMP_LEDS; i++) {
+			stamp |= (matrix[i] & 3) << (2 * i);
+		}// for
+		applied(stamp);
+	}// onDrawApplied
+
+
+	/**
+	 * Called by the LoadGenerator when the server has shown a TEXT message
+	 * @param top of type String, the upper text line with the sequence number
+	 */
+	public void onTextApplied(String top) {
+		try {
+			applied(Integer.parseInt(top));
+		} catch (NumberFormatException e) {
+			// not a message of the load test
+		}// try
+	}// onTextApplied
+
+
+	/**
+	 * Called by the LoadGenerator when the server has executed a TETRIS action
+	 */
+	public void onTetrisApplied() {
+		int number;
+		synchronized (this) {
+			number = appliedActions++ & SEQUENCE_MASK;
+		}// synchronized
+		applied(number);
+	}// onTetrisApplied
+
+
+	private void applied(int number) {
+		long enqueueTime;
+		synchronized (this) {
+			enqueueTime = enqueueTimes[number & SEQUENCE_MASK];
+		}// synchronized
+		if (enqueueTime != 0) {
+			latency.record(System.nanoTime() - enqueueTime);
+		}// if
+	}// applied
+
+}// class SimulatedClient
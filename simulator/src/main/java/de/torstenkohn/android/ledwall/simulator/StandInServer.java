@@ -0,0 +1,264 @@
+package de.torstenkohn.android.ledwall.simulator;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The class is a local stand-in for the LED wall server (Raspberry Pi).<br/>
+ * It accepts the app on the same port as the real server and decodes<br/>
+ * the JSON messages as well as the binary DRAW frames.<br/>
+ * Every second the received DRAW frames per second and the bytes per frame<br/>
+ * are printed for both formats, so the formats can be compared.<br/>
+ * <br/>
+ * Usage: StandInServer [port] [json|binary] [render]<br/>
+ * The second argument decides whether the server confirms the binary format.<br/>
+ * With "render" the wall of the last connected app is printed as text<br/>
+ * every second if it has changed (see WallRenderer).<br/>
+ * The sessions are kept by the udid of the app, so an app which connects again<br/>
+ * after a lost connection continues its session (see ClientSession).<br/>
+ * <br/>
+ * The LoadGenerator starts the server in its own process on a free port (0).
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class StandInServer {
+
+	/**
+	 * The default port of the LED wall server
+	 */
+	public static final int DEFAULT_PORT = 5432;
+
+	/**
+	 * The interval in ms in which the statistics are printed
+	 */
+	private static final int REPORT_INTERVAL = 1000;
+
+
+	private final int port;
+	private final boolean isBinarySupported;
+	private final ProtocolStatistics statistics = new ProtocolStatistics();
+
+	/**
+	 * Executes the ticks of the Tetris games of all sessions
+	 */
+	private final ScheduledExecutorService scheduler = Executors
+			.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "StandInServer_tetris");
+					thread.setDaemon(true);
+					return thread;
+				}// newThread
+			});
+
+	/**
+	 * The last session of each app by its udid
+	 */
+	private final ConcurrentHashMap<Integer, ClientSession> sessions = new ConcurrentHashMap<Integer, ClientSession>();
+
+	private ServerSocket serverSocket;
+	private volatile boolean isRunning;
+	private volatile WallListener listener;
+
+	/**
+	 * The session of the last connected app, its wall is rendered
+	 */
+	private volatile ClientSession lastSession;
+	private int[] lastRendered;
+
+
+	/**
+	 * Constructor of the StandInServer
+	 * @param port of type Integer, the port of the server
+	 * @param isBinarySupported of type boolean, true -> the binary DRAW format is confirmed
+	 */
+	public StandInServer(int port, boolean isBinarySupported) {
+		this.port = port;
+		this.isBinarySupported = isBinarySupported;
+	}// constructor
+
+
+	public ProtocolStatistics getStatistics() {
+		return statistics;
+	}// getStatistics
+
+
+	/**
+	 * Sets the listener, which is informed about every message applied to a wall
+	 * @param listener of type WallListener, the listener or null
+	 */
+	public void setWallListener(WallListener listener) {
+		this.listener = listener;
+	}// setWallListener
+
+
+	/**
+	 * @return of type Integer, the port of the server, also if it was started with port 0
+	 */
+	public int getLocalPort() {
+		return serverSocket.getLocalPort();
+	}// getLocalPort
+
+
+	/**
+	 * Opens the port of the server, clients are accepted by start()
+	 * @throws IOException if the port cannot be opened
+	 */
+	public void open() throws IOException {
+		serverSocket = new ServerSocket(port);
+		log("listening on port " + serverSocket.getLocalPort()
+				+ (isBinarySupported ? " (binary DRAW supported)" : " (JSON only)"));
+	}// open
+
+
+	/**
+	 * Accepts clients until stop() is called.<br/>
+	 * Each client is served by its own ClientSession thread.
+	 * @throws IOException if the port cannot be opened
+	 */
+	public void start() throws IOException {
+		if (serverSocket == null) {
+			open();
+		}// if
+		isRunning = true;
+
+		while (isRunning) {
+			Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				if (isRunning) {
+					log("accept: " + e);
+				}// if
+				continue;
+			}// try
+			socket.setTcpNoDelay(true);
+			ClientSession session = new ClientSession(this, socket, isBinarySupported,
+					statistics, listener, scheduler);
+			lastSession = session;
+			session.start();
+		}// while
+	}// start
+
+
+	/**
+	 * Stores the session of the app after the CONNECT function
+	 * @param udid of type Integer, the udid of the app
+	 * @param session of type ClientSession, the new session
+	 * @return of type ClientSession, the previous session of the app or null
+	 */
+	ClientSession register(int udid, ClientSession session) {
+		return sessions.put(udid, session);
+	}// register
+
+
+	/**
+	 * Removes the session after the DISCONNECT function, if it is still the current session of the app
+	 */
+	void remove(int udid, ClientSession session) {
+		sessions.remove(udid, session);
+	}// remove
+
+
+	/**
+	 * Closes the connections of all apps without the DISCONNECT function,<br/>
+	 * like a lost WLAN. The sessions are kept, so the apps can continue them.
+	 * @return of type Integer, the number of closed connections
+	 */
+	public int dropConnections() {
+		int count = 0;
+		for (ClientSession session : sessions.values()) {
+			session.drop();
+			count++;
+		}// for
+		return count;
+	}// dropConnections
+
+
+	public void stop() {
+		isRunning = false;
+		if (serverSocket != null) {
+			try {
+				serverSocket.close();
+			} catch (IOException e) {
+				// nothing to do, the server is stopped anyway
+			}// try
+		}// if
+	}// stop
+
+
+	/**
+	 * Renders the wall of the last connected app, if it has changed since the last call
+	 * @return of type String, the wall as text or "" if nothing has changed
+	 */
+	public String renderWall() {
+		ClientSession session = lastSession;
+		if (session == null) {
+			return "";
+		}// if
+		int[] matrix = session.getMatrix().clone();
+		if (Arrays.equals(matrix, lastRendered)) {
+			return "";
+		}// if
+		lastRendered = matrix;
+		return session.getName() + " " + session.getTextTop() + " "
+				+ session.getTextBottom() + "\n" + WallRenderer.render(matrix);
+	}// renderWall
+
+
+	static void log(String message) {
+		System.out.println("[StandInServer] " + message);
+	}// log
+
+
+	public static void main(String[] args) throws IOException {
+		int port = DEFAULT_PORT;
+		boolean isBinarySupported = true;
+		if (args.length > 0) {
+			port = Integer.parseInt(args[0]);
+		}// if
+		if (args.length > 1) {
+			isBinarySupported = args[1].equals("binary");
+		}// if
+		final boolean isRendering = args.length > 2 && args[2].equals("render");
+
+		final StandInServer server = new StandInServer(port, isBinarySupported);
+
+		Thread reporter = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				while (true) {
+					try {
+						Thread.sleep(REPORT_INTERVAL);
+					} catch (InterruptedException e) {
+						return;
+					}// try
+					String report = server.getStatistics().report(REPORT_INTERVAL);
+					if (report.length() > 0) {
+						log(report);
+					}// if
+					if (isRendering) {
+						String wall = server.renderWall();
+						if (wall.length() > 0) {
+							log(wall);
+						}// if
+					}// if
+				}// while
+			}// run
+		}, "StandInServer_reporter");
+		reporter.setDaemon(true);
+		reporter.start();
+
+		server.start();
+	}// main
+
+}// class StandInServer
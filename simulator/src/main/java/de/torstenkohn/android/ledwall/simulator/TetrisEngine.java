@@ -0,0 +1,383 @@
+package de.torstenkohn.android.ledwall.simulator;
+
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A simple Tetris game on the 10x16 LED wall, like the game of the real server.<br/>
+ * The app controls it with the TETRIS function (init, start, quit, L, R, CC, C<br/>
+ * or several moves at once, e.g. "moves":"3L,C"),<br/>
+ * the engine sends the gameState (score, level, isRunning, nextStone)<br/>
+ * to the app whenever a new stone appears or the game ends.<br/>
+ * <br/>
+ * The stone falls one row per tick, the tick is shorter in higher levels.<br/>
+ * Every 10 removed rows the level is increased.<br/>
+ * The methods are synchronized, because the actions of the app<br/>
+ * and the ticks of the scheduler arrive in different threads.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class TetrisEngine {
+
+	/**
+	 * The engine sends its messages and the changed wall via the listener
+	 */
+	public interface Output {
+		void sendGameState(String message);
+
+		void showBoard(int[] matrix);
+	}// interface Output
+
+
+	private static final int WIDTH = WallRenderer.WIDTH;
+	private static final int HEIGHT = WallRenderer.HEIGHT;
+
+	private static final String STONES = "IJLOSTZ";
+
+	/**
+	 * The colour of each stone on the wall (1 = red, 2 = green, 3 = blue)
+	 */
+	private static final int[] COLOURS = { 1, 3, 2, 2, 3, 1, 2 };
+
+	/**
+	 * The four cells (x, y) of each stone in its first rotation
+	 */
+	private static final int[][] SHAPES = {
+			{ 0, 1, 1, 1, 2, 1, 3, 1 }, // I
+			{ 0, 0, 0, 1, 1, 1, 2, 1 }, // J
+			{ 2, 0, 0, 1, 1, 1, 2, 1 }, // L
+			{ 1, 0, 2, 0, 1, 1, 2, 1 }, // O
+			{ 1, 0, 2, 0, 0, 1, 1, 1 }, // S
+			{ 1, 0, 0, 1, 1, 1, 2, 1 }, // T
+			{ 0, 0, 1, 0, 1, 1, 2, 1 } // Z
+	};
+
+	private static final int[] POINTS = { 0, 40, 100, 300, 1200 };
+	private static final int ROWS_PER_LEVEL = 10;
+
+
+	/**
+	 * The session which receives the messages, it changes if the app connects again
+	 */
+	private Output output;
+	private final ScheduledExecutorService scheduler;
+	private final Random random;
+
+	/**
+	 * The fixed stones on the wall, 0 = empty
+	 */
+	private final int[] board = new int[WIDTH * HEIGHT];
+	private final int[] matrix = new int[WIDTH * HEIGHT];
+
+	/*
+	 * The falling stone: cells relative to its position
+	 */
+	private final int[] cells = new int[8];
+	private int stone = -1;
+	private int stoneX;
+	private int stoneY;
+	private int nextStone;
+
+	private int score;
+	private int level = 1;
+	private int rows;
+	private boolean isRunning;
+
+	private ScheduledFuture<?> ticker;
+
+
+	/**
+	 * Constructor of the TetrisEngine
+	 * @param output of type Output, receives the gameState messages and the wall
+	 * @param scheduler of type ScheduledExecutorService, executes the ticks of all games
+	 * @param seed of type long, the seed for the order of the stones
+	 */
+	public TetrisEngine(Output output, ScheduledExecutorService scheduler, long seed) {
+		this.output = output;
+		this.scheduler = scheduler;
+		this.random = new Random(seed);
+		nextStone = random.nextInt(STONES.length());
+	}// constructor
+
+
+	/**
+	 * Executes an action of the TETRIS function
+	 * @param action of type String, init, start, quit, L, R, CC or C
+	 */
+	public synchronized void onAction(String action) {
+		if (action.equals("init")) {
+			init();
+		} else if (action.equals("start")) {
+			start();
+		} else if (action.equals("quit")) {
+			stop();
+		} else if (isRunning) {
+			if (action.equals("L")) {
+				move(-1, 0);
+			} else if (action.equals("R")) {
+				move(1, 0);
+			} else if (action.equals("C")) {
+				rotate(true);
+			} else if (action.equals("CC")) {
+				rotate(false);
+			}// if
+		}// if
+	}// onAction
+
+
+	/**
+	 * Executes several moves at once, no tick of the game comes between them
+	 * @param moves of type String, the moves with their number, e.g. "3L,C,2CC"
+	 */
+	public synchronized void onMoves(String moves) {
+		if (!isRunning) {
+			return;
+		}// if
+		for (String run : moves.split(",")) {
+			int digits = 0;
+			while (digits < run.length() && Character.isDigit(run.charAt(digits))) {
+				digits++;
+			}// while
+			int count = digits == 0 ? 1 : Integer.parseInt(run.substring(0, digits));
+			String action = run.substring(digits);
+			for (int i = 0; i < count; i++) {
+				onAction(action);
+			}// for
+		}// for
+	}// onMoves
+
+
+	/**
+	 * The game is continued by a new session of the same app (same udid)
+	 * @param output of type Output, the new session
+	 */
+	public synchronized void setOutput(Output output) {
+		this.output = output;
+	}// setOutput
+
+
+	public synchronized boolean isRunning() {
+		return isRunning;
+	}// isRunning
+
+
+	public synchronized int getScore() {
+		return score;
+	}// getScore
+
+
+	private void init() {
+		stop();
+		for (int i = 0; i < board.length; i++) {
+			board[i] = 0;
+		}// for
+		score = 0;
+		level = 1;
+		rows = 0;
+		stone = -1;
+		sendGameState();
+		render();
+	}// init
+
+
+	private void start() {
+		if (isRunning) {
+			return;
+		}// if
+		isRunning = true;
+		if (stone < 0) {
+			spawn();
+		} else {
+			sendGameState();
+		}// if
+		schedule();
+	}// start
+
+
+	/**
+	 * Stops the game, it is also called when the session is closed
+	 */
+	public synchronized void stop() {
+		if (ticker != null) {
+			ticker.cancel(false);
+			ticker = null;
+		}// if
+		if (isRunning) {
+			isRunning = false;
+			sendGameState();
+		}// if
+	}// stop
+
+
+	private void schedule() {
+		if (ticker != null) {
+			ticker.cancel(false);
+		}// if
+		long period = Math.max(100, 1000 - (level - 1) * 80);
+		ticker = scheduler.scheduleAtFixedRate(new Runnable() {
+
+			@Override
+			public void run() {
+				tick();
+			}// run
+		}, period, period, TimeUnit.MILLISECONDS);
+	}// schedule
+
+
+	private synchronized void tick() {
+		if (!isRunning) {
+			return;
+		}// if
+		if (!move(0, 1)) {
+			land();
+		}// if
+	}// tick
+
+
+	/**
+	 * The falling stone becomes part of the board, full rows are removed
+	 */
+	private void land() {
+		for (int i = 0; i < 8; i += 2) {
+			int y = stoneY + cells[i + 1];
+			if (y >= 0) {
+				board[y * WIDTH + stoneX + cells[i]] = COLOURS[stone];
+			}// if
+		}// for
+
+		int removed = 0;
+		for (int y = HEIGHT - 1; y >= 0; y--) {
+			boolean isFull = true;
+			for (int x = 0; x < WIDTH && isFull; x++) {
+				isFull = board[y * WIDTH + x] != 0;
+			}// for
+			if (isFull) {
+				System.arraycopy(board, 0, board, WIDTH, y * WIDTH);
+				for (int x = 0; x < WIDTH; x++) {
+					board[x] = 0;
+				}// for
+				removed++;
+				y++;
+			}// if
+		}// for
+
+		if (removed > 0) {
+			score += POINTS[removed] * level;
+			rows += removed;
+			if (rows / ROWS_PER_LEVEL + 1 > level) {
+				level = rows / ROWS_PER_LEVEL + 1;
+				schedule();
+			}// if
+		}// if
+		spawn();
+	}// land
+
+
+	/**
+	 * The next stone appears at the top, if there is no space the game is over
+	 */
+	private void spawn() {
+		stone = nextStone;
+		nextStone = random.nextInt(STONES.length());
+		System.arraycopy(SHAPES[stone], 0, cells, 0, 8);
+		stoneX = WIDTH / 2 - 2;
+		stoneY = 0;
+		if (!fits(stoneX, stoneY)) {
+			stone = -1;
+			stop();
+			return;
+		}// if
+		sendGameState();
+		render();
+	}// spawn
+
+
+	private boolean move(int dx, int dy) {
+		if (stone < 0 || !fits(stoneX + dx, stoneY + dy)) {
+			return false;
+		}// if
+		stoneX += dx;
+		stoneY += dy;
+		render();
+		return true;
+	}// move
+
+
+	/**
+	 * Rotates the stone around the cell (1, 1), the O stone is not rotated
+	 */
+	private void rotate(boolean isClockwise) {
+		if (stone < 0 || STONES.charAt(stone) == 'O') {
+			return;
+		}// if
+		int[] previous = cells.clone();
+		for (int i = 0; i < 8; i += 2) {
+			int x = previous[i] - 1;
+			int y = previous[i + 1] - 1;
+			cells[i] = 1 + (isClockwise ? -y : y);
+			cells[i + 1] = 1 + (isClockwise ? x : -x);
+		}// for
+		if (fits(stoneX, stoneY)) {
+			render();
+		} else {
+			System.arraycopy(previous, 0, cells, 0, 8);
+		}// if
+	}// rotate
+
+
+	private boolean fits(int posX, int posY) {
+		for (int i = 0; i < 8; i += 2) {
+			int x = posX + cells[i];
+			int y = posY + cells[i + 1];
+			if (x < 0 || x >= WIDTH || y >= HEIGHT) {
+				return false;
+			}// if
+			if (y >= 0 && board[y * WIDTH + x] != 0) {
+				return false;
+			}// if
+		}// for
+		return true;
+	}// fits
+
+
+	private void render() {
+		System.arraycopy(board, 0, matrix, 0, board.length);
+		if (stone >= 0) {
+			for (int i = 0; i < 8; i += 2) {
+				int y = stoneY + cells[i + 1];
+				if (y >= 0) {
+					matrix[y * WIDTH + stoneX + cells[i]] = COLOURS[stone];
+				}// if
+			}// for
+		}// if
+		output.showBoard(matrix);
+	}// render
+
+
+	/**
+	 * Creates the message like the real server:<br/>
+	 * {"function":"tetris","gameState":{"score":0,"level":1,"isRunning":true,"nextStone":"T"}}
+	 */
+	private void sendGameState() {
+		try {
+			JSONObject gameState = new JSONObject();
+			gameState.put("score", score);
+			gameState.put("level", level);
+			gameState.put("isRunning", isRunning);
+			gameState.put("nextStone", String.valueOf(STONES.charAt(nextStone)));
+			JSONObject json = new JSONObject();
+			json.put("function", "tetris");
+			json.put("gameState", gameState);
+			output.sendGameState(json.toString());
+		} catch (JSONException e) {
+			StandInServer.log("TetrisEngine: " + e);
+		}// try
+	}// sendGameState
+
+}// class TetrisEngine
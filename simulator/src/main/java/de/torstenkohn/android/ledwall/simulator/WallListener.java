@@ -0,0 +1,34 @@
+package de.torstenkohn.android.ledwall.simulator;
+
+/**
+ * The listener is informed when a ClientSession has applied a message to its wall.<br/>
+ * It is called in the thread of the session, directly after the message was decoded,<br/>
+ * so the time of the call is the time when the message appears on the wall.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public interface WallListener {
+
+	/**
+	 * A DRAW message (complete frame or delta) was applied to the wall
+	 * @param session of type ClientSession, the session of the app
+	 * @param matrix of type int[], the wall after the message
+	 */
+	void onDraw(ClientSession session, int[] matrix);
+
+	/**
+	 * A TEXT message was shown on the wall
+	 * @param session of type ClientSession, the session of the app
+	 * @param top of type String, the upper text line
+	 */
+	void onText(ClientSession session, String top);
+
+	/**
+	 * An action of the TETRIS function was executed by the game
+	 * @param session of type ClientSession, the session of the app
+	 * @param action of type String, the action
+	 */
+	void onTetris(ClientSession session, String action);
+
+}// interface WallListener
@@ -0,0 +1,41 @@
+package de.torstenkohn.android.ledwall.simulator;
+
+/**
+ * The class renders the 10x16 LED wall as text, so the simulator<br/>
+ * can show the wall without a display (e.g. on a build server).<br/>
+ * '.' is an LED which is off, 'R', 'G' and 'B' are the colours red, green and blue.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class WallRenderer {
+
+	public static final int WIDTH = 10;
+	public static final int HEIGHT = 16;
+
+	private static final char[] SYMBOLS = { '.', 'R', 'G', 'B' };
+
+
+	private WallRenderer() {
+	}// constructor
+
+
+	/**
+	 * The method renders the LED values as 16 lines with 10 characters each
+	 * @param matrix of type int[], the LED values 0 - 3, row by row
+	 * @return of type String, the wall as text
+	 */
+	public static String render(int[] matrix) {
+		StringBuilder wall = new StringBuilder(HEIGHT * (WIDTH + 1));
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				int index = y * WIDTH + x;
+				int led = index < matrix.length ? matrix[index] & 3 : 0;
+				wall.append(SYMBOLS[led]);
+			}// for
+			wall.append('\n');
+		}// for
+		return wall.toString();
+	}// render
+
+}// class WallRenderer
@@ -0,0 +1,44 @@
+package de.torstenkohn.android.ledwall.animation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks the packed glyphs of the BitmapFont
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class BitmapFontTest {
+
+	@Test
+	public void emptyColumnsAreRemoved() {
+		// "1" has an empty column on both sides
+		assertArrayEquals(new byte[] { 0x42, 0x7F, 0x40 }, BitmapFont.getGlyph('1'));
+		assertEquals(5, BitmapFont.getGlyph('W').length);
+		assertEquals(3, BitmapFont.getGlyph(' ').length);
+	}// emptyColumnsAreRemoved
+
+
+	@Test
+	public void unknownCharactersAreShownAsQuestionMark() {
+		assertSame(BitmapFont.getGlyph('?'), BitmapFont.getGlyph('§'));
+		assertSame(BitmapFont.getGlyph('?'), BitmapFont.getGlyph('€'));
+		assertSame(BitmapFont.getGlyph('?'), BitmapFont.getGlyph('\n'));
+	}// unknownCharactersAreShownAsQuestionMark
+
+
+	@Test
+	public void everyLatin1CharacterHasAGlyph() {
+		for (char c = 0; c < 256; c++) {
+			assertTrue(BitmapFont.getGlyph(c).length > 0);
+		}// for
+		assertEquals(BitmapFont.getGlyph('Ä').length + 1 + BitmapFont.getGlyph('b').length + 1,
+				BitmapFont.getWidth("Äb"));
+	}// everyLatin1CharacterHasAGlyph
+
+}// class BitmapFontTest
@@ -0,0 +1,228 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.torstenkohn.android.ledwall.connection.FrameDecoder.Framing;
+
+/**
+ * Feeds encoded message streams in random fragments through the FrameDecoder.<br/>
+ * The streams are split at random byte boundaries, so the cuts fall into<br/>
+ * multi-byte UTF-8 characters, into the length prefixes and between the braces<br/>
+ * of the JSON messages. The decoder must deliver exactly the original messages.<br/>
+ * A small initial buffer lets the decoder also compact and grow its buffer.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class FrameDecoderTest {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * The number of random segmentations per framing
+	 */
+	private static final int RUNS = 200;
+
+	private static final String[] MESSAGES = {
+			"{\"function\":\"connect\",\"status\":\"success\",\"delta\":true}",
+			"{\"function\":\"tetris\",\"gameState\":{\"score\":1240,\"level\":3,\"isRunning\":true,\"nextStone\":\"T\"}}",
+			"{\"function\":\"text\",\"text\":\"Grüße aus Köln, 5 € für {Klammern} und \\\"Zitate\\\"\"}",
+			"{\"function\":\"disconnect\"}",
+			"{\"function\":\"text\",\"text\":\"ÄÖÜ äöü ß — ✓\"}" };
+
+
+	/**
+	 * Collects the delivered messages
+	 */
+	private static class Collector implements FrameDecoder.FrameListener {
+
+		private final List<String> frames = new ArrayList<String>();
+
+		@Override
+		public void onFrame(char[] buffer, int offset, int length) {
+			frames.add(new String(buffer, offset, length));
+		}// onFrame
+	}// class Collector
+
+
+	/**
+	 * Returns the characters in chunks of random length, like a socket
+	 */
+	private static class ChunkedReader extends Reader {
+
+		private final char[] data;
+		private final Random random;
+		private int position;
+
+		private ChunkedReader(String data, Random random) {
+			this.data = data.toCharArray();
+			this.random = random;
+		}// constructor
+
+		@Override
+		public int read(char[] buffer, int offset, int length) {
+			if (position == data.length) {
+				return -1;
+			}// if
+			int count = Math.min(Math.min(length, 1 + random.nextInt(7)), data.length - position);
+			System.arraycopy(data, position, buffer, offset, count);
+			position += count;
+			return count;
+		}// read
+
+		@Override
+		public void close() {
+		}// close
+	}// class ChunkedReader
+
+
+	private static List<String> expected(int repetitions) {
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < repetitions; i++) {
+			for (String message : MESSAGES) {
+				expected.add(message);
+			}// for
+		}// for
+		return expected;
+	}// expected
+
+
+	private static String encode(Framing framing, List<String> messages) {
+		StringBuilder stream = new StringBuilder();
+		for (String message : messages) {
+			switch (framing) {
+			case NEWLINE:
+				stream.append(message).append(stream.length() % 2 == 0 ? "\n" : "\r\n");
+				break;
+			case LENGTH_PREFIXED:
+				stream.append(message.length()).append(':').append(message);
+				break;
+			default:
+				stream.append(message).append(stream.length() % 2 == 0 ? "" : " \n");
+				break;
+			}// switch
+		}// for
+		return stream.toString();
+	}// encode
+
+
+	/**
+	 * Splits the UTF-8 bytes of the stream at random positions and passes them to decode(ByteBuffer)
+	 */
+	private static void assertBytesFragmented(Framing framing) throws IOException {
+		Random random = new Random(framing.ordinal());
+		List<String> messages = expected(3);
+		byte[] stream = encode(framing, messages).getBytes(UTF8);
+		for (int run = 0; run < RUNS; run++) {
+			Collector collector = new Collector();
+			FrameDecoder decoder = new FrameDecoder(framing, 16, FrameDecoder.DEFAULT_MAX_FRAME_LENGTH,
+					collector);
+			int position = 0;
+			while (position < stream.length) {
+				int count = Math.min(1 + random.nextInt(run % 2 == 0 ? 3 : 40), stream.length - position);
+				decoder.decode(ByteBuffer.wrap(stream, position, count));
+				position += count;
+			}// while
+			assertEquals(framing + " run " + run, messages, collector.frames);
+			assertEquals(0, decoder.getPending());
+		}// for
+	}// assertBytesFragmented
+
+
+	/**
+	 * Passes the characters of the stream in random chunks to decode(char[]) and readFrom()
+	 */
+	private static void assertCharsFragmented(Framing framing) throws IOException {
+		Random random = new Random(100 + framing.ordinal());
+		List<String> messages = expected(3);
+		char[] stream = encode(framing, messages).toCharArray();
+		for (int run = 0; run < RUNS; run++) {
+			Collector collector = new Collector();
+			FrameDecoder decoder = new FrameDecoder(framing, 16, FrameDecoder.DEFAULT_MAX_FRAME_LENGTH,
+					collector);
+			int position = 0;
+			while (position < stream.length) {
+				int count = Math.min(1 + random.nextInt(20), stream.length - position);
+				decoder.decode(stream, position, count);
+				position += count;
+			}// while
+			assertEquals(framing + " run " + run, messages, collector.frames);
+
+			collector = new Collector();
+			decoder = new FrameDecoder(framing, 16, FrameDecoder.DEFAULT_MAX_FRAME_LENGTH, collector);
+			Reader in = new ChunkedReader(new String(stream), random);
+			while (decoder.readFrom(in) >= 0) {
+				// the messages are collected by the listener
+			}// while
+			assertEquals(framing + " run " + run, messages, collector.frames);
+		}// for
+	}// assertCharsFragmented
+
+
+	@Test
+	public void newlineBytes() throws IOException {
+		assertBytesFragmented(Framing.NEWLINE);
+	}// newlineBytes
+
+
+	@Test
+	public void lengthPrefixedBytes() throws IOException {
+		assertBytesFragmented(Framing.LENGTH_PREFIXED);
+	}// lengthPrefixedBytes
+
+
+	@Test
+	public void jsonBytes() throws IOException {
+		assertBytesFragmented(Framing.JSON);
+	}// jsonBytes
+
+
+	@Test
+	public void newlineChars() throws IOException {
+		assertCharsFragmented(Framing.NEWLINE);
+	}// newlineChars
+
+
+	@Test
+	public void lengthPrefixedChars() throws IOException {
+		assertCharsFragmented(Framing.LENGTH_PREFIXED);
+	}// lengthPrefixedChars
+
+
+	@Test
+	public void jsonChars() throws IOException {
+		assertCharsFragmented(Framing.JSON);
+	}// jsonChars
+
+
+	@Test
+	public void splitInsideUtf8Character() throws IOException {
+		Collector collector = new Collector();
+		FrameDecoder decoder = new FrameDecoder(Framing.NEWLINE, collector);
+		byte[] stream = "{\"text\":\"€\"}\n".getBytes(UTF8);
+		// the euro sign has three bytes, every byte is passed on its own
+		for (int i = 0; i < stream.length; i++) {
+			decoder.decode(ByteBuffer.wrap(stream, i, 1));
+		}// for
+		assertEquals(1, collector.frames.size());
+		assertEquals("{\"text\":\"€\"}", collector.frames.get(0));
+	}// splitInsideUtf8Character
+
+
+	@Test(expected = IOException.class)
+	public void tooLongMessage() throws IOException {
+		FrameDecoder decoder = new FrameDecoder(Framing.LENGTH_PREFIXED, 16, 32, new Collector());
+		decoder.decode("100:".toCharArray(), 0, 4);
+	}// tooLongMessage
+
+}// class FrameDecoderTest
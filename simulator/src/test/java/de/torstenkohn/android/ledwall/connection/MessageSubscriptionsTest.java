@@ -0,0 +1,162 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Test;
+
+import de.torstenkohn.android.ledwall.core.LEDWallMessage;
+import de.torstenkohn.android.ledwall.core.ServerMessageParser;
+import de.torstenkohn.android.ledwall.util.TetrisGameState;
+
+/**
+ * Checks which subscribers of the MessageSubscriptions receive a message and in which executor
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class MessageSubscriptionsTest {
+
+	private static final String TETRIS = "{\"function\":\"tetris\",\"gameState\":"
+			+ "{\"score\":120,\"level\":3,\"isRunning\":true,\"nextStone\":\"T\"}}";
+	private static final String TEXT = "{\"function\":\"text\",\"status\":\"success\"}";
+
+	private final MessageSubscriptions subscriptions = new MessageSubscriptions();
+	private final ServerMessageParser parser = new ServerMessageParser();
+	private final TetrisGameState gameState = new TetrisGameState();
+
+
+	/**
+	 * Keeps the function and the score of every received message
+	 */
+	private static class Recorder implements MessageSubscriptions.Subscriber {
+		private final List<String> functions = new ArrayList<String>();
+		private final List<Integer> scores = new ArrayList<Integer>();
+		private ServerMessageParser lastParser;
+
+		@Override
+		public void onMessage(ServerMessageParser parser, TetrisGameState gameState) {
+			functions.add(parser.getFunction());
+			scores.add(Integer.valueOf(parser.hasGameState() ? gameState.getScore() : -1));
+			lastParser = parser;
+		}// onMessage
+	}// class Recorder
+
+
+	/**
+	 * Keeps the tasks until run() is called, like the Handler of another thread
+	 */
+	private static class LaterExecutor implements Executor {
+		private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+		@Override
+		public void execute(Runnable command) {
+			tasks.add(command);
+		}// execute
+
+		private void run() {
+			for (Runnable task : tasks) {
+				task.run();
+			}// for
+			tasks.clear();
+		}// run
+	}// class LaterExecutor
+
+
+	/**
+	 * Reads the message like the reader of the LEDWallService and dispatches it
+	 */
+	private boolean dispatch(char[] buffer, int offset, int length) {
+		parser.parse(buffer, offset, length, gameState);
+		return subscriptions.dispatch(parser, gameState, buffer, offset, length);
+	}// dispatch
+
+
+	private boolean dispatch(String message) {
+		char[] buffer = message.toCharArray();
+		return dispatch(buffer, 0, buffer.length);
+	}// dispatch
+
+
+	@Test
+	public void onlySubscribersOfTheFunctionAreCalled() {
+		Recorder tetris = new Recorder();
+		Recorder text = new Recorder();
+		subscriptions.subscribe(LEDWallMessage.FUNC_TETRIS, tetris, MessageSubscriptions.CALLING_THREAD);
+		subscriptions.subscribe(LEDWallMessage.FUNC_TEXT, text, MessageSubscriptions.CALLING_THREAD);
+		assertTrue(subscriptions.hasSubscriber(LEDWallMessage.FUNC_TETRIS));
+		assertFalse(subscriptions.hasSubscriber(LEDWallMessage.FUNC_DRAW));
+
+		assertTrue(dispatch(TETRIS));
+		assertTrue(dispatch(TEXT));
+		assertEquals(1, tetris.functions.size());
+		assertEquals(Integer.valueOf(120), tetris.scores.get(0));
+		// the calling thread gets the parser of the reader, nothing is copied
+		assertSame(parser, tetris.lastParser);
+		assertEquals(1, text.functions.size());
+		assertEquals(LEDWallMessage.FUNC_TEXT, text.functions.get(0));
+	}// onlySubscribersOfTheFunctionAreCalled
+
+
+	@Test
+	public void messageWithoutSubscriberIsDropped() {
+		assertFalse(dispatch(TETRIS));
+		Recorder recorder = new Recorder();
+		subscriptions.subscribe(LEDWallMessage.FUNC_TETRIS, recorder, MessageSubscriptions.CALLING_THREAD);
+		assertTrue(dispatch(TETRIS));
+		subscriptions.unsubscribe(LEDWallMessage.FUNC_TETRIS, recorder);
+		assertFalse(subscriptions.hasSubscriber(LEDWallMessage.FUNC_TETRIS));
+		assertFalse(dispatch(TETRIS));
+		assertEquals(1, recorder.functions.size());
+	}// messageWithoutSubscriberIsDropped
+
+
+	@Test
+	public void otherExecutorsReadACopy() {
+		Recorder recorder = new Recorder();
+		Recorder second = new Recorder();
+		LaterExecutor executor = new LaterExecutor();
+		subscriptions.subscribe(LEDWallMessage.FUNC_TETRIS, recorder, executor);
+		subscriptions.subscribe(LEDWallMessage.FUNC_TETRIS, second, executor);
+
+		// the message is in the middle of the receive buffer, which is reused afterwards
+		String received = "xx" + TETRIS + "yy";
+		char[] buffer = received.toCharArray();
+		assertTrue(dispatch(buffer, 2, TETRIS.length()));
+		assertTrue(recorder.functions.isEmpty());
+		TEXT.getChars(0, TEXT.length(), buffer, 0);
+		dispatch(TEXT);
+
+		executor.run();
+		assertEquals(LEDWallMessage.FUNC_TETRIS, recorder.functions.get(0));
+		assertEquals(Integer.valueOf(120), recorder.scores.get(0));
+		assertEquals(Integer.valueOf(120), second.scores.get(0));
+		// the executor reads with its own parser
+		assertFalse(parser == recorder.lastParser);
+	}// otherExecutorsReadACopy
+
+
+	@Test
+	public void unsubscribeRemovesOnlyTheFunction() {
+		Recorder recorder = new Recorder();
+		subscriptions.subscribe(LEDWallMessage.FUNC_TETRIS, recorder, MessageSubscriptions.CALLING_THREAD);
+		subscriptions.subscribe(LEDWallMessage.FUNC_TEXT, recorder, MessageSubscriptions.CALLING_THREAD);
+		subscriptions.unsubscribe(LEDWallMessage.FUNC_TEXT, recorder);
+		assertFalse(dispatch(TEXT));
+		assertTrue(dispatch(TETRIS));
+		assertEquals(1, recorder.functions.size());
+	}// unsubscribeRemovesOnlyTheFunction
+
+
+	@Test(expected = IllegalArgumentException.class)
+	public void executorIsRequired() {
+		subscriptions.subscribe(LEDWallMessage.FUNC_TETRIS, new Recorder(), null);
+	}// executorIsRequired
+
+}// class MessageSubscriptionsTest
@@ -0,0 +1,94 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import de.torstenkohn.android.ledwall.core.DrawDeltaEncoder;
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+
+/**
+ * Checks that the MessageWriter sends a complete frame after reset(),<br/>
+ * even if the bytes of the changed LEDs of a broadcast message are already stored,<br/>
+ * and that a JSON message is sent with the bytes encoded by the OutgoingMessage.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class MessageWriterTest {
+
+	private static int[] frame(int value) {
+		int[] pixels = new int[DrawFrameCodec.NUMBER_OF_LED];
+		pixels[value] = 1 + value % 3;
+		return pixels;
+	}// frame
+
+
+	private static String write(MessageWriter writer, OutgoingMessage message) throws IOException {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		Writer out = new OutputStreamWriter(stream, "UTF-8");
+		writer.write(message, out, stream);
+		out.flush();
+		return stream.toString("UTF-8");
+	}// write
+
+
+	private static MessageWriter deltaWriter() {
+		MessageWriter writer = new MessageWriter(new DrawDeltaEncoder());
+		writer.setDeltaDraw(true);
+		return writer;
+	}// deltaWriter
+
+
+	@Test
+	public void firstFrameAfterResetIsComplete() throws IOException {
+		OutgoingMessage first = OutgoingMessage.broadcastDraw(frame(1), 0);
+		OutgoingMessage second = OutgoingMessage.broadcastDraw(frame(2), first.getSequence());
+		OutgoingMessage third = OutgoingMessage.broadcastDraw(frame(3), second.getSequence());
+
+		// the first wall stores the changed LEDs in the messages
+		MessageWriter connected = deltaWriter();
+		write(connected, first);
+		write(connected, second);
+		String delta = write(connected, third);
+
+		// the second wall is connected again before the third frame
+		MessageWriter reconnected = deltaWriter();
+		write(reconnected, first);
+		write(reconnected, second);
+		reconnected.reset();
+		String afterReset = write(reconnected, third);
+
+		String complete = write(deltaWriter(), OutgoingMessage.draw(frame(3)));
+		assertFalse(complete.equals(delta));
+		assertEquals(complete, afterReset);
+	}// firstFrameAfterResetIsComplete
+
+
+	@Test
+	public void jsonIsSentAsUtf8() throws IOException {
+		String json = "{\"function\":\"text\",\"text\":\"Gr\u00fc\u00dfe \u20ac\"}";
+		OutgoingMessage message = OutgoingMessage.json("text", json);
+		byte[] utf8 = json.getBytes("UTF-8");
+		assertArrayEquals(utf8, message.getBytes());
+		assertEquals(json, write(deltaWriter(), message));
+
+		ByteBuffer buffer = ByteBuffer.allocate(utf8.length);
+		buffer.put((byte) ' ');
+		// the message does not fit, nothing is written
+		assertEquals(-1, deltaWriter().encode(message, buffer));
+		assertEquals(1, buffer.position());
+		buffer.clear();
+		assertEquals(utf8.length, deltaWriter().encode(message, buffer));
+		assertArrayEquals(utf8, buffer.array());
+	}// jsonIsSentAsUtf8
+
+}// class MessageWriterTest
@@ -0,0 +1,304 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.torstenkohn.android.ledwall.connection.FrameDecoder.FrameListener;
+import de.torstenkohn.android.ledwall.core.DrawDeltaEncoder;
+import de.torstenkohn.android.ledwall.core.LEDWallMessage;
+
+/**
+ * Runs a NioTransport against a server socket on the loopback interface.<br/>
+ * The server reads the messages with a FrameDecoder and checks that every message<br/>
+ * arrives complete and in order, also if the socket only accepts a part of<br/>
+ * the write buffer or the connection is lost while messages are written.<br/>
+ * The messages are TETRIS messages, they are never replaced in the list.
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class NioConnectionTest {
+
+	/**
+	 * The number of messages, together about 2 MB, more than the socket buffers accept
+	 */
+	private static final int MESSAGES = 2000;
+
+	private static final String PADDING;
+	static {
+		StringBuilder padding = new StringBuilder(1000);
+		for (int i = 0; i < 1000; i++) {
+			padding.append((char) ('a' + i % 26));
+		}// for
+		PADDING = padding.toString();
+	}// static
+
+
+	/**
+	 * Records the events of the connection, it is called in the selector thread
+	 */
+	private static class Listener implements NioConnection.ConnectionListener {
+
+		private final BlockingQueue<Object> events = new LinkedBlockingQueue<Object>();
+		private volatile boolean isExchangeStarted = true;
+		private volatile long reconnectDelay = -1;
+
+		@Override
+		public void onConnected(NioConnection connection) {
+			// the test server sends no response to the handshake
+			if (isExchangeStarted) {
+				connection.startExchange(false, false);
+			}// if
+			events.add("connected");
+		}// onConnected
+
+		@Override
+		public void onFrame(NioConnection connection, char[] buffer, int offset, int length) {
+			events.add(new String(buffer, offset, length));
+		}// onFrame
+
+		@Override
+		public void onClosed(NioConnection connection, IOException cause) {
+			events.add(cause);
+			if (reconnectDelay >= 0) {
+				connection.reconnect(reconnectDelay);
+			}// if
+		}// onClosed
+
+		private Object next() throws InterruptedException {
+			Object event = events.poll(10, TimeUnit.SECONDS);
+			assertNotNull("no event of the connection", event);
+			return event;
+		}// next
+
+	}// class Listener
+
+
+	/**
+	 * Collects the numbers of the messages which the server has received
+	 */
+	private static class Receiver implements FrameListener {
+
+		private final List<Integer> numbers = new ArrayList<Integer>();
+
+		@Override
+		public void onFrame(char[] buffer, int offset, int length) {
+			String message = new String(buffer, offset, length);
+			assertTrue(message, message.endsWith(PADDING + "\"}"));
+			int start = message.indexOf("\"n\":") + 4;
+			numbers.add(Integer.valueOf(message.substring(start, message.indexOf(',', start))));
+		}// onFrame
+
+	}// class Receiver
+
+
+	private NioTransport transport;
+	private Thread thread;
+	private ServerSocketChannel server;
+	private InetSocketAddress address;
+	private final OutboundQueue queue = new OutboundQueue();
+	private final Listener listener = new Listener();
+
+
+	@Before
+	public void setUp() throws IOException {
+		transport = new NioTransport();
+		thread = new Thread(transport, "NioTransport");
+		thread.start();
+	}// setUp
+
+
+	@After
+	public void tearDown() throws Exception {
+		transport.shutdown();
+		thread.join(5000);
+		if (server != null) {
+			server.close();
+		}// if
+	}// tearDown
+
+
+	private void listen(int backlog) throws IOException {
+		server = ServerSocketChannel.open();
+		server.socket().setReceiveBufferSize(4096);
+		server.socket().bind(new InetSocketAddress("127.0.0.1", 0), backlog);
+		address = new InetSocketAddress("127.0.0.1", server.socket().getLocalPort());
+	}// listen
+
+
+	private NioConnection open(OutgoingMessage handshake) {
+		return transport.open(address, FrameDecoder.Framing.JSON, queue, new DrawDeltaEncoder(),
+				handshake, listener);
+	}// open
+
+
+	private static OutgoingMessage message(int number) {
+		return OutgoingMessage.json(LEDWallMessage.FUNC_TETRIS, "{\"function\":\"tetris\",\"n\":"
+				+ number + ",\"padding\":\"" + PADDING + "\"}");
+	}// message
+
+
+	private void offer(int from, int to) {
+		for (int i = from; i < to; i++) {
+			queue.offer(message(i));
+		}// for
+	}// offer
+
+
+	/**
+	 * Waits until the connection does not take messages from the list anymore,<br/>
+	 * because the socket buffers are full
+	 * @return of type Integer, the number of waiting messages
+	 */
+	private int awaitFullSocket() throws InterruptedException {
+		int depth = -1;
+		while (depth != queue.getDepth()) {
+			depth = queue.getDepth();
+			Thread.sleep(200);
+		}// while
+		return depth;
+	}// awaitFullSocket
+
+
+	/**
+	 * Reads the messages of the socket until the message with the number has arrived
+	 */
+	private static List<Integer> receive(SocketChannel socket, int last) throws IOException {
+		Receiver receiver = new Receiver();
+		FrameDecoder decoder = new FrameDecoder(FrameDecoder.Framing.JSON, receiver);
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		while (receiver.numbers.isEmpty()
+				|| receiver.numbers.get(receiver.numbers.size() - 1).intValue() != last) {
+			buffer.clear();
+			if (socket.read(buffer) < 0) {
+				break;
+			}// if
+			buffer.flip();
+			decoder.decode(buffer);
+		}// while
+		return receiver.numbers;
+	}// receive
+
+
+	private static void assertConsecutive(List<Integer> numbers, int first, int last) {
+		assertEquals(last - first + 1, numbers.size());
+		for (int i = 0; i < numbers.size(); i++) {
+			assertEquals(first + i, numbers.get(i).intValue());
+		}// for
+	}// assertConsecutive
+
+
+	@Test
+	public void partialWritesKeepTheMessagesComplete() throws Exception {
+		listen(1);
+		open(null);
+		SocketChannel socket = server.accept();
+		assertEquals("connected", listener.next());
+
+		offer(0, MESSAGES);
+		// the socket only accepts a part of the messages, the rest waits in the list
+		assertTrue(awaitFullSocket() > 0);
+
+		assertConsecutive(receive(socket, MESSAGES - 1), 0, MESSAGES - 1);
+		assertTrue(queue.isEmpty());
+		socket.close();
+	}// partialWritesKeepTheMessagesComplete
+
+
+	@Test
+	public void unsentMessagesAreSentAfterReconnect() throws Exception {
+		listen(1);
+		listener.reconnectDelay = 0;
+		open(null);
+		SocketChannel socket = server.accept();
+		assertEquals("connected", listener.next());
+
+		offer(0, MESSAGES);
+		awaitFullSocket();
+		// the server resets the connection, the bytes in the socket buffers are lost
+		socket.socket().setSoLinger(true, 0);
+		socket.close();
+		assertTrue(listener.next() instanceof IOException);
+
+		socket = server.accept();
+		assertEquals("connected", listener.next());
+		List<Integer> numbers = receive(socket, MESSAGES - 1);
+		// the messages which were not completely written are sent again in their order,
+		// the first of them may have been written partly before the connection was lost
+		int first = numbers.get(0).intValue();
+		assertTrue(first > 0);
+		assertConsecutive(numbers, first, MESSAGES - 1);
+		socket.close();
+	}// unsentMessagesAreSentAfterReconnect
+
+
+	@Test
+	public void handshakeIsSentAfterReconnect() throws Exception {
+		listen(1);
+		listener.reconnectDelay = 50;
+		OutgoingMessage handshake = message(-1);
+		open(handshake);
+
+		for (int i = 0; i < 2; i++) {
+			SocketChannel socket = server.accept();
+			assertEquals("connected", listener.next());
+			assertEquals(-1, receive(socket, -1).get(0).intValue());
+			offer(i, i + 1);
+			assertEquals(i, receive(socket, i).get(0).intValue());
+			socket.close();
+			assertTrue(listener.next() instanceof IOException);
+		}// for
+	}// handshakeIsSentAfterReconnect
+
+
+	@Test
+	public void connectTimeout() throws Exception {
+		// the backlog is full, the server does not answer a further connect
+		listen(1);
+		SocketChannel first = SocketChannel.open(address);
+		SocketChannel second = SocketChannel.open(address);
+		second.configureBlocking(false);
+		long start = System.nanoTime();
+		open(null);
+
+		Object event = listener.next();
+		assertTrue(String.valueOf(event), event instanceof SocketTimeoutException);
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(elapsed + " ms", elapsed >= NioConnection.TIMEOUT);
+		first.close();
+		second.close();
+	}// connectTimeout
+
+
+	@Test
+	public void handshakeTimeout() throws Exception {
+		listen(1);
+		listener.isExchangeStarted = false;
+		open(message(-1));
+		SocketChannel socket = server.accept();
+		assertEquals("connected", listener.next());
+
+		// no response to the handshake
+		Object event = listener.next();
+		assertTrue(String.valueOf(event), event instanceof SocketTimeoutException);
+		socket.close();
+	}// handshakeTimeout
+
+}// class NioConnectionTest
@@ -0,0 +1,78 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.torstenkohn.android.ledwall.core.LEDWallMessage;
+
+/**
+ * Checks that the OutboundQueue replaces waiting DRAW and TEXT messages<br/>
+ * without changing the order relative to the control messages.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class OutboundQueueTest {
+
+	private static OutgoingMessage message(String function) {
+		return OutgoingMessage.json(function, "{\"function\":\"" + function + "\"}");
+	}// message
+
+
+	@Test
+	public void replacesWaitingFrame() {
+		OutboundQueue queue = new OutboundQueue();
+		OutgoingMessage first = message(LEDWallMessage.FUNC_DRAW);
+		OutgoingMessage second = message(LEDWallMessage.FUNC_DRAW);
+		assertFalse(queue.offer(first));
+		assertTrue(queue.offer(second));
+		assertEquals(1, queue.getDepth());
+		assertEquals(1, queue.getCoalescedCount());
+		assertSame(second, queue.poll());
+	}// replacesWaitingFrame
+
+
+	@Test
+	public void frameIsNotMovedPastDisconnect() {
+		OutboundQueue queue = new OutboundQueue();
+		OutgoingMessage frame = message(LEDWallMessage.FUNC_DRAW);
+		OutgoingMessage disconnect = message(LEDWallMessage.FUNC_DISCONNECT);
+		OutgoingMessage newer = message(LEDWallMessage.FUNC_DRAW);
+		queue.offer(frame);
+		assertFalse(queue.offer(disconnect));
+		assertFalse(queue.offer(newer));
+		assertEquals(0, queue.getCoalescedCount());
+		assertSame(frame, queue.poll());
+		assertSame(disconnect, queue.poll());
+		assertSame(newer, queue.poll());
+		assertNull(queue.poll());
+	}// frameIsNotMovedPastDisconnect
+
+
+	@Test
+	public void onlyFramesBehindTheLastControlMessageAreReplaced() {
+		OutboundQueue queue = new OutboundQueue();
+		OutgoingMessage beforeConnect = message(LEDWallMessage.FUNC_TEXT);
+		OutgoingMessage connect = message(LEDWallMessage.FUNC_CONNECT);
+		OutgoingMessage afterConnect = message(LEDWallMessage.FUNC_TEXT);
+		OutgoingMessage frame = message(LEDWallMessage.FUNC_DRAW);
+		OutgoingMessage newest = message(LEDWallMessage.FUNC_TEXT);
+		queue.offer(beforeConnect);
+		queue.offer(connect);
+		queue.offer(afterConnect);
+		queue.offer(frame);
+		queue.offer(newest);
+		assertEquals(1, queue.getCoalescedCount());
+		assertSame(beforeConnect, queue.poll());
+		assertSame(connect, queue.poll());
+		assertSame(frame, queue.poll());
+		assertSame(newest, queue.poll());
+		assertNull(queue.poll());
+	}// onlyFramesBehindTheLastControlMessageAreReplaced
+
+}// class OutboundQueueTest
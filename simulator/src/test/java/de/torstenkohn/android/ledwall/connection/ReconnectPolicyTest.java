@@ -0,0 +1,90 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the delays of the ReconnectPolicy
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class ReconnectPolicyTest {
+
+	/**
+	 * A jitter which is always the same part of the backoff
+	 */
+	private static class FixedRandom extends Random {
+		private static final long serialVersionUID = 1L;
+		private final double value;
+
+		private FixedRandom(double value) {
+			this.value = value;
+		}// constructor
+
+		@Override
+		public double nextDouble() {
+			return value;
+		}// nextDouble
+	}// class FixedRandom
+
+
+	@Test
+	public void delayDoublesUpToTheMaximum() {
+		ReconnectPolicy policy = new ReconnectPolicy(250, 4000, 60000, new FixedRandom(0));
+		policy.start();
+		// without jitter the delay is the half of the backoff
+		long[] expected = { 125, 250, 500, 1000, 2000, 2000, 2000 };
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], policy.nextDelay());
+		}// for
+		assertEquals(expected.length, policy.getAttempts());
+
+		// a new outage begins with the base delay again
+		policy.start();
+		assertEquals(0, policy.getAttempts());
+		assertEquals(125, policy.nextDelay());
+	}// delayDoublesUpToTheMaximum
+
+
+	@Test
+	public void jitterStaysWithinTheBackoff() {
+		ReconnectPolicy policy = new ReconnectPolicy(250, 4000, 60000, new Random(1));
+		policy.start();
+		for (int i = 0; i < 100; i++) {
+			long backoff = Math.min(250L << Math.min(i, 20), 4000);
+			long delay = policy.nextDelay();
+			assertTrue(delay >= backoff / 2);
+			assertTrue(delay <= backoff);
+		}// for
+	}// jitterStaysWithinTheBackoff
+
+
+	@Test
+	public void manyAttemptsDoNotOverflow() {
+		ReconnectPolicy policy = new ReconnectPolicy(Long.MAX_VALUE / 4, Long.MAX_VALUE, Long.MAX_VALUE,
+				new FixedRandom(0.999));
+		policy.start();
+		for (int i = 0; i < 100; i++) {
+			assertTrue(policy.nextDelay() > 0);
+		}// for
+	}// manyAttemptsDoNotOverflow
+
+
+	@Test
+	public void delayEndsWithTheOutageBudget() throws InterruptedException {
+		ReconnectPolicy policy = new ReconnectPolicy(1000, 4000, 20, new FixedRandom(0.999));
+		policy.start();
+		assertFalse(policy.isExhausted());
+		assertTrue(policy.nextDelay() <= 20);
+		Thread.sleep(30);
+		assertTrue(policy.isExhausted());
+		assertEquals(0, policy.nextDelay());
+	}// delayEndsWithTheOutageBudget
+
+}// class ReconnectPolicyTest
@@ -0,0 +1,98 @@
+package de.torstenkohn.android.ledwall.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.torstenkohn.android.ledwall.core.LEDWallMessage;
+
+/**
+ * Checks which TETRIS functions the TetrisInputBatcher adds to the OutboundQueue
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class TetrisInputBatcherTest {
+
+	private final OutboundQueue queue = new OutboundQueue();
+	private final LEDWallMessage ledWallMessage = new LEDWallMessage();
+	private final TetrisInputBatcher batcher = new TetrisInputBatcher(queue, new LEDWallMessage(),
+			TetrisInputBatcher.DEFAULT_INTERVAL);
+
+
+	@Test
+	public void firstMoveIsSentAtOnce() {
+		assertEquals(0, batcher.getDelay());
+		assertTrue(batcher.add(LEDWallMessage.ACTION_LEFT));
+		batcher.flush();
+		assertEquals(ledWallMessage.getFunctionTetris(LEDWallMessage.ACTION_LEFT), queue.poll().getJson());
+		assertNull(queue.poll());
+
+		// the following moves wait for the end of the interval
+		long delay = batcher.getDelay();
+		assertTrue(delay > 0);
+		assertTrue(delay <= TetrisInputBatcher.DEFAULT_INTERVAL + 1);
+	}// firstMoveIsSentAtOnce
+
+
+	@Test
+	public void movesOfTheIntervalAreSentInOneMessage() {
+		batcher.setMovesSupported(true);
+		assertTrue(batcher.add(LEDWallMessage.ACTION_LEFT));
+		assertFalse(batcher.add(LEDWallMessage.ACTION_LEFT));
+		assertFalse(batcher.add(LEDWallMessage.ACTION_CLOCKWISE));
+		assertTrue(queue.isEmpty());
+		batcher.flush();
+		OutgoingMessage message = queue.poll();
+		assertEquals(LEDWallMessage.FUNC_TETRIS, message.getFunction());
+		assertTrue(message.getJson(), message.getJson().endsWith("\"2L,C\"}"));
+		assertNull(queue.poll());
+
+		// nothing to send
+		batcher.flush();
+		assertNull(queue.poll());
+	}// movesOfTheIntervalAreSentInOneMessage
+
+
+	@Test
+	public void oneMessagePerMoveWithoutServerSupport() {
+		String[] actions = { LEDWallMessage.ACTION_RIGHT, LEDWallMessage.ACTION_COUNTERCLOCKWISE,
+				LEDWallMessage.ACTION_RIGHT };
+		for (String action : actions) {
+			batcher.add(action);
+		}// for
+		batcher.flush();
+		for (String action : actions) {
+			assertEquals(ledWallMessage.getFunctionTetris(action), queue.poll().getJson());
+		}// for
+		assertNull(queue.poll());
+	}// oneMessagePerMoveWithoutServerSupport
+
+
+	@Test
+	public void noMoveIsLost() {
+		batcher.setMovesSupported(true);
+		// more moves than one message takes, the full message is sent at once
+		for (int i = 0; i < 33; i++) {
+			batcher.add(LEDWallMessage.ACTION_RIGHT);
+		}// for
+		assertTrue(queue.poll().getJson().endsWith("\"32R\"}"));
+		assertNull(queue.poll());
+		batcher.flush();
+		assertEquals(ledWallMessage.getFunctionTetris(LEDWallMessage.ACTION_RIGHT), queue.poll().getJson());
+	}// noMoveIsLost
+
+
+	@Test
+	public void clearForgetsTheMoves() {
+		batcher.add(LEDWallMessage.ACTION_LEFT);
+		batcher.clear();
+		batcher.flush();
+		assertTrue(queue.isEmpty());
+		assertTrue(batcher.add(LEDWallMessage.ACTION_RIGHT));
+	}// clearForgetsTheMoves
+
+}// class TetrisInputBatcherTest
@@ -0,0 +1,113 @@
+package de.torstenkohn.android.ledwall.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the runs and the keyframes of the DrawDeltaEncoder
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class DrawDeltaEncoderTest {
+
+	private final DrawDeltaEncoder encoder = new DrawDeltaEncoder();
+	private final int[] frame = new int[DrawFrameCodec.NUMBER_OF_LED];
+
+
+	@Test
+	public void firstFrameIsAKeyframe() {
+		assertEquals(DrawDeltaEncoder.KEYFRAME, encoder.diff(frame));
+		encoder.commit(frame);
+		assertEquals(0, encoder.diff(frame));
+	}// firstFrameIsAKeyframe
+
+
+	@Test
+	public void changedNeighboursOfOneColourAreOneRun() {
+		encoder.commit(frame);
+		frame[10] = 1;
+		frame[11] = 1;
+		frame[12] = 1;
+		// a different colour starts a new run
+		frame[13] = 2;
+		// an unchanged LED ends the run
+		frame[15] = 2;
+		frame[159] = 3;
+		assertEquals(4, encoder.diff(frame));
+		int[] expected = { 10, 3, 1, 13, 1, 2, 15, 1, 2, 159, 1, 3 };
+		int[] runs = new int[expected.length];
+		System.arraycopy(encoder.getRuns(), 0, runs, 0, runs.length);
+		assertArrayEquals(expected, runs);
+
+		// the runs are relative to the last committed frame
+		encoder.commit(frame);
+		frame[11] = 0;
+		assertEquals(1, encoder.diff(frame));
+		assertEquals(11, encoder.getRuns()[0]);
+		assertEquals(0, encoder.getRuns()[2]);
+	}// changedNeighboursOfOneColourAreOneRun
+
+
+	@Test
+	public void keyframeAboveTheThreshold() {
+		encoder.commit(frame);
+		// 25 % of 160 LEDs are 40 LEDs, every second LED is its own run
+		for (int i = 0; i < 80; i += 2) {
+			frame[i] = 1;
+		}// for
+		assertEquals(40, encoder.diff(frame));
+		frame[81] = 1;
+		assertEquals(DrawDeltaEncoder.KEYFRAME, encoder.diff(frame));
+
+		encoder.setKeyframeThreshold(0.5f);
+		assertEquals(41, encoder.diff(frame));
+		encoder.setKeyframeThreshold(0f);
+		frame[81] = 0;
+		assertEquals(DrawDeltaEncoder.KEYFRAME, encoder.diff(frame));
+	}// keyframeAboveTheThreshold
+
+
+	@Test
+	public void keyframeAfterReset() {
+		encoder.commit(frame);
+		encoder.reset();
+		assertEquals(DrawDeltaEncoder.KEYFRAME, encoder.diff(frame));
+		encoder.commit(frame);
+		assertEquals(0, encoder.diff(frame));
+		// a frame of another size cannot be compared
+		assertEquals(DrawDeltaEncoder.KEYFRAME, encoder.diff(new int[10]));
+		encoder.commit(new int[10]);
+		assertEquals(DrawDeltaEncoder.KEYFRAME, encoder.diff(frame));
+	}// keyframeAfterReset
+
+
+	@Test
+	public void binaryDeltaGivesTheNewFrame() {
+		Random random = new Random(13);
+		encoder.setKeyframeThreshold(1f);
+		int[] decoded = new int[frame.length];
+		ByteBuffer buffer = ByteBuffer.allocate(DrawFrameCodec.DELTA_MAX_SIZE);
+		encoder.commit(frame);
+		for (int n = 0; n < 100; n++) {
+			for (int i = random.nextInt(20); i < frame.length; i += 1 + random.nextInt(20)) {
+				frame[i] = random.nextInt(4);
+			}// for
+			int count = encoder.diff(frame);
+			buffer.clear();
+			DrawFrameCodec.encodeDelta(encoder.getRuns(), count, buffer);
+			buffer.flip();
+			assertEquals(DrawFrameCodec.MARKER_DRAW_DELTA, buffer.get());
+			DrawFrameCodec.decodeDelta(buffer, buffer.get() & 0xFF, decoded);
+			assertEquals(0, buffer.remaining());
+			assertArrayEquals(frame, decoded);
+			encoder.commit(frame);
+		}// for
+	}// binaryDeltaGivesTheNewFrame
+
+}// class DrawDeltaEncoderTest
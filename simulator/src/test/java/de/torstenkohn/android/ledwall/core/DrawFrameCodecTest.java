@@ -0,0 +1,84 @@
+package de.torstenkohn.android.ledwall.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the binary DRAW frame of the DrawFrameCodec
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class DrawFrameCodecTest {
+
+	@Test
+	public void frameHasFortyBytesOfData() {
+		assertEquals(40, DrawFrameCodec.DATA_SIZE);
+		assertEquals(41, DrawFrameCodec.FRAME_SIZE);
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		DrawFrameCodec.encode(new int[DrawFrameCodec.NUMBER_OF_LED], buffer);
+		assertEquals(DrawFrameCodec.FRAME_SIZE, buffer.position());
+		assertEquals(DrawFrameCodec.MARKER_DRAW, buffer.get(0));
+	}// frameHasFortyBytesOfData
+
+
+	@Test
+	public void firstLedIsInTheHighBits() {
+		int[] data = new int[DrawFrameCodec.NUMBER_OF_LED];
+		data[0] = 1;
+		data[1] = 2;
+		data[2] = 3;
+		data[3] = 0;
+		data[159] = 3;
+		ByteBuffer buffer = ByteBuffer.allocate(DrawFrameCodec.FRAME_SIZE);
+		DrawFrameCodec.encode(data, buffer);
+		// 01 10 11 00
+		assertEquals((byte) 0x6C, buffer.get(1));
+		assertEquals((byte) 0x03, buffer.get(DrawFrameCodec.DATA_SIZE));
+	}// firstLedIsInTheHighBits
+
+
+	@Test
+	public void randomFramesSurviveTheRoundTrip() {
+		Random random = new Random(11);
+		ByteBuffer buffer = ByteBuffer.allocate(DrawFrameCodec.FRAME_SIZE);
+		int[] data = new int[DrawFrameCodec.NUMBER_OF_LED];
+		int[] decoded = new int[data.length];
+		for (int n = 0; n < 100; n++) {
+			for (int i = 0; i < data.length; i++) {
+				data[i] = random.nextInt(4);
+			}// for
+			buffer.clear();
+			DrawFrameCodec.encode(data, buffer);
+			buffer.flip();
+			assertEquals(DrawFrameCodec.MARKER_DRAW, buffer.get());
+			DrawFrameCodec.decode(buffer, decoded);
+			assertEquals(0, buffer.remaining());
+			assertArrayEquals(data, decoded);
+		}// for
+	}// randomFramesSurviveTheRoundTrip
+
+
+	@Test
+	public void shortArrayIsFilledWithNone() {
+		ByteBuffer buffer = ByteBuffer.allocate(DrawFrameCodec.FRAME_SIZE);
+		// values above 3 keep only their two low bits
+		DrawFrameCodec.encode(new int[] { 3, 2, 1, 7 }, buffer);
+		buffer.flip();
+		buffer.get();
+		int[] decoded = new int[DrawFrameCodec.NUMBER_OF_LED];
+		DrawFrameCodec.decode(buffer, decoded);
+		int[] expected = new int[DrawFrameCodec.NUMBER_OF_LED];
+		expected[0] = 3;
+		expected[1] = 2;
+		expected[2] = 1;
+		expected[3] = 3;
+		assertArrayEquals(expected, decoded);
+	}// shortArrayIsFilledWithNone
+
+}// class DrawFrameCodecTest
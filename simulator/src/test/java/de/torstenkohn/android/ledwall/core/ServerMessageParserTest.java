@@ -0,0 +1,101 @@
+package de.torstenkohn.android.ledwall.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.torstenkohn.android.ledwall.util.TetrisGameState;
+
+/**
+ * Checks the values which the ServerMessageParser reads from the messages of the server
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class ServerMessageParserTest {
+
+	private static final String PUSH = "{\"function\":\"tetris\",\"gameState\":"
+			+ "{\"score\":120,\"level\":3,\"isRunning\":true,\"nextStone\":\"T\"}}";
+
+	private final ServerMessageParser parser = new ServerMessageParser();
+	private final TetrisGameState gameState = new TetrisGameState();
+
+
+	@Test
+	public void gameStateIsRead() {
+		assertTrue(parser.parse(PUSH, gameState));
+		assertEquals(LEDWallMessage.FUNC_TETRIS, parser.getFunction());
+		assertTrue(parser.hasGameState());
+		assertEquals(120, gameState.getScore());
+		assertEquals(3, gameState.getLevel());
+		assertTrue(gameState.isRunning());
+		assertEquals(TetrisGameState.STONE_T, gameState.getNextStone());
+		assertEquals(0, gameState.getCurrStone());
+
+		// the next push makes the T the current stone
+		assertTrue(parser.parse(PUSH.replace("\"T\"", "\"I\""), gameState));
+		assertEquals(TetrisGameState.STONE_T, gameState.getCurrStone());
+		assertEquals(TetrisGameState.STONE_I, gameState.getNextStone());
+	}// gameStateIsRead
+
+
+	@Test
+	public void incompleteGameStateIsIgnored() {
+		assertTrue(parser.parse("{\"function\":\"tetris\",\"gameState\":"
+				+ "{\"score\":5,\"level\":3,\"nextStone\":\"T\"}}", gameState));
+		assertEquals(LEDWallMessage.FUNC_TETRIS, parser.getFunction());
+		assertFalse(parser.hasGameState());
+		assertEquals(0, gameState.getScore());
+		assertEquals(0, gameState.getNextStone());
+
+		assertTrue(parser.parse("{\"function\":\"tetris\"}", gameState));
+		assertFalse(parser.hasGameState());
+	}// incompleteGameStateIsIgnored
+
+
+	@Test
+	public void invalidMessageDoesNotChangeTheGameState() {
+		assertTrue(parser.parse(PUSH, gameState));
+		String[] invalid = { PUSH + "x", PUSH + "}", PUSH.substring(0, PUSH.length() - 1),
+				PUSH.substring(0, PUSH.length() - 10), PUSH.replace("}}", "},}") };
+		for (String message : invalid) {
+			assertFalse(message, parser.parse(message, gameState));
+			assertEquals(message, 0, gameState.getCurrStone());
+			assertEquals(message, TetrisGameState.STONE_T, gameState.getNextStone());
+		}// for
+	}// invalidMessageDoesNotChangeTheGameState
+
+
+	@Test
+	public void connectFlagsAreRead() {
+		assertTrue(parser.parse(" { \"function\" : \"connect\" , \"status\" : \"success\" ,"
+				+ " \"encoding\" : \"binary\" , \"delta\" : true , \"moves\" : \"true\" } ", null));
+		assertEquals(LEDWallMessage.FUNC_CONNECT, parser.getFunction());
+		assertTrue(parser.isSuccess());
+		assertEquals(LEDWallMessage.ENCODING_BINARY, parser.getEncoding());
+		assertTrue(parser.isDelta());
+		assertTrue(parser.isMoves());
+
+		// the values of the previous message are not kept
+		assertTrue(parser.parse("{\"function\":\"connect\",\"status\":\"failure\",\"delta\":false,"
+				+ "\"unknown\":[1,{\"moves\":true}],\"text\":\"a\\\"b\"}", null));
+		assertFalse(parser.isSuccess());
+		assertEquals(LEDWallMessage.ENCODING_JSON, parser.getEncoding());
+		assertFalse(parser.isDelta());
+		assertFalse(parser.isMoves());
+	}// connectFlagsAreRead
+
+
+	@Test
+	public void unknownFunctionIsEmpty() {
+		assertTrue(parser.parse("{\"function\":\"drawing\"}", null));
+		assertEquals("", parser.getFunction());
+		assertTrue(parser.parse("{\"function\":\"\\u0064raw\"}", null));
+		assertEquals(LEDWallMessage.FUNC_DRAW, parser.getFunction());
+		assertFalse(parser.parse("", null));
+		assertFalse(parser.parse("[]", null));
+	}// unknownFunctionIsEmpty
+
+}// class ServerMessageParserTest
@@ -0,0 +1,180 @@
+package de.torstenkohn.android.ledwall.image;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.junit.Test;
+
+/**
+ * Decodes animated GIFs which are written by ImageIO and compares the frames<br/>
+ * with the images which were written
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class GifDecoderTest {
+
+	private static final int WIDTH = 37;
+	private static final int HEIGHT = 23;
+	private static final String METADATA_FORMAT = "javax_imageio_gif_image_1.0";
+
+	private final Random random = new Random(5);
+	private final int[] palette = new int[256];
+	private final IndexColorModel colorModel;
+
+
+	public GifDecoderTest() {
+		byte[] r = new byte[palette.length];
+		byte[] g = new byte[palette.length];
+		byte[] b = new byte[palette.length];
+		for (int i = 0; i < palette.length; i++) {
+			palette[i] = 0xFF000000 | random.nextInt(0x1000000);
+			r[i] = (byte) (palette[i] >> 16);
+			g[i] = (byte) (palette[i] >> 8);
+			b[i] = (byte) palette[i];
+		}// for
+		colorModel = new IndexColorModel(8, palette.length, r, g, b);
+	}// constructor
+
+
+	/**
+	 * The GIF with the frames which are written one after another
+	 */
+	private static class GifWriter {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final ImageOutputStream out;
+		private final ImageWriter writer;
+
+		private GifWriter() throws IOException {
+			out = ImageIO.createImageOutputStream(bytes);
+			writer = ImageIO.getImageWritersByFormatName("gif").next();
+			writer.setOutput(out);
+			writer.prepareWriteSequence(null);
+		}// constructor
+
+		/**
+		 * @param disposal of type String, e.g. none or restoreToBackgroundColor
+		 * @param transparent of type Integer, the transparent index, -1 -> none
+		 */
+		private void write(BufferedImage image, int x, int y, int delay, String disposal,
+				int transparent, boolean isInterlaced) throws IOException {
+			IIOMetadata metadata = writer.getDefaultImageMetadata(new ImageTypeSpecifier(image), null);
+			IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(METADATA_FORMAT);
+			IIOMetadataNode control = (IIOMetadataNode) root.getElementsByTagName("GraphicControlExtension")
+					.item(0);
+			control.setAttribute("disposalMethod", disposal);
+			control.setAttribute("delayTime", String.valueOf(delay / 10));
+			control.setAttribute("transparentColorFlag", String.valueOf(transparent >= 0));
+			control.setAttribute("transparentColorIndex", String.valueOf(Math.max(transparent, 0)));
+			IIOMetadataNode descriptor = (IIOMetadataNode) root.getElementsByTagName("ImageDescriptor")
+					.item(0);
+			descriptor.setAttribute("imageLeftPosition", String.valueOf(x));
+			descriptor.setAttribute("imageTopPosition", String.valueOf(y));
+			descriptor.setAttribute("interlaceFlag", String.valueOf(isInterlaced));
+			metadata.setFromTree(METADATA_FORMAT, root);
+			writer.writeToSequence(new IIOImage(image, null, metadata), null);
+		}// write
+
+		private byte[] finish() throws IOException {
+			writer.endWriteSequence();
+			out.close();
+			return bytes.toByteArray();
+		}// finish
+	}// class GifWriter
+
+
+	/**
+	 * @return of type BufferedImage, an image with random colours of the palette
+	 */
+	private BufferedImage image(int width, int height, int[] indices) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, colorModel);
+		for (int i = 0; i < width * height; i++) {
+			indices[i] = random.nextInt(palette.length);
+		}// for
+		image.getRaster().setPixels(0, 0, width, height, indices);
+		return image;
+	}// image
+
+
+	private static int[] pixels(PixelSource frame) {
+		int[] pixels = new int[frame.getWidth() * frame.getHeight()];
+		frame.getPixels(pixels, 0, frame.getHeight());
+		return pixels;
+	}// pixels
+
+
+	@Test
+	public void framesAreDrawnOntoTheCanvas() throws IOException {
+		GifWriter gif = new GifWriter();
+		int[] first = new int[WIDTH * HEIGHT];
+		gif.write(image(WIDTH, HEIGHT, first), 0, 0, 70, "none", -1, true);
+		// a frame which changes only a rectangle, index 0 is transparent
+		int[] second = new int[10 * 5];
+		gif.write(image(10, 5, second), 3, 4, 0, "restoreToBackgroundColor", 0, false);
+		int[] third = new int[2 * 2];
+		gif.write(image(2, 2, third), 0, 0, 250, "none", -1, false);
+
+		GifDecoder decoder = new GifDecoder(new ByteArrayInputStream(gif.finish()));
+		assertEquals(WIDTH, decoder.getWidth());
+		assertEquals(HEIGHT, decoder.getHeight());
+
+		int[] expected = new int[WIDTH * HEIGHT];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = palette[first[i]];
+		}// for
+		assertTrue(decoder.next());
+		assertEquals(70, decoder.getDelay());
+		assertArrayEquals(expected, pixels(decoder.getFrame()));
+
+		int[] beforeSecond = expected.clone();
+		for (int i = 0; i < second.length; i++) {
+			if (second[i] != 0) {
+				expected[(4 + i / 10) * WIDTH + 3 + i % 10] = palette[second[i]];
+			}// if
+		}// for
+		assertTrue(decoder.next());
+		assertEquals(GifDecoder.DEFAULT_DELAY, decoder.getDelay());
+		assertArrayEquals(expected, pixels(decoder.getFrame()));
+
+		// the rectangle of the second frame is removed before the third frame
+		expected = beforeSecond;
+		for (int y = 4; y < 9; y++) {
+			for (int x = 3; x < 13; x++) {
+				expected[y * WIDTH + x] = 0;
+			}// for
+		}// for
+		for (int i = 0; i < third.length; i++) {
+			expected[i / 2 * WIDTH + i % 2] = palette[third[i]];
+		}// for
+		assertTrue(decoder.next());
+		assertEquals(250, decoder.getDelay());
+		assertArrayEquals(expected, pixels(decoder.getFrame()));
+
+		assertFalse(decoder.next());
+		decoder.close();
+	}// framesAreDrawnOntoTheCanvas
+
+
+	@Test(expected = IOException.class)
+	public void otherFilesAreRejected() throws IOException {
+		new GifDecoder(new ByteArrayInputStream("PNG file".getBytes("US-ASCII")));
+	}// otherFilesAreRejected
+
+}// class GifDecoderTest
@@ -0,0 +1,162 @@
+package de.torstenkohn.android.ledwall.image;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.torstenkohn.android.ledwall.core.DrawFrameCodec;
+import de.torstenkohn.android.ledwall.image.ImageConverter.Dithering;
+
+/**
+ * Checks the downscale and the dithering of the ImageConverter
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class ImageConverterTest {
+
+	private final ImageConverter converter = new ImageConverter(4);
+
+
+	@After
+	public void shutdown() {
+		converter.shutdown();
+	}// shutdown
+
+
+	private static PixelSource image(int width, int height, int color) {
+		int[] pixels = new int[width * height];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = 0xFF000000 | color;
+		}// for
+		return new ArrayPixelSource(pixels, width, height);
+	}// image
+
+
+	@Test
+	public void threadsGiveTheSameColoursAsOneThread() throws InterruptedException {
+		Random random = new Random(3);
+		int[] pixels = new int[1000 * 701];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = random.nextInt();
+		}// for
+		PixelSource source = new ArrayPixelSource(pixels, 1000, 701);
+		int[] expected = new int[DrawFrameCodec.NUMBER_OF_LED];
+		int[] colors = new int[DrawFrameCodec.NUMBER_OF_LED];
+		new ImageConverter(1).downscale(source, expected);
+		converter.downscale(source, colors);
+		assertArrayEquals(expected, colors);
+	}// threadsGiveTheSameColoursAsOneThread
+
+
+	@Test
+	public void everyLedGetsTheAverageOfItsArea() throws InterruptedException {
+		// the left half red, the right half blue
+		int[] pixels = new int[20 * 32];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = i % 20 < 10 ? 0xFFFF0000 : 0xFF0000FF;
+		}// for
+		int[] colors = new int[DrawFrameCodec.NUMBER_OF_LED];
+		converter.downscale(new ArrayPixelSource(pixels, 20, 32), colors);
+		for (int i = 0; i < colors.length; i++) {
+			assertEquals(i % DrawFrameCodec.LEDWALL_WIDTH < 5 ? 0xFF0000 : 0x0000FF, colors[i]);
+		}// for
+	}// everyLedGetsTheAverageOfItsArea
+
+
+	@Test
+	public void imageSmallerThanTheWall() throws InterruptedException {
+		int[] matrix = new int[DrawFrameCodec.NUMBER_OF_LED];
+		converter.convert(image(3, 5, 0x00FF00), Dithering.NONE, matrix);
+		for (int i = 0; i < matrix.length; i++) {
+			assertEquals(2, matrix[i]);
+		}// for
+	}// imageSmallerThanTheWall
+
+
+	@Test
+	public void pureColoursAreNotDithered() {
+		int[] colors = new int[DrawFrameCodec.NUMBER_OF_LED];
+		int[] matrix = new int[colors.length];
+		int[] palette = { 0x000000, 0xFF0000, 0x00FF00, 0x0000FF };
+		for (Dithering dithering : Dithering.values()) {
+			for (int led = 0; led < palette.length; led++) {
+				for (int i = 0; i < colors.length; i++) {
+					colors[i] = palette[led];
+				}// for
+				ImageConverter.dither(colors, dithering, matrix);
+				for (int i = 0; i < matrix.length; i++) {
+					assertEquals(dithering + " " + led, led, matrix[i]);
+				}// for
+			}// for
+		}// for
+	}// pureColoursAreNotDithered
+
+
+	@Test
+	public void ditheringKeepsHalfBrightColours() {
+		// a dark red which NONE shows as none
+		int[] colors = new int[DrawFrameCodec.NUMBER_OF_LED];
+		int[] matrix = new int[colors.length];
+		for (int i = 0; i < colors.length; i++) {
+			colors[i] = 0x800000 - 0x010000;
+		}// for
+		ImageConverter.dither(colors, Dithering.NONE, matrix);
+		assertEquals(0, count(matrix, 1));
+		ImageConverter.dither(colors, Dithering.ORDERED, matrix);
+		assertTrue(count(matrix, 1) > colors.length / 4);
+		assertEquals(colors.length, count(matrix, 0) + count(matrix, 1));
+		ImageConverter.dither(colors, Dithering.FLOYD_STEINBERG, matrix);
+		// about every second LED is red
+		assertTrue(Math.abs(count(matrix, 1) - colors.length / 2) <= 4);
+		assertEquals(colors.length, count(matrix, 0) + count(matrix, 1));
+	}// ditheringKeepsHalfBrightColours
+
+
+	@Test
+	public void failedWorkerThrowsIllegalStateException() throws InterruptedException {
+		final RuntimeException error = new RuntimeException("broken image");
+		PixelSource source = new PixelSource() {
+
+			@Override
+			public int getWidth() {
+				return 100;
+			}// getWidth
+
+			@Override
+			public int getHeight() {
+				return 100;
+			}// getHeight
+
+			@Override
+			public void getPixels(int[] buffer, int y, int rows) {
+				throw error;
+			}// getPixels
+		};
+		try {
+			converter.downscale(source, new int[DrawFrameCodec.NUMBER_OF_LED]);
+			fail();
+		} catch (IllegalStateException e) {
+			assertSame(error, e.getCause());
+		}// try
+	}// failedWorkerThrowsIllegalStateException
+
+
+	private static int count(int[] matrix, int led) {
+		int count = 0;
+		for (int i = 0; i < matrix.length; i++) {
+			if (matrix[i] == led) {
+				count++;
+			}// if
+		}// for
+		return count;
+	}// count
+
+}// class ImageConverterTest
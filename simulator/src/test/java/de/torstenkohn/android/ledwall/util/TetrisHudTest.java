@@ -0,0 +1,109 @@
+package de.torstenkohn.android.ledwall.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import org.junit.Test;
+
+/**
+ * Checks the values which the TetrisHud passes to the Display
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class TetrisHudTest {
+
+	/**
+	 * Keeps the arrays like a TextView, which does not copy the characters of setText()
+	 */
+	private static class TextViews implements TetrisHud.Display {
+		private char[] score;
+		private int scoreLength;
+		private char[] level;
+		private int levelLength;
+		private int calls;
+
+		@Override
+		public void showRunning(boolean isRunning) {
+			calls++;
+		}// showRunning
+
+		@Override
+		public void showScore(char[] digits, int length) {
+			score = digits;
+			scoreLength = length;
+			calls++;
+		}// showScore
+
+		@Override
+		public void showLevel(char[] digits, int length) {
+			level = digits;
+			levelLength = length;
+			calls++;
+		}// showLevel
+
+		@Override
+		public void showNextStone(int stone) {
+			calls++;
+		}// showNextStone
+
+		@Override
+		public void showCurrStone(int stone) {
+			calls++;
+		}// showCurrStone
+
+		private String getScore() {
+			return new String(score, 0, scoreLength);
+		}// getScore
+
+		private String getLevel() {
+			return new String(level, 0, levelLength);
+		}// getLevel
+	}// class TextViews
+
+
+	@Test
+	public void scoreAndLevelKeepTheirText() {
+		TextViews views = new TextViews();
+		TetrisHud hud = new TetrisHud(views);
+		TetrisGameState state = new TetrisGameState();
+		state.update(12340, 7, true, TetrisGameState.STONE_T);
+		hud.update(state);
+		assertNotSame(views.score, views.level);
+		assertEquals("12340", views.getScore());
+		assertEquals("7", views.getLevel());
+
+		// only the level changes, the score view still shows its text
+		state.update(12340, 8, true, TetrisGameState.STONE_T);
+		hud.update(state);
+		assertEquals("12340", views.getScore());
+		assertEquals("8", views.getLevel());
+	}// scoreAndLevelKeepTheirText
+
+
+	@Test
+	public void onlyChangedValuesAreShown() {
+		TextViews views = new TextViews();
+		TetrisHud hud = new TetrisHud(views);
+		TetrisGameState state = new TetrisGameState();
+		// the second update makes the next stone the current stone
+		state.update(-5, Integer.MIN_VALUE, false, TetrisGameState.STONE_I);
+		state.update(-5, Integer.MIN_VALUE, false, TetrisGameState.STONE_I);
+		hud.update(state);
+		assertEquals(5, views.calls);
+		assertEquals("-5", views.getScore());
+		assertEquals(String.valueOf(Integer.MIN_VALUE), views.getLevel());
+
+		hud.update(state);
+		assertEquals(5, views.calls);
+		state.update(100, Integer.MIN_VALUE, false, TetrisGameState.STONE_I);
+		hud.update(state);
+		assertEquals(6, views.calls);
+		assertEquals("100", views.getScore());
+
+		hud.invalidate();
+		hud.update(state);
+		assertEquals(11, views.calls);
+	}// onlyChangedValuesAreShown
+
+}// class TetrisHudTest
@@ -0,0 +1,155 @@
+package de.torstenkohn.android.ledwall.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks the moves, the rotations and the full rows of the TetrisModel
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class TetrisModelTest {
+
+	private final TetrisModel model = new TetrisModel();
+	private final int[] frame = new int[TetrisModel.WIDTH * TetrisModel.HEIGHT];
+
+
+	/**
+	 * @return of type String, the row of the rendered board, X for every LED which is on
+	 */
+	private String row(int y) {
+		model.render(frame);
+		StringBuilder row = new StringBuilder(TetrisModel.WIDTH);
+		for (int x = 0; x < TetrisModel.WIDTH; x++) {
+			row.append(frame[y * TetrisModel.WIDTH + x] != 0 ? 'X' : '.');
+		}// for
+		return row.toString();
+	}// row
+
+
+	@Test
+	public void stoneMovesUpToTheBorder() {
+		assertTrue(model.spawn(TetrisGameState.STONE_I, TetrisGameState.STONE_O));
+		assertEquals(TetrisGameState.STONE_I, model.getStone());
+		assertEquals("...XXXX...", row(0));
+		int moves = 0;
+		while (model.move(-1)) {
+			moves++;
+		}// while
+		assertEquals(3, moves);
+		assertEquals("XXXX......", row(0));
+		assertTrue(model.step());
+		assertEquals("..........", row(0));
+		assertEquals("XXXX......", row(1));
+	}// stoneMovesUpToTheBorder
+
+
+	@Test
+	public void rotationAtTheBorderIsKicked() {
+		model.spawn(TetrisGameState.STONE_I, 0);
+		assertTrue(model.rotate(1));
+		assertTrue(model.step());
+		while (model.move(1)) {
+			// up to the right border
+		}// while
+		assertEquals(".........X", row(0));
+		assertEquals(".........X", row(3));
+
+		// horizontal the stone does not fit, it is moved to the left
+		assertTrue(model.rotate(-1));
+		assertEquals("......XXXX", row(1));
+	}// rotationAtTheBorderIsKicked
+
+
+	@Test
+	public void fourRotationsGiveTheStartPosition() {
+		int[] stones = { TetrisGameState.STONE_I, TetrisGameState.STONE_J, TetrisGameState.STONE_L,
+				TetrisGameState.STONE_O, TetrisGameState.STONE_S, TetrisGameState.STONE_T,
+				TetrisGameState.STONE_Z };
+		int[] start = new int[frame.length];
+		for (int stone : stones) {
+			model.reset();
+			model.spawn(stone, 0);
+			model.step();
+			model.step();
+			model.render(start);
+			for (int i = 0; i < 4; i++) {
+				assertTrue(model.rotate(1));
+			}// for
+			model.render(frame);
+			assertArrayEquals(start, frame);
+			assertTrue(model.rotate(1));
+			assertTrue(model.rotate(-1));
+			model.render(frame);
+			assertArrayEquals(start, frame);
+		}// for
+	}// fourRotationsGiveTheStartPosition
+
+
+	@Test
+	public void fullRowsAreRemoved() {
+		// five O stones side by side fill the two bottom rows
+		for (int dx = -4; dx <= 4; dx += 2) {
+			assertTrue(model.spawn(TetrisGameState.STONE_O, TetrisGameState.STONE_O));
+			for (int i = 0; i < Math.abs(dx); i++) {
+				assertTrue(model.move(Integer.signum(dx)));
+			}// for
+			model.drop();
+			assertFalse(model.hasStone());
+		}// for
+		assertEquals(2, model.getLines());
+		for (int y = 0; y < TetrisModel.HEIGHT; y++) {
+			assertEquals("..........", row(y));
+		}// for
+	}// fullRowsAreRemoved
+
+
+	@Test
+	public void gameIsOverWhenTheStoneHasNoSpace() {
+		for (int i = 0; i < TetrisModel.HEIGHT / 2; i++) {
+			assertTrue(model.spawn(TetrisGameState.STONE_O, TetrisGameState.STONE_O));
+			model.drop();
+		}// for
+		assertFalse(model.isGameOver());
+		assertFalse(model.spawnNext());
+		assertTrue(model.isGameOver());
+		assertFalse(model.hasStone());
+
+		model.reset();
+		assertFalse(model.isGameOver());
+		assertFalse(model.spawnNext());
+		assertEquals("..........", row(TetrisModel.HEIGHT - 1));
+	}// gameIsOverWhenTheStoneHasNoSpace
+
+
+	@Test
+	public void copyHasTheSameState() {
+		model.spawn(TetrisGameState.STONE_T, TetrisGameState.STONE_S);
+		model.move(1);
+		model.drop();
+		model.spawnNext();
+		model.rotate(1);
+		TetrisModel copy = new TetrisModel();
+		copy.copyFrom(model);
+		int[] copied = new int[frame.length];
+		model.render(frame);
+		copy.render(copied);
+		assertArrayEquals(frame, copied);
+		assertEquals(TetrisGameState.STONE_S, copy.getStone());
+
+		// the same moves give the same result
+		model.move(-1);
+		model.drop();
+		copy.move(-1);
+		copy.drop();
+		model.render(frame);
+		copy.render(copied);
+		assertArrayEquals(frame, copied);
+	}// copyHasTheSameState
+
+}// class TetrisModelTest
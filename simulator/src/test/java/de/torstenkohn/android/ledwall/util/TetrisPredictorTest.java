@@ -0,0 +1,248 @@
+package de.torstenkohn.android.ledwall.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Plays a game of the TetrisPredictor against a simulated server.<br/>
+ * The server applies the moves when they arrive, lets the stone fall with the same<br/>
+ * speed and sends a game state for every new stone. The moves are sent like the<br/>
+ * TetrisInputBatcher sends them: the first move after a pause at once,<br/>
+ * all moves within the following interval at its end.
+ *
+ * @author agent
+ * @since 17.10.2026
+ */
+public class TetrisPredictorTest {
+
+	/**
+	 * The time in ms from sending a move until it arrives at the server,<br/>
+	 * it is also the time from a game state of the server until it arrives at the phone
+	 */
+	private static final int NETWORK_DELAY = 37;
+
+	/**
+	 * The interval of the batcher in ms
+	 */
+	private static final int BATCH_INTERVAL = 50;
+
+	/**
+	 * Level 10, a stone falls by one row every 100 ms
+	 */
+	private static final int LEVEL = 10;
+	private static final int STEP_INTERVAL = 100;
+
+	private static final int[] STONES = { TetrisGameState.STONE_I, TetrisGameState.STONE_O,
+			TetrisGameState.STONE_T, TetrisGameState.STONE_L, TetrisGameState.STONE_S,
+			TetrisGameState.STONE_J, TetrisGameState.STONE_Z };
+
+
+	/**
+	 * The result of a simulated game
+	 */
+	private static class Game {
+		private final TetrisModel server = new TetrisModel();
+		private final TetrisPredictor predictor = new TetrisPredictor();
+		private int stones;
+	}// class Game
+
+
+	/**
+	 * Plays the game for the given time
+	 * @param isBatchDelayKnown of type boolean, false -> the predictor assumes every move is sent at once
+	 */
+	private static Game play(long seed, int duration, boolean isBatchDelayKnown) {
+		Random random = new Random(seed);
+		Game game = new Game();
+		game.predictor.setInputDelay(NETWORK_DELAY);
+		game.predictor.reset(0);
+
+		// the moves on their way to the server: arrival time and move
+		List<long[]> arriving = new ArrayList<long[]>();
+		// the game states on their way to the phone: arrival time and state
+		List<Object[]> states = new ArrayList<Object[]>();
+
+		TetrisGameState state = new TetrisGameState();
+		int stoneIndex = 0;
+		state.update(0, LEVEL, true, STONES[stoneIndex++ % STONES.length]);
+		state.update(0, LEVEL, true, STONES[stoneIndex++ % STONES.length]);
+		game.server.spawn(state.getCurrStone(), state.getNextStone());
+		states.add(new Object[] { Long.valueOf(NETWORK_DELAY), copy(state) });
+		long nextStep = STEP_INTERVAL;
+
+		long nextTap = 200;
+		long lastFlush = -BATCH_INTERVAL;
+		long pendingFlush = -1;
+		for (long now = 0; now < duration; now++) {
+			// the server: the moves which have arrived, then the step of the stone
+			while (!arriving.isEmpty() && arriving.get(0)[0] == now) {
+				apply(game.server, (int) arriving.remove(0)[1]);
+			}// while
+			if (now == nextStep) {
+				nextStep += STEP_INTERVAL;
+				if (!game.server.step()) {
+					if (!game.server.spawn(state.getNextStone(), STONES[stoneIndex % STONES.length])) {
+						break;
+					}// if
+					state.update(0, LEVEL, true, STONES[stoneIndex++ % STONES.length]);
+					states.add(new Object[] { Long.valueOf(now + NETWORK_DELAY), copy(state) });
+					game.stones++;
+				}// if
+			}// if
+
+			// the phone: the game states which have arrived, then the player and the batcher
+			while (!states.isEmpty() && ((Long) states.get(0)[0]).longValue() == now) {
+				game.predictor.reconcile((TetrisGameState) states.remove(0)[1], now);
+			}// while
+			if (now == pendingFlush) {
+				lastFlush = now;
+				pendingFlush = -1;
+			}// if
+			// the player stops one second before the end, so the server receives all moves
+			if (now == nextTap && now < duration - 1000) {
+				int move = random.nextInt(4);
+				long sendTime = pendingFlush;
+				if (sendTime < 0) {
+					sendTime = Math.max(now, lastFlush + BATCH_INTERVAL);
+					if (sendTime == now) {
+						// the first move after a pause is sent at once
+						lastFlush = now;
+					} else {
+						pendingFlush = sendTime;
+					}// if
+				}// if
+				arriving.add(new long[] { sendTime + NETWORK_DELAY, move });
+				if (isBatchDelayKnown) {
+					game.predictor.input(move, now, sendTime - now);
+				} else {
+					game.predictor.input(move, now);
+				}// if
+				// several fast taps, then a pause
+				nextTap = now + (random.nextInt(4) == 0 ? 150 + random.nextInt(400) : 8 + random.nextInt(30));
+			}// if
+			game.predictor.tick(now);
+		}// for
+		return game;
+	}// play
+
+
+	private static TetrisGameState copy(TetrisGameState state) {
+		TetrisGameState copy = new TetrisGameState();
+		copy.copyFrom(state);
+		return copy;
+	}// copy
+
+
+	private static void apply(TetrisModel model, int move) {
+		switch (move) {
+		case TetrisPredictor.MOVE_LEFT:
+			model.move(-1);
+			break;
+		case TetrisPredictor.MOVE_RIGHT:
+			model.move(1);
+			break;
+		case TetrisPredictor.MOVE_CLOCKWISE:
+			model.rotate(1);
+			break;
+		default:
+			model.rotate(-1);
+			break;
+		}// switch
+	}// apply
+
+
+	/**
+	 * @return of type boolean, true -> the predicted board is the board of the server
+	 */
+	private static boolean isPredictionEqual(Game game) {
+		int[] server = new int[TetrisModel.WIDTH * TetrisModel.HEIGHT];
+		int[] predicted = new int[server.length];
+		game.server.render(server);
+		game.predictor.render(predicted);
+		return Arrays.equals(server, predicted);
+	}// isPredictionEqual
+
+
+	/**
+	 * @return of type String, the first row of the predicted board, X for every LED which is on
+	 */
+	private static String firstRow(TetrisPredictor predictor) {
+		int[] frame = new int[TetrisModel.WIDTH * TetrisModel.HEIGHT];
+		predictor.render(frame);
+		StringBuilder row = new StringBuilder(TetrisModel.WIDTH);
+		for (int x = 0; x < TetrisModel.WIDTH; x++) {
+			row.append(frame[x] != 0 ? 'X' : '.');
+		}// for
+		return row.toString();
+	}// firstRow
+
+
+	@Test
+	public void movesAreShownAtOnce() {
+		TetrisPredictor predictor = new TetrisPredictor();
+		predictor.reset(0);
+		TetrisGameState state = new TetrisGameState();
+		state.update(0, 1, true, TetrisGameState.STONE_I);
+		state.update(0, 1, true, TetrisGameState.STONE_O);
+		predictor.reconcile(state, 10);
+		assertEquals("...XXXX...", firstRow(predictor));
+
+		assertTrue(predictor.input(TetrisPredictor.MOVE_RIGHT, 20, 50));
+		assertEquals("....XXXX..", firstRow(predictor));
+		assertTrue(predictor.input(TetrisPredictor.MOVE_RIGHT, 30, 40));
+		assertTrue(predictor.input(TetrisPredictor.MOVE_RIGHT, 40, 30));
+		assertFalse(predictor.input(TetrisPredictor.MOVE_RIGHT, 50, 20));
+		assertEquals("......XXXX", firstRow(predictor));
+	}// movesAreShownAtOnce
+
+
+	@Test
+	public void manyMovesOfOneStone() {
+		TetrisPredictor predictor = new TetrisPredictor();
+		predictor.reset(0);
+		TetrisGameState state = new TetrisGameState();
+		state.update(0, 1, true, TetrisGameState.STONE_I);
+		state.update(0, 1, true, TetrisGameState.STONE_O);
+		predictor.reconcile(state, 0);
+		// more moves than the predictor keeps before the stone falls by one row
+		for (int i = 0; i < 200; i++) {
+			predictor.input(i % 2 == 0 ? TetrisPredictor.MOVE_LEFT : TetrisPredictor.MOVE_RIGHT, i + 1);
+		}// for
+		predictor.input(TetrisPredictor.MOVE_LEFT, 201);
+		assertEquals("..XXXX....", firstRow(predictor));
+		assertEquals(1, predictor.getCorrections());
+	}// manyMovesOfOneStone
+
+
+	@Test
+	public void predictionMatchesServer() {
+		for (long seed = 1; seed <= 50; seed++) {
+			Game game = play(seed, 6000, true);
+			assertTrue("seed " + seed, game.stones > 1);
+			assertTrue("seed " + seed, isPredictionEqual(game));
+		}// for
+	}// predictionMatchesServer
+
+
+	@Test
+	public void unknownBatchDelayLosesMoves() {
+		// the predictor counts moves as received which are still in the batcher,
+		// so a move which the server applies to the next stone is dropped
+		int differences = 0;
+		for (long seed = 1; seed <= 50; seed++) {
+			if (!isPredictionEqual(play(seed, 6000, false))) {
+				differences++;
+			}// if
+		}// for
+		assertTrue(differences > 0);
+	}// unknownBatchDelayLosesMoves
+
+}// class TetrisPredictorTest
@@ -0,0 +1,115 @@
+package de.torstenkohn.android.ledwall.view;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks the position of the LEDs, the invalidated rectangles and the LEDs inside the clip.<br/>
+ * The field of 10x16 LEDs is laid out in 220x330 pixels with a padding of 5 pixels,<br/>
+ * so a LED has 20 pixels and the field starts at 10/5.
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class LEDMatrixGeometryTest {
+
+	/**
+	 * Notes the drawn LEDs as x, y and value
+	 */
+	private static class RecordingPainter implements LEDMatrixGeometry.CellPainter {
+		private final List<int[]> cells = new ArrayList<int[]>();
+
+		@Override
+		public void drawCell(int x, int y, int value) {
+			cells.add(new int[] { x, y, value });
+		}// drawCell
+	}// class RecordingPainter
+
+
+	private static LEDMatrixGeometry layout() {
+		LEDMatrixGeometry geometry = new LEDMatrixGeometry(10, 16);
+		geometry.layout(5, 5, 220, 330);
+		return geometry;
+	}// layout
+
+
+	@Test
+	public void cellsAreCentered() {
+		LEDMatrixGeometry geometry = layout();
+		assertEquals(20, geometry.getCellSize());
+		int[] rect = new int[4];
+		geometry.getCellRect(0, rect);
+		assertArrayEquals(new int[] { 15, 10, 35, 30 }, rect);
+		geometry.getCellRect(159, rect);
+		assertArrayEquals(new int[] { 195, 310, 215, 330 }, rect);
+	}// cellsAreCentered
+
+
+	@Test
+	public void indexOfTouch() {
+		LEDMatrixGeometry geometry = layout();
+		assertEquals(0, geometry.getIndex(15, 10));
+		assertEquals(11, geometry.getIndex(40, 34));
+		assertEquals(-1, geometry.getIndex(14, 10));
+		assertEquals(-1, geometry.getIndex(215, 10));
+		assertEquals(-1, geometry.getIndex(15, 330));
+		// outside of the field the nearest LED at its border
+		assertEquals(0, geometry.getNearestIndex(-50, -50));
+		assertEquals(9, geometry.getNearestIndex(500, 12));
+		assertEquals(159, geometry.getNearestIndex(500, 500));
+	}// indexOfTouch
+
+
+	@Test
+	public void noIndexBeforeLayout() {
+		LEDMatrixGeometry geometry = new LEDMatrixGeometry(10, 16);
+		assertEquals(-1, geometry.getIndex(15, 10));
+		assertEquals(-1, geometry.getNearestIndex(15, 10));
+		assertEquals(0, geometry.draw(new int[160], 0, 0, 100, 100, new RecordingPainter()));
+	}// noIndexBeforeLayout
+
+
+	@Test
+	public void updateInvalidatesTheChangedLEDs() {
+		LEDMatrixGeometry geometry = layout();
+		int[] values = new int[160];
+		int[] newValues = new int[160];
+		int[] rect = new int[4];
+		assertFalse(geometry.update(values, newValues, rect));
+
+		newValues[12] = 1;
+		newValues[3 * 10 + 5] = 3;
+		assertTrue(geometry.update(values, newValues, rect));
+		assertArrayEquals(newValues, values);
+		// columns 2 to 5, rows 1 to 3
+		assertArrayEquals(new int[] { 55, 30, 135, 90 }, rect);
+	}// updateInvalidatesTheChangedLEDs
+
+
+	@Test
+	public void drawOnlyTheLEDsInsideTheClip() {
+		LEDMatrixGeometry geometry = layout();
+		int[] values = new int[160];
+		values[11] = 2;
+		values[12] = 7;
+		RecordingPainter painter = new RecordingPainter();
+		// the clip of LED 11 and a part of LED 12
+		assertEquals(2, geometry.draw(values, 35, 30, 56, 50, painter));
+		assertEquals(2, painter.cells.size());
+		assertArrayEquals(new int[] { 35, 30, 2 }, painter.cells.get(0));
+		// only the two bits of the colour
+		assertArrayEquals(new int[] { 55, 30, 3 }, painter.cells.get(1));
+
+		painter.cells.clear();
+		assertEquals(160, geometry.draw(values, 0, 0, 230, 340, painter));
+		assertEquals(160, painter.cells.size());
+	}// drawOnlyTheLEDsInsideTheClip
+
+}// class LEDMatrixGeometryTest